@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.core.it;
+
+import static apoc.export.util.ExportUtils.shardFileName;
+import static apoc.util.TestContainerUtil.createEnterpriseDB;
+import static apoc.util.TestContainerUtil.importFolder;
+import static apoc.util.TestContainerUtil.testCall;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.configuration.GraphDatabaseSettings.SYSTEM_DATABASE_NAME;
+import static org.neo4j.driver.SessionConfig.forDatabase;
+
+import apoc.util.Neo4jContainerExtension;
+import apoc.util.TestContainerUtil;
+import apoc.util.TestUtil;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Session;
+
+/**
+ * The exports that read the database from other threads must only see what the calling user can see
+ */
+public class ExportSecurityEnterpriseTest {
+    private static final String RESTRICTED_USER = "restricted";
+    private static final String RESTRICTED_PWD = "test1234";
+
+    private static Neo4jContainerExtension neo4jContainer;
+    private static Session session;
+
+    @BeforeClass
+    public static void beforeAll() {
+        neo4jContainer = createEnterpriseDB(List.of(TestContainerUtil.ApocPackage.CORE), !TestUtil.isRunningInCI());
+        neo4jContainer.start();
+        session = neo4jContainer.getSession();
+
+        try (Session sysSession = neo4jContainer.getDriver().session(forDatabase(SYSTEM_DATABASE_NAME))) {
+            sysSession.run(String.format(
+                    "CREATE USER %s SET PASSWORD '%s' SET PASSWORD CHANGE NOT REQUIRED",
+                    RESTRICTED_USER, RESTRICTED_PWD));
+            sysSession.run("CREATE ROLE restricted_reader");
+            sysSession.run("GRANT ACCESS ON DATABASE neo4j TO restricted_reader");
+            sysSession.run("GRANT MATCH {*} ON GRAPH neo4j TO restricted_reader");
+            sysSession.run("DENY TRAVERSE ON GRAPH neo4j NODES Secret TO restricted_reader");
+            sysSession.run("DENY READ {secret} ON GRAPH neo4j NODES Public TO restricted_reader");
+            sysSession.run(String.format("GRANT ROLE restricted_reader TO %s", RESTRICTED_USER));
+        }
+        session.writeTransaction(tx -> tx.run("CREATE (:Public {name: 'visible', secret: 'hidden-property'})"
+                + "-[:KNOWS]->(:Secret {name: 'hidden-node'})"));
+    }
+
+    @AfterClass
+    public static void afterAll() {
+        session.close();
+        neo4jContainer.close();
+    }
+
+    @Test
+    public void testShardedExportWithRestrictedUser() throws IOException {
+        try (Driver userDriver = GraphDatabase.driver(
+                        neo4jContainer.getBoltUrl(), AuthTokens.basic(RESTRICTED_USER, RESTRICTED_PWD));
+                Session userSession = userDriver.session()) {
+            testCall(
+                    userSession,
+                    "CALL apoc.export.csv.all('restricted.csv', {shards: 2})",
+                    Map.of(),
+                    r -> {
+                        assertEquals(1L, r.get("nodes"));
+                        assertEquals(0L, r.get("relationships"));
+                    });
+        }
+
+        StringBuilder exported = new StringBuilder();
+        for (int shard = 0; shard < 2; shard++) {
+            File file = new File(importFolder, shardFileName("restricted.csv", shard));
+            exported.append(FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+        }
+        assertTrue(exported.toString().contains("visible"));
+        assertFalse(exported.toString().contains("hidden-property"));
+        assertFalse(exported.toString().contains("hidden-node"));
+    }
+
+    @Test
+    public void testColumnarArrowExportWithRestrictedUser() throws IOException {
+        try (Driver userDriver = GraphDatabase.driver(
+                        neo4jContainer.getBoltUrl(), AuthTokens.basic(RESTRICTED_USER, RESTRICTED_PWD));
+                Session userSession = userDriver.session()) {
+            testCall(
+                    userSession,
+                    "CALL apoc.export.arrow.all('restricted.arrow', {columnar: true})",
+                    Map.of(),
+                    r -> {
+                        assertEquals(1L, r.get("nodes"));
+                        assertEquals(0L, r.get("relationships"));
+                    });
+        }
+
+        // the strings of the columns and of the dictionaries are stored as utf-8
+        String exported =
+                FileUtils.readFileToString(new File(importFolder, "restricted.arrow"), StandardCharsets.UTF_8);
+        assertTrue(exported.contains("visible"));
+        assertFalse(exported.contains("hidden-property"));
+        assertFalse(exported.contains("hidden-node"));
+    }
+}
@@ -0,0 +1,42 @@
+package apoc.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+import org.neo4j.procedure.TerminationGuard;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Streams 1M elements from a producer thread, comparing the per-element handoff
+ * (chunkSize: 1, i.e. the former implementation) with the chunked one
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class QueueBasedSpliteratorBenchmarks {
+    private static final Long TOMBSTONE = -1L;
+    private static final int ELEMENTS = 1_000_000;
+    private static final TerminationGuard NEVER_TERMINATED = () -> {};
+
+    @Param({"1", "64", "256", "1024"})
+    public int chunkSize;
+
+    @Param({"100", "1000", "100000"})
+    public int queueCapacity;
+
+    @Benchmark
+    public void stream(Blackhole blackhole) {
+        BlockingQueue<Long> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Thread producer = new Thread(() -> {
+            for (long i = 0; i < ELEMENTS; i++) {
+                QueueUtil.put(queue, i, 10);
+            }
+            QueueUtil.put(queue, TOMBSTONE, 10);
+        });
+        producer.start();
+        StreamSupport.stream(new QueueBasedSpliterator<>(queue, TOMBSTONE, NEVER_TERMINATED, 10, chunkSize), false)
+                .forEach(blackhole::consume);
+    }
+}
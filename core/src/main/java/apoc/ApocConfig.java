@@ -82,10 +82,13 @@ public class ApocConfig extends LifecycleAdapter {
     public static final String APOC_TTL_SCHEDULE_DB = "apoc.ttl.schedule.%s";
     public static final String APOC_TTL_ENABLED_DB = "apoc.ttl.enabled.%s";
     public static final String APOC_TTL_LIMIT_DB = "apoc.ttl.limit.%s";
+    public static final String APOC_TTL_CONCURRENCY = "apoc.ttl.concurrency";
+    public static final String APOC_TTL_CONCURRENCY_DB = "apoc.ttl.concurrency.%s";
     public static final String APOC_TRIGGER_ENABLED = "apoc.trigger.enabled";
     public static final String APOC_UUID_ENABLED = "apoc.uuid.enabled";
     public static final String APOC_UUID_ENABLED_DB = "apoc.uuid.enabled.%s";
     public static final String APOC_UUID_FORMAT = "apoc.uuid.format";
+    public static final String APOC_UUID_GENERATOR = "apoc.uuid.generator";
     public static final String APOC_OPENAI_KEY = "apoc.openai.key";
 
     public enum UuidFormatType {
@@ -93,6 +96,12 @@ public class ApocConfig extends LifecycleAdapter {
         base64
     }
 
+    public enum UuidGeneratorType {
+        random,
+        fast,
+        timeOrdered
+    }
+
     public static final String APOC_JSON_ZIP_URL = "apoc.json.zip.url"; // TODO: check if really needed
     public static final String APOC_JSON_SIMPLE_JSON_URL = "apoc.json.simpleJson.url"; // TODO: check if really needed
     public static final String APOC_IMPORT_FILE_ALLOW__READ__FROM__FILESYSTEM =
@@ -92,6 +92,10 @@ public class ApocSettings implements SettingsDeclaration {
     public static final Setting<Long> apoc_ttl_limit =
             newBuilder(APOC_TTL_LIMIT, LONG, 1000L).build();
 
+    @Description("maximum number of parallel workers deleting the expired nodes")
+    public static final Setting<Integer> apoc_ttl_concurrency =
+            newBuilder(APOC_TTL_CONCURRENCY, INT, 1).build();
+
     public static final Setting<Boolean> apoc_trigger_enabled =
             newBuilder(APOC_TRIGGER_ENABLED, BOOL, false).build();
 
@@ -19,9 +19,12 @@
 package apoc;
 
 import apoc.cypher.CypherInitializer;
+import apoc.meta.MetaModelCache;
+import apoc.stats.DegreeHistograms;
 import apoc.trigger.TriggerHandler;
+import apoc.warmup.WarmupInitializer;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import org.neo4j.annotations.service.ServiceProvider;
 import org.neo4j.kernel.availability.AvailabilityListener;
@@ -33,7 +36,7 @@ public class CoreApocGlobalComponents implements ApocGlobalComponents {
 
     @Override
     public Map<String, Lifecycle> getServices(GraphDatabaseAPI db, ApocExtensionFactory.Dependencies dependencies) {
-        return Collections.singletonMap(
+        return Map.of(
                 "trigger",
                 new TriggerHandler(
                         db,
@@ -41,21 +44,33 @@ public class CoreApocGlobalComponents implements ApocGlobalComponents {
                         dependencies.apocConfig(),
                         dependencies.log().getUserLog(TriggerHandler.class),
                         dependencies.pools(),
-                        dependencies.scheduler()));
+                        dependencies.scheduler()),
+                "metaModelCache",
+                new MetaModelCache(
+                        db,
+                        dependencies.databaseManagementService(),
+                        dependencies.log().getUserLog(MetaModelCache.class)),
+                "degreeHistograms",
+                new DegreeHistograms(
+                        db,
+                        dependencies.databaseManagementService(),
+                        dependencies.log().getUserLog(DegreeHistograms.class)));
     }
 
     @Override
     public Collection<Class> getContextClasses() {
-        return Collections.singleton(TriggerHandler.class);
+        return List.of(TriggerHandler.class, MetaModelCache.class, DegreeHistograms.class);
     }
 
     @Override
     public Iterable<AvailabilityListener> getListeners(
             GraphDatabaseAPI db, ApocExtensionFactory.Dependencies dependencies) {
-        return Collections.singleton(new CypherInitializer(
-                db,
-                dependencies.log().getUserLog(CypherInitializer.class),
-                dependencies.databaseManagementService(),
-                dependencies.databaseEventListeners()));
+        return List.of(
+                new CypherInitializer(
+                        db,
+                        dependencies.log().getUserLog(CypherInitializer.class),
+                        dependencies.databaseManagementService(),
+                        dependencies.databaseEventListeners()),
+                new WarmupInitializer(db, dependencies.log().getUserLog(WarmupInitializer.class)));
     }
 }
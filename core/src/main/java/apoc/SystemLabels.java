@@ -29,5 +29,7 @@ public enum SystemLabels implements Label {
     ApocUuidMeta,
     ApocTriggerMeta,
     ApocTrigger,
+    ApocPeriodicCheckpoint,
+    ApocWarmupProfile,
     DataVirtualizationCatalog
 }
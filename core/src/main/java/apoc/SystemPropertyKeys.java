@@ -46,5 +46,12 @@ public enum SystemPropertyKeys {
     label,
     addToSetLabel,
     addToExistingNodes,
-    propertyName;
+    propertyName,
+
+    // periodic iterate checkpoints
+    action,
+    config,
+    committed,
+    cursor,
+    done;
 }
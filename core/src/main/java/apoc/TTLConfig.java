@@ -25,6 +25,7 @@ import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 public class TTLConfig extends LifecycleAdapter {
     private final ApocConfig apocConfig;
     public static final int DEFAULT_SCHEDULE = 60;
+    public static final int DEFAULT_CONCURRENCY = 1;
 
     public TTLConfig(ApocConfig apocConfig, GlobalProcedures globalProceduresRegistry) {
         this.apocConfig = apocConfig;
@@ -36,6 +37,7 @@ public class TTLConfig extends LifecycleAdapter {
         String apocTTLEnabledDb = String.format(ApocConfig.APOC_TTL_ENABLED_DB, db.databaseName());
         String apocTTLScheduleDb = String.format(ApocConfig.APOC_TTL_SCHEDULE_DB, db.databaseName());
         String apocTTLLimitDb = String.format(ApocConfig.APOC_TTL_LIMIT_DB, db.databaseName());
+        String apocTTLConcurrencyDb = String.format(ApocConfig.APOC_TTL_CONCURRENCY_DB, db.databaseName());
         boolean enabled = apocConfig.getBoolean(ApocConfig.APOC_TTL_ENABLED);
         boolean dbEnabled = apocConfig.getBoolean(apocTTLEnabledDb, enabled);
 
@@ -44,8 +46,10 @@ public class TTLConfig extends LifecycleAdapter {
             long ttlScheduleDb = apocConfig.getInt(apocTTLScheduleDb, (int) ttlSchedule);
             long limit = apocConfig.getInt(ApocConfig.APOC_TTL_LIMIT, 1000);
             long limitDb = apocConfig.getInt(apocTTLLimitDb, (int) limit);
+            int concurrency = apocConfig.getInt(ApocConfig.APOC_TTL_CONCURRENCY, DEFAULT_CONCURRENCY);
+            int concurrencyDb = apocConfig.getInt(apocTTLConcurrencyDb, concurrency);
 
-            return new Values(true, ttlScheduleDb, limitDb);
+            return new Values(true, ttlScheduleDb, limitDb, Math.max(1, concurrencyDb));
         }
 
         return new Values(false, -1, -1);
@@ -55,16 +59,23 @@ public class TTLConfig extends LifecycleAdapter {
         public final boolean enabled;
         public final long schedule;
         public final long limit;
+        public final int concurrency;
 
         public Values(boolean enabled, long schedule, long limit) {
+            this(enabled, schedule, limit, DEFAULT_CONCURRENCY);
+        }
+
+        public Values(boolean enabled, long schedule, long limit, int concurrency) {
             this.enabled = enabled;
             this.schedule = schedule;
             this.limit = limit;
+            this.concurrency = concurrency;
         }
 
         @Override
         public String toString() {
-            return "Values{" + "enabled=" + enabled + ", schedule=" + schedule + ", limit=" + limit + '}';
+            return "Values{" + "enabled=" + enabled + ", schedule=" + schedule + ", limit=" + limit + ", concurrency="
+                    + concurrency + '}';
         }
     }
 }
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.agg;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Node;
+
+/**
+ * A HyperLogLog sketch, estimating the number of distinct values with a standard error
+ * of about 1.04 / sqrt(2^precision) in 2^precision bytes, whatever the number of values.
+ *
+ * Two sketches can be merged, also with different precisions, into the sketch of the union of their values,
+ * so the sketches can be stored as a byte array property and rolled up later.
+ * The values are hashed with murmur3, which doesn't change between the runs, so that stored sketches stay mergeable.
+ */
+public class HyperLogLog {
+    public static final int DEFAULT_PRECISION = 12;
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+
+    static final byte TYPE = 'H';
+    private static final byte VERSION = 1;
+    private static final byte DENSE = 0;
+    private static final byte SPARSE = 1;
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(String.format(
+                    "The HyperLogLog precision must be between %d and %d, but was %d",
+                    MIN_PRECISION, MAX_PRECISION, precision));
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public void add(Object value) {
+        if (value != null) {
+            addHash(hash(value));
+        }
+    }
+
+    void addHash(long hash) {
+        int index = (int) (hash >>> (Long.SIZE - precision));
+        // the guard bit bounds the rank when all the remaining bits are 0
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (registers[index] < rank) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Equal values for Cypher, like 1 and 1.0, have the same hash
+     */
+    static long hash(Object value) {
+        Hasher hasher = HASH.newHasher();
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            double doubleValue = number.doubleValue();
+            if (number instanceof Double || number instanceof Float) {
+                if (doubleValue == Math.rint(doubleValue) && Math.abs(doubleValue) < 0x1p63) {
+                    hasher.putByte((byte) 'l').putLong((long) doubleValue);
+                } else {
+                    hasher.putByte((byte) 'd').putDouble(doubleValue);
+                }
+            } else {
+                hasher.putByte((byte) 'l').putLong(number.longValue());
+            }
+        } else if (value instanceof String) {
+            hasher.putByte((byte) 's').putString((String) value, StandardCharsets.UTF_8);
+        } else if (value instanceof Boolean) {
+            hasher.putByte((byte) 'b').putBoolean((Boolean) value);
+        } else if (value instanceof Entity) {
+            hasher.putByte((byte) (value instanceof Node ? 'n' : 'r')).putLong(((Entity) value).getId());
+        } else {
+            hasher.putByte((byte) 'o').putString(String.valueOf(value), StandardCharsets.UTF_8);
+        }
+        return hasher.hash().asLong();
+    }
+
+    /**
+     * Adds the values of the other sketch, if it has a higher precision it's folded into this one
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision < precision) {
+            throw new IllegalArgumentException("Cannot merge a HyperLogLog sketch with precision " + other.precision
+                    + " into one with the higher precision " + precision + ", use the lower precision instead");
+        }
+        int shift = other.precision - precision;
+        for (int i = 0; i < other.registers.length; i++) {
+            byte rank = other.registers[i];
+            if (rank == 0) continue;
+            int index = i >>> shift;
+            // the index bits dropped by the lower precision become the leading bits of the remaining hash
+            int dropped = i & ((1 << shift) - 1);
+            byte foldedRank = dropped == 0
+                    ? (byte) (rank + shift)
+                    : (byte) (Integer.numberOfLeadingZeros(dropped) - (32 - shift) + 1);
+            if (registers[index] < foldedRank) {
+                registers[index] = foldedRank;
+            }
+        }
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte rank : registers) {
+            sum += 1.0 / (1L << rank);
+            if (rank == 0) zeros++;
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // linear counting is more accurate for small cardinalities
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    /**
+     * Small sketches are stored as (index, rank) pairs of the non empty registers
+     */
+    public byte[] toBytes() {
+        int nonEmpty = 0;
+        for (byte rank : registers) {
+            if (rank != 0) nonEmpty++;
+        }
+        boolean sparse = nonEmpty * 5 < registers.length;
+        ByteBuffer buffer = ByteBuffer.allocate(4 + (sparse ? 4 + nonEmpty * 5 : registers.length));
+        buffer.put(TYPE).put(VERSION).put((byte) precision).put(sparse ? SPARSE : DENSE);
+        if (sparse) {
+            buffer.putInt(nonEmpty);
+            for (int i = 0; i < registers.length; i++) {
+                if (registers[i] != 0) {
+                    buffer.putInt(i).put(registers[i]);
+                }
+            }
+        } else {
+            buffer.put(registers);
+        }
+        return buffer.array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            if (buffer.get() != TYPE || buffer.get() != VERSION) {
+                throw new IllegalArgumentException("The value is not a HyperLogLog sketch");
+            }
+            HyperLogLog sketch = new HyperLogLog(buffer.get());
+            if (buffer.get() == SPARSE) {
+                int nonEmpty = buffer.getInt();
+                for (int i = 0; i < nonEmpty; i++) {
+                    sketch.registers[buffer.getInt()] = buffer.get();
+                }
+            } else {
+                buffer.get(sketch.registers);
+            }
+            return sketch;
+        } catch (RuntimeException e) {
+            if (e instanceof IllegalArgumentException) throw e;
+            throw new IllegalArgumentException("The value is not a valid HyperLogLog sketch", e);
+        }
+    }
+}
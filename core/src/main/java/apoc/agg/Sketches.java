@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.agg;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.neo4j.procedure.*;
+
+/**
+ * Approximate aggregations returning compact sketches, which can be stored as byte array properties,
+ * merged later on (e.g. daily sketches rolled up to a month) and queried without rescanning the values:
+ * <ul>
+ *     <li>{@link HyperLogLog} for the number of distinct values, instead of a `count(DISTINCT value)`</li>
+ *     <li>{@link TDigest} for the quantiles, instead of the full histogram of `apoc.agg.percentiles`</li>
+ * </ul>
+ */
+public class Sketches {
+
+    @UserAggregationFunction("apoc.agg.hll")
+    @Description(
+            "apoc.agg.hll(value, precision = 12) - returns a HyperLogLog sketch of the distinct non-null values, to be read with apoc.agg.hllCount and merged with apoc.agg.hllMerge")
+    public HllFunction hll() {
+        return new HllFunction();
+    }
+
+    @UserAggregationFunction("apoc.agg.hllMerge")
+    @Description(
+            "apoc.agg.hllMerge(sketch) - merges HyperLogLog sketches into the sketch of the union of their values, with the lowest of their precisions")
+    public HllMergeFunction hllMerge() {
+        return new HllMergeFunction();
+    }
+
+    @UserFunction("apoc.agg.hllCount")
+    @Description("apoc.agg.hllCount(sketch) - returns the estimated number of distinct values of a HyperLogLog sketch")
+    public Long hllCount(@Name("sketch") byte[] sketch) {
+        return sketch == null ? null : HyperLogLog.fromBytes(sketch).estimate();
+    }
+
+    @UserAggregationFunction("apoc.agg.tdigest")
+    @Description(
+            "apoc.agg.tdigest(value, compression = 100) - returns a t-digest sketch of the non-null numeric values, to be read with apoc.agg.tdigestQuantiles and merged with apoc.agg.tdigestMerge")
+    public TDigestFunction tdigest() {
+        return new TDigestFunction();
+    }
+
+    @UserAggregationFunction("apoc.agg.tdigestMerge")
+    @Description(
+            "apoc.agg.tdigestMerge(sketch) - merges t-digest sketches into the sketch of the union of their values")
+    public TDigestMergeFunction tdigestMerge() {
+        return new TDigestMergeFunction();
+    }
+
+    @UserFunction("apoc.agg.tdigestQuantiles")
+    @Description(
+            "apoc.agg.tdigestQuantiles(sketch, [quantiles = 0.5,0.75,0.9,0.95,0.99]) - returns the estimated quantiles of a t-digest sketch, or nulls if it's empty")
+    public List<Double> tdigestQuantiles(
+            @Name("sketch") byte[] sketch,
+            @Name(value = "quantiles", defaultValue = "[0.5,0.75,0.9,0.95,0.99]") List<Double> quantiles) {
+        if (sketch == null) return null;
+        TDigest digest = TDigest.fromBytes(sketch);
+        List<Double> result = new ArrayList<>(quantiles.size());
+        for (Double quantile : quantiles) {
+            result.add(quantile == null ? null : digest.quantile(quantile));
+        }
+        return result;
+    }
+
+    public static class HllFunction {
+        private HyperLogLog sketch;
+
+        @UserAggregationUpdate
+        public void aggregate(
+                @Name("value") Object value, @Name(value = "precision", defaultValue = "12") long precision) {
+            if (sketch == null) {
+                sketch = new HyperLogLog((int) precision);
+            }
+            sketch.add(value);
+        }
+
+        @UserAggregationResult
+        public byte[] result() {
+            return (sketch == null ? new HyperLogLog(HyperLogLog.DEFAULT_PRECISION) : sketch).toBytes();
+        }
+    }
+
+    public static class HllMergeFunction {
+        private HyperLogLog merged;
+
+        @UserAggregationUpdate
+        public void aggregate(@Name("sketch") byte[] sketch) {
+            if (sketch == null) return;
+            HyperLogLog other = HyperLogLog.fromBytes(sketch);
+            if (merged == null) {
+                merged = other;
+            } else if (other.getPrecision() < merged.getPrecision()) {
+                other.merge(merged);
+                merged = other;
+            } else {
+                merged.merge(other);
+            }
+        }
+
+        @UserAggregationResult
+        public byte[] result() {
+            return merged == null ? null : merged.toBytes();
+        }
+    }
+
+    public static class TDigestFunction {
+        private TDigest digest;
+
+        @UserAggregationUpdate
+        public void aggregate(
+                @Name("value") Number value, @Name(value = "compression", defaultValue = "100") double compression) {
+            if (digest == null) {
+                digest = new TDigest(compression);
+            }
+            if (value != null) {
+                digest.add(value.doubleValue());
+            }
+        }
+
+        @UserAggregationResult
+        public byte[] result() {
+            return (digest == null ? new TDigest(TDigest.DEFAULT_COMPRESSION) : digest).toBytes();
+        }
+    }
+
+    public static class TDigestMergeFunction {
+        private TDigest merged;
+
+        @UserAggregationUpdate
+        public void aggregate(@Name("sketch") byte[] sketch) {
+            if (sketch == null) return;
+            TDigest other = TDigest.fromBytes(sketch);
+            if (merged == null) {
+                merged = other;
+            } else {
+                merged.merge(other);
+            }
+        }
+
+        @UserAggregationResult
+        public byte[] result() {
+            return merged == null ? null : merged.toBytes();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.agg;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A merging t-digest, estimating the quantiles of a distribution with at most about `compression` centroids,
+ * which are smaller, and so more accurate, towards the extreme quantiles.
+ *
+ * Two digests can be merged into the digest of the union of their values,
+ * so the digests can be stored as a byte array property and rolled up later.
+ */
+public class TDigest {
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    static final byte TYPE = 'T';
+    private static final byte VERSION = 1;
+
+    private final double compression;
+    private double[] means = new double[0];
+    private double[] weights = new double[0];
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    // values added since the last compression
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int buffered;
+
+    public TDigest(double compression) {
+        if (!(compression >= 10 && compression <= 10_000)) {
+            throw new IllegalArgumentException(
+                    "The t-digest compression must be between 10 and 10000, but was " + compression);
+        }
+        this.compression = compression;
+        int bufferSize = (int) (5 * compression);
+        this.bufferMeans = new double[bufferSize];
+        this.bufferWeights = new double[bufferSize];
+    }
+
+    public double getCompression() {
+        return compression;
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    private void add(double mean, double weight) {
+        if (Double.isNaN(mean)) return;
+        if (buffered == bufferMeans.length) {
+            compress();
+        }
+        bufferMeans[buffered] = mean;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        min = Math.min(min, mean);
+        max = Math.max(max, mean);
+    }
+
+    public void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.means.length; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public double count() {
+        compress();
+        return totalWeight;
+    }
+
+    /**
+     * Merges the buffered values with the centroids, the adjacent centroids are merged as long as their size
+     * stays within the bound of the k1 scale function, i.e. `compression / 2pi * asin(2q - 1)` grows by at most 1
+     */
+    private void compress() {
+        if (buffered == 0) return;
+        int size = means.length + buffered;
+        double[] allMeans = Arrays.copyOf(means, size);
+        double[] allWeights = Arrays.copyOf(weights, size);
+        System.arraycopy(bufferMeans, 0, allMeans, means.length, buffered);
+        System.arraycopy(bufferWeights, 0, allWeights, means.length, buffered);
+        buffered = 0;
+
+        Integer[] order = new Integer[size];
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+            total += allWeights[i];
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(allMeans[a], allMeans[b]));
+
+        double[] newMeans = new double[size];
+        double[] newWeights = new double[size];
+        int count = 0;
+        double mean = allMeans[order[0]];
+        double weight = allWeights[order[0]];
+        double weightSoFar = 0;
+        double kLow = scale(0);
+        for (int i = 1; i < size; i++) {
+            double nextMean = allMeans[order[i]];
+            double nextWeight = allWeights[order[i]];
+            if (scale((weightSoFar + weight + nextWeight) / total) - kLow <= 1) {
+                weight += nextWeight;
+                mean += (nextMean - mean) * nextWeight / weight;
+            } else {
+                newMeans[count] = mean;
+                newWeights[count] = weight;
+                count++;
+                weightSoFar += weight;
+                kLow = scale(weightSoFar / total);
+                mean = nextMean;
+                weight = nextWeight;
+            }
+        }
+        newMeans[count] = mean;
+        newWeights[count] = weight;
+        count++;
+
+        means = Arrays.copyOf(newMeans, count);
+        weights = Arrays.copyOf(newWeights, count);
+        totalWeight = total;
+    }
+
+    private double scale(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(1, Math.max(0, q)) - 1);
+    }
+
+    /**
+     * @return the estimated value at the quantile, between 0 and 1, or null if the digest is empty
+     */
+    public Double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("The quantile must be between 0 and 1, but was " + q);
+        }
+        compress();
+        if (means.length == 0) return null;
+        if (means.length == 1) return means[0];
+        double index = q * totalWeight;
+        // each centroid is centered on the middle of its weight, the values in between are interpolated
+        double firstCenter = weights[0] / 2;
+        if (index < firstCenter) {
+            return min + (means[0] - min) * index / firstCenter;
+        }
+        double center = firstCenter;
+        for (int i = 0; i < means.length - 1; i++) {
+            double nextCenter = center + (weights[i] + weights[i + 1]) / 2;
+            if (index <= nextCenter) {
+                return means[i] + (means[i + 1] - means[i]) * (index - center) / (nextCenter - center);
+            }
+            center = nextCenter;
+        }
+        double lastWeight = weights[means.length - 1];
+        double lastMean = means[means.length - 1];
+        return lastMean + (max - lastMean) * Math.min(1, (index - center) / (lastWeight / 2));
+    }
+
+    public byte[] toBytes() {
+        compress();
+        ByteBuffer buffer = ByteBuffer.allocate(2 + 8 * 3 + 4 + means.length * 16);
+        buffer.put(TYPE).put(VERSION);
+        buffer.putDouble(compression).putDouble(min).putDouble(max);
+        buffer.putInt(means.length);
+        for (int i = 0; i < means.length; i++) {
+            buffer.putDouble(means[i]).putDouble(weights[i]);
+        }
+        return buffer.array();
+    }
+
+    public static TDigest fromBytes(byte[] bytes) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            if (buffer.get() != TYPE || buffer.get() != VERSION) {
+                throw new IllegalArgumentException("The value is not a t-digest sketch");
+            }
+            TDigest digest = new TDigest(buffer.getDouble());
+            digest.min = buffer.getDouble();
+            digest.max = buffer.getDouble();
+            int size = buffer.getInt();
+            digest.means = new double[size];
+            digest.weights = new double[size];
+            for (int i = 0; i < size; i++) {
+                digest.means[i] = buffer.getDouble();
+                digest.weights[i] = buffer.getDouble();
+                digest.totalWeight += digest.weights[i];
+            }
+            return digest;
+        } catch (RuntimeException e) {
+            if (e instanceof IllegalArgumentException) throw e;
+            throw new IllegalArgumentException("The value is not a valid t-digest sketch", e);
+        }
+    }
+}
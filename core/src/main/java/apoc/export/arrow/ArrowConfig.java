@@ -26,17 +26,49 @@ public class ArrowConfig {
 
     private final int batchSize;
 
+    private final boolean columnar;
+
+    private final long sampleSize;
+
+    private final int dictionarySize;
+
+    private final int concurrency;
+
     private final Map<String, Object> config;
 
     public ArrowConfig(Map<String, Object> config) {
         this.config = config == null ? Collections.emptyMap() : config;
         this.batchSize = Util.toInteger(this.config.getOrDefault("batchSize", 2000));
+        this.columnar = Util.toBoolean(this.config.getOrDefault("columnar", false));
+        this.sampleSize = Util.toLong(this.config.getOrDefault("sampleSize", 10000));
+        this.dictionarySize = Util.toInteger(this.config.getOrDefault("dictionarySize", 256));
+        this.concurrency = Util.toInteger(
+                this.config.getOrDefault("concurrency", Runtime.getRuntime().availableProcessors()));
+        if (batchSize < 1 || concurrency < 1) {
+            throw new IllegalArgumentException("batchSize and concurrency must be > 0");
+        }
     }
 
     public int getBatchSize() {
         return batchSize;
     }
 
+    public boolean isColumnar() {
+        return columnar;
+    }
+
+    public long getSampleSize() {
+        return sampleSize;
+    }
+
+    public int getDictionarySize() {
+        return dictionarySize;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
     public Map<String, Object> getConfig() {
         return config;
     }
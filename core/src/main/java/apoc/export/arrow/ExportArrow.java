@@ -112,8 +112,12 @@ public class ExportArrow {
     public Stream<ProgressInfo> all(
             @Name("fileName") String fileName, @Name(value = "config", defaultValue = "{}") Map<String, Object> config)
             throws Exception {
-        return new ExportArrowService(db, pools, terminationGuard, logger)
-                .file(fileName, new DatabaseSubGraph(tx), new ArrowConfig(config));
+        ArrowConfig arrowConfig = new ArrowConfig(config);
+        ExportArrowService exportArrowService = new ExportArrowService(db, pools, terminationGuard, logger);
+        if (arrowConfig.isColumnar()) {
+            return exportArrowService.columnarFile(fileName, tx, arrowConfig);
+        }
+        return exportArrowService.file(fileName, new DatabaseSubGraph(tx), arrowConfig);
     }
 
     @Procedure("apoc.export.arrow.graph")
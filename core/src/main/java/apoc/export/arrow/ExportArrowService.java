@@ -29,6 +29,7 @@ import java.util.stream.Stream;
 import org.neo4j.cypher.export.SubGraph;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.TerminationGuard;
 
@@ -57,12 +58,7 @@ public class ExportArrowService {
     }
 
     public Stream<ProgressInfo> file(String fileName, Object data, ArrowConfig config) {
-        // we cannot use apocConfig().checkWriteAllowed(..) because the error is confusing
-        //  since it says "... use the `{stream:true}` config", but with arrow procedures the streaming mode is
-        // implemented via different procedures
-        if (!apocConfig().getBoolean(APOC_EXPORT_FILE_ENABLED)) {
-            throw new RuntimeException(EXPORT_TO_FILE_ARROW_ERROR);
-        }
+        checkExportFileEnabled();
         if (data instanceof Result) {
             return new ExportResultFileStrategy(fileName, db, pools, terminationGuard, logger)
                     .export((Result) data, config);
@@ -71,4 +67,21 @@ public class ExportArrowService {
                     .export((SubGraph) data, config);
         }
     }
+
+    /**
+     * Exports the whole database, see {@link ExportColumnarStrategy}
+     */
+    public Stream<ProgressInfo> columnarFile(String fileName, Transaction tx, ArrowConfig config) {
+        checkExportFileEnabled();
+        return new ExportColumnarStrategy(fileName, db, tx, pools, terminationGuard, logger).export(config);
+    }
+
+    private void checkExportFileEnabled() {
+        // we cannot use apocConfig().checkWriteAllowed(..) because the error is confusing
+        //  since it says "... use the `{stream:true}` config", but with arrow procedures the streaming mode is
+        // implemented via different procedures
+        if (!apocConfig().getBoolean(APOC_EXPORT_FILE_ENABLED)) {
+            throw new RuntimeException(EXPORT_TO_FILE_ARROW_ERROR);
+        }
+    }
 }
@@ -0,0 +1,836 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.export.arrow;
+
+import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.getHighestIdInUseForStore;
+
+import apoc.Pools;
+import apoc.convert.Json;
+import apoc.result.ProgressInfo;
+import apoc.util.FileUtils;
+import apoc.util.JsonUtil;
+import apoc.util.Util;
+import apoc.util.kernel.MultiThreadedGlobalGraphOperations.GlobalOperationsTypes;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateMilliVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorLoader;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.VectorUnloader;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.neo4j.common.DependencyResolver;
+import org.neo4j.cypher.export.DatabaseSubGraph;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.kernel.api.CursorFactory;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.TokenSet;
+import org.neo4j.internal.kernel.api.security.SecurityContext;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.logging.Log;
+import org.neo4j.procedure.TerminationGuard;
+import org.neo4j.token.api.NamedToken;
+import org.neo4j.values.storable.BooleanValue;
+import org.neo4j.values.storable.DateTimeValue;
+import org.neo4j.values.storable.DateValue;
+import org.neo4j.values.storable.DurationValue;
+import org.neo4j.values.storable.FloatingPointArray;
+import org.neo4j.values.storable.FloatingPointValue;
+import org.neo4j.values.storable.IntegralArray;
+import org.neo4j.values.storable.IntegralValue;
+import org.neo4j.values.storable.LocalDateTimeValue;
+import org.neo4j.values.storable.NumberArray;
+import org.neo4j.values.storable.NumberValue;
+import org.neo4j.values.storable.TextArray;
+import org.neo4j.values.storable.TextValue;
+import org.neo4j.values.storable.Value;
+
+/**
+ * Exports the whole database as an Arrow file, filling typed vectors straight from the kernel cursors
+ * instead of converting every entity to a map of boxed values.
+ *
+ * The columns are the ones of the row based export, i.e. `<id>`, `labels`, `<source.id>`, `<target.id>`, `<type>`
+ * and one per property key.
+ * Labels and relationship types are dictionary encoded, with the dictionaries taken from the token store.
+ * The type of the property columns is inferred from the first `sampleSize` nodes and relationships:
+ * if the sample covers the whole database, string properties with at most `dictionarySize` distinct values
+ * are dictionary encoded as well, since the dictionaries of an Arrow file can't change after the first batch.
+ * As the schema of an Arrow file can't change either, a value that doesn't fit its sampled column widens the column
+ * (integers to floats, anything else to strings, as the row based export does) and the export is started over,
+ * as well as when labels, types or property keys are created during the export.
+ * If the schema keeps changing, the database is exported row by row within the calling transaction instead.
+ *
+ * Each record batch is a range of `batchSize` node or relationship ids, filled on the APOC pool
+ * by up to `concurrency` threads, and written to the file in order.
+ * The sample and the batches are read in transactions with the security context of the calling one.
+ */
+public class ExportColumnarStrategy {
+    private static final ArrowType.Int DICTIONARY_INDEX_TYPE = new ArrowType.Int(32, true);
+    private static final String DATA_FIELD = "$data$";
+    private static final int MAX_ATTEMPTS = 3;
+
+    enum ColumnKind {
+        LONG,
+        DOUBLE,
+        BOOLEAN,
+        STRING,
+        DATE_TIME,
+        LONG_ARRAY,
+        DOUBLE_ARRAY,
+        STRING_ARRAY,
+        // mixed or complex values, serialized as json strings
+        JSON;
+
+        static ColumnKind of(Value value) {
+            if (value instanceof IntegralValue) return LONG;
+            if (value instanceof FloatingPointValue) return DOUBLE;
+            if (value instanceof BooleanValue) return BOOLEAN;
+            if (value instanceof TextValue) return STRING;
+            if (value instanceof DateTimeValue || value instanceof LocalDateTimeValue || value instanceof DateValue) {
+                return DATE_TIME;
+            }
+            if (value instanceof IntegralArray) return LONG_ARRAY;
+            if (value instanceof FloatingPointArray) return DOUBLE_ARRAY;
+            if (value instanceof TextArray) return STRING_ARRAY;
+            return JSON;
+        }
+
+        ColumnKind merge(ColumnKind other) {
+            if (other == null || other == this) return this;
+            if ((this == LONG && other == DOUBLE) || (this == DOUBLE && other == LONG)) return DOUBLE;
+            if ((this == LONG_ARRAY && other == DOUBLE_ARRAY) || (this == DOUBLE_ARRAY && other == LONG_ARRAY)) {
+                return DOUBLE_ARRAY;
+            }
+            return JSON;
+        }
+    }
+
+    private final String fileName;
+    private final GraphDatabaseAPI db;
+    private final Transaction tx;
+    private final SecurityContext securityContext;
+    private final Pools pools;
+    private final TerminationGuard terminationGuard;
+    private final Log logger;
+
+    // property key token id -> the kind its column has been widened to, as some values didn't fit the sampled one
+    private final Map<Integer, ColumnKind> widenings = new ConcurrentHashMap<>();
+
+    /**
+     * @param tx the transaction of the procedure call
+     */
+    public ExportColumnarStrategy(
+            String fileName,
+            GraphDatabaseService db,
+            Transaction tx,
+            Pools pools,
+            TerminationGuard terminationGuard,
+            Log logger) {
+        this.fileName = fileName;
+        this.db = (GraphDatabaseAPI) db;
+        this.tx = tx;
+        this.securityContext = ((InternalTransaction) tx).kernelTransaction().securityContext();
+        this.pools = pools;
+        this.terminationGuard = terminationGuard;
+        this.logger = logger;
+    }
+
+    public Stream<ProgressInfo> export(ArrowConfig config) {
+        long start = System.currentTimeMillis();
+        for (int attempt = 1; ; attempt++) {
+            ProgressInfo progressInfo = exportOnce(config);
+            if (progressInfo != null) {
+                return Stream.of(progressInfo.done(start));
+            }
+            if (attempt >= MAX_ATTEMPTS) {
+                logger.warn(
+                        "The schema of the database kept changing while exporting to %s, after %d attempts "
+                                + "it is exported row by row",
+                        fileName,
+                        attempt);
+                return new ExportGraphFileStrategy(fileName, db, pools, terminationGuard, logger)
+                        .export(new DatabaseSubGraph(tx), config);
+            }
+            logger.info(
+                    "Some values exported to %s didn't fit the columns sampled before the export, "
+                            + "exporting again with the columns widened",
+                    fileName);
+        }
+    }
+
+    /**
+     * @return the progress of the export, or null if it has to be started over with the widened columns
+     */
+    private ProgressInfo exportOnce(ArrowConfig config) {
+        DependencyResolver dependencyResolver = db.getDependencyResolver();
+        long highestNodeId = getHighestIdInUseForStore(dependencyResolver, GlobalOperationsTypes.NODES);
+        long highestRelId = getHighestIdInUseForStore(dependencyResolver, GlobalOperationsTypes.RELATIONSHIPS);
+        int batchSize = config.getBatchSize();
+        long nodeBatches = (highestNodeId + batchSize - 1) / batchSize;
+        long totalBatches = nodeBatches + (highestRelId + batchSize - 1) / batchSize;
+
+        ProgressInfo progressInfo;
+        try (RootAllocator allocator = new RootAllocator()) {
+            GraphSchema schema;
+            try (Transaction tx = beginTransaction()) {
+                progressInfo = new ProgressInfo(
+                        fileName,
+                        String.format("database: nodes(%d), rels(%d)", Util.nodeCount(tx), Util.relCount(tx)),
+                        "arrow");
+                schema = GraphSchema.sample(tx, highestNodeId, highestRelId, config, widenings, allocator);
+                tx.commit();
+            }
+            progressInfo.batchSize = batchSize;
+            try (schema;
+                    OutputStream out = FileUtils.getOutputStream(fileName);
+                    VectorSchemaRoot root = VectorSchemaRoot.create(schema.schema, allocator);
+                    ArrowFileWriter writer =
+                            new ArrowFileWriter(root, schema.dictionaries, Channels.newChannel(out))) {
+                VectorLoader loader = new VectorLoader(root);
+                writer.start();
+                AtomicBoolean failed = new AtomicBoolean();
+                // set once a value didn't fit the schema, i.e. a column has been widened
+                AtomicBoolean stale = new AtomicBoolean();
+                Deque<Future<ColumnarBatch>> pending = new ArrayDeque<>();
+                long nextBatch = 0;
+                try {
+                    while (nextBatch < totalBatches || !pending.isEmpty()) {
+                        while (nextBatch < totalBatches
+                                && pending.size() < config.getConcurrency()
+                                && !stale.get()
+                                && !Util.transactionIsTerminated(terminationGuard)) {
+                            long batch = nextBatch++;
+                            boolean nodes = batch < nodeBatches;
+                            long from = (nodes ? batch : batch - nodeBatches) * batchSize;
+                            long to = Math.min(from + batchSize, nodes ? highestNodeId : highestRelId);
+                            pending.add(pools.getDefaultExecutorService()
+                                    .submit(() ->
+                                            failed.get() ? null : fill(schema, nodes, from, to, stale, allocator)));
+                        }
+                        if (pending.isEmpty()) break;
+                        try (ColumnarBatch batch = pending.poll().get()) {
+                            // the file is going to be written again, the batches left are only drained
+                            if (stale.get()) continue;
+                            if (batch.recordBatch.getLength() > 0) {
+                                loader.load(batch.recordBatch);
+                                writer.writeBatch();
+                                progressInfo.batches++;
+                            }
+                            progressInfo.update(batch.nodes, batch.relationships, batch.properties);
+                        }
+                    }
+                    if (stale.get()) {
+                        return null;
+                    }
+                    if (nextBatch < totalBatches) {
+                        throw new RuntimeException("The export to " + fileName + " has been terminated");
+                    }
+                    writer.end();
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Error exporting a batch to " + fileName, e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                } finally {
+                    // the batches still in flight have to release their buffers before the allocator is closed
+                    failed.set(true);
+                    for (Future<ColumnarBatch> future : pending) {
+                        try {
+                            Util.close(future.get());
+                        } catch (Exception ignored) {
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return progressInfo;
+    }
+
+    private Transaction beginTransaction() {
+        return db.beginTransaction(KernelTransaction.Type.EXPLICIT, securityContext);
+    }
+
+    private ColumnarBatch fill(
+            GraphSchema schema, boolean nodes, long from, long to, AtomicBoolean stale, BufferAllocator allocator) {
+        try (Transaction tx = beginTransaction();
+                VectorSchemaRoot root = VectorSchemaRoot.create(schema.schema, allocator)) {
+            KernelTransaction ktx = ((InternalTransaction) tx).kernelTransaction();
+            CursorFactory cursors = ktx.cursors();
+            Read read = ktx.dataRead();
+            root.allocateNew();
+            Columns columns = new Columns(schema, root, stale);
+            int row = 0;
+            long properties = 0;
+            try (PropertyCursor propertyCursor =
+                    cursors.allocatePropertyCursor(ktx.cursorContext(), ktx.memoryTracker())) {
+                if (nodes) {
+                    try (NodeCursor nodeCursor = cursors.allocateNodeCursor(ktx.cursorContext())) {
+                        for (long id = from; id < to; id++) {
+                            read.singleNode(id, nodeCursor);
+                            if (!nodeCursor.next()) continue;
+                            columns.id.setSafe(row, id);
+                            columns.writeLabels(row, nodeCursor.labels());
+                            nodeCursor.properties(propertyCursor);
+                            properties += columns.writeProperties(row, propertyCursor);
+                            row++;
+                        }
+                    }
+                } else {
+                    try (RelationshipScanCursor relCursor =
+                            cursors.allocateRelationshipScanCursor(ktx.cursorContext())) {
+                        for (long id = from; id < to; id++) {
+                            read.singleRelationship(id, relCursor);
+                            if (!relCursor.next()) continue;
+                            columns.id.setSafe(row, id);
+                            columns.sourceId.setSafe(row, relCursor.sourceNodeReference());
+                            columns.targetId.setSafe(row, relCursor.targetNodeReference());
+                            columns.writeType(row, relCursor.type());
+                            relCursor.properties(propertyCursor);
+                            properties += columns.writeProperties(row, propertyCursor);
+                            row++;
+                        }
+                    }
+                }
+            }
+            root.setRowCount(row);
+            tx.commit();
+            return new ColumnarBatch(
+                    new VectorUnloader(root).getRecordBatch(), nodes ? row : 0, nodes ? 0 : row, properties);
+        }
+    }
+
+    private static class ColumnarBatch implements AutoCloseable {
+        private final ArrowRecordBatch recordBatch;
+        private final long nodes;
+        private final long relationships;
+        private final long properties;
+
+        ColumnarBatch(ArrowRecordBatch recordBatch, long nodes, long relationships, long properties) {
+            this.recordBatch = recordBatch;
+            this.nodes = nodes;
+            this.relationships = relationships;
+            this.properties = properties;
+        }
+
+        @Override
+        public void close() {
+            recordBatch.close();
+        }
+    }
+
+    /**
+     * The schema of the file, with the dictionaries and the column of each property key
+     */
+    private static class GraphSchema implements AutoCloseable {
+        private final Schema schema;
+        private final DictionaryProvider.MapDictionaryProvider dictionaries;
+        // token id -> index in the labels and types dictionaries
+        private final int[] labelIndexes;
+        private final int[] typeIndexes;
+        // property key token id -> column, or null if the key has no column
+        private final PropertyColumn[] propertyColumns;
+
+        private GraphSchema(
+                Schema schema,
+                DictionaryProvider.MapDictionaryProvider dictionaries,
+                int[] labelIndexes,
+                int[] typeIndexes,
+                PropertyColumn[] propertyColumns) {
+            this.schema = schema;
+            this.dictionaries = dictionaries;
+            this.labelIndexes = labelIndexes;
+            this.typeIndexes = typeIndexes;
+            this.propertyColumns = propertyColumns;
+        }
+
+        /**
+         * @param widenings the kinds of the columns which didn't fit a previous attempt, these are never dictionaries
+         */
+        static GraphSchema sample(
+                Transaction tx,
+                long highestNodeId,
+                long highestRelId,
+                ArrowConfig config,
+                Map<Integer, ColumnKind> widenings,
+                BufferAllocator allocator) {
+            KernelTransaction ktx = ((InternalTransaction) tx).kernelTransaction();
+            TokenRead tokenRead = ktx.tokenRead();
+            long sampleSize = config.getSampleSize() < 0 ? Long.MAX_VALUE : config.getSampleSize();
+            int dictionarySize = config.getDictionarySize();
+
+            Map<Integer, PropertySample> samples = new HashMap<>();
+            boolean complete = sampleProperties(ktx, highestNodeId, highestRelId, sampleSize, dictionarySize, samples);
+
+            DictionaryProvider.MapDictionaryProvider dictionaries = new DictionaryProvider.MapDictionaryProvider();
+            long dictionaryId = 0;
+            List<String> labels = new ArrayList<>();
+            int[] labelIndexes = tokenIndexes(tokenRead.labelsGetAllTokens(), labels);
+            DictionaryEncoding labelsEncoding = dictionary(dictionaryId++, "labels", labels, allocator, dictionaries);
+            List<String> types = new ArrayList<>();
+            int[] typeIndexes = tokenIndexes(tokenRead.relationshipTypesGetAllTokens(), types);
+            DictionaryEncoding typesEncoding = dictionary(dictionaryId++, "<type>", types, allocator, dictionaries);
+
+            List<Field> fields = new ArrayList<>();
+            fields.add(ArrowUtils.FIELD_ID);
+            fields.add(new Field(
+                    ArrowUtils.FIELD_LABELS.getName(),
+                    FieldType.nullable(Types.MinorType.LIST.getType()),
+                    List.of(new Field(DATA_FIELD, new FieldType(true, DICTIONARY_INDEX_TYPE, labelsEncoding), null))));
+            fields.add(ArrowUtils.FIELD_SOURCE_ID);
+            fields.add(ArrowUtils.FIELD_TARGET_ID);
+            fields.add(new Field(
+                    ArrowUtils.FIELD_TYPE.getName(), new FieldType(true, DICTIONARY_INDEX_TYPE, typesEncoding), null));
+
+            List<PropertyColumn> columns = new ArrayList<>();
+            int maxKeyId = -1;
+            Iterator<NamedToken> keys = tokenRead.propertyKeyGetAllTokens();
+            while (keys.hasNext()) {
+                NamedToken key = keys.next();
+                PropertySample sample = samples.get(key.id());
+                ColumnKind widened = widenings.get(key.id());
+                // the keys not in the sample may still be used, if the sample didn't cover the whole database
+                if (sample == null && widened == null && complete) continue;
+                ColumnKind kind;
+                if (sample == null) {
+                    kind = widened == null ? ColumnKind.JSON : widened;
+                } else {
+                    kind = sample.kind.merge(widened);
+                }
+                Map<String, Integer> dictionary = null;
+                DictionaryEncoding encoding = null;
+                if (complete && widened == null && kind == ColumnKind.STRING && sample.distinct != null) {
+                    List<String> values = new ArrayList<>(sample.distinct);
+                    values.sort(Comparator.naturalOrder());
+                    dictionary = new HashMap<>();
+                    for (int i = 0; i < values.size(); i++) {
+                        dictionary.put(values.get(i), i);
+                    }
+                    encoding = dictionary(dictionaryId++, key.name(), values, allocator, dictionaries);
+                }
+                columns.add(new PropertyColumn(key.id(), key.name(), kind, dictionary, encoding));
+                maxKeyId = Math.max(maxKeyId, key.id());
+            }
+            columns.sort(Comparator.comparing((PropertyColumn column) -> column.name));
+            PropertyColumn[] propertyColumns = new PropertyColumn[maxKeyId + 1];
+            for (PropertyColumn column : columns) {
+                column.index = fields.size();
+                fields.add(column.field());
+                propertyColumns[column.keyId] = column;
+            }
+            return new GraphSchema(new Schema(fields), dictionaries, labelIndexes, typeIndexes, propertyColumns);
+        }
+
+        /**
+         * @return true if all the nodes and the relationships have been sampled
+         */
+        private static boolean sampleProperties(
+                KernelTransaction ktx,
+                long highestNodeId,
+                long highestRelId,
+                long sampleSize,
+                int dictionarySize,
+                Map<Integer, PropertySample> samples) {
+            CursorFactory cursors = ktx.cursors();
+            Read read = ktx.dataRead();
+            long id;
+            long sampled;
+            try (NodeCursor nodeCursor = cursors.allocateNodeCursor(ktx.cursorContext());
+                    RelationshipScanCursor relCursor = cursors.allocateRelationshipScanCursor(ktx.cursorContext());
+                    PropertyCursor propertyCursor =
+                            cursors.allocatePropertyCursor(ktx.cursorContext(), ktx.memoryTracker())) {
+                for (id = 0, sampled = 0; id < highestNodeId && sampled < sampleSize; id++) {
+                    read.singleNode(id, nodeCursor);
+                    if (!nodeCursor.next()) continue;
+                    nodeCursor.properties(propertyCursor);
+                    sample(propertyCursor, dictionarySize, samples);
+                    sampled++;
+                }
+                boolean complete = id >= highestNodeId;
+                for (id = 0, sampled = 0; id < highestRelId && sampled < sampleSize; id++) {
+                    read.singleRelationship(id, relCursor);
+                    if (!relCursor.next()) continue;
+                    relCursor.properties(propertyCursor);
+                    sample(propertyCursor, dictionarySize, samples);
+                    sampled++;
+                }
+                return complete && id >= highestRelId;
+            }
+        }
+
+        private static void sample(
+                PropertyCursor propertyCursor, int dictionarySize, Map<Integer, PropertySample> samples) {
+            while (propertyCursor.next()) {
+                samples.computeIfAbsent(propertyCursor.propertyKey(), key -> new PropertySample(dictionarySize))
+                        .add(propertyCursor.propertyValue(), dictionarySize);
+            }
+        }
+
+        private static int[] tokenIndexes(Iterator<NamedToken> tokens, List<String> names) {
+            List<NamedToken> list = new ArrayList<>();
+            tokens.forEachRemaining(list::add);
+            int[] indexes = new int[list.stream().mapToInt(NamedToken::id).max().orElse(-1) + 1];
+            Arrays.fill(indexes, -1);
+            for (NamedToken token : list) {
+                indexes[token.id()] = names.size();
+                names.add(token.name());
+            }
+            return indexes;
+        }
+
+        private static DictionaryEncoding dictionary(
+                long id,
+                String name,
+                List<String> values,
+                BufferAllocator allocator,
+                DictionaryProvider.MapDictionaryProvider dictionaries) {
+            VarCharVector vector = new VarCharVector(name + "-dictionary", allocator);
+            vector.allocateNew(values.size());
+            for (int i = 0; i < values.size(); i++) {
+                vector.setSafe(i, values.get(i).getBytes(StandardCharsets.UTF_8));
+            }
+            vector.setValueCount(values.size());
+            DictionaryEncoding encoding = new DictionaryEncoding(id, false, DICTIONARY_INDEX_TYPE);
+            dictionaries.put(new Dictionary(vector, encoding));
+            return encoding;
+        }
+
+        @Override
+        public void close() {
+            for (long id : dictionaries.getDictionaryIds()) {
+                dictionaries.lookup(id).getVector().close();
+            }
+        }
+    }
+
+    private static class PropertySample {
+        private ColumnKind kind;
+        // the distinct values of a string property, null if there are more than `dictionarySize`
+        private Set<String> distinct;
+
+        PropertySample(int dictionarySize) {
+            this.distinct = dictionarySize > 0 ? new HashSet<>() : null;
+        }
+
+        void add(Value value, int dictionarySize) {
+            ColumnKind valueKind = ColumnKind.of(value);
+            kind = valueKind.merge(kind);
+            if (distinct != null && valueKind == ColumnKind.STRING) {
+                distinct.add(((TextValue) value).stringValue());
+                if (distinct.size() > dictionarySize) {
+                    distinct = null;
+                }
+            }
+        }
+    }
+
+    private static class PropertyColumn {
+        private final int keyId;
+        private final String name;
+        private final ColumnKind kind;
+        private final Map<String, Integer> dictionary;
+        private final DictionaryEncoding encoding;
+        private int index;
+
+        PropertyColumn(
+                int keyId, String name, ColumnKind kind, Map<String, Integer> dictionary, DictionaryEncoding encoding) {
+            this.keyId = keyId;
+            this.name = name;
+            this.kind = kind;
+            this.dictionary = dictionary;
+            this.encoding = encoding;
+        }
+
+        Field field() {
+            if (encoding != null) {
+                return new Field(name, new FieldType(true, DICTIONARY_INDEX_TYPE, encoding), null);
+            }
+            switch (kind) {
+                case LONG:
+                    return new Field(name, FieldType.nullable(Types.MinorType.BIGINT.getType()), null);
+                case DOUBLE:
+                    return new Field(name, FieldType.nullable(Types.MinorType.FLOAT8.getType()), null);
+                case BOOLEAN:
+                    return new Field(name, FieldType.nullable(Types.MinorType.BIT.getType()), null);
+                case DATE_TIME:
+                    return new Field(name, FieldType.nullable(Types.MinorType.DATEMILLI.getType()), null);
+                case LONG_ARRAY:
+                    return listField(Types.MinorType.BIGINT);
+                case DOUBLE_ARRAY:
+                    return listField(Types.MinorType.FLOAT8);
+                case STRING_ARRAY:
+                    return listField(Types.MinorType.VARCHAR);
+                default:
+                    return new Field(name, FieldType.nullable(Types.MinorType.VARCHAR.getType()), null);
+            }
+        }
+
+        private Field listField(Types.MinorType elementType) {
+            return new Field(
+                    name,
+                    FieldType.nullable(Types.MinorType.LIST.getType()),
+                    List.of(new Field(DATA_FIELD, FieldType.nullable(elementType.getType()), null)));
+        }
+    }
+
+    /**
+     * The vectors of one record batch
+     */
+    private class Columns {
+        private final GraphSchema schema;
+        private final AtomicBoolean stale;
+        private final BigIntVector id;
+        private final ListVector labels;
+        private final IntVector labelIndexes;
+        private final BigIntVector sourceId;
+        private final BigIntVector targetId;
+        private final IntVector type;
+        private final FieldVector[] properties;
+
+        Columns(GraphSchema schema, VectorSchemaRoot root, AtomicBoolean stale) {
+            List<FieldVector> vectors = root.getFieldVectors();
+            this.schema = schema;
+            this.stale = stale;
+            this.id = (BigIntVector) vectors.get(0);
+            this.labels = (ListVector) vectors.get(1);
+            this.labelIndexes = (IntVector) labels.getDataVector();
+            this.sourceId = (BigIntVector) vectors.get(2);
+            this.targetId = (BigIntVector) vectors.get(3);
+            this.type = (IntVector) vectors.get(4);
+            this.properties = new FieldVector[schema.propertyColumns.length];
+            for (PropertyColumn column : schema.propertyColumns) {
+                if (column != null) {
+                    properties[column.keyId] = vectors.get(column.index);
+                }
+            }
+        }
+
+        void writeLabels(int row, TokenSet tokens) {
+            int offset = labels.startNewValue(row);
+            int count = 0;
+            for (int i = 0; i < tokens.numberOfTokens(); i++) {
+                int index = tokenIndex(schema.labelIndexes, tokens.token(i));
+                if (index >= 0) {
+                    labelIndexes.setSafe(offset + count++, index);
+                }
+            }
+            labels.endValue(row, count);
+        }
+
+        void writeType(int row, int token) {
+            int index = tokenIndex(schema.typeIndexes, token);
+            if (index >= 0) {
+                type.setSafe(row, index);
+            }
+        }
+
+        // the tokens created after the dictionaries, the next attempt takes them from the token store
+        private int tokenIndex(int[] indexes, int token) {
+            if (token < indexes.length && indexes[token] >= 0) {
+                return indexes[token];
+            }
+            stale.set(true);
+            return -1;
+        }
+
+        /**
+         * @return the number of properties written
+         */
+        long writeProperties(int row, PropertyCursor propertyCursor) {
+            long count = 0;
+            while (propertyCursor.next()) {
+                int key = propertyCursor.propertyKey();
+                PropertyColumn column = key < schema.propertyColumns.length ? schema.propertyColumns[key] : null;
+                Value value = propertyCursor.propertyValue();
+                if (column == null) {
+                    // a key created after the sample
+                    widen(key, ColumnKind.of(value));
+                    continue;
+                }
+                if (write(row, column, properties[key], value)) {
+                    count++;
+                } else {
+                    widen(key, column.kind.merge(ColumnKind.of(value)));
+                }
+            }
+            return count;
+        }
+
+        private void widen(int key, ColumnKind kind) {
+            widenings.merge(key, kind, ColumnKind::merge);
+            stale.set(true);
+        }
+
+        private boolean write(int row, PropertyColumn column, FieldVector vector, Value value) {
+            if (column.dictionary != null) {
+                Integer index =
+                        value instanceof TextValue ? column.dictionary.get(((TextValue) value).stringValue()) : null;
+                if (index == null) return false;
+                ((IntVector) vector).setSafe(row, index);
+                return true;
+            }
+            switch (column.kind) {
+                case LONG:
+                    if (!(value instanceof IntegralValue)) return false;
+                    ((BigIntVector) vector).setSafe(row, ((IntegralValue) value).longValue());
+                    return true;
+                case DOUBLE:
+                    // a column widened from integers
+                    if (!(value instanceof NumberValue)) return false;
+                    ((Float8Vector) vector).setSafe(row, ((NumberValue) value).doubleValue());
+                    return true;
+                case BOOLEAN:
+                    if (!(value instanceof BooleanValue)) return false;
+                    ((BitVector) vector).setSafe(row, ((BooleanValue) value).booleanValue() ? 1 : 0);
+                    return true;
+                case DATE_TIME:
+                    return writeDateTime(row, (DateMilliVector) vector, value);
+                case LONG_ARRAY:
+                    if (!(value instanceof IntegralArray)) return false;
+                    writeLongArray(row, (ListVector) vector, (IntegralArray) value);
+                    return true;
+                case DOUBLE_ARRAY:
+                    if (!(value instanceof NumberArray)) return false;
+                    writeDoubleArray(row, (ListVector) vector, (NumberArray) value);
+                    return true;
+                case STRING_ARRAY:
+                    if (!(value instanceof TextArray)) return false;
+                    writeStringArray(row, (ListVector) vector, (TextArray) value);
+                    return true;
+                default:
+                    ((VarCharVector) vector).setSafe(row, toBytes(value));
+                    return true;
+            }
+        }
+
+        // as in the row based export, durations as ISO strings and the other values as json
+        private byte[] toBytes(Value value) {
+            if (value instanceof TextValue) {
+                return ((TextValue) value).stringValue().getBytes(StandardCharsets.UTF_8);
+            }
+            if (value instanceof DurationValue) {
+                return value.toString().getBytes(StandardCharsets.UTF_8);
+            }
+            Object json = Json.writeJsonResult(value.asObjectCopy());
+            return json instanceof String
+                    ? ((String) json).getBytes(StandardCharsets.UTF_8)
+                    : JsonUtil.writeValueAsBytes(json);
+        }
+
+        private boolean writeDateTime(int row, DateMilliVector vector, Value value) {
+            long millis;
+            if (value instanceof DateTimeValue) {
+                millis = ((DateTimeValue) value).asObjectCopy().toInstant().toEpochMilli();
+            } else if (value instanceof LocalDateTimeValue) {
+                millis = ((LocalDateTimeValue) value)
+                        .asObjectCopy()
+                        .toInstant(ZoneOffset.UTC)
+                        .toEpochMilli();
+            } else if (value instanceof DateValue) {
+                millis = ((DateValue) value)
+                        .asObjectCopy()
+                        .atStartOfDay(ZoneOffset.UTC)
+                        .toInstant()
+                        .toEpochMilli();
+            } else {
+                return false;
+            }
+            vector.setSafe(row, millis);
+            return true;
+        }
+
+        private void writeLongArray(int row, ListVector vector, IntegralArray array) {
+            BigIntVector elements = (BigIntVector) vector.getDataVector();
+            int offset = vector.startNewValue(row);
+            int length = array.length();
+            for (int i = 0; i < length; i++) {
+                elements.setSafe(offset + i, array.longValue(i));
+            }
+            vector.endValue(row, length);
+        }
+
+        private void writeDoubleArray(int row, ListVector vector, NumberArray array) {
+            Float8Vector elements = (Float8Vector) vector.getDataVector();
+            int offset = vector.startNewValue(row);
+            int length = array.length();
+            for (int i = 0; i < length; i++) {
+                // a column widened from integer arrays
+                double element = array instanceof IntegralArray
+                        ? ((IntegralArray) array).longValue(i)
+                        : ((FloatingPointArray) array).doubleValue(i);
+                elements.setSafe(offset + i, element);
+            }
+            vector.endValue(row, length);
+        }
+
+        private void writeStringArray(int row, ListVector vector, TextArray array) {
+            VarCharVector elements = (VarCharVector) vector.getDataVector();
+            int offset = vector.startNewValue(row);
+            int length = array.length();
+            for (int i = 0; i < length; i++) {
+                elements.setSafe(offset + i, array.stringValue(i).getBytes(StandardCharsets.UTF_8));
+            }
+            vector.endValue(row, length);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.export.csv;
+
+import apoc.util.QueueUtil;
+import apoc.util.Util;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.BiFunction;
+import org.neo4j.procedure.TerminationGuard;
+
+/**
+ * Reads, decompresses and parses the lines of a CSV file on a separate thread,
+ * handing batches of parsed rows to the importing thread, which only has to write them.
+ *
+ * The parsing thread is not taken from the pools, as it has to keep running while the importing thread,
+ * which may itself be a pool thread, waits for its batches.
+ */
+class CsvBatchReader<T> implements Iterator<List<T>>, AutoCloseable {
+    static final int BATCH_SIZE = 1000;
+    private static final int QUEUE_CAPACITY = 16;
+
+    private final BlockingQueue<List<T>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final List<T> tombstone = new ArrayList<>(0);
+    private final TerminationGuard terminationGuard;
+    private volatile boolean closed;
+    private volatile Throwable error;
+    private List<T> next;
+
+    /**
+     * @param parser converts a line and its number, starting from 1, into a row
+     */
+    CsvBatchReader(Iterable<String[]> lines, BiFunction<String[], Integer, T> parser, TerminationGuard terminationGuard) {
+        this.terminationGuard = terminationGuard;
+        Util.newDaemonThread(() -> {
+                    try {
+                        List<T> batch = new ArrayList<>(BATCH_SIZE);
+                        int lineNo = 0;
+                        for (String[] line : lines) {
+                            if (closed) return;
+                            batch.add(parser.apply(line, ++lineNo));
+                            if (batch.size() == BATCH_SIZE) {
+                                offer(batch);
+                                batch = new ArrayList<>(BATCH_SIZE);
+                            }
+                        }
+                        if (!batch.isEmpty()) {
+                            offer(batch);
+                        }
+                    } catch (Throwable e) {
+                        error = e;
+                    } finally {
+                        offer(tombstone);
+                    }
+                })
+                .start();
+    }
+
+    private void offer(List<T> batch) {
+        try {
+            while (!closed) {
+                if (queue.offer(batch, QueueUtil.WAIT, QueueUtil.WAIT_UNIT)) return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closed = true;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = QueueUtil.take(queue, Integer.MAX_VALUE, terminationGuard::check);
+        }
+        if (next != tombstone) {
+            return true;
+        }
+        if (error != null) {
+            Throwable e = error;
+            error = null;
+            if (e instanceof RuntimeException) throw (RuntimeException) e;
+            if (e instanceof Error) throw (Error) e;
+            throw new RuntimeException(e);
+        }
+        return false;
+    }
+
+    @Override
+    public List<T> next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        List<T> batch = next;
+        next = null;
+        return batch;
+    }
+
+    /**
+     * Stops the parsing thread, e.g. when the import of the batches failed
+     */
+    @Override
+    public void close() {
+        closed = true;
+        queue.clear();
+    }
+}
@@ -31,7 +31,7 @@ import com.opencsv.CSVReaderBuilder;
 import com.opencsv.RFC4180ParserBuilder;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.neo4j.graphdb.*;
@@ -59,7 +59,7 @@ public class CsvEntityLoader {
 
     /**
      * Loads nodes from a CSV file with given labels to an online database, and fills the {@code idMapping},
-     * which will be used by the {@link #loadRelationships(Object, String, GraphDatabaseService, Map)}
+     * which will be used by the {@link #loadRelationships(Object, String, GraphDatabaseService, IdMapping)}
      * method.
      *
      * @param fileName URI/Binary of the CSV file representing the node
@@ -72,7 +72,7 @@ public class CsvEntityLoader {
             final Object fileName,
             final List<String> labels,
             final GraphDatabaseService db,
-            final Map<String, Map<String, Long>> idMapping)
+            final IdMapping idMapping)
             throws IOException {
 
         try (final CountingReader reader = FileUtils.readerFor(fileName, clc.getCompressionAlgo())) {
@@ -94,8 +94,7 @@ public class CsvEntityLoader {
             final String idSpace =
                     idField.isPresent() ? idField.get().getIdSpace() : CsvLoaderConstants.DEFAULT_IDSPACE;
 
-            idMapping.putIfAbsent(idSpace, new HashMap<>());
-            final Map<String, Long> idspaceIdMapping = idMapping.get(idSpace);
+            final IdMapping.IdSpace idspaceIdMapping = idMapping.idSpace(idSpace);
 
             final Map<String, Mapping> mapping = getMapping(fields);
 
@@ -109,78 +108,83 @@ public class CsvEntityLoader {
 
             final String[] loadCsvCompatibleHeader =
                     fields.stream().map(f -> f.getName()).toArray(String[]::new);
-            AtomicInteger lineNo = new AtomicInteger();
-            BatchTransaction btx = new BatchTransaction(db, clc.getBatchSize(), reporter);
-            try {
-                csv.forEach(line -> {
-                    terminationGuard.check();
-                    lineNo.getAndIncrement();
-
-                    final EnumSet<Results> results = EnumSet.of(Results.map);
-                    final CSVResult result = new CSVResult(
-                            loadCsvCompatibleHeader,
-                            line,
-                            lineNo.get(),
-                            false,
-                            mapping,
-                            Collections.emptyList(),
-                            results);
-
-                    final String nodeCsvId =
-                            (String) idAttribute.map(result.map::get).orElse(null);
-
-                    // if 'ignore duplicate nodes' is false, there is an id field and the mapping already has the
-                    // current id,
-                    // we either fail the loading process or skip it depending on the 'ignore duplicate nodes' setting
-                    if (idField.isPresent() && idspaceIdMapping.containsKey(nodeCsvId)) {
-                        if (clc.getIgnoreDuplicateNodes()) {
-                            return;
+
+            // parsing and type conversion happen on the reader's thread
+            final BiFunction<String[], Integer, ParsedRow> parser = (line, lineNo) -> {
+                final ParsedRow row = parse(loadCsvCompatibleHeader, line, lineNo, mapping);
+                for (CsvHeaderField field : fields) {
+                    final String name = field.getName();
+                    Object value = row.values.get(name);
+
+                    if (field.isMeta()) {
+                        row.labels.addAll((List<String>) value);
+                    } else if (field.isId()) {
+                        final Object idValue;
+                        if (clc.getStringIds()) {
+                            idValue = value;
                         } else {
-                            throw new IllegalStateException("Duplicate node with id " + nodeCsvId + " found on line "
-                                    + lineNo + "\n" + Arrays.toString(line));
+                            idValue = Long.valueOf((String) value);
+                        }
+                        row.properties.put(name, idValue);
+                    } else {
+                        final Object propertyValue = CsvPropertyConverter.toPropertyValue(field, value, clc);
+                        if (propertyValue != null) {
+                            row.properties.put(name, propertyValue);
                         }
                     }
+                }
+                return row;
+            };
 
-                    // create node and add its id to the mapping
-                    final Node node = btx.getTransaction().createNode();
-                    if (idField.isPresent()) {
-                        idspaceIdMapping.put(nodeCsvId, node.getId());
-                    }
-
-                    // add labels
-                    for (String label : labels) {
-                        node.addLabel(Label.label(label));
-                    }
+            final List<Label> nodeLabels = labels.stream().map(Label::label).collect(Collectors.toList());
+            BatchTransaction btx = new BatchTransaction(db, clc.getBatchSize(), reporter);
+            try (CsvBatchReader<ParsedRow> batches = new CsvBatchReader<>(csv, parser, terminationGuard)) {
+                while (batches.hasNext()) {
+                    long nodes = 0;
+                    long props = 0;
+                    for (ParsedRow row : batches.next()) {
+                        terminationGuard.check();
 
-                    // add properties
-                    int props = 0;
-                    for (CsvHeaderField field : fields) {
-                        final String name = field.getName();
-                        Object value = result.map.get(name);
+                        final String nodeCsvId =
+                                (String) idAttribute.map(row.values::get).orElse(null);
 
-                        if (field.isMeta()) {
-                            final List<String> customLabels = (List<String>) value;
-                            for (String customLabel : customLabels) {
-                                node.addLabel(Label.label(customLabel));
+                        // if 'ignore duplicate nodes' is false, there is an id field and the mapping already has
+                        // the current id, we either fail the loading process or skip it depending on the
+                        // 'ignore duplicate nodes' setting
+                        if (nodeCsvId != null && idspaceIdMapping.contains(nodeCsvId)) {
+                            if (clc.getIgnoreDuplicateNodes()) {
+                                continue;
                             }
-                        } else if (field.isId()) {
-                            final Object idValue;
-                            if (clc.getStringIds()) {
-                                idValue = value;
-                            } else {
-                                idValue = Long.valueOf((String) value);
+                            throw duplicateNode(nodeCsvId, row);
+                        }
+
+                        // create node and add its id to the mapping
+                        final Node node = btx.getTransaction().createNode();
+                        // another file of the same id space, imported concurrently, could have added the id
+                        if (nodeCsvId != null && !idspaceIdMapping.putIfAbsent(nodeCsvId, node.getId())) {
+                            if (clc.getIgnoreDuplicateNodes()) {
+                                node.delete();
+                                continue;
                             }
-                            node.setProperty(field.getName(), idValue);
-                            props++;
-                        } else {
-                            boolean propertyAdded =
-                                    CsvPropertyConverter.addPropertyToGraphEntity(node, field, value, clc);
-                            props += propertyAdded ? 1 : 0;
+                            throw duplicateNode(nodeCsvId, row);
+                        }
+
+                        // add labels
+                        for (Label label : nodeLabels) {
+                            node.addLabel(label);
                         }
+                        for (String customLabel : row.labels) {
+                            node.addLabel(Label.label(customLabel));
+                        }
+
+                        // add properties
+                        row.properties.forEach(node::setProperty);
+                        btx.increment();
+                        nodes++;
+                        props += row.properties.size();
                     }
-                    btx.increment();
-                    reporter.update(1, 0, props++);
-                });
+                    reporter.update(nodes, 0, props);
+                }
                 btx.commit();
             } catch (RuntimeException e) {
                 btx.rollback();
@@ -194,7 +198,7 @@ public class CsvEntityLoader {
     /**
      * Loads relationships from a CSV file with given relationship types to an online database,
      * using the {@code idMapping} created by the
-     * {@link #loadNodes(Object, List, GraphDatabaseService, Map)} method.
+     * {@link #loadNodes(Object, List, GraphDatabaseService, IdMapping)} method.
      *
      * @param data URI / Binary of the CSV file representing the relationship
      * @param type relationship type to be applied to each relationships
@@ -207,7 +211,7 @@ public class CsvEntityLoader {
             final Object data,
             final String type,
             final GraphDatabaseService db,
-            final Map<String, Map<String, Long>> idMapping)
+            final IdMapping idMapping)
             throws IOException {
 
         try (final CountingReader reader = FileUtils.readerFor(data, clc.getCompressionAlgo())) {
@@ -231,72 +235,72 @@ public class CsvEntityLoader {
                     .collect(Collectors.toList());
 
             final Map<String, Mapping> mapping = getMapping(fields);
-            final var parser =
+            final var csvParser =
                     new CSVParserBuilder().withSeparator(clc.getDelimiter()).build();
 
             try (final var csv =
-                    new CSVReaderBuilder(reader).withCSVParser(parser).build()) {
+                    new CSVReaderBuilder(reader).withCSVParser(csvParser).build()) {
 
                 final String[] loadCsvCompatibleHeader =
                         fields.stream().map(f -> f.getName()).toArray(String[]::new);
 
-                AtomicInteger lineNo = new AtomicInteger();
-                BatchTransaction btx = new BatchTransaction(db, clc.getBatchSize(), reporter);
-                try {
-                    csv.forEach(line -> {
-                        terminationGuard.check();
-                        lineNo.getAndIncrement();
-
-                        final EnumSet<Results> results = EnumSet.of(Results.map);
-                        final CSVResult result = new CSVResult(
-                                loadCsvCompatibleHeader,
-                                line,
-                                lineNo.get(),
-                                false,
-                                mapping,
-                                Collections.emptyList(),
-                                results);
-
-                        final Object startId = result.map.get(CsvLoaderConstants.START_ID_ATTR);
-                        final Object startInternalId =
-                                idMapping.get(startIdField.getIdSpace()).get(startId);
-                        if (startInternalId == null) {
-                            throw new IllegalStateException("Node for id space " + endIdField.getIdSpace() + " and id "
-                                    + startId + " not found");
-                        }
-                        final Node source = btx.getTransaction().getNodeById((long) startInternalId);
-
-                        final Object endId = result.map.get(CsvLoaderConstants.END_ID_ATTR);
-                        final Object endInternalId =
-                                idMapping.get(endIdField.getIdSpace()).get(endId);
-                        if (endInternalId == null) {
-                            throw new IllegalStateException(
-                                    "Node for id space " + endIdField.getIdSpace() + " and id " + endId + " not found");
-                        }
-                        final Node target = btx.getTransaction().getNodeById((long) endInternalId);
+                // parsing, type conversion and the lookup of the nodes happen on the reader's thread,
+                // the node files have all been imported at this point
+                final BiFunction<String[], Integer, ParsedRow> parser = (line, lineNo) -> {
+                    final ParsedRow row = parse(loadCsvCompatibleHeader, line, lineNo, mapping);
 
-                        final String currentType;
-                        final Object overridingType = result.map.get(CsvLoaderConstants.TYPE_ATTR);
-                        if (overridingType != null && !((String) overridingType).isEmpty()) {
-                            currentType = (String) overridingType;
-                        } else {
-                            currentType = type;
+                    final Object startId = row.values.get(CsvLoaderConstants.START_ID_ATTR);
+                    row.startNodeId = idMapping.get(startIdField.getIdSpace(), startId);
+                    if (row.startNodeId == IdMapping.NOT_FOUND) {
+                        throw new IllegalStateException("Node for id space " + endIdField.getIdSpace() + " and id "
+                                + startId + " not found");
+                    }
+
+                    final Object endId = row.values.get(CsvLoaderConstants.END_ID_ATTR);
+                    row.endNodeId = idMapping.get(endIdField.getIdSpace(), endId);
+                    if (row.endNodeId == IdMapping.NOT_FOUND) {
+                        throw new IllegalStateException(
+                                "Node for id space " + endIdField.getIdSpace() + " and id " + endId + " not found");
+                    }
+
+                    final Object overridingType = row.values.get(CsvLoaderConstants.TYPE_ATTR);
+                    if (overridingType != null && !((String) overridingType).isEmpty()) {
+                        row.type = (String) overridingType;
+                    } else {
+                        row.type = type;
+                    }
+
+                    for (CsvHeaderField field : edgePropertiesFields) {
+                        final Object propertyValue =
+                                CsvPropertyConverter.toPropertyValue(field, row.values.get(field.getName()), clc);
+                        if (propertyValue != null) {
+                            row.properties.put(field.getName(), propertyValue);
                         }
-                        final Relationship rel =
-                                source.createRelationshipTo(target, RelationshipType.withName(currentType));
+                    }
+                    return row;
+                };
 
-                        // add properties
-                        int props = 0;
-                        for (CsvHeaderField field : edgePropertiesFields) {
-                            final String name = field.getName();
-                            Object value = result.map.get(name);
-                            boolean propertyAdded =
-                                    CsvPropertyConverter.addPropertyToGraphEntity(rel, field, value, clc);
-                            props += propertyAdded ? 1 : 0;
+                BatchTransaction btx = new BatchTransaction(db, clc.getBatchSize(), reporter);
+                try (CsvBatchReader<ParsedRow> batches = new CsvBatchReader<>(csv, parser, terminationGuard)) {
+                    while (batches.hasNext()) {
+                        long relationships = 0;
+                        long props = 0;
+                        for (ParsedRow row : batches.next()) {
+                            terminationGuard.check();
+
+                            final Node source = btx.getTransaction().getNodeById(row.startNodeId);
+                            final Node target = btx.getTransaction().getNodeById(row.endNodeId);
+                            final Relationship rel =
+                                    source.createRelationshipTo(target, RelationshipType.withName(row.type));
+
+                            // add properties
+                            row.properties.forEach(rel::setProperty);
+                            btx.increment();
+                            relationships++;
+                            props += row.properties.size();
                         }
-                        btx.increment();
-                        reporter.update(0, 1, props);
-                    });
+                        reporter.update(0, relationships, props);
+                    }
                     btx.commit();
                 } catch (RuntimeException e) {
                     btx.rollback();
@@ -308,6 +312,38 @@ public class CsvEntityLoader {
         }
     }
 
+    private static ParsedRow parse(String[] header, String[] line, int lineNo, Map<String, Mapping> mapping) {
+        final EnumSet<Results> results = EnumSet.of(Results.map);
+        final CSVResult result =
+                new CSVResult(header, line, lineNo, false, mapping, Collections.emptyList(), results);
+        return new ParsedRow(line, lineNo, result.map);
+    }
+
+    private static IllegalStateException duplicateNode(String nodeCsvId, ParsedRow row) {
+        return new IllegalStateException("Duplicate node with id " + nodeCsvId + " found on line " + row.lineNo
+                + "\n" + Arrays.toString(row.line));
+    }
+
+    /**
+     * A line of the CSV file, with the values already converted to the types of the header
+     */
+    private static class ParsedRow {
+        final String[] line;
+        final int lineNo;
+        final Map<String, Object> values;
+        final Map<String, Object> properties = new LinkedHashMap<>();
+        final List<String> labels = new ArrayList<>(0);
+        long startNodeId;
+        long endNodeId;
+        String type;
+
+        ParsedRow(String[] line, int lineNo, Map<String, Object> values) {
+            this.line = line;
+            this.lineNo = lineNo;
+            this.values = values;
+        }
+    }
+
     private Map<String, Mapping> getMapping(List<CsvHeaderField> fields) {
         return fields.stream().collect(Collectors.toMap(CsvHeaderField::getName, f -> {
             final Map<String, Object> mappingMap = Collections.unmodifiableMap(Stream.of(
@@ -23,7 +23,9 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import apoc.util.CompressionAlgo;
 import apoc.util.CompressionConfig;
 import apoc.util.Util;
+import java.lang.management.ManagementFactory;
 import java.util.Map;
+import org.neo4j.io.ByteUnit;
 
 /**
  * Config class to store the configuration for loading the CSV file. Names and defaults are based on the import tool's
@@ -40,6 +42,9 @@ public class CsvLoaderConfig extends CompressionConfig {
     private static final String IGNORE_DUPLICATE_NODES = "ignoreDuplicateNodes";
     private static final String IGNORE_BLANK_STRING = "ignoreBlankString";
     private static final String IGNORE_EMPTY_CELL_ARRAY = "ignoreEmptyCellArray";
+    private static final String ID_MAPPING_MAX_MEMORY = "idMappingMaxMemory";
+    private static final String CONCURRENCY = "concurrency";
+    private static final String MAX_DIRECT_MEMORY_OPTION = "-XX:MaxDirectMemorySize=";
 
     private static char DELIMITER_DEFAULT = ',';
     private static char ARRAY_DELIMITER_DEFAULT = ';';
@@ -50,6 +55,9 @@ public class CsvLoaderConfig extends CompressionConfig {
     private static boolean IGNORE_DUPLICATE_NODES_DEFAULT = false;
     private static boolean IGNORE_BLANK_STRING_DEFAULT = false;
     private static boolean IGNORE_EMPTY_CELL_ARRAY_DEFAULT = false;
+    // a quarter of the direct memory of the JVM, so that a big import spills to disk instead of exhausting it
+    private static final long ID_MAPPING_MAX_MEMORY_DEFAULT = maxDirectMemory() / 4;
+    private static final int CONCURRENCY_DEFAULT = 1;
 
     private final char delimiter;
     private final char arrayDelimiter;
@@ -60,6 +68,8 @@ public class CsvLoaderConfig extends CompressionConfig {
     private final boolean ignoreDuplicateNodes;
     private final boolean ignoreBlankString;
     private final boolean ignoreEmptyCellArray;
+    private final long idMappingMaxMemory;
+    private final int concurrency;
 
     private CsvLoaderConfig(Builder builder) {
         super(Map.of(COMPRESSION, builder.compressionAlgo, CHARSET, builder.charset));
@@ -72,6 +82,8 @@ public class CsvLoaderConfig extends CompressionConfig {
         this.ignoreDuplicateNodes = builder.ignoreDuplicateNodes;
         this.ignoreBlankString = builder.ignoreBlankString;
         this.ignoreEmptyCellArray = builder.ignoreEmptyCellArray;
+        this.idMappingMaxMemory = builder.idMappingMaxMemory;
+        this.concurrency = builder.concurrency;
     }
 
     public char getDelimiter() {
@@ -110,6 +122,14 @@ public class CsvLoaderConfig extends CompressionConfig {
         return ignoreEmptyCellArray;
     }
 
+    public long getIdMappingMaxMemory() {
+        return idMappingMaxMemory;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
     /**
      * Creates builder to build {@link CsvLoaderConfig}.
      *
@@ -150,12 +170,31 @@ public class CsvLoaderConfig extends CompressionConfig {
             builder.ignoreBlankString((boolean) config.get(IGNORE_BLANK_STRING));
         if (config.get(IGNORE_EMPTY_CELL_ARRAY) != null)
             builder.ignoreEmptyCellArray((boolean) config.get(IGNORE_EMPTY_CELL_ARRAY));
+        if (config.get(ID_MAPPING_MAX_MEMORY) != null)
+            builder.idMappingMaxMemory(Util.toLong(config.get(ID_MAPPING_MAX_MEMORY)));
+        if (config.get(CONCURRENCY) != null) builder.concurrency(Util.toInteger(config.get(CONCURRENCY)));
         builder.binary((String) config.getOrDefault(COMPRESSION, CompressionAlgo.NONE.name()));
         builder.charset((String) config.getOrDefault(CHARSET, UTF_8.name()));
 
         return builder.build();
     }
 
+    /**
+     * @return the `-XX:MaxDirectMemorySize` of the JVM, which defaults to the maximum heap size
+     */
+    private static long maxDirectMemory() {
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argument.startsWith(MAX_DIRECT_MEMORY_OPTION)) {
+                try {
+                    return ByteUnit.parse(argument.substring(MAX_DIRECT_MEMORY_OPTION.length()));
+                } catch (IllegalArgumentException e) {
+                    break;
+                }
+            }
+        }
+        return Runtime.getRuntime().maxMemory();
+    }
+
     /**
      * Builder to build {@link CsvLoaderConfig}.
      */
@@ -169,6 +208,8 @@ public class CsvLoaderConfig extends CompressionConfig {
         private boolean ignoreDuplicateNodes = IGNORE_DUPLICATE_NODES_DEFAULT;
         private boolean ignoreBlankString = IGNORE_BLANK_STRING_DEFAULT;
         private boolean ignoreEmptyCellArray = IGNORE_EMPTY_CELL_ARRAY_DEFAULT;
+        private long idMappingMaxMemory = ID_MAPPING_MAX_MEMORY_DEFAULT;
+        private int concurrency = CONCURRENCY_DEFAULT;
         private String compressionAlgo = null;
         private String charset = UTF_8.name();
 
@@ -229,6 +270,19 @@ public class CsvLoaderConfig extends CompressionConfig {
             return this;
         }
 
+        public Builder idMappingMaxMemory(long idMappingMaxMemory) {
+            this.idMappingMaxMemory = idMappingMaxMemory;
+            return this;
+        }
+
+        public Builder concurrency(int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("concurrency must be > 0");
+            }
+            this.concurrency = concurrency;
+            return this;
+        }
+
         public CsvLoaderConfig build() {
             return new CsvLoaderConfig(this);
         }
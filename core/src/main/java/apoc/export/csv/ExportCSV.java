@@ -74,7 +74,22 @@ public class ExportCSV {
     public Stream<ProgressInfo> all(@Name("file") String fileName, @Name("config") Map<String, Object> config)
             throws Exception {
         String source = String.format("database: nodes(%d), rels(%d)", Util.nodeCount(tx), Util.relCount(tx));
-        return exportCsv(fileName, source, new DatabaseSubGraph(tx), new ExportConfig(config, ExportFormat.CSV));
+        ExportConfig exportConfig = new ExportConfig(config, ExportFormat.CSV);
+        if (exportConfig.getShards() > 1) {
+            apocConfig.checkWriteAllowed(exportConfig, fileName);
+            return ExportUtils.exportSharded(
+                    db,
+                    tx,
+                    terminationGuard,
+                    pools.getDefaultExecutorService(),
+                    fileName,
+                    source,
+                    "csv",
+                    exportConfig,
+                    (subGraph, fileManager, reporter) ->
+                            new CsvFormat(db).dump(subGraph, fileManager, reporter, exportConfig));
+        }
+        return exportCsv(fileName, source, new DatabaseSubGraph(tx), exportConfig);
     }
 
     @Procedure
@@ -133,8 +148,15 @@ public class ExportCSV {
         }
     }
 
+    private void preventShards(ExportConfig config) {
+        if (config.getShards() > 1) {
+            throw new IllegalArgumentException("You can use the `shards` config only with apoc.export.csv.all");
+        }
+    }
+
     private Stream<ProgressInfo> exportCsv(
             @Name("file") String fileName, String source, Object data, ExportConfig exportConfig) throws Exception {
+        preventShards(exportConfig);
         apocConfig.checkWriteAllowed(exportConfig, fileName);
         final String format = "csv";
         ProgressInfo progressInfo = new ProgressInfo(fileName, source, format);
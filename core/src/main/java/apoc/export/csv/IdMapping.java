@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.export.csv;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.eclipse.collections.impl.map.mutable.primitive.LongLongHashMap;
+
+/**
+ * Maps the ids of the CSV files to the internal node ids, per id space.
+ *
+ * An id space starts as a primitive long to long map, as long as all its ids are integers,
+ * and is moved to a {@link StringIdDictionary} on the first id that isn't,
+ * so that no boxed keys or values are kept on heap in either case.
+ *
+ * Id spaces can be shared by files imported concurrently, the lookups of the relationship files don't block each other.
+ */
+public class IdMapping implements AutoCloseable {
+    public static final long NOT_FOUND = -1;
+
+    private final AtomicLong offHeapMemory = new AtomicLong();
+    private final long maxOffHeapMemory;
+    private final Map<String, IdSpace> idSpaces = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxOffHeapMemory the bytes of string ids kept in direct memory before spilling them to disk,
+     *                         a negative value means no limit
+     */
+    public IdMapping(long maxOffHeapMemory) {
+        this.maxOffHeapMemory = maxOffHeapMemory;
+    }
+
+    public IdSpace idSpace(String name) {
+        return idSpaces.computeIfAbsent(name, k -> new IdSpace());
+    }
+
+    /**
+     * @return the internal id of the node, or {@link #NOT_FOUND}
+     */
+    public long get(String idSpace, Object csvId) {
+        IdSpace space = idSpaces.get(idSpace);
+        return space == null || csvId == null ? NOT_FOUND : space.get(csvId.toString());
+    }
+
+    @Override
+    public void close() {
+        idSpaces.values().forEach(IdSpace::close);
+        idSpaces.clear();
+    }
+
+    public class IdSpace implements AutoCloseable {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private LongLongHashMap numericIds = new LongLongHashMap();
+        private StringIdDictionary stringIds;
+
+        public long get(String csvId) {
+            lock.readLock().lock();
+            try {
+                if (stringIds != null) {
+                    return stringIds.get(csvId, NOT_FOUND);
+                }
+                // a non canonical integer, e.g. "007", can't have been added to the numeric ids
+                return isCanonicalLong(csvId) ? numericIds.getIfAbsent(Long.parseLong(csvId), NOT_FOUND) : NOT_FOUND;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        public boolean contains(String csvId) {
+            return get(csvId) != NOT_FOUND;
+        }
+
+        /**
+         * @return false if the id was already mapped, in which case the mapping is left unchanged
+         */
+        public boolean putIfAbsent(String csvId, long nodeId) {
+            lock.writeLock().lock();
+            try {
+                if (stringIds == null) {
+                    if (isCanonicalLong(csvId)) {
+                        long key = Long.parseLong(csvId);
+                        if (numericIds.containsKey(key)) return false;
+                        numericIds.put(key, nodeId);
+                        return true;
+                    }
+                    toStringIds();
+                }
+                return stringIds.putIfAbsent(csvId, nodeId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void toStringIds() {
+            stringIds = new StringIdDictionary(offHeapMemory, maxOffHeapMemory);
+            numericIds.forEachKeyValue((key, value) -> stringIds.putIfAbsent(Long.toString(key), value));
+            numericIds = null;
+        }
+
+        @Override
+        public void close() {
+            lock.writeLock().lock();
+            try {
+                numericIds = null;
+                if (stringIds != null) {
+                    stringIds.close();
+                    stringIds = null;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * @return true if the value is an integer that {@link Long#toString(long)} formats the same way
+     */
+    static boolean isCanonicalLong(String value) {
+        int length = value.length();
+        int start = length > 1 && value.charAt(0) == '-' ? 1 : 0;
+        // 18 digits can't overflow
+        if (length == start || length - start > 18) return false;
+        if (value.charAt(start) == '0' && length - start > 1) return false;
+        if (start == 1 && value.charAt(1) == '0') return false;
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+}
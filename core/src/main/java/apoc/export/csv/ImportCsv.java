@@ -22,9 +22,17 @@ import apoc.Pools;
 import apoc.export.util.ProgressReporter;
 import apoc.result.ProgressInfo;
 import apoc.util.Util;
-import java.util.HashMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Stream;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.logging.Log;
@@ -68,21 +76,77 @@ public class ImportCsv {
             final ProgressReporter reporter = new ProgressReporter(null, null, new ProgressInfo(file, source, "csv"));
             final CsvEntityLoader loader = new CsvEntityLoader(clc, reporter, log, terminationGuard);
 
-            final Map<String, Map<String, Long>> idMapping = new HashMap<>();
-            for (Map<String, Object> node : nodes) {
-                final Object data = node.getOrDefault("fileName", node.get("data"));
-                final List<String> labels = (List<String>) node.get("labels");
-                loader.loadNodes(data, labels, db, idMapping);
-            }
+            try (final IdMapping idMapping = new IdMapping(clc.getIdMappingMaxMemory())) {
+                final List<Callable<Void>> nodeImports = new ArrayList<>();
+                for (Map<String, Object> node : nodes) {
+                    final Object data = node.getOrDefault("fileName", node.get("data"));
+                    final List<String> labels = (List<String>) node.get("labels");
+                    nodeImports.add(() -> {
+                        loader.loadNodes(data, labels, db, idMapping);
+                        return null;
+                    });
+                }
+                importFiles(nodeImports, clc.getConcurrency());
 
-            for (Map<String, Object> relationship : relationships) {
-                final Object fileName = relationship.getOrDefault("fileName", relationship.get("data"));
-                final String type = (String) relationship.get("type");
-                loader.loadRelationships(fileName, type, db, idMapping);
+                // the relationships need all the nodes to be imported
+                final List<Callable<Void>> relationshipImports = new ArrayList<>();
+                for (Map<String, Object> relationship : relationships) {
+                    final Object fileName = relationship.getOrDefault("fileName", relationship.get("data"));
+                    final String type = (String) relationship.get("type");
+                    relationshipImports.add(() -> {
+                        loader.loadRelationships(fileName, type, db, idMapping);
+                        return null;
+                    });
+                }
+                importFiles(relationshipImports, clc.getConcurrency());
             }
 
             return reporter.getTotal();
         });
         return Stream.of(result);
     }
+
+    /**
+     * Imports up to `concurrency` files at the same time, each one in its own transactions.
+     * The files are imported by a dedicated executor, as the procedure itself already runs on the default pool.
+     */
+    private void importFiles(List<Callable<Void>> fileImports, int concurrency) throws Exception {
+        if (concurrency <= 1 || fileImports.size() <= 1) {
+            for (Callable<Void> fileImport : fileImports) {
+                fileImport.call();
+            }
+            return;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(concurrency, fileImports.size()),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("apoc-import-csv-%d")
+                        .setDaemon(true)
+                        .build());
+        try {
+            final CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+            final Iterator<Callable<Void>> pending = fileImports.iterator();
+            int running = 0;
+            ExecutionException failure = null;
+            while (running > 0 || (failure == null && pending.hasNext())) {
+                // once a file failed no other one is started, the running ones are waited for anyway,
+                // so that the procedure doesn't return while they are still being written
+                while (failure == null && running < concurrency && pending.hasNext()) {
+                    completionService.submit(pending.next());
+                    running++;
+                }
+                try {
+                    completionService.take().get();
+                } catch (ExecutionException e) {
+                    if (failure == null) failure = e;
+                }
+                running--;
+            }
+            if (failure != null) {
+                throw failure.getCause() instanceof Exception ? (Exception) failure.getCause() : failure;
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.export.csv;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.neo4j.internal.unsafe.UnsafeUtil;
+
+/**
+ * Open addressing hash table from string ids to node ids.
+ *
+ * Only the hashes, the key offsets and the node ids are kept on heap, in primitive arrays.
+ * The UTF-8 bytes of the keys are appended to pages outside the heap: direct buffers while the shared
+ * memory budget allows it, then pages memory mapped from a temporary file, which the OS can page out.
+ * All the pages are released on {@link #close()}, no dictionary can be used after it.
+ */
+class StringIdDictionary implements AutoCloseable {
+    static final int PAGE_SIZE = 1 << 23;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final int LENGTH_BYTES = Integer.BYTES;
+
+    private final AtomicLong offHeapMemory;
+    private final long maxOffHeapMemory;
+    private final List<ByteBuffer> pages = new ArrayList<>();
+    private long writeOffset;
+    private Path spillFile;
+    private FileChannel spillChannel;
+    private long spillSize;
+
+    private int[] hashes;
+    // offset of the key in the pages + 1, 0 marks an empty slot
+    private long[] keyOffsets;
+    private long[] values;
+    private int size;
+
+    /**
+     * @param offHeapMemory the direct memory allocated by all the dictionaries of the same import
+     * @param maxOffHeapMemory the direct memory after which the keys are spilled to disk, a negative value means no limit
+     */
+    StringIdDictionary(AtomicLong offHeapMemory, long maxOffHeapMemory) {
+        this.offHeapMemory = offHeapMemory;
+        this.maxOffHeapMemory = maxOffHeapMemory;
+        this.hashes = new int[INITIAL_CAPACITY];
+        this.keyOffsets = new long[INITIAL_CAPACITY];
+        this.values = new long[INITIAL_CAPACITY];
+    }
+
+    int size() {
+        return size;
+    }
+
+    long get(String key, long defaultValue) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(bytes);
+        int mask = keyOffsets.length - 1;
+        for (int slot = hash & mask; keyOffsets[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && keyEquals(keyOffsets[slot] - 1, bytes)) {
+                return values[slot];
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * @return false if the key was already present, in which case its value is left unchanged
+     */
+    boolean putIfAbsent(String key, long value) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(bytes);
+        int mask = keyOffsets.length - 1;
+        int slot = hash & mask;
+        for (; keyOffsets[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && keyEquals(keyOffsets[slot] - 1, bytes)) {
+                return false;
+            }
+        }
+        hashes[slot] = hash;
+        keyOffsets[slot] = writeKey(bytes) + 1;
+        values[slot] = value;
+        // keep the load factor below 0.7, so that probe sequences stay short
+        if (++size * 10L > keyOffsets.length * 7L) {
+            resize();
+        }
+        return true;
+    }
+
+    private void resize() {
+        int capacity = keyOffsets.length << 1;
+        if (capacity <= 0) {
+            throw new IllegalStateException("Too many ids in the same id space: " + size);
+        }
+        int[] oldHashes = hashes;
+        long[] oldKeyOffsets = keyOffsets;
+        long[] oldValues = values;
+        hashes = new int[capacity];
+        keyOffsets = new long[capacity];
+        values = new long[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeyOffsets.length; i++) {
+            if (oldKeyOffsets[i] == 0) continue;
+            int slot = oldHashes[i] & mask;
+            while (keyOffsets[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = oldHashes[i];
+            keyOffsets[slot] = oldKeyOffsets[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private long writeKey(byte[] bytes) {
+        int length = LENGTH_BYTES + bytes.length;
+        if (length > PAGE_SIZE) {
+            throw new IllegalArgumentException("Id too long: " + bytes.length + " bytes");
+        }
+        int pageOffset = (int) (writeOffset % PAGE_SIZE);
+        if (PAGE_SIZE - pageOffset < length) {
+            // records never span two pages
+            writeOffset += PAGE_SIZE - pageOffset;
+            pageOffset = 0;
+        }
+        int pageIndex = (int) (writeOffset / PAGE_SIZE);
+        if (pageIndex == pages.size()) {
+            pages.add(newPage());
+        }
+        ByteBuffer page = pages.get(pageIndex);
+        page.putInt(pageOffset, bytes.length);
+        page.duplicate().position(pageOffset + LENGTH_BYTES).put(bytes);
+        long offset = writeOffset;
+        writeOffset += length;
+        return offset;
+    }
+
+    private boolean keyEquals(long offset, byte[] bytes) {
+        ByteBuffer page = pages.get((int) (offset / PAGE_SIZE));
+        int pageOffset = (int) (offset % PAGE_SIZE);
+        if (page.getInt(pageOffset) != bytes.length) return false;
+        for (int i = 0; i < bytes.length; i++) {
+            if (page.get(pageOffset + LENGTH_BYTES + i) != bytes[i]) return false;
+        }
+        return true;
+    }
+
+    private ByteBuffer newPage() {
+        if (maxOffHeapMemory < 0 || offHeapMemory.addAndGet(PAGE_SIZE) <= maxOffHeapMemory) {
+            return ByteBuffer.allocateDirect(PAGE_SIZE);
+        }
+        offHeapMemory.addAndGet(-PAGE_SIZE);
+        try {
+            if (spillChannel == null) {
+                spillFile = Files.createTempFile("apoc-import-ids", ".bin");
+                spillChannel = FileChannel.open(
+                        spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            ByteBuffer page = spillChannel.map(FileChannel.MapMode.READ_WRITE, spillSize, PAGE_SIZE);
+            spillSize += PAGE_SIZE;
+            return page;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to spill the id mapping to disk", e);
+        }
+    }
+
+    private static int hash(byte[] bytes) {
+        int hash = Arrays.hashCode(bytes);
+        // spread the high bits, as the slot is taken from the low ones
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public void close() {
+        long directPages = pages.size() - spillSize / PAGE_SIZE;
+        // free the direct pages and unmap the spilled ones now, rather than whenever a GC collects them
+        pages.forEach(UnsafeUtil::invokeCleaner);
+        offHeapMemory.addAndGet(-directPages * PAGE_SIZE);
+        pages.clear();
+        hashes = null;
+        keyOffsets = null;
+        values = null;
+        if (spillChannel != null) {
+            try {
+                spillChannel.close();
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
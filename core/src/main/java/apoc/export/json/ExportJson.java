@@ -75,6 +75,22 @@ public class ExportJson {
             throws Exception {
 
         String source = String.format("database: nodes(%d), rels(%d)", Util.nodeCount(tx), Util.relCount(tx));
+        ExportConfig exportConfig = new ExportConfig(config);
+        if (exportConfig.getShards() > 1) {
+            apocConfig.checkWriteAllowed(exportConfig, fileName);
+            JsonFormat.Format jsonFormat = getJsonFormat(config);
+            return ExportUtils.exportSharded(
+                    db,
+                    tx,
+                    terminationGuard,
+                    pools.getDefaultExecutorService(),
+                    fileName,
+                    source,
+                    "json",
+                    exportConfig,
+                    (subGraph, fileManager, reporter) ->
+                            new JsonFormat(db, jsonFormat).dump(subGraph, fileManager, reporter, exportConfig));
+        }
         return exportJson(fileName, source, new DatabaseSubGraph(tx), config);
     }
 
@@ -128,6 +144,7 @@ public class ExportJson {
     private Stream<ProgressInfo> exportJson(String fileName, String source, Object data, Map<String, Object> config)
             throws Exception {
         ExportConfig exportConfig = new ExportConfig(config);
+        preventShards(exportConfig);
         apocConfig.checkWriteAllowed(exportConfig, fileName);
         final String format = "json";
         ProgressReporter reporter = new ProgressReporter(null, null, new ProgressInfo(fileName, source, format));
@@ -150,6 +167,12 @@ public class ExportJson {
         }
     }
 
+    private void preventShards(ExportConfig config) {
+        if (config.getShards() > 1) {
+            throw new IllegalArgumentException("You can use the `shards` config only with apoc.export.json.all");
+        }
+    }
+
     private JsonFormat.Format getJsonFormat(Map<String, Object> config) {
         if (config == null) {
             return JsonFormat.Format.JSON_LINES;
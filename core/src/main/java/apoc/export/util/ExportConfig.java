@@ -51,6 +51,7 @@ public class ExportConfig extends CompressionConfig {
     public static final String IF_NEEDED_QUUOTES = "ifNeeded";
 
     public static final int DEFAULT_BATCH_SIZE = 20000;
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
     private static final int DEFAULT_UNWIND_BATCH_SIZE = 20;
     public static final String DEFAULT_DELIM = ",";
     public static final String DEFAULT_ARRAY_DELIM = ";";
@@ -259,6 +260,22 @@ public class ExportConfig extends CompressionConfig {
         return Util.toLong(config.getOrDefault("timeoutSeconds", 100));
     }
 
+    public int getQueueCapacity() {
+        int queueCapacity = Util.toInteger(config.getOrDefault("queueCapacity", DEFAULT_QUEUE_CAPACITY));
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be > 0");
+        }
+        return queueCapacity;
+    }
+
+    public int getShards() {
+        int shards = Util.toInteger(config.getOrDefault("shards", 1));
+        if (shards < 1) {
+            throw new IllegalArgumentException("shards must be > 0");
+        }
+        return shards;
+    }
+
     public int getUnwindBatchSize() {
         return unwindBatchSize;
     }
@@ -18,17 +18,39 @@
  */
 package apoc.export.util;
 
+import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.getHighestIdInUseForStore;
+
 import apoc.export.cypher.ExportFileManager;
+import apoc.export.cypher.FileManagerFactory;
 import apoc.result.ProgressInfo;
+import apoc.util.FileUtils;
+import apoc.util.JsonUtil;
 import apoc.util.QueueBasedSpliterator;
 import apoc.util.QueueUtil;
 import apoc.util.Util;
+import apoc.util.kernel.MultiThreadedGlobalGraphOperations.GlobalOperationsTypes;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.neo4j.common.DependencyResolver;
+import org.neo4j.cypher.export.SubGraph;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.kernel.api.security.SecurityContext;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.procedure.TerminationGuard;
 
 public class ExportUtils {
@@ -44,7 +66,7 @@ public class ExportUtils {
             ExportFileManager cypherFileManager,
             Consumer<ProgressReporter> dump) {
         long timeout = exportConfig.getTimeoutSeconds();
-        final ArrayBlockingQueue<ProgressInfo> queue = new ArrayBlockingQueue<>(1000);
+        final ArrayBlockingQueue<ProgressInfo> queue = new ArrayBlockingQueue<>(exportConfig.getQueueCapacity());
         ProgressReporter reporterWithConsumer = reporter.withConsumer((pi) -> QueueUtil.put(
                 queue,
                 pi == ProgressInfo.EMPTY
@@ -66,4 +88,149 @@ public class ExportUtils {
                 new QueueBasedSpliterator<>(queue, ProgressInfo.EMPTY, terminationGuard, (int) timeout);
         return StreamSupport.stream(spliterator, false);
     }
+
+    @FunctionalInterface
+    public interface ShardDump {
+        void dump(SubGraph graph, ExportFileManager fileManager, ProgressReporter reporter) throws Exception;
+    }
+
+    /**
+     * Exports the whole database as `config.shards` files, written concurrently.
+     * The node and relationship id spaces are split into as many contiguous ranges,
+     * each shard is dumped in its own transaction to `name.part-00000.ext`, `name.part-00001.ext`, ...
+     * and `name.manifest.json` lists the shards with their id ranges and counts.
+     * The transactions of the shards have the security context of the calling one,
+     * so they only see what the user could export without shards.
+     *
+     * @param tx the transaction of the procedure call
+     * @return a single row with the totals of all the shards
+     */
+    public static Stream<ProgressInfo> exportSharded(
+            GraphDatabaseService db,
+            Transaction tx,
+            TerminationGuard terminationGuard,
+            ExecutorService executorService,
+            String fileName,
+            String source,
+            String format,
+            ExportConfig exportConfig,
+            ShardDump dump) {
+        if (StringUtils.isBlank(fileName) || exportConfig.streamStatements()) {
+            throw new IllegalArgumentException("The shards config requires a file and can't be used with `stream`");
+        }
+        if (exportConfig.isBulkImport()) {
+            throw new IllegalArgumentException("The shards config can't be used together with `bulkImport`");
+        }
+        int shards = exportConfig.getShards();
+        GraphDatabaseAPI graphDb = (GraphDatabaseAPI) db;
+        DependencyResolver dependencyResolver = graphDb.getDependencyResolver();
+        long highestNodeId = getHighestIdInUseForStore(dependencyResolver, GlobalOperationsTypes.NODES);
+        long highestRelId = getHighestIdInUseForStore(dependencyResolver, GlobalOperationsTypes.RELATIONSHIPS);
+        long nodesPerShard = (highestNodeId + shards - 1) / shards;
+        long relsPerShard = (highestRelId + shards - 1) / shards;
+
+        SecurityContext securityContext = ((InternalTransaction) tx).kernelTransaction().securityContext();
+        long start = System.currentTimeMillis();
+        List<Future<ProgressInfo>> futures = new ArrayList<>(shards);
+        List<Map<String, Object>> manifestShards = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            String shardFileName = shardFileName(fileName, shard);
+            long fromNodeId = shard * nodesPerShard;
+            long toNodeId = Math.min(highestNodeId, fromNodeId + nodesPerShard);
+            long fromRelId = shard * relsPerShard;
+            long toRelId = Math.min(highestRelId, fromRelId + relsPerShard);
+            manifestShards.add(Util.map(
+                    "file",
+                    shardFileName,
+                    "nodeIds",
+                    List.of(fromNodeId, toNodeId),
+                    "relationshipIds",
+                    List.of(fromRelId, toRelId)));
+            futures.add(executorService.submit(() -> {
+                try (Transaction shardTx = graphDb.beginTransaction(KernelTransaction.Type.EXPLICIT, securityContext)) {
+                    ProgressInfo progressInfo = new ProgressInfo(shardFileName, source, format);
+                    progressInfo.batchSize = exportConfig.getBatchSize();
+                    ProgressReporter reporter = new ProgressReporter(null, null, progressInfo);
+                    dump.dump(
+                            new IdRangeSubGraph(
+                                    shardTx, terminationGuard, fromNodeId, toNodeId, fromRelId, toRelId),
+                            FileManagerFactory.createFileManager(shardFileName, false, exportConfig),
+                            reporter);
+                    shardTx.commit();
+                    return reporter.getTotal();
+                }
+            }));
+        }
+
+        ProgressInfo total = new ProgressInfo(fileName, source + ", shards(" + shards + ")", format);
+        total.batchSize = exportConfig.getBatchSize();
+        try {
+            for (int shard = 0; shard < shards; shard++) {
+                ProgressInfo shardInfo = futures.get(shard).get();
+                total.update(shardInfo.nodes, shardInfo.relationships, shardInfo.properties);
+                total.rows += shardInfo.rows;
+                total.batches += shardInfo.batches;
+                manifestShards
+                        .get(shard)
+                        .putAll(Util.map(
+                                "nodes",
+                                shardInfo.nodes,
+                                "relationships",
+                                shardInfo.relationships,
+                                "properties",
+                                shardInfo.properties));
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException("Error exporting a shard of " + fileName, e.getCause());
+        }
+
+        writeManifest(
+                manifestFileName(fileName),
+                Util.map(
+                        "file",
+                        fileName,
+                        "format",
+                        format,
+                        "source",
+                        source,
+                        "nodes",
+                        total.nodes,
+                        "relationships",
+                        total.relationships,
+                        "shards",
+                        manifestShards));
+        return Stream.of(total.done(start));
+    }
+
+    public static String shardFileName(String fileName, int shard) {
+        return insertBeforeExtension(fileName, String.format("part-%05d", shard));
+    }
+
+    public static String manifestFileName(String fileName) {
+        String extension = FilenameUtils.getExtension(fileName);
+        String baseName =
+                extension.isEmpty() ? fileName : fileName.substring(0, fileName.length() - extension.length() - 1);
+        return baseName + ".manifest.json";
+    }
+
+    private static String insertBeforeExtension(String fileName, String suffix) {
+        String extension = FilenameUtils.getExtension(fileName);
+        if (extension.isEmpty()) {
+            return fileName + "." + suffix;
+        }
+        return fileName.substring(0, fileName.length() - extension.length()) + suffix + "." + extension;
+    }
+
+    private static void writeManifest(String manifestFileName, Map<String, Object> manifest) {
+        try (OutputStream outputStream = FileUtils.getOutputStream(manifestFileName)) {
+            JsonUtil.OBJECT_MAPPER.writeValue(outputStream, manifest);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write the manifest " + manifestFileName, e);
+        }
+    }
 }
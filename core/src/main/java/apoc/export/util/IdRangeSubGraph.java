@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.export.util;
+
+import java.util.Iterator;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import org.neo4j.cypher.export.DatabaseSubGraph;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.helpers.collection.Iterators;
+import org.neo4j.internal.helpers.collection.PrefetchingIterator;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.procedure.TerminationGuard;
+
+/**
+ * The nodes and the relationships of the database whose ids are in the given ranges,
+ * i.e. one shard of a sharded export. Schema and counts are the ones of the whole database.
+ * Iterating them fails once the procedure call is terminated, as the shards are exported by other threads.
+ */
+public class IdRangeSubGraph extends DatabaseSubGraph {
+    private final Transaction transaction;
+    private final TerminationGuard terminationGuard;
+    private final long fromNodeId;
+    private final long toNodeId;
+    private final long fromRelId;
+    private final long toRelId;
+
+    /**
+     * @param fromNodeId inclusive
+     * @param toNodeId exclusive
+     * @param fromRelId inclusive
+     * @param toRelId exclusive
+     */
+    public IdRangeSubGraph(
+            Transaction transaction,
+            TerminationGuard terminationGuard,
+            long fromNodeId,
+            long toNodeId,
+            long fromRelId,
+            long toRelId) {
+        super(transaction);
+        this.transaction = transaction;
+        this.terminationGuard = terminationGuard;
+        this.fromNodeId = fromNodeId;
+        this.toNodeId = toNodeId;
+        this.fromRelId = fromRelId;
+        this.toRelId = toRelId;
+    }
+
+    @Override
+    public Iterable<Node> getNodes() {
+        Read read = ((InternalTransaction) transaction).kernelTransaction().dataRead();
+        return () -> idRange(fromNodeId, toNodeId, read::nodeExists, transaction::getNodeById);
+    }
+
+    @Override
+    public Iterable<Relationship> getRelationships() {
+        Read read = ((InternalTransaction) transaction).kernelTransaction().dataRead();
+        return () -> idRange(fromRelId, toRelId, read::relationshipExists, transaction::getRelationshipById);
+    }
+
+    @Override
+    public boolean contains(Relationship relationship) {
+        long id = relationship.getId();
+        return id >= fromRelId && id < toRelId && super.contains(relationship);
+    }
+
+    @Override
+    public Iterator<Node> findNodes(Label label) {
+        return Iterators.filter(
+                node -> node.getId() >= fromNodeId && node.getId() < toNodeId, super.findNodes(label));
+    }
+
+    private <T> Iterator<T> idRange(long from, long to, LongPredicate exists, LongFunction<T> lookup) {
+        return new PrefetchingIterator<>() {
+            private long id = from;
+
+            @Override
+            protected T fetchNextOrNull() {
+                while (id < to) {
+                    if (terminationGuard != null) {
+                        terminationGuard.check();
+                    }
+                    long current = id++;
+                    if (exists.test(current)) {
+                        return lookup.apply(current);
+                    }
+                }
+                return null;
+            }
+        };
+    }
+}
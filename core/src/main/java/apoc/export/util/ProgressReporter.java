@@ -25,6 +25,9 @@ import java.util.stream.Stream;
 import org.neo4j.graphdb.QueryStatistics;
 
 /**
+ * The updates are synchronized, as the same reporter can be shared by concurrent imports,
+ * e.g. `apoc.import.csv` with `concurrency` greater than 1.
+ *
  * @author mh
  * @since 22.05.16
  */
@@ -54,7 +57,7 @@ public class ProgressReporter implements Reporter {
     }
 
     @Override
-    public void progress(String msg) {
+    public synchronized void progress(String msg) {
         long now = System.currentTimeMillis();
         // todo report percentages back
         println(String.format(
@@ -75,14 +78,14 @@ public class ProgressReporter implements Reporter {
         return sizeCounter == null ? 100 : sizeCounter.getPercent();
     }
 
-    public void update(long nodes, long relationships, long properties) {
+    public synchronized void update(long nodes, long relationships, long properties) {
         time = System.currentTimeMillis();
         progressInfo.update(nodes, relationships, properties);
         totalEntities += nodes + relationships;
         acceptBatch();
     }
 
-    public void acceptBatch() {
+    public synchronized void acceptBatch() {
         if (batchSize != -1 && totalEntities / batchSize > lastBatch) {
             updateRunningBatch(progressInfo);
             if (consumer != null) {
@@ -91,7 +94,7 @@ public class ProgressReporter implements Reporter {
         }
     }
 
-    public void updateRunningBatch(ProgressInfo progressInfo) {
+    public synchronized void updateRunningBatch(ProgressInfo progressInfo) {
         lastBatch = Math.max(totalEntities / batchSize, lastBatch);
         progressInfo.batches = lastBatch;
         this.progressInfo.rows = totalEntities;
@@ -99,7 +102,7 @@ public class ProgressReporter implements Reporter {
     }
 
     @Override
-    public void done() {
+    public synchronized void done() {
         if (totalEntities / batchSize == lastBatch) lastBatch++;
         updateRunningBatch(progressInfo);
         progressInfo.done(start);
@@ -120,7 +123,7 @@ public class ProgressReporter implements Reporter {
         }
     }
 
-    public ProgressInfo getTotal() {
+    public synchronized ProgressInfo getTotal() {
         progressInfo.done(start);
         return progressInfo;
     }
@@ -129,7 +132,7 @@ public class ProgressReporter implements Reporter {
         return Stream.of(getTotal());
     }
 
-    public void nextRow() {
+    public synchronized void nextRow() {
         this.progressInfo.nextRow();
         this.totalEntities++;
         acceptBatch();
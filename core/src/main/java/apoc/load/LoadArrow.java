@@ -28,8 +28,10 @@ import java.io.IOException;
 import java.nio.channels.SeekableByteChannel;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Spliterator;
 import java.util.Spliterators;
@@ -39,10 +41,13 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BaseIntVector;
 import org.apache.arrow.vector.BitVector;
 import org.apache.arrow.vector.DateMilliVector;
 import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.dictionary.Dictionary;
 import org.apache.arrow.vector.ipc.ArrowFileReader;
 import org.apache.arrow.vector.ipc.ArrowReader;
 import org.apache.arrow.vector.ipc.ArrowStreamReader;
@@ -75,6 +80,7 @@ public class LoadArrow {
         private final ArrowReader reader;
         private final VectorSchemaRoot schemaRoot;
         private final AtomicInteger counter;
+        private final Map<Long, Dictionary> dictionaries;
 
         public ArrowSpliterator(ArrowReader reader, VectorSchemaRoot schemaRoot) throws IOException {
             super(Long.MAX_VALUE, Spliterator.ORDERED);
@@ -82,6 +88,8 @@ public class LoadArrow {
             this.schemaRoot = schemaRoot;
             this.counter = new AtomicInteger();
             this.reader.loadNextBatch();
+            // the dictionaries are read together with the first batch
+            this.dictionaries = reader.getDictionaryVectors();
         }
 
         @Override
@@ -97,7 +105,8 @@ public class LoadArrow {
                 final Map<String, Object> row = schemaRoot.getFieldVectors().stream()
                         .collect(
                                 HashMap::new,
-                                (map, fieldVector) -> map.put(fieldVector.getName(), read(fieldVector, counter.get())),
+                                (map, fieldVector) -> map.put(
+                                        fieldVector.getName(), read(fieldVector, counter.get(), dictionaries)),
                                 HashMap::putAll); // please look at https://bugs.openjdk.java.net/browse/JDK-8148463
                 counter.incrementAndGet();
                 action.accept(new MapResult(row));
@@ -145,9 +154,19 @@ public class LoadArrow {
                 });
     }
 
-    private static Object read(FieldVector fieldVector, int index) {
+    private static Object read(FieldVector fieldVector, int index, Map<Long, Dictionary> dictionaries) {
         if (fieldVector.isNull(index)) {
             return null;
+        } else if (fieldVector.getField().getDictionary() != null) {
+            return decode(fieldVector, index, dictionaries);
+        } else if (fieldVector instanceof ListVector
+                && ((ListVector) fieldVector).getDataVector().getField().getDictionary() != null) {
+            ListVector listVector = (ListVector) fieldVector;
+            List<Object> values = new ArrayList<>();
+            for (int i = listVector.getElementStartIndex(index); i < listVector.getElementEndIndex(index); i++) {
+                values.add(decode(listVector.getDataVector(), i, dictionaries));
+            }
+            return values;
         } else if (fieldVector instanceof DateMilliVector) {
             DateMilliVector fe = (DateMilliVector) fieldVector;
             return Instant.ofEpochMilli(fe.get(index)).atOffset(ZoneOffset.UTC);
@@ -160,6 +179,16 @@ public class LoadArrow {
         }
     }
 
+    // the dictionary encoded vectors contain the indexes of the values in their dictionary
+    private static Object decode(FieldVector fieldVector, int index, Map<Long, Dictionary> dictionaries) {
+        if (fieldVector.isNull(index)) {
+            return null;
+        }
+        Dictionary dictionary = dictionaries.get(fieldVector.getField().getDictionary().getId());
+        int dictionaryIndex = (int) ((BaseIntVector) fieldVector).getValueAsLong(index);
+        return getObject(dictionary.getVector().getObject(dictionaryIndex));
+    }
+
     private static Object getObject(Object object) {
         if (object instanceof Collection) {
             return ((Collection<?>) object).stream().map(LoadArrow::getObject).collect(Collectors.toList());
@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.load;
+
+import apoc.result.MapResult;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.commons.lang3.StringUtils;
+import org.neo4j.procedure.TerminationGuard;
+
+/**
+ * Evaluates a subset of XPath while the document is parsed with StAX, used by `apoc.load.xml` with `streaming: true`,
+ * so that the matching elements are returned as soon as they are parsed and only one of them is kept in memory.
+ *
+ * The supported subset is made of absolute location paths of element steps, i.e.
+ * `/a/b`, `//b`, `/a//b`, `/a/*`, with predicates on the attributes, i.e. `b[@id]`, `b[@id='1']`, `b[@id="1"][@lang]`.
+ * Element names are matched on their local name.
+ * Unlike XPath, a match nested into another match is returned only as part of the outer one.
+ */
+public class StreamingXPath {
+    private static final Pattern STEP = Pattern.compile("(\\*|[\\w.\\-]+)((?:\\[[^\\]]*])*)");
+    private static final Pattern PREDICATE =
+            Pattern.compile("\\[\\s*@([\\w.\\-:]+)\\s*(?:=\\s*(?:'([^']*)'|\"([^\"]*)\")\\s*)?]");
+
+    private final List<Step> steps;
+
+    private StreamingXPath(List<Step> steps) {
+        this.steps = steps;
+    }
+
+    public static StreamingXPath compile(String path) {
+        path = StringUtils.isBlank(path) ? "/" : path.trim();
+        if (!path.startsWith("/")) {
+            // relative paths are evaluated from the document, as with the DOM
+            path = "/" + path;
+        }
+        List<Step> steps = new ArrayList<>();
+        int position = 0;
+        while (position < path.length()) {
+            boolean descendant = path.startsWith("//", position);
+            position += descendant ? 2 : 1;
+            int end = nextSeparator(path, position);
+            String step = path.substring(position, end);
+            position = end;
+            if (step.isEmpty() && !descendant && end == path.length()) {
+                // `/` or a trailing `/`
+                break;
+            }
+            if (step.equals(".") && !descendant) {
+                continue;
+            }
+            steps.add(Step.parse(step, descendant, path));
+        }
+        return new StreamingXPath(steps);
+    }
+
+    private static int nextSeparator(String path, int from) {
+        boolean inPredicate = false;
+        for (int i = from; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '[') inPredicate = true;
+            else if (c == ']') inPredicate = false;
+            else if (c == '/' && !inPredicate) return i;
+        }
+        return path.length();
+    }
+
+    private static IllegalArgumentException unsupported(String path) {
+        return new IllegalArgumentException("The path `" + path + "` is not supported with streaming: true, "
+                + "only element paths like /a/b, //b or /a/* with predicates on attributes like [@id='1'] are");
+    }
+
+    private static class Step {
+        private final boolean descendant;
+        // null for `*`
+        private final String name;
+        private final List<String[]> predicates;
+
+        private Step(boolean descendant, String name, List<String[]> predicates) {
+            this.descendant = descendant;
+            this.name = name;
+            this.predicates = predicates;
+        }
+
+        static Step parse(String step, boolean descendant, String path) {
+            Matcher matcher = STEP.matcher(step);
+            if (!matcher.matches()) {
+                throw unsupported(path);
+            }
+            List<String[]> predicates = new ArrayList<>();
+            Matcher predicateMatcher = PREDICATE.matcher(matcher.group(2));
+            int end = 0;
+            while (predicateMatcher.find() && predicateMatcher.start() == end) {
+                String value = predicateMatcher.group(2) != null ? predicateMatcher.group(2) : predicateMatcher.group(3);
+                predicates.add(new String[] {predicateMatcher.group(1), value});
+                end = predicateMatcher.end();
+            }
+            if (end != matcher.group(2).length()) {
+                throw unsupported(path);
+            }
+            String name = matcher.group(1);
+            return new Step(descendant, name.equals("*") ? null : name, predicates);
+        }
+
+        boolean matches(XMLStreamReader reader) {
+            if (name != null && !name.equals(reader.getLocalName())) {
+                return false;
+            }
+            for (String[] predicate : predicates) {
+                String value = attributeValue(reader, predicate[0]);
+                if (value == null || (predicate[1] != null && !predicate[1].equals(value))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static String attributeValue(XMLStreamReader reader, String name) {
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                if (name.equals(attributeName(reader, i))
+                        || name.equals(reader.getAttributeLocalName(i))) {
+                    return reader.getAttributeValue(i);
+                }
+            }
+            return null;
+        }
+    }
+
+    private static String attributeName(XMLStreamReader reader, int index) {
+        String prefix = reader.getAttributePrefix(index);
+        String localName = reader.getAttributeLocalName(index);
+        return StringUtils.isEmpty(prefix) ? localName : prefix + ":" + localName;
+    }
+
+    /**
+     * @param closeable closed, together with the reader, when the returned stream is closed
+     */
+    public Stream<MapResult> stream(
+            XMLStreamReader reader,
+            Closeable closeable,
+            boolean simpleMode,
+            TerminationGuard terminationGuard,
+            boolean failOnError) {
+        Iterator<MapResult> iterator = new Matches(reader, simpleMode, terminationGuard, failOnError);
+        return StreamSupport.stream(
+                        Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL),
+                        false)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                        closeable.close();
+                    } catch (XMLStreamException | IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
+    private class Matches implements Iterator<MapResult> {
+        private final XMLStreamReader reader;
+        private final boolean simpleMode;
+        private final TerminationGuard terminationGuard;
+        private final boolean failOnError;
+        // the steps that the children of each open element can match
+        private final Deque<BitSet> active = new ArrayDeque<>();
+        private MapResult next;
+        private boolean done;
+
+        Matches(XMLStreamReader reader, boolean simpleMode, TerminationGuard terminationGuard, boolean failOnError) {
+            this.reader = reader;
+            this.simpleMode = simpleMode;
+            this.terminationGuard = terminationGuard;
+            this.failOnError = failOnError;
+            BitSet document = new BitSet();
+            document.set(0);
+            active.push(document);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                try {
+                    next = advance();
+                } catch (Exception e) {
+                    done = true;
+                    if (failOnError) {
+                        throw e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+                    }
+                    next = new MapResult(Collections.emptyMap());
+                }
+                if (next == null) {
+                    done = true;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public MapResult next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            MapResult result = next;
+            next = null;
+            return result;
+        }
+
+        private MapResult advance() throws XMLStreamException {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.DTD:
+                        throw Xml.generateXmlDoctypeException();
+                    case XMLStreamConstants.START_ELEMENT:
+                        terminationGuard.check();
+                        if (steps.isEmpty()) {
+                            // the path `/` returns the document element
+                            done = true;
+                            return new MapResult(element());
+                        }
+                        BitSet parent = active.peek();
+                        BitSet children = new BitSet();
+                        boolean matched = false;
+                        for (int i = parent.nextSetBit(0); i >= 0; i = parent.nextSetBit(i + 1)) {
+                            Step step = steps.get(i);
+                            if (step.descendant) {
+                                children.set(i);
+                            }
+                            if (step.matches(reader)) {
+                                if (i == steps.size() - 1) {
+                                    matched = true;
+                                } else {
+                                    children.set(i + 1);
+                                }
+                            }
+                        }
+                        if (matched) {
+                            return new MapResult(element());
+                        }
+                        if (children.isEmpty()) {
+                            skipElement();
+                        } else {
+                            active.push(children);
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        active.pop();
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return null;
+        }
+
+        private void skipElement() throws XMLStreamException {
+            int depth = 1;
+            while (depth > 0) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+        }
+
+        /**
+         * Reads the current element into the same nested map as the DOM based `apoc.load.xml`
+         */
+        private Map<String, Object> element() throws XMLStreamException {
+            Map<String, Object> elementMap = new LinkedHashMap<>();
+            String localName = reader.getLocalName();
+            elementMap.put("_type", localName);
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                String prefix = reader.getNamespacePrefix(i);
+                elementMap.put(
+                        StringUtils.isEmpty(prefix) ? "xmlns" : "xmlns:" + prefix, reader.getNamespaceURI(i));
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                elementMap.put(attributeName(reader, i), reader.getAttributeValue(i));
+            }
+
+            List<Object> children = new ArrayList<>();
+            while (true) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        terminationGuard.check();
+                        children.add(element());
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        Xml.addText(elementMap, Xml.normalizeText(reader.getText()));
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        Xml.putChildren(elementMap, simpleMode ? "_" + localName : "_children", children);
+                        return elementMap;
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+}
@@ -86,7 +86,8 @@ import org.xml.sax.SAXParseException;
 
 public class Xml {
 
-    private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
+    static final String XML_DOCTYPE_ERROR = "XML documents with a DOCTYPE are not allowed.";
+    static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
 
     static {
         FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
@@ -143,6 +144,10 @@ public class Xml {
             Map<String, Object> headers = (Map) config.getOrDefault("headers", Collections.emptyMap());
             CountingInputStream is = FileUtils.inputStreamFor(
                     urlOrBinary, headers, null, (String) config.getOrDefault(COMPRESSION, CompressionAlgo.NONE.name()));
+            if (Util.toBoolean(config.get("streaming"))) {
+                return StreamingXPath.compile(path)
+                        .stream(FACTORY.createXMLStreamReader(is), is, simpleMode, terminationGuard, failOnError);
+            }
             return parse(is, simpleMode, path, failOnError);
         } catch (Exception e) {
             if (!failOnError) return Stream.of(new MapResult(Collections.emptyMap()));
@@ -262,20 +267,8 @@ public class Xml {
                 for (int i = 0; i < count; i++) {
                     nodeChildren.add(stack.pollLast());
                 }
-                String key = simpleMode ? "_" + node.getLocalName() : "_children";
                 Collections.reverse(nodeChildren);
-                if (nodeChildren.size() > 0) {
-                    // Before adding the children we need to handle mixed text
-                    Object text = elementMap.get("_text");
-                    if (text instanceof List) {
-                        for (Object element : (List) text) {
-                            nodeChildren.add(element);
-                        }
-                        elementMap.remove("_text");
-                    }
-
-                    elementMap.put(key, nodeChildren);
-                }
+                putChildren(elementMap, simpleMode ? "_" + node.getLocalName() : "_children", nodeChildren);
             }
         }
 
@@ -284,6 +277,21 @@ public class Xml {
         }
     }
 
+    static void putChildren(Map<String, Object> elementMap, String key, List<Object> children) {
+        if (children.size() > 0) {
+            // Before adding the children we need to handle mixed text
+            Object text = elementMap.get("_text");
+            if (text instanceof List) {
+                for (Object element : (List) text) {
+                    children.add(element);
+                }
+                elementMap.remove("_text");
+            }
+
+            elementMap.put(key, children);
+        }
+    }
+
     /**
      * Collects type and attributes for the node
      *
@@ -325,7 +333,10 @@ public class Xml {
             default:
                 break;
         }
+        addText(elementMap, text);
+    }
 
+    static void addText(Map<String, Object> elementMap, Object text) {
         // If the text is valid ...
         if (!StringUtils.isEmpty(text.toString())) {
             // We check if we have already collected some text previously
@@ -344,7 +355,7 @@ public class Xml {
      * @param text
      * @return
      */
-    private String normalizeText(String text) {
+    static String normalizeText(String text) {
         String[] tokens = StringUtils.split(text, "\n");
         for (int i = 0; i < tokens.length; i++) {
             tokens[i] = tokens[i].trim();
@@ -682,7 +693,7 @@ public class Xml {
         }
     }
 
-    private RuntimeException generateXmlDoctypeException() {
-        throw new RuntimeException("XML documents with a DOCTYPE are not allowed.");
+    static RuntimeException generateXmlDoctypeException() {
+        throw new RuntimeException(XML_DOCTYPE_ERROR);
     }
 }
@@ -23,6 +23,7 @@ import static java.lang.String.format;
 import static org.neo4j.internal.kernel.api.TokenRead.ANY_LABEL;
 import static org.neo4j.internal.kernel.api.TokenRead.ANY_RELATIONSHIP_TYPE;
 
+import apoc.Pools;
 import apoc.export.util.NodesAndRelsSubGraph;
 import apoc.result.GraphResult;
 import apoc.result.MapResult;
@@ -55,6 +56,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -85,6 +88,7 @@ import org.neo4j.internal.helpers.collection.Pair;
 import org.neo4j.internal.kernel.api.Read;
 import org.neo4j.internal.kernel.api.TokenRead;
 import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
@@ -94,7 +98,7 @@ import org.neo4j.procedure.UserFunction;
 import org.neo4j.values.storable.DurationValue;
 
 public class Meta {
-    private class MetadataKey {
+    static class MetadataKey {
         Types type;
         String key;
 
@@ -134,6 +138,12 @@ public class Meta {
     @Context
     public Log log;
 
+    @Context
+    public Pools pools;
+
+    @Context
+    public MetaModelCache metaModelCache;
+
     public static class ConstraintTracker {
         // The following maps are (label|rel-type)/constraintdefinition entries
 
@@ -326,6 +336,25 @@ public class Meta {
             this.property = name;
         }
 
+        public MetaItem copy() {
+            MetaItem copy = new MetaItem(label, property);
+            copy.count = count;
+            copy.unique = unique;
+            copy.index = index;
+            copy.existence = existence;
+            copy.type = type;
+            copy.array = array;
+            copy.sample = sample == null ? null : new ArrayList<>(sample);
+            copy.left = left;
+            copy.right = right;
+            copy.other = new ArrayList<>(other);
+            copy.otherLabels = new ArrayList<>(otherLabels);
+            copy.elementType = elementType;
+            copy.leftCount = leftCount;
+            copy.rightCount = rightCount;
+            return copy;
+        }
+
         public MetaItem inc() {
             count++;
             return this;
@@ -554,44 +583,34 @@ public class Meta {
                 ? StreamSupport.stream(subGraph.getAllLabelsInUse().spliterator(), false)
                 : nodes.stream().filter(Objects::nonNull).map(String::trim).map(Label::label);
 
-        final boolean isIncludeRels = CollectionUtils.isEmpty(conf.getIncludeRels());
-        Set<Long> visitedNodes = new HashSet<>();
-        return labels.flatMap(label -> isIncludeRels
-                        ? Stream.of(subGraph.countsForNode(label))
-                        : conf.getIncludeRels().stream()
-                                .filter(Objects::nonNull)
-                                .map(String::trim)
-                                .map(rel -> {
-                                    final int lastCharIdx = rel.length() - 1;
-                                    final Direction direction;
-                                    switch (rel.charAt(lastCharIdx)) {
-                                        case '>':
-                                            direction = Direction.OUTGOING;
-                                            rel = rel.substring(0, lastCharIdx);
-                                            break;
-                                        case '<':
-                                            direction = Direction.INCOMING;
-                                            rel = rel.substring(0, lastCharIdx);
-                                            break;
-                                        default:
-                                            direction = Direction.BOTH;
-                                    }
-                                    return Pair.of(direction, rel);
-                                })
-                                .flatMap(pair -> transaction
-                                        .findNodes(label)
-                                        .map(node -> {
-                                            if (!visitedNodes.contains(node.getId())
-                                                    && node.hasRelationship(
-                                                            pair.first(), RelationshipType.withName(pair.other()))) {
-                                                visitedNodes.add(node.getId());
-                                                return 1L;
-                                            } else {
-                                                return 0L;
-                                            }
-                                        })
-                                        .stream()))
-                .reduce(0L, Math::addExact);
+        if (CollectionUtils.isEmpty(conf.getIncludeRels())) {
+            return labels.mapToLong(subGraph::countsForNode).reduce(0L, Math::addExact);
+        }
+        List<Pair<Direction, String>> rels = conf.getIncludeRels().stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(rel -> !rel.isEmpty())
+                .map(rel -> {
+                    final int lastCharIdx = rel.length() - 1;
+                    final Direction direction;
+                    switch (rel.charAt(lastCharIdx)) {
+                        case '>':
+                            direction = Direction.OUTGOING;
+                            rel = rel.substring(0, lastCharIdx);
+                            break;
+                        case '<':
+                            direction = Direction.INCOMING;
+                            rel = rel.substring(0, lastCharIdx);
+                            break;
+                        default:
+                            direction = Direction.BOTH;
+                    }
+                    return Pair.of(direction, rel);
+                })
+                .collect(Collectors.toList());
+        return new NodesWithRelationshipsCounter(
+                        (GraphDatabaseAPI) db, kernelTx, pools.getDefaultExecutorService(), rels)
+                .count(transaction, labels.collect(Collectors.toList()));
     }
 
     private MetaStats collectStats() {
@@ -700,8 +719,7 @@ public class Meta {
     @Description("apoc.meta.data({config})  - examines a subset of the graph to provide a tabular meta information")
     public Stream<MetaResult> data(@Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
         SampleMetaConfig metaConfig = new SampleMetaConfig(config);
-        return collectMetaData(new DatabaseSubGraph(transaction), metaConfig).values().stream()
-                .flatMap(x -> x.values().stream());
+        return collectDatabaseMetaData(metaConfig).values().stream().flatMap(x -> x.values().stream());
     }
 
     @Procedure
@@ -709,8 +727,7 @@ public class Meta {
     public Stream<MapResult> schema(@Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
         MetaStats metaStats = collectStats();
         SampleMetaConfig metaConfig = new SampleMetaConfig(config);
-        Map<MetadataKey, Map<String, MetaItem>> metaData =
-                collectMetaData(new DatabaseSubGraph(transaction), metaConfig);
+        Map<MetadataKey, Map<String, MetaItem>> metaData = collectDatabaseMetaData(metaConfig);
 
         Map<String, Object> relationships = collectRelationshipsMetaData(metaStats, metaData);
         Map<String, Object> nodes = collectNodesMetaData(metaStats, metaData, relationships);
@@ -854,6 +871,11 @@ public class Meta {
      * metadata map.
      */
     private Map<MetadataKey, Map<String, MetaItem>> collectMetaData(SubGraph graph, SampleMetaConfig config) {
+        return collectMetaData(graph, graph.getAllLabelsInUse(), config);
+    }
+
+    private Map<MetadataKey, Map<String, MetaItem>> collectMetaData(
+            SubGraph graph, Iterable<Label> labels, SampleMetaConfig config) {
         Map<MetadataKey, Map<String, MetaItem>> metaData = new LinkedHashMap<>(100);
 
         Set<RelationshipType> types = Iterables.asSet(graph.getAllRelationshipTypesInUse());
@@ -864,7 +886,7 @@ public class Meta {
             relConstraints.put(type.name(), graph.getConstraints(type));
             relIndexes.put(type.name(), getIndexedProperties(graph.getIndexes(type)));
         }
-        for (Label label : graph.getAllLabelsInUse()) {
+        for (Label label : labels) {
             Map<String, MetaItem> nodeMeta = new LinkedHashMap<>(50);
             String labelName = label.name();
             // workaround in case of duplicated keys
@@ -886,6 +908,108 @@ public class Meta {
         return metaData;
     }
 
+    /**
+     * Collects the metadata of the whole database, as {@link #collectMetaData(SubGraph, SampleMetaConfig)} does,
+     * but samples the labels in parallel, each one in its own transaction.
+     * If the {@link MetaModelCache} is enabled, only the labels changed since they were last sampled are sampled again.
+     *
+     * The metadata of each label is collected separately and then merged in the same order as the sequential scan,
+     * so that the first label wins for the properties of the relationships, as it does there.
+     */
+    private Map<MetadataKey, Map<String, MetaItem>> collectDatabaseMetaData(SampleMetaConfig config) {
+        SubGraph graph = new DatabaseSubGraph(transaction);
+        // the other transactions can't see the changes of the current one
+        if (kernelTx.dataRead().transactionStateHasChanges()) {
+            return collectMetaData(graph, config);
+        }
+        List<String> labels =
+                Iterables.stream(graph.getAllLabelsInUse()).map(Label::name).collect(Collectors.toList());
+        boolean useCache = config.isUseCache() && metaModelCache != null && metaModelCache.isEnabled();
+        Map<String, Map<MetadataKey, Map<String, MetaItem>>> byLabel = new HashMap<>();
+        MetaModelCache.Key cacheKey = new MetaModelCache.Key(
+                config.getSample(), config.getMaxRels(), kernelTx.securityContext().roles());
+        try (MetaModelCache.Snapshot snapshot =
+                useCache ? metaModelCache.snapshot(cacheKey, schemaFingerprint()) : null) {
+            if (snapshot != null) {
+                byLabel.putAll(snapshot.getLabels());
+            }
+            List<String> toSample =
+                    labels.stream().filter(label -> !byLabel.containsKey(label)).collect(Collectors.toList());
+            Map<String, Map<MetadataKey, Map<String, MetaItem>>> sampled = sampleLabels(toSample, config);
+            if (snapshot != null) {
+                snapshot.update(sampled);
+            }
+            byLabel.putAll(sampled);
+        }
+
+        Map<MetadataKey, Map<String, MetaItem>> metaData = new LinkedHashMap<>(100);
+        for (RelationshipType type : graph.getAllRelationshipTypesInUse()) {
+            metaData.put(new MetadataKey(Types.RELATIONSHIP, type.name()), new LinkedHashMap<>(10));
+        }
+        for (String label : labels) {
+            byLabel.get(label).forEach((key, items) -> {
+                // the collected items can be cached, so they are copied before being returned or modified
+                if (key.type == Types.NODE) {
+                    Map<String, MetaItem> nodeMeta = new LinkedHashMap<>(items.size());
+                    items.forEach((name, item) -> nodeMeta.put(name, item.copy()));
+                    metaData.put(key, nodeMeta);
+                    return;
+                }
+                Map<String, MetaItem> typeMeta = metaData.get(key);
+                if (typeMeta == null) return; // the type is no longer in use
+                items.forEach((name, item) -> {
+                    if (!typeMeta.containsKey(name)) typeMeta.put(name, item.copy());
+                });
+            });
+        }
+        return metaData;
+    }
+
+    private Map<String, Map<MetadataKey, Map<String, MetaItem>>> sampleLabels(
+            List<String> labels, SampleMetaConfig config) {
+        Map<String, Future<Map<MetadataKey, Map<String, MetaItem>>>> futures = new LinkedHashMap<>();
+        for (String label : labels) {
+            futures.put(label, pools.getDefaultExecutorService().submit(() -> sampleLabel(label, config)));
+        }
+        Map<String, Map<MetadataKey, Map<String, MetaItem>>> result = new HashMap<>();
+        try {
+            for (Map.Entry<String, Future<Map<MetadataKey, Map<String, MetaItem>>>> entry : futures.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while sampling the labels", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error while sampling the labels", e.getCause());
+        } finally {
+            futures.values().forEach(future -> future.cancel(true));
+        }
+        return result;
+    }
+
+    /**
+     * @return the metadata collected by sampling the nodes of the label, in a new transaction:
+     * the label's node entry plus the entries of the relationship types going out of its nodes
+     */
+    private Map<MetadataKey, Map<String, MetaItem>> sampleLabel(String label, SampleMetaConfig config) {
+        try (Transaction labelTx = ((GraphDatabaseAPI) db)
+                .beginTransaction(KernelTransaction.Type.EXPLICIT, kernelTx.securityContext())) {
+            Map<MetadataKey, Map<String, MetaItem>> metaData =
+                    collectMetaData(new DatabaseSubGraph(labelTx), List.of(Label.label(label)), config);
+            metaData.entrySet().removeIf(e -> e.getKey().type == Types.RELATIONSHIP && e.getValue().isEmpty());
+            return metaData;
+        }
+    }
+
+    private String schemaFingerprint() {
+        Schema schema = transaction.schema();
+        return Stream.concat(
+                        Iterables.stream(schema.getIndexes()).map(IndexDefinition::getName),
+                        Iterables.stream(schema.getConstraints()).map(ConstraintDefinition::getName))
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+
     private Set<String> getIndexedProperties(Iterable<IndexDefinition> indexes) {
         return Iterables.stream(indexes)
                 .map(IndexDefinition::getPropertyKeys)
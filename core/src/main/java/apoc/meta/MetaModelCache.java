@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.meta;
+
+import static apoc.ApocConfig.apocConfig;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListener;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+
+/**
+ * Caches the meta-model sampled by `apoc.meta.data` and `apoc.meta.schema`, label by label,
+ * so that the following calls only sample again the labels changed in the meantime.
+ * The labels are cached per `sample` and `maxRels` config, and per set of roles of the user,
+ * as the users with other privileges can see other labels, types and properties.
+ *
+ * A label is changed by the transactions that add or remove it, that change the properties of its nodes,
+ * that create, delete or change relationships of its nodes, or that relabel the nodes connected to its nodes.
+ * Creating or dropping an index or a constraint invalidates the whole cache.
+ *
+ * Enabled with `apoc.meta.cache.enabled=true` in apoc.conf, as it adds a transaction event listener.
+ */
+public class MetaModelCache extends LifecycleAdapter implements TransactionEventListener<Set<String>> {
+    public static final String APOC_META_CACHE_ENABLED = "apoc.meta.cache.enabled";
+
+    private final GraphDatabaseAPI db;
+    private final DatabaseManagementService databaseManagementService;
+    private final Log log;
+
+    // guarded by `this`
+    private final Map<Key, Map<String, Map<Meta.MetadataKey, Map<String, Meta.MetaItem>>>> labelsByKey =
+            new HashMap<>();
+    // the version at which each label was last changed, only needed while a snapshot taken before is open
+    private final Map<String, Long> changedAt = new HashMap<>();
+    // the versions of the open snapshots -> their number
+    private final TreeMap<Long, Integer> openSnapshots = new TreeMap<>();
+    private long allChangedAt;
+    private String schemaFingerprint;
+    private long version;
+
+    private volatile boolean enabled;
+
+    public MetaModelCache(GraphDatabaseAPI db, DatabaseManagementService databaseManagementService, Log log) {
+        this.db = db;
+        this.databaseManagementService = databaseManagementService;
+        this.log = log;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * What the cached metadata depends on: the sampling config and the roles of the user
+     */
+    static class Key {
+        private final long sample;
+        private final long maxRels;
+        private final Set<String> roles;
+
+        Key(long sample, long maxRels, Set<String> roles) {
+            this.sample = sample;
+            this.maxRels = maxRels;
+            this.roles = Set.copyOf(roles);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return sample == key.sample && maxRels == key.maxRels && roles.equals(key.roles);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sample, maxRels, roles);
+        }
+    }
+
+    /**
+     * The metadata of the labels cached for the given key, at the given version of the cache,
+     * it must be closed once the labels sampled after it have been stored
+     */
+    class Snapshot implements AutoCloseable {
+        private final Key key;
+        private final long version;
+        private final Map<String, Map<Meta.MetadataKey, Map<String, Meta.MetaItem>>> labels;
+        private boolean closed;
+
+        Snapshot(Key key, long version, Map<String, Map<Meta.MetadataKey, Map<String, Meta.MetaItem>>> labels) {
+            this.key = key;
+            this.version = version;
+            this.labels = labels;
+        }
+
+        Map<String, Map<Meta.MetadataKey, Map<String, Meta.MetaItem>>> getLabels() {
+            return labels;
+        }
+
+        /**
+         * Stores the labels sampled after the snapshot,
+         * except the ones changed by a transaction committed in the meantime, as they could miss its changes
+         */
+        void update(Map<String, Map<Meta.MetadataKey, Map<String, Meta.MetaItem>>> sampled) {
+            synchronized (MetaModelCache.this) {
+                if (closed || allChangedAt > version) return;
+                sampled.forEach((label, metaData) -> {
+                    if (changedAt.getOrDefault(label, 0L) <= version) {
+                        labelsByKey.computeIfAbsent(key, k -> new HashMap<>()).put(label, metaData);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (MetaModelCache.this) {
+                if (closed) return;
+                closed = true;
+                openSnapshots.computeIfPresent(version, (v, count) -> count == 1 ? null : count - 1);
+                // the changes older than all the open snapshots can't reject any update anymore
+                long oldest = openSnapshots.isEmpty() ? Long.MAX_VALUE : openSnapshots.firstKey();
+                changedAt.values().removeIf(changed -> changed <= oldest);
+            }
+        }
+    }
+
+    /**
+     * @param schemaFingerprint the indexes and constraints of the database, the cache is cleared if they changed
+     */
+    synchronized Snapshot snapshot(Key key, String schemaFingerprint) {
+        if (!schemaFingerprint.equals(this.schemaFingerprint)) {
+            invalidate(null);
+            this.schemaFingerprint = schemaFingerprint;
+        }
+        Map<String, Map<Meta.MetadataKey, Map<String, Meta.MetaItem>>> labels = labelsByKey.get(key);
+        openSnapshots.merge(version, 1, Integer::sum);
+        return new Snapshot(key, version, labels == null ? Collections.emptyMap() : new HashMap<>(labels));
+    }
+
+    private synchronized void invalidate(Set<String> labels) {
+        version++;
+        if (labels == null) {
+            clear();
+            allChangedAt = version;
+            return;
+        }
+        for (String label : labels) {
+            // only needed to reject the labels sampled after a snapshot taken before this change
+            if (!openSnapshots.isEmpty()) {
+                changedAt.put(label, version);
+            }
+            labelsByKey.values().forEach(cached -> cached.remove(label));
+        }
+        labelsByKey.values().removeIf(Map::isEmpty);
+    }
+
+    private void clear() {
+        labelsByKey.clear();
+        changedAt.clear();
+    }
+
+    /**
+     * @return the labels changed by the transaction, or null if they can't be determined
+     */
+    @Override
+    public Set<String> beforeCommit(
+            TransactionData txData, Transaction transaction, GraphDatabaseService databaseService) {
+        Set<String> labels = new HashSet<>();
+        try {
+            for (LabelEntry entry : txData.assignedLabels()) {
+                labels.add(entry.label().name());
+                addOtherNodesLabels(txData, entry.node(), labels);
+            }
+            // the labels of the deleted nodes are returned as removed
+            for (LabelEntry entry : txData.removedLabels()) {
+                labels.add(entry.label().name());
+                addOtherNodesLabels(txData, entry.node(), labels);
+            }
+            for (PropertyEntry<Node> entry : txData.assignedNodeProperties()) {
+                addLabels(txData, entry.entity(), labels);
+            }
+            for (PropertyEntry<Node> entry : txData.removedNodeProperties()) {
+                addLabels(txData, entry.entity(), labels);
+            }
+            for (Relationship rel : txData.createdRelationships()) {
+                addLabels(txData, rel, labels);
+            }
+            for (Relationship rel : txData.deletedRelationships()) {
+                addLabels(txData, rel, labels);
+            }
+            for (PropertyEntry<Relationship> entry : txData.assignedRelationshipProperties()) {
+                addLabels(txData, entry.entity(), labels);
+            }
+            for (PropertyEntry<Relationship> entry : txData.removedRelationshipProperties()) {
+                addLabels(txData, entry.entity(), labels);
+            }
+        } catch (NotFoundException e) {
+            return null;
+        }
+        return labels;
+    }
+
+    /**
+     * The metadata of a label includes the incoming degrees of its nodes and the labels at the other end,
+     * so a relationship changes the labels of both its nodes
+     */
+    private static void addLabels(TransactionData txData, Relationship rel, Set<String> labels) {
+        addLabels(txData, rel.getStartNode(), labels);
+        addLabels(txData, rel.getEndNode(), labels);
+    }
+
+    /**
+     * Relabeling a node changes the labels at the other end of its relationships as well
+     */
+    private static void addOtherNodesLabels(TransactionData txData, Node node, Set<String> labels) {
+        // the relationships of a deleted node are deleted too, so they are already handled
+        if (txData.isDeleted(node)) return;
+        for (Relationship rel : node.getRelationships()) {
+            addLabels(txData, rel.getOtherNode(node), labels);
+        }
+    }
+
+    private static void addLabels(TransactionData txData, Node node, Set<String> labels) {
+        if (txData.isDeleted(node)) return;
+        for (Label label : node.getLabels()) {
+            labels.add(label.name());
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionData txData, Set<String> labels, GraphDatabaseService databaseService) {
+        if (labels == null || !labels.isEmpty()) {
+            invalidate(labels);
+        }
+    }
+
+    @Override
+    public void afterRollback(TransactionData txData, Set<String> labels, GraphDatabaseService databaseService) {}
+
+    @Override
+    public void start() {
+        enabled = apocConfig().getBoolean(APOC_META_CACHE_ENABLED, false);
+        if (enabled) {
+            databaseManagementService.registerTransactionEventListener(db.databaseName(), this);
+            log.info("Meta-model cache enabled for database %s", db.databaseName());
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (enabled) {
+            enabled = false;
+            databaseManagementService.unregisterTransactionEventListener(db.databaseName(), this);
+        }
+        synchronized (this) {
+            clear();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.meta;
+
+import apoc.stats.DegreeUtil;
+import apoc.util.kernel.NodePartitions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.helpers.collection.Pair;
+import org.neo4j.internal.kernel.api.CursorFactory;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.token.api.TokenConstants;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * Counts the distinct nodes of some labels having at least one relationship of the given types and directions,
+ * as `apoc.meta.nodes.count` does with the `includeRels` config.
+ *
+ * The ids of the nodes are collected into a compressed bitmap, that de-duplicates the nodes with more labels,
+ * then the degrees of the nodes are looked up via the kernel cursors.
+ * More than {@link #PARALLEL_THRESHOLD} nodes are checked by the default pool via {@link NodePartitions},
+ * unless the current transaction has changes, that the workers can't see.
+ */
+class NodesWithRelationshipsCounter {
+    static final int PARALLEL_THRESHOLD = 10_000;
+
+    private final GraphDatabaseAPI db;
+    private final KernelTransaction ktx;
+    private final ExecutorService executor;
+    private final int[] types;
+    private final Direction[] directions;
+
+    NodesWithRelationshipsCounter(
+            GraphDatabaseAPI db,
+            KernelTransaction ktx,
+            ExecutorService executor,
+            List<Pair<Direction, String>> typesAndDirections) {
+        this.db = db;
+        this.ktx = ktx;
+        this.executor = executor;
+        TokenRead tokenRead = ktx.tokenRead();
+        List<Pair<Integer, Direction>> selections = new ArrayList<>();
+        for (Pair<Direction, String> pair : typesAndDirections) {
+            int typeId = tokenRead.relationshipType(pair.other());
+            // a type that doesn't exist yet has no relationships
+            if (typeId != TokenConstants.NO_TOKEN) {
+                selections.add(Pair.of(typeId, pair.first()));
+            }
+        }
+        this.types = selections.stream().mapToInt(Pair::first).toArray();
+        this.directions = selections.stream().map(Pair::other).toArray(Direction[]::new);
+    }
+
+    long count(Transaction tx, Iterable<Label> labels) {
+        if (types.length == 0) {
+            return 0L;
+        }
+        Roaring64NavigableMap nodeIds = new Roaring64NavigableMap();
+        for (Label label : labels) {
+            try (ResourceIterator<Node> nodes = tx.findNodes(label)) {
+                while (nodes.hasNext()) {
+                    nodeIds.addLong(nodes.next().getId());
+                }
+            }
+        }
+        if (executor == null
+                || nodeIds.getLongCardinality() < PARALLEL_THRESHOLD
+                || ktx.dataRead().transactionStateHasChanges()) {
+            long count = 0;
+            try (Cursors cursors = new Cursors(ktx)) {
+                LongIterator iterator = nodeIds.getLongIterator();
+                while (iterator.hasNext()) {
+                    if (cursors.hasRelationships(iterator.next())) count++;
+                }
+            }
+            return count;
+        }
+        return countInParallel(nodeIds);
+    }
+
+    private long countInParallel(Roaring64NavigableMap nodeIds) {
+        AtomicLong count = NodePartitions.process(
+                db,
+                ktx,
+                executor,
+                nodeIds,
+                AtomicLong::new,
+                (result, local) -> result.addAndGet(local.get()),
+                (partitionKtx, partition, target) -> {
+                    try (Cursors cursors = new Cursors(partitionKtx)) {
+                        for (long nodeId : partition) {
+                            if (cursors.hasRelationships(nodeId)) target.incrementAndGet();
+                        }
+                    }
+                },
+                "Error counting the nodes with relationships");
+        return count.get();
+    }
+
+    private class Cursors implements AutoCloseable {
+        private final Read read;
+        private final CursorFactory cursorFactory;
+        private final NodeCursor nodeCursor;
+
+        Cursors(KernelTransaction ktx) {
+            this.read = ktx.dataRead();
+            this.cursorFactory = ktx.cursors();
+            this.nodeCursor = cursorFactory.allocateNodeCursor(ktx.cursorContext());
+        }
+
+        boolean hasRelationships(long nodeId) {
+            read.singleNode(nodeId, nodeCursor);
+            if (!nodeCursor.next()) return false;
+            for (int i = 0; i < types.length; i++) {
+                if (DegreeUtil.degree(nodeCursor, cursorFactory, types[i], directions[i]) > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void close() {
+            nodeCursor.close();
+        }
+    }
+}
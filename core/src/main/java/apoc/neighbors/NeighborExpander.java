@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.neighbors;
+
+import apoc.path.RelationshipTypeAndDirections;
+import apoc.util.kernel.NodePartitions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.internal.helpers.collection.Pair;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.storageengine.api.RelationshipSelection;
+import org.neo4j.token.api.TokenConstants;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * Expands a frontier of node ids by one hop, following the relationships of a `rel-direction-pattern`
+ * via the kernel cursors.
+ *
+ * Frontiers larger than {@link #PARALLEL_THRESHOLD} are expanded by the default pool via {@link NodePartitions},
+ * each worker with its own bitmap, merged at the end.
+ * As the workers can't see the changes of the current transaction, the expansion stays single threaded if there are any.
+ */
+class NeighborExpander {
+    static final int PARALLEL_THRESHOLD = 10_000;
+
+    private final GraphDatabaseAPI db;
+    private final KernelTransaction ktx;
+    private final ExecutorService executor;
+    private final RelationshipSelection[] selections;
+
+    NeighborExpander(GraphDatabaseAPI db, KernelTransaction ktx, ExecutorService executor, String types) {
+        this.db = db;
+        this.ktx = ktx;
+        this.executor = executor;
+        this.selections = toSelections(ktx.tokenRead(), RelationshipTypeAndDirections.parse(types));
+    }
+
+    private static RelationshipSelection[] toSelections(
+            TokenRead tokenRead, List<Pair<RelationshipType, Direction>> typesAndDirections) {
+        List<RelationshipSelection> selections = new ArrayList<>();
+        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
+            RelationshipType type = pair.first();
+            Direction direction = pair.other() == null ? Direction.BOTH : pair.other();
+            // as policy if both elements in the pair are null we return an empty result
+            if (type == null) {
+                if (pair.other() != null) {
+                    selections.add(RelationshipSelection.selection(direction));
+                }
+                continue;
+            }
+            int typeId = tokenRead.relationshipType(type.name());
+            // a type that doesn't exist yet has no relationships
+            if (typeId != TokenConstants.NO_TOKEN) {
+                selections.add(RelationshipSelection.selection(typeId, direction));
+            }
+        }
+        return selections.toArray(new RelationshipSelection[0]);
+    }
+
+    /**
+     * @return the ids of the nodes connected to the nodes of the frontier
+     */
+    Roaring64NavigableMap expand(Roaring64NavigableMap frontier) {
+        if (selections.length == 0 || frontier.isEmpty()) {
+            return new Roaring64NavigableMap();
+        }
+        if (executor == null
+                || frontier.getLongCardinality() < PARALLEL_THRESHOLD
+                || ktx.dataRead().transactionStateHasChanges()) {
+            Roaring64NavigableMap result = new Roaring64NavigableMap();
+            try (Cursors cursors = new Cursors(ktx)) {
+                LongIterator iterator = frontier.getLongIterator();
+                while (iterator.hasNext()) {
+                    cursors.expand(iterator.next(), result);
+                }
+            }
+            return result;
+        }
+        return expandInParallel(frontier);
+    }
+
+    private Roaring64NavigableMap expandInParallel(Roaring64NavigableMap frontier) {
+        return NodePartitions.process(
+                db,
+                ktx,
+                executor,
+                frontier,
+                Roaring64NavigableMap::new,
+                Roaring64NavigableMap::or,
+                (partitionKtx, partition, target) -> {
+                    try (Cursors cursors = new Cursors(partitionKtx)) {
+                        for (long nodeId : partition) {
+                            cursors.expand(nodeId, target);
+                        }
+                    }
+                },
+                "Error expanding the neighbors");
+    }
+
+    private class Cursors implements AutoCloseable {
+        private final Read read;
+        private final NodeCursor nodeCursor;
+        private final RelationshipTraversalCursor relCursor;
+
+        Cursors(KernelTransaction ktx) {
+            this.read = ktx.dataRead();
+            this.nodeCursor = ktx.cursors().allocateNodeCursor(ktx.cursorContext());
+            this.relCursor = ktx.cursors().allocateRelationshipTraversalCursor(ktx.cursorContext());
+        }
+
+        void expand(long nodeId, Roaring64NavigableMap target) {
+            read.singleNode(nodeId, nodeCursor);
+            if (!nodeCursor.next()) return;
+            for (RelationshipSelection selection : selections) {
+                nodeCursor.relationships(relCursor, selection);
+                while (relCursor.next()) {
+                    target.addLong(relCursor.otherNodeReference());
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            relCursor.close();
+            nodeCursor.close();
+        }
+    }
+}
@@ -18,8 +18,7 @@
  */
 package apoc.neighbors;
 
-import static apoc.path.RelationshipTypeAndDirections.parse;
-
+import apoc.Pools;
 import apoc.result.ListResult;
 import apoc.result.LongResult;
 import apoc.result.NodeListResult;
@@ -29,8 +28,8 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import org.neo4j.graphdb.*;
-import org.neo4j.internal.helpers.collection.Iterables;
-import org.neo4j.internal.helpers.collection.Pair;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
@@ -42,20 +41,61 @@ public class Neighbors {
     @Context
     public Transaction tx;
 
-    private Iterable<Relationship> getRelationshipsByTypeAndDirection(
-            Node node, Pair<RelationshipType, Direction> typesAndDirection) {
-        // as policy if both elements in the pair are null we return an empty result
-        if (typesAndDirection.first() == null) {
-            return typesAndDirection.other() == null
-                    ? Iterables.empty()
-                    : node.getRelationships(typesAndDirection.other());
+    @Context
+    public GraphDatabaseAPI db;
+
+    @Context
+    public KernelTransaction ktx;
+
+    @Context
+    public Pools pools;
+
+    /**
+     * @return the ids of the nodes up to the given distance, without the starting node
+     */
+    private Roaring64NavigableMap toHop(Node node, String types, long distance) {
+        NeighborExpander expander = new NeighborExpander(db, ktx, pools.getDefaultExecutorService(), types);
+        final long startNodeId = node.getId();
+
+        Roaring64NavigableMap seen = new Roaring64NavigableMap();
+        seen.addLong(startNodeId);
+        Roaring64NavigableMap frontier = new Roaring64NavigableMap();
+        frontier.addLong(startNodeId);
+        for (int i = 0; i < distance && !frontier.isEmpty(); i++) {
+            frontier = expander.expand(frontier);
+            frontier.andNot(seen);
+            seen.or(frontier);
         }
-        if (typesAndDirection.other() == null) {
-            return typesAndDirection.first() == null
-                    ? Iterables.empty()
-                    : node.getRelationships(typesAndDirection.first());
+        // remove starting node
+        seen.removeLong(startNodeId);
+        return seen;
+    }
+
+    /**
+     * @return the ids of the nodes at each distance, each node is only at its shortest distance
+     */
+    private Roaring64NavigableMap[] byHop(Node node, String types, long distance) {
+        NeighborExpander expander = new NeighborExpander(db, ktx, pools.getDefaultExecutorService(), types);
+        final long startNodeId = node.getId();
+
+        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[(int) distance];
+        Roaring64NavigableMap start = new Roaring64NavigableMap();
+        start.addLong(startNodeId);
+        // First Hop
+        seen[0] = expander.expand(start);
+        for (int i = 1; i < distance; i++) {
+            seen[i] = expander.expand(seen[i - 1]);
+            for (int j = 0; j < i; j++) {
+                seen[i].andNot(seen[j]);
+            }
+            seen[i].removeLong(startNodeId);
         }
-        return node.getRelationships(typesAndDirection.other(), typesAndDirection.first());
+        return seen;
+    }
+
+    private Stream<Node> toNodes(Roaring64NavigableMap ids) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(ids.iterator(), Spliterator.SORTED), false)
+                .map(id -> tx.getNodeById(id));
     }
 
     @Procedure("apoc.neighbors.tohop")
@@ -68,69 +108,7 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        final long startNodeId = node.getId();
-
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap seen = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextA = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextB = new Roaring64NavigableMap();
-        long nodeId = node.getId();
-        seen.addLong(nodeId);
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                nextB.addLong(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            // next even Hop
-            nextB.andNot(seen);
-            seen.or(nextB);
-            nextA.clear();
-            iterator = nextB.iterator();
-            while (iterator.hasNext()) {
-                nodeId = iterator.next();
-                node = tx.getNodeById(nodeId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        nextA.add((r.getOtherNodeId(nodeId)));
-                    }
-                }
-            }
-
-            i++;
-            if (i < distance) {
-                // next odd Hop
-                nextA.andNot(seen);
-                seen.or(nextA);
-                nextB.clear();
-                iterator = nextA.iterator();
-                while (iterator.hasNext()) {
-                    nodeId = iterator.next();
-                    node = tx.getNodeById(nodeId);
-                    for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                        for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                            nextB.add(r.getOtherNodeId(nodeId));
-                        }
-                    }
-                }
-            }
-        }
-        if ((distance % 2) == 0) {
-            seen.or(nextA);
-        } else {
-            seen.or(nextB);
-        }
-        // remove starting node
-        seen.removeLong(startNodeId);
-
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(seen.iterator(), Spliterator.SORTED), false)
-                .map(x -> new NodeResult(tx.getNodeById(x)));
+        return toNodes(toHop(node, types, distance)).map(NodeResult::new);
     }
 
     @Procedure("apoc.neighbors.tohop.count")
@@ -143,67 +121,7 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        final long startNodeId = node.getId();
-
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap seen = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextA = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextB = new Roaring64NavigableMap();
-        long nodeId = node.getId();
-        seen.add(nodeId);
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                nextB.add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            // next even Hop
-            nextB.andNot(seen);
-            seen.or(nextB);
-            nextA.clear();
-            iterator = nextB.iterator();
-            while (iterator.hasNext()) {
-                nodeId = iterator.next();
-                node = tx.getNodeById(nodeId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        nextA.add(r.getOtherNodeId(nodeId));
-                    }
-                }
-            }
-
-            i++;
-            if (i < distance) {
-                // next odd Hop
-                nextA.andNot(seen);
-                seen.or(nextA);
-                nextB.clear();
-                iterator = nextA.iterator();
-                while (iterator.hasNext()) {
-                    nodeId = iterator.next();
-                    node = tx.getNodeById(nodeId);
-                    for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                        for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                            nextB.add(r.getOtherNodeId(nodeId));
-                        }
-                    }
-                }
-            }
-        }
-        if ((distance % 2) == 0) {
-            seen.or(nextA);
-        } else {
-            seen.or(nextB);
-        }
-        // remove starting node
-        seen.removeLong(startNodeId);
-
-        return Stream.of(new LongResult(seen.getLongCardinality()));
+        return Stream.of(new LongResult(toHop(node, types, distance).getLongCardinality()));
     }
 
     @Procedure("apoc.neighbors.byhop")
@@ -216,44 +134,8 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for (int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        long nodeId = node.getId();
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            iterator = seen[i - 1].iterator();
-            while (iterator.hasNext()) {
-                node = tx.getNodeById(iterator.next());
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(r.getOtherNodeId(node.getId()));
-                    }
-                }
-            }
-            for (int j = 0; j < i; j++) {
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        return Arrays.stream(seen)
-                .map(x -> new NodeListResult(StreamSupport.stream(
-                                Spliterators.spliteratorUnknownSize(x.iterator(), Spliterator.SORTED), false)
-                        .map(y -> tx.getNodeById((long) y))
-                        .collect(Collectors.toList())));
+        return Arrays.stream(byHop(node, types, distance))
+                .map(x -> new NodeListResult(toNodes(x).collect(Collectors.toList())));
     }
 
     @Procedure("apoc.neighbors.byhop.count")
@@ -266,42 +148,9 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for (int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        long nodeId = node.getId();
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            iterator = seen[i - 1].iterator();
-            while (iterator.hasNext()) {
-                node = tx.getNodeById(iterator.next());
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(r.getOtherNodeId(node.getId()));
-                    }
-                }
-            }
-            for (int j = 0; j < i; j++) {
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        ArrayList counts = new ArrayList<Long>();
-        for (int i = 0; i < distance; i++) {
-            counts.add(seen[i].getLongCardinality());
+        List<Long> counts = new ArrayList<>();
+        for (Roaring64NavigableMap hop : byHop(node, types, distance)) {
+            counts.add(hop.getLongCardinality());
         }
 
         return Stream.of(new ListResult(counts));
@@ -317,44 +166,8 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for (int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        long nodeId = node.getId();
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            iterator = seen[i - 1].iterator();
-            while (iterator.hasNext()) {
-                node = tx.getNodeById(iterator.next());
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(r.getOtherNodeId(node.getId()));
-                    }
-                }
-            }
-            for (int j = 0; j < i; j++) {
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        return StreamSupport.stream(
-                        Spliterators.spliteratorUnknownSize(
-                                seen[distance.intValue() - 1].iterator(), Spliterator.SORTED),
-                        false)
-                .map(y -> new NodeResult(tx.getNodeById(y)));
+        Roaring64NavigableMap[] seen = byHop(node, types, distance);
+        return toNodes(seen[seen.length - 1]).map(NodeResult::new);
     }
 
     @Procedure("apoc.neighbors.athop.count")
@@ -367,39 +180,7 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for (int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        long nodeId = node.getId();
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            iterator = seen[i - 1].iterator();
-            while (iterator.hasNext()) {
-                node = tx.getNodeById(iterator.next());
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(r.getOtherNodeId(node.getId()));
-                    }
-                }
-            }
-            for (int j = 0; j < i; j++) {
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        return Stream.of(new LongResult(seen[distance.intValue() - 1].getLongCardinality()));
+        Roaring64NavigableMap[] seen = byHop(node, types, distance);
+        return Stream.of(new LongResult(seen[seen.length - 1].getLongCardinality()));
     }
 }
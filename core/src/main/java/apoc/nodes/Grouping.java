@@ -25,18 +25,28 @@ import apoc.Pools;
 import apoc.result.VirtualNode;
 import apoc.result.VirtualRelationship;
 import apoc.util.Util;
+import apoc.util.kernel.MultiThreadedGlobalGraphOperations;
+import apoc.util.kernel.MultiThreadedGlobalGraphOperations.BatchJobResult;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
 import org.neo4j.graphdb.*;
 import org.neo4j.internal.helpers.collection.Iterables;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
+import org.neo4j.token.api.TokenConstants;
 
 /**
  * @author mh
@@ -121,13 +131,16 @@ public class Grouping {
         long limitNodes = (long) config.getOrDefault("limitNodes", -1L);
         long limitRels = (long) config.getOrDefault("limitRels", -1L);
         long relsPerNode = (long) config.getOrDefault("relsPerNode", -1L);
+        // keeps only the aggregates and a compact node -> group mapping, instead of the nodes of each group
+        boolean streaming = (boolean) config.getOrDefault("streaming", false);
 
         // filter min, max on aggregated properties
         // (TYPE.)prop.min: value,(TYPE.)prop.max: value,
         // also filter (esp. max) during aggregation?
         Map<String, Number> filter = configuredFilter(config);
 
-        Map<NodeKey, Set<Node>> grouped = new ConcurrentHashMap<>();
+        Map<NodeKey, Set<Node>> grouped = streaming ? null : new ConcurrentHashMap<>();
+        NodeGroupIds groupIds = streaming ? new NodeGroupIds() : null;
         Map<NodeKey, VirtualNode> virtualNodes = new ConcurrentHashMap<>();
         Map<RelKey, VirtualRelationship> virtualRels = new ConcurrentHashMap<>();
 
@@ -143,15 +156,20 @@ public class Grouping {
                 while (nodes.hasNext()) {
                     List<Node> batch = Util.take(nodes, BATCHSIZE);
                     futures.add(Util.inTxFuture(pool, db, txInThread -> {
+                        LongIntHashMap batchGroupIds = streaming ? new LongIntHashMap(batch.size()) : null;
                         try {
                             for (Node node : batch) {
                                 final Node boundNode = Util.rebind(txInThread, node);
                                 NodeKey key = keyFor(boundNode, labelName, keys);
-                                grouped.compute(key, (k, v) -> {
-                                    if (v == null) v = new HashSet<>();
-                                    v.add(boundNode);
-                                    return v;
-                                });
+                                if (streaming) {
+                                    batchGroupIds.put(boundNode.getId(), groupIds.idFor(key));
+                                } else {
+                                    grouped.compute(key, (k, v) -> {
+                                        if (v == null) v = new HashSet<>();
+                                        v.add(boundNode);
+                                        return v;
+                                    });
+                                }
                                 virtualNodes.compute(key, (k, v) -> {
                                     if (v == null) {
                                         v = new VirtualNode(singleLabel, propertiesFor(boundNode, keys));
@@ -171,6 +189,9 @@ public class Grouping {
                         } catch (Exception e) {
                             log.error("Error grouping nodes", e);
                         }
+                        if (streaming) {
+                            groupIds.addAll(labelName, batchGroupIds);
+                        }
                         return null;
                     }));
                     Util.removeFinished(futures);
@@ -179,58 +200,62 @@ public class Grouping {
         }
         Util.waitForFutures(futures);
         futures.clear();
-        Iterator<Map.Entry<NodeKey, Set<Node>>> entries = grouped.entrySet().iterator();
-        int size = 0;
-        List<Map.Entry<NodeKey, Set<Node>>> batch = new ArrayList<>();
-        while (entries.hasNext()) {
-            Map.Entry<NodeKey, Set<Node>> outerEntry = entries.next();
-            batch.add(outerEntry);
-            size += outerEntry.getValue().size();
-            if (size > BATCHSIZE || !entries.hasNext()) {
-                ArrayList<Map.Entry<NodeKey, Set<Node>>> submitted = new ArrayList<>(batch);
-                batch.clear();
-                size = 0;
-                futures.add(Util.inTxFuture(pool, db, txInThread -> {
-                    try {
-                        for (Map.Entry<NodeKey, Set<Node>> entry : submitted) {
-                            for (Node node : entry.getValue()) {
-                                node = Util.rebind(txInThread, node);
-                                NodeKey startKey = entry.getKey();
-                                VirtualNode v1 = virtualNodes.get(startKey);
-                                for (Relationship rel : node.getRelationships(Direction.OUTGOING)) {
-                                    if (includeRels != null
-                                            && !includeRels.contains(
-                                                    rel.getType().name())) continue;
-                                    Node endNode = rel.getEndNode();
-                                    for (NodeKey endKey : keysFor(endNode, labels, keys)) {
-                                        VirtualNode v2 = virtualNodes.get(endKey);
-                                        if (v2 == null) continue;
-                                        if (!selfRels && startKey.equals(endKey)) continue;
-                                        virtualRels.compute(new RelKey(startKey, endKey, rel), (rk, vRel) -> {
-                                            if (vRel == null) vRel = v1.createRelationshipTo(v2, rel.getType());
-                                            if (!relAggNames.isEmpty()) {
-                                                aggregate(
-                                                        vRel,
-                                                        relAggNames,
-                                                        relAggKeys.length > 0
-                                                                ? rel.getProperties(relAggKeys)
-                                                                : Collections.emptyMap());
-                                            }
-                                            return vRel;
-                                        });
+        if (streaming) {
+            groupRelationships(groupIds, virtualNodes, virtualRels, includeRels, selfRels, relAggNames, relAggKeys);
+        } else {
+            Iterator<Map.Entry<NodeKey, Set<Node>>> entries = grouped.entrySet().iterator();
+            int size = 0;
+            List<Map.Entry<NodeKey, Set<Node>>> batch = new ArrayList<>();
+            while (entries.hasNext()) {
+                Map.Entry<NodeKey, Set<Node>> outerEntry = entries.next();
+                batch.add(outerEntry);
+                size += outerEntry.getValue().size();
+                if (size > BATCHSIZE || !entries.hasNext()) {
+                    ArrayList<Map.Entry<NodeKey, Set<Node>>> submitted = new ArrayList<>(batch);
+                    batch.clear();
+                    size = 0;
+                    futures.add(Util.inTxFuture(pool, db, txInThread -> {
+                        try {
+                            for (Map.Entry<NodeKey, Set<Node>> entry : submitted) {
+                                for (Node node : entry.getValue()) {
+                                    node = Util.rebind(txInThread, node);
+                                    NodeKey startKey = entry.getKey();
+                                    VirtualNode v1 = virtualNodes.get(startKey);
+                                    for (Relationship rel : node.getRelationships(Direction.OUTGOING)) {
+                                        if (includeRels != null
+                                                && !includeRels.contains(
+                                                        rel.getType().name())) continue;
+                                        Node endNode = rel.getEndNode();
+                                        for (NodeKey endKey : keysFor(endNode, labels, keys)) {
+                                            VirtualNode v2 = virtualNodes.get(endKey);
+                                            if (v2 == null) continue;
+                                            if (!selfRels && startKey.equals(endKey)) continue;
+                                            virtualRels.compute(new RelKey(startKey, endKey, rel), (rk, vRel) -> {
+                                                if (vRel == null) vRel = v1.createRelationshipTo(v2, rel.getType());
+                                                if (!relAggNames.isEmpty()) {
+                                                    aggregate(
+                                                            vRel,
+                                                            relAggNames,
+                                                            relAggKeys.length > 0
+                                                                    ? rel.getProperties(relAggKeys)
+                                                                    : Collections.emptyMap());
+                                                }
+                                                return vRel;
+                                            });
+                                        }
                                     }
                                 }
                             }
+                        } catch (Exception e) {
+                            log.error("Error grouping relationships", e);
                         }
-                    } catch (Exception e) {
-                        log.error("Error grouping relationships", e);
-                    }
-                    return null;
-                }));
-                Util.removeFinished(futures);
+                        return null;
+                    }));
+                    Util.removeFinished(futures);
+                }
             }
+            Util.waitForFutures(futures);
         }
-        Util.waitForFutures(futures);
         Stream<VirtualNode> stream = fixAggregates(virtualNodes.values()).stream();
         // apply filter
         if (filter != null) stream = stream.filter(n -> filter(n.getLabels(), n.getAllProperties(), filter));
@@ -247,6 +272,76 @@ public class Grouping {
         return groupResultStream;
     }
 
+    /**
+     * Aggregates the relationships between the groups of the `streaming` mode,
+     * with a parallel scan of the relationship store that looks up the groups of both nodes of each relationship
+     */
+    private void groupRelationships(
+            NodeGroupIds groupIds,
+            Map<NodeKey, VirtualNode> virtualNodes,
+            Map<RelKey, VirtualRelationship> virtualRels,
+            Set<String> includeRels,
+            boolean selfRels,
+            Map<String, List<String>> relAggNames,
+            String[] relAggKeys) {
+        TokenRead tokenRead = ((InternalTransaction) tx).kernelTransaction().tokenRead();
+        Map<Integer, RelationshipType> types = new HashMap<>();
+        for (RelationshipType type : tx.getAllRelationshipTypes()) {
+            if (includeRels == null || includeRels.contains(type.name())) {
+                types.put(tokenRead.relationshipType(type.name()), type);
+            }
+        }
+        Map<Integer, String> aggKeys = new HashMap<>(relAggKeys.length);
+        for (String key : relAggKeys) {
+            int keyId = tokenRead.propertyKey(key);
+            if (keyId != TokenConstants.NO_TOKEN) aggKeys.put(keyId, key);
+        }
+
+        BatchJobResult result = MultiThreadedGlobalGraphOperations.forAllRelationships(
+                (GraphDatabaseAPI) db, pools.getDefaultExecutorService(), BATCHSIZE, (ktx, rel) -> {
+                    RelationshipType type = types.get(rel.type());
+                    if (type == null) return;
+                    long source = rel.sourceNodeReference();
+                    long target = rel.targetNodeReference();
+                    if (!groupIds.isGrouped(source) || !groupIds.isGrouped(target)) return;
+                    Map<String, Object> properties =
+                            aggKeys.isEmpty() ? Collections.emptyMap() : propertiesFor(ktx, rel, aggKeys);
+                    groupIds.forEachGroup(source, startId -> {
+                        NodeKey startKey = groupIds.keyOf(startId);
+                        VirtualNode v1 = virtualNodes.get(startKey);
+                        groupIds.forEachGroup(target, endId -> {
+                            NodeKey endKey = groupIds.keyOf(endId);
+                            if (!selfRels && startKey.equals(endKey)) return;
+                            VirtualNode v2 = virtualNodes.get(endKey);
+                            virtualRels.compute(new RelKey(startKey, endKey, type.name()), (rk, vRel) -> {
+                                if (vRel == null) vRel = v1.createRelationshipTo(v2, type);
+                                if (!relAggNames.isEmpty()) {
+                                    aggregate(vRel, relAggNames, properties);
+                                }
+                                return vRel;
+                            });
+                        });
+                    });
+                });
+        if (result.getFailures() > 0) {
+            log.error("Error grouping %d relationships", result.getFailures());
+        }
+    }
+
+    private Map<String, Object> propertiesFor(
+            KernelTransaction ktx, RelationshipScanCursor rel, Map<Integer, String> keys) {
+        Map<String, Object> properties = new HashMap<>(keys.size());
+        try (PropertyCursor propertyCursor =
+                ktx.cursors().allocatePropertyCursor(ktx.cursorContext(), ktx.memoryTracker())) {
+            rel.properties(propertyCursor);
+            while (propertyCursor.next()) {
+                String key = keys.get(propertyCursor.propertyKey());
+                if (key != null) properties.put(key, propertyCursor.propertyValue().asObjectCopy());
+            }
+        }
+        return properties;
+    }
+
     private Map<String, Number> configuredFilter(Map<String, Object> config) {
         Map<String, Number> filter = (Map<String, Number>) config.get("filter");
         if (filter == null || filter.isEmpty()) return null;
@@ -484,9 +579,13 @@ public class Grouping {
         private final String type;
 
         RelKey(NodeKey startKey, NodeKey endKey, Relationship rel) {
+            this(startKey, endKey, rel.getType().name());
+        }
+
+        RelKey(NodeKey startKey, NodeKey endKey, String type) {
             this.startKey = startKey;
             this.endKey = endKey;
-            this.type = rel.getType().name();
+            this.type = type;
             hash = 31 * (31 * startKey.hashCode() + endKey.hashCode()) + type.hashCode();
         }
 
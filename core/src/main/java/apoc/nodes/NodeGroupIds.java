@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.nodes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+
+/**
+ * Maps the grouped nodes to their groups, for the `streaming` mode of `apoc.nodes.group`.
+ *
+ * Instead of holding the set of the nodes of each group, each group key gets an int id,
+ * and each grouped label gets a primitive node id -> group id map, so a node with more grouped labels
+ * belongs to a group per label, as in the default mode.
+ * The maps are filled by the node batches, then only read by the relationship scan.
+ */
+class NodeGroupIds {
+    private static final int NO_GROUP = -1;
+
+    private final Map<Grouping.NodeKey, Integer> ids = new ConcurrentHashMap<>();
+    // written under its own lock by the node batches, read without locking by the relationship scan
+    private final List<Grouping.NodeKey> keys = new ArrayList<>();
+    private final Map<String, LongIntHashMap> groupsByLabel = new ConcurrentHashMap<>();
+
+    int idFor(Grouping.NodeKey key) {
+        return ids.computeIfAbsent(key, k -> {
+            synchronized (keys) {
+                keys.add(k);
+                return keys.size() - 1;
+            }
+        });
+    }
+
+    Grouping.NodeKey keyOf(int id) {
+        return keys.get(id);
+    }
+
+    /**
+     * Adds the node id -> group id mappings collected by a batch of nodes of the label
+     */
+    void addAll(String label, LongIntHashMap groups) {
+        LongIntHashMap labelGroups = groupsByLabel.computeIfAbsent(label, l -> new LongIntHashMap());
+        synchronized (labelGroups) {
+            labelGroups.putAll(groups);
+        }
+    }
+
+    boolean isGrouped(long nodeId) {
+        for (LongIntHashMap groups : groupsByLabel.values()) {
+            if (groups.containsKey(nodeId)) return true;
+        }
+        return false;
+    }
+
+    void forEachGroup(long nodeId, IntConsumer consumer) {
+        for (LongIntHashMap groups : groupsByLabel.values()) {
+            int id = groups.getIfAbsent(nodeId, NO_GROUP);
+            if (id != NO_GROUP) consumer.accept(id);
+        }
+    }
+}
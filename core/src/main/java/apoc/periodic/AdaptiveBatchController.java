@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.periodic;
+
+import apoc.util.Util;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.neo4j.procedure.TerminationGuard;
+
+/**
+ * Controls the number of in-flight batches and the batch size of an `apoc.periodic.iterate`.
+ *
+ * In-flight batches are bounded by a resizable semaphore: the iterating thread acquires a permit before
+ * submitting a batch and the permit is handed back when the batch transaction completes.
+ * When `concurrency: 'auto'` and/or `batchSize: 'auto'` are configured, the limits are re-evaluated
+ * after each window of completed batches, based on the measured commit latency, the retry rate
+ * (i.e. deadlocks and lock contention) and the throughput of the previous window.
+ * With `parallel: false` there is a single permit, so that each batch is taken from the iterator only after
+ * the previous one completed, with the batch size computed from its feedback.
+ */
+public class AdaptiveBatchController {
+    public static final String AUTO = "auto";
+
+    static final int DEFAULT_AUTO_BATCH_SIZE = 1000;
+    static final int MIN_AUTO_BATCH_SIZE = 100;
+    static final long DEFAULT_TARGET_BATCH_LATENCY = 1000;
+
+    // above this ratio of retries per batch we consider the workload as lock-bound and back off
+    static final double MAX_RETRY_RATE = 0.1;
+    // throughput variations below this ratio are considered noise
+    static final double THROUGHPUT_TOLERANCE = 0.05;
+    private static final long ACQUIRE_TIMEOUT_MILLIS = 10;
+
+    private final boolean adaptiveConcurrency;
+    private final boolean adaptiveBatchSize;
+    private final int maxConcurrency;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long targetLatencyNanos;
+    private final ResizableSemaphore permits;
+
+    private volatile int concurrency;
+    private volatile int batchSize;
+
+    // statistics of the current window, guarded by `this`
+    private long windowStart = System.nanoTime();
+    private long windowBatches;
+    private long windowRows;
+    private long windowRetries;
+    private long windowLatency;
+    private double lastThroughput;
+    private int direction = 1;
+
+    AdaptiveBatchController(
+            int concurrency,
+            int batchSize,
+            boolean adaptiveConcurrency,
+            boolean adaptiveBatchSize,
+            int maxConcurrency,
+            int minBatchSize,
+            int maxBatchSize,
+            long targetLatencyMillis) {
+        this.adaptiveConcurrency = adaptiveConcurrency;
+        this.adaptiveBatchSize = adaptiveBatchSize;
+        this.maxConcurrency = Math.max(concurrency, maxConcurrency);
+        this.minBatchSize = Math.min(batchSize, minBatchSize);
+        this.maxBatchSize = Math.max(batchSize, maxBatchSize);
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.concurrency = concurrency;
+        this.batchSize = batchSize;
+        this.permits = new ResizableSemaphore(concurrency);
+    }
+
+    /**
+     * A controller with a constant concurrency and batch size, i.e. the behaviour before `auto` was introduced
+     */
+    public static AdaptiveBatchController fixed(int batchSize, int concurrency) {
+        return new AdaptiveBatchController(
+                concurrency,
+                batchSize,
+                false,
+                false,
+                concurrency,
+                batchSize,
+                batchSize,
+                DEFAULT_TARGET_BATCH_LATENCY);
+    }
+
+    public static AdaptiveBatchController fromConfig(Map<String, Object> config) {
+        int availableProcessors = Runtime.getRuntime().availableProcessors();
+        Object concurrencyValue = config.getOrDefault("concurrency", availableProcessors);
+        Object batchSizeValue = config.getOrDefault("batchSize", 10000);
+
+        boolean adaptiveConcurrency = isAuto(concurrencyValue);
+        boolean adaptiveBatchSize = isAuto(batchSizeValue);
+
+        int maxConcurrency = Util.toInteger(config.getOrDefault("maxConcurrency", availableProcessors));
+        int concurrency = adaptiveConcurrency ? Math.min(2, maxConcurrency) : toInt(concurrencyValue);
+        if (concurrency < 1 || maxConcurrency < 1) {
+            throw new IllegalArgumentException("concurrency parameter must be > 0");
+        }
+        if (!Util.toBoolean(config.getOrDefault("parallel", false))) {
+            // the batches of a sequential iterate are executed one at a time, whatever the concurrency
+            adaptiveConcurrency = false;
+            concurrency = maxConcurrency = 1;
+        }
+
+        int maxBatchSize = Util.toInteger(config.getOrDefault("maxBatchSize", 100000));
+        long batchSize = adaptiveBatchSize ? Math.min(DEFAULT_AUTO_BATCH_SIZE, maxBatchSize) : toLong(batchSizeValue);
+        if (batchSize < 1 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("batchSize parameter must be > 0");
+        }
+        long targetLatency =
+                Util.toLong(config.getOrDefault("targetBatchLatency", DEFAULT_TARGET_BATCH_LATENCY));
+
+        return new AdaptiveBatchController(
+                concurrency,
+                (int) batchSize,
+                adaptiveConcurrency,
+                adaptiveBatchSize,
+                maxConcurrency,
+                Math.min(MIN_AUTO_BATCH_SIZE, maxBatchSize),
+                maxBatchSize,
+                targetLatency);
+    }
+
+    private static boolean isAuto(Object value) {
+        return value instanceof String && AUTO.equalsIgnoreCase(((String) value).trim());
+    }
+
+    private static int toInt(Object value) {
+        Integer result = Util.toInteger(value);
+        return result == null ? 0 : result;
+    }
+
+    private static long toLong(Object value) {
+        Long result = Util.toLong(value);
+        return result == null ? 0 : result;
+    }
+
+    public boolean isAdaptive() {
+        return adaptiveConcurrency || adaptiveBatchSize;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Blocks until a batch can be submitted.
+     * We can't block indefinitely as we might miss a cancellation, so we wait for a bounded time
+     * and check for termination in between.
+     *
+     * @return false if the transaction was terminated while waiting
+     */
+    public boolean acquire(TerminationGuard terminationGuard) {
+        try {
+            while (!permits.tryAcquire(ACQUIRE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (Util.transactionIsTerminated(terminationGuard)) return false;
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * Records a completed batch, i.e. its size, the nanoseconds elapsed from the start of its execution to its commit
+     * and the number of times it has been retried
+     */
+    public void batchCompleted(long rows, long latencyNanos, long retries) {
+        if (!isAdaptive()) return;
+        synchronized (this) {
+            windowBatches++;
+            windowRows += rows;
+            windowLatency += latencyNanos;
+            windowRetries += retries;
+            if (windowBatches >= Math.max(concurrency, 2)) {
+                long now = System.nanoTime();
+                evaluate(now - windowStart);
+                windowStart = now;
+                windowBatches = windowRows = windowRetries = windowLatency = 0;
+            }
+        }
+    }
+
+    // package-private for testing, must be called while holding the lock
+    void evaluate(long elapsedNanos) {
+        double throughput = windowRows / (double) Math.max(1, elapsedNanos);
+        double retryRate = windowRetries / (double) windowBatches;
+        long avgLatency = windowLatency / windowBatches;
+        boolean contended = retryRate > MAX_RETRY_RATE;
+
+        if (adaptiveConcurrency) {
+            if (contended) {
+                // multiplicative decrease: deadlocks get worse with more concurrent writers
+                resize(Math.max(1, concurrency / 2));
+                direction = 1;
+            } else if (lastThroughput > 0) {
+                // hill climbing: keep moving while throughput improves, reverse when it degrades
+                if (throughput < lastThroughput * (1 - THROUGHPUT_TOLERANCE)) {
+                    direction = -direction;
+                    resize(concurrency + direction);
+                } else if (throughput > lastThroughput * (1 + THROUGHPUT_TOLERANCE)) {
+                    resize(concurrency + direction);
+                }
+            } else {
+                resize(concurrency + direction);
+            }
+        }
+
+        if (adaptiveBatchSize) {
+            if (contended || avgLatency > targetLatencyNanos * 2) {
+                batchSize = Math.max(minBatchSize, batchSize / 2);
+            } else if (avgLatency < targetLatencyNanos / 2) {
+                batchSize = (int) Math.min(maxBatchSize, batchSize * 2L);
+            }
+        }
+        lastThroughput = throughput;
+    }
+
+    private void resize(int newConcurrency) {
+        int target = Math.max(1, Math.min(maxConcurrency, newConcurrency));
+        if (target == 1 || target == maxConcurrency) {
+            // we reached a boundary, next time we'll try the other direction
+            direction = target == 1 ? 1 : -1;
+        }
+        int delta = target - concurrency;
+        if (delta > 0) {
+            permits.release(delta);
+        } else if (delta < 0) {
+            // the available permits can become negative, in-flight batches will drain them
+            permits.reducePermits(-delta);
+        }
+        concurrency = target;
+    }
+
+    private static class ResizableSemaphore extends Semaphore {
+        ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
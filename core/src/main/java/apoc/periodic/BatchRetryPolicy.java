@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.periodic;
+
+import apoc.util.Util;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.LongUnaryOperator;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.logging.Log;
+
+/**
+ * How a batch of `apoc.periodic.iterate` is retried, and what happens to its rows when it keeps failing:
+ * <ul>
+ *     <li>the delay between the retries, see {@link RetryBackoff}</li>
+ *     <li>with `splitOnFailure`, a batch still failing after its retries is bisected, without further retries,
+ *     until the failing rows are isolated, so that all the other rows can be committed</li>
+ *     <li>the rows that failed are written to the `deadLetter` sink, if any</li>
+ * </ul>
+ */
+public class BatchRetryPolicy implements AutoCloseable {
+    private final long retries;
+    private final LongUnaryOperator retryDelay;
+    private final boolean splitOnFailure;
+    private final DeadLetterSink deadLetter;
+
+    public BatchRetryPolicy(
+            long retries, LongUnaryOperator retryDelay, boolean splitOnFailure, DeadLetterSink deadLetter) {
+        this.retries = retries;
+        this.retryDelay = retryDelay;
+        this.splitOnFailure = splitOnFailure;
+        this.deadLetter = deadLetter;
+    }
+
+    public static BatchRetryPolicy of(long retries) {
+        return new BatchRetryPolicy(retries, Util.DEFAULT_RETRY_DELAY, false, null);
+    }
+
+    public static BatchRetryPolicy fromConfig(Map<String, Object> config, GraphDatabaseService db, String periodicId) {
+        long retries = Util.toLong(config.getOrDefault("retries", 0));
+        if (retries < 0) {
+            throw new IllegalArgumentException("retries parameter must be >= 0");
+        }
+        Map<String, Object> deadLetterConfig =
+                (Map<String, Object>) config.getOrDefault("deadLetter", Collections.emptyMap());
+        return new BatchRetryPolicy(
+                retries,
+                RetryBackoff.fromConfig(config),
+                Util.toBoolean(config.getOrDefault("splitOnFailure", false)),
+                DeadLetterSink.fromConfig(deadLetterConfig, db, periodicId));
+    }
+
+    /**
+     * @param rowsDropped set if some rows failed and could not be written to the `deadLetter` sink,
+     *                    as happens with `splitOnFailure` and without a sink
+     * @return the number of committed operations
+     */
+    public long execute(
+            Log log,
+            GraphDatabaseService db,
+            Periodic.ExecuteBatch executeBatch,
+            Consumer<Long> callbackForRetry,
+            BatchAndTotalCollector collector,
+            AtomicBoolean rowsDropped) {
+        if (!splitOnFailure) {
+            try {
+                long committed = Util.retryInTx(log, db, executeBatch, 0, retries, callbackForRetry, retryDelay);
+                executeBatch.committed();
+                return committed;
+            } catch (Exception e) {
+                writeDeadLetter(log, executeBatch.getBatch(), e);
+                throw e;
+            }
+        }
+        AtomicBoolean failed = new AtomicBoolean();
+        long committed = executeSplitting(
+                log,
+                db,
+                executeBatch.withBatch(executeBatch.getBatch()),
+                retries,
+                callbackForRetry,
+                collector,
+                failed,
+                rowsDropped);
+        if (failed.get()) {
+            collector.getFailedBatches().incrementAndGet();
+        }
+        return committed;
+    }
+
+    /**
+     * Only the whole batch is retried, as retrying each half would multiply the transactions and the delays
+     * for every failing row: once the retries of the batch are exhausted, its halves are executed just once.
+     */
+    private long executeSplitting(
+            Log log,
+            GraphDatabaseService db,
+            Periodic.ExecuteBatch executeBatch,
+            long retries,
+            Consumer<Long> callbackForRetry,
+            BatchAndTotalCollector collector,
+            AtomicBoolean failed,
+            AtomicBoolean rowsDropped) {
+        try {
+            long committed = Util.retryInTx(log, db, executeBatch, 0, retries, callbackForRetry, retryDelay);
+            executeBatch.committed();
+            return committed;
+        } catch (Exception e) {
+            List<Map<String, Object>> batch = executeBatch.getBatch();
+            if (batch.size() > 1) {
+                int half = batch.size() / 2;
+                return executeSplitting(
+                                log,
+                                db,
+                                executeBatch.withBatch(batch.subList(0, half)),
+                                0,
+                                callbackForRetry,
+                                collector,
+                                failed,
+                                rowsDropped)
+                        + executeSplitting(
+                                log,
+                                db,
+                                executeBatch.withBatch(batch.subList(half, batch.size())),
+                                0,
+                                callbackForRetry,
+                                collector,
+                                failed,
+                                rowsDropped);
+            }
+            // we isolated a failing row
+            failed.set(true);
+            collector.incrementFailedOps(batch.size());
+            collector.amendFailedParamsMap(batch);
+            Periodic.recordError(collector.getOperationErrors(), e);
+            if (!writeDeadLetter(log, batch, e)) {
+                rowsDropped.set(true);
+            }
+            return 0L;
+        }
+    }
+
+    /**
+     * @return true if the rows have been written to the sink
+     */
+    private boolean writeDeadLetter(Log log, List<Map<String, Object>> rows, Exception error) {
+        if (deadLetter == null) return false;
+        if (rows.isEmpty()) return true;
+        try {
+            deadLetter.accept(rows, error);
+            return true;
+        } catch (Exception e) {
+            log.warn("Unable to write " + rows.size() + " failed rows to the dead letter sink", e);
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (deadLetter != null) {
+            deadLetter.close();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.periodic;
+
+import static apoc.ApocConfig.apocConfig;
+
+import apoc.util.FileUtils;
+import apoc.util.JsonUtil;
+import apoc.util.Util;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+/**
+ * Collects the rows of `apoc.periodic.iterate` that failed after all the retries,
+ * so that they can be inspected and replayed instead of being lost.
+ *
+ * Nodes and relationships are recorded by id, since the rows are written from the batch threads,
+ * outside the transaction that returned them.
+ */
+public abstract class DeadLetterSink implements AutoCloseable {
+    protected final String periodicId;
+
+    protected DeadLetterSink(String periodicId) {
+        this.periodicId = periodicId;
+    }
+
+    /**
+     * @param config the `deadLetter` config, either `{file: 'name.jsonl'}` or `{label: 'FailedRow'}`
+     * @return the configured sink, or null if the config is empty
+     */
+    public static DeadLetterSink fromConfig(Map<String, Object> config, GraphDatabaseService db, String periodicId) {
+        if (config == null || config.isEmpty()) return null;
+        if (config.containsKey("file")) {
+            return new FileSink(periodicId, config.get("file").toString());
+        }
+        if (config.containsKey("label")) {
+            return new NodeSink(periodicId, config.get("label").toString(), db);
+        }
+        throw new IllegalArgumentException("The deadLetter parameter must contain either a `file` or a `label` key");
+    }
+
+    public abstract void accept(List<Map<String, Object>> rows, Throwable error);
+
+    @Override
+    public void close() {}
+
+    protected static String errorMessage(Throwable error) {
+        Throwable rootCause = ExceptionUtils.getRootCause(error);
+        return (rootCause == null ? error : rootCause).getMessage();
+    }
+
+    protected static String toJson(Map<String, Object> row) {
+        try {
+            return JsonUtil.OBJECT_MAPPER.writeValueAsString(toSerializable(row));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unable to serialize the failed row " + row, e);
+        }
+    }
+
+    private static Object toSerializable(Object value) {
+        if (value instanceof Node) {
+            return Util.map("_node", ((Node) value).getId());
+        }
+        if (value instanceof Relationship) {
+            return Util.map("_relationship", ((Relationship) value).getId());
+        }
+        if (value instanceof Map) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            ((Map<String, Object>) value).forEach((k, v) -> result.put(k, toSerializable(v)));
+            return result;
+        }
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).stream().map(DeadLetterSink::toSerializable).collect(Collectors.toList());
+        }
+        return value;
+    }
+
+    /**
+     * Appends one json line per failed row, i.e. `{"periodicId": ..., "error": ..., "row": {...}}`
+     */
+    static class FileSink extends DeadLetterSink {
+        private final PrintWriter writer;
+
+        FileSink(String periodicId, String fileName) {
+            super(periodicId);
+            apocConfig().checkWriteAllowed(null, fileName);
+            OutputStream outputStream = FileUtils.getOutputStream(fileName);
+            if (outputStream == null) {
+                throw new IllegalArgumentException("The deadLetter file must be a valid file name");
+            }
+            this.writer = new PrintWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public synchronized void accept(List<Map<String, Object>> rows, Throwable error) {
+            String message = errorMessage(error);
+            for (Map<String, Object> row : rows) {
+                writer.println(toJson(Util.map("periodicId", periodicId, "error", message, "row", row)));
+            }
+            writer.flush();
+        }
+
+        @Override
+        public synchronized void close() {
+            writer.close();
+        }
+    }
+
+    /**
+     * Creates one node per failed row, in its own transaction, with the row serialized as json
+     */
+    static class NodeSink extends DeadLetterSink {
+        private final GraphDatabaseService db;
+        private final String statement;
+
+        NodeSink(String periodicId, String label, GraphDatabaseService db) {
+            super(periodicId);
+            this.db = db;
+            this.statement = "UNWIND $rows AS row CREATE (n:" + Util.quote(label)
+                    + " {periodicId: $periodicId, error: $error, row: row, createdAt: timestamp()})";
+        }
+
+        @Override
+        public void accept(List<Map<String, Object>> rows, Throwable error) {
+            List<String> jsonRows = rows.stream().map(DeadLetterSink::toJson).collect(Collectors.toList());
+            db.executeTransactionally(
+                    statement, Util.map("rows", jsonRows, "periodicId", periodicId, "error", errorMessage(error)));
+        }
+    }
+}
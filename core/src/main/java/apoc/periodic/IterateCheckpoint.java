@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.periodic;
+
+import static apoc.ApocConfig.apocConfig;
+
+import apoc.SystemLabels;
+import apoc.SystemPropertyKeys;
+import apoc.util.Util;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.helpers.collection.Iterators;
+import org.neo4j.internal.helpers.collection.Pair;
+
+/**
+ * Persists the progress of an `apoc.periodic.iterate` started with the `checkpoint` config into the system database,
+ * so that it can be continued by `apoc.periodic.resume(jobId)` after a restart or a termination.
+ *
+ * Batches can complete out of order, so the checkpoint is the contiguous prefix of committed batches:
+ * batches committed after the first uncommitted one are executed again on resume,
+ * therefore the action statement should be idempotent (e.g. use MERGE).
+ * The prefix is either resumed by skipping the already committed rows of the iterate statement
+ * or, with the `cursor` option, by passing the last committed value of that column as the `$_checkpoint`
+ * parameter to the iterate statement, which should filter and order its rows by it.
+ */
+public class IterateCheckpoint {
+    public static final String CHECKPOINT_PARAM = "_checkpoint";
+    private static final long PERSIST_INTERVAL_MILLIS = 1000;
+
+    private final String jobId;
+    private final String database;
+    private final String cursorColumn;
+
+    private String statement;
+    private String action;
+    private Map<String, Object> config;
+
+    // guarded by `this`
+    private long committed;
+    private Object cursor;
+    private long nextSequence;
+    private long watermark;
+    private final Map<Long, Pair<Long, Object>> committedOutOfOrder = new HashMap<>();
+    private long lastPersisted;
+
+    private IterateCheckpoint(String jobId, String database, String cursorColumn) {
+        this.jobId = jobId;
+        this.database = database;
+        this.cursorColumn = cursorColumn;
+    }
+
+    /**
+     * @return the checkpoint configured via `checkpoint: {jobId: 'name', cursor: 'column'}`, or null if not configured
+     */
+    public static IterateCheckpoint fromConfig(Map<String, Object> config, String database) {
+        Map<String, Object> checkpointConfig = (Map<String, Object>) config.get("checkpoint");
+        if (checkpointConfig == null) return null;
+        Object jobId = checkpointConfig.get("jobId");
+        if (jobId == null) {
+            throw new IllegalArgumentException("The checkpoint parameter must contain a `jobId`");
+        }
+        if (config.get("partitionBy") != null) {
+            throw new IllegalArgumentException(
+                    "The checkpoint parameter can't be used together with partitionBy, as partitions reorder the rows");
+        }
+        checkStorable(config.get("params"));
+        Object cursorColumn = checkpointConfig.get("cursor");
+        return new IterateCheckpoint(jobId.toString(), database, cursorColumn == null ? null : cursorColumn.toString());
+    }
+
+    /**
+     * The config is stored as json, so that nodes, relationships and paths in the params could not be restored on resume
+     */
+    private static void checkStorable(Object value) {
+        if (value instanceof Entity || value instanceof Path) {
+            throw new IllegalArgumentException(
+                    "The params of an apoc.periodic.iterate with the checkpoint parameter can't contain nodes, "
+                            + "relationships or paths, as they can't be restored on resume: pass their ids instead");
+        }
+        if (value instanceof Map) {
+            ((Map<?, ?>) value).values().forEach(IterateCheckpoint::checkStorable);
+        } else if (value instanceof Collection) {
+            ((Collection<?>) value).forEach(IterateCheckpoint::checkStorable);
+        }
+    }
+
+    /**
+     * Loads the checkpoint of a job that has not completed yet
+     */
+    public static IterateCheckpoint load(String jobId, String database) {
+        return withSystemDb(tx -> {
+            Node node = findNode(tx, jobId, database);
+            if (node == null) {
+                throw new IllegalArgumentException("There is no checkpoint for the periodic iterate job " + jobId);
+            }
+            if ((boolean) node.getProperty(SystemPropertyKeys.done.name(), false)) {
+                throw new IllegalArgumentException("The periodic iterate job " + jobId + " has already completed");
+            }
+            Map<String, Object> config =
+                    Util.fromJson((String) node.getProperty(SystemPropertyKeys.config.name()), Map.class);
+            IterateCheckpoint checkpoint = fromConfig(config, database);
+            checkpoint.statement = (String) node.getProperty(SystemPropertyKeys.statement.name());
+            checkpoint.action = (String) node.getProperty(SystemPropertyKeys.action.name());
+            checkpoint.config = config;
+            checkpoint.committed = (long) node.getProperty(SystemPropertyKeys.committed.name(), 0L);
+            String cursor = (String) node.getProperty(SystemPropertyKeys.cursor.name(), null);
+            checkpoint.cursor = cursor == null ? null : Util.fromJson(cursor, Object.class);
+            return checkpoint;
+        });
+    }
+
+    /**
+     * Starts the job from scratch, overwriting a previous checkpoint with the same jobId, if any
+     */
+    public void start(String statement, String action, Map<String, Object> config) {
+        this.statement = statement;
+        this.action = action;
+        this.config = config;
+        withSystemDb(tx -> {
+            Node node = Util.mergeNode(
+                    tx,
+                    SystemLabels.ApocPeriodicCheckpoint,
+                    null,
+                    Pair.of(SystemPropertyKeys.database.name(), database),
+                    Pair.of(SystemPropertyKeys.name.name(), jobId));
+            node.setProperty(SystemPropertyKeys.statement.name(), statement);
+            node.setProperty(SystemPropertyKeys.action.name(), action);
+            node.setProperty(SystemPropertyKeys.config.name(), Util.toJson(config));
+            node.setProperty(SystemPropertyKeys.committed.name(), 0L);
+            node.removeProperty(SystemPropertyKeys.cursor.name());
+            node.setProperty(SystemPropertyKeys.done.name(), false);
+            node.setProperty(SystemPropertyKeys.lastUpdated.name(), System.currentTimeMillis());
+            return null;
+        });
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public Map<String, Object> getConfig() {
+        return config;
+    }
+
+    /**
+     * @return the params to add to the iterate statement
+     */
+    public Map<String, Object> params() {
+        return cursorColumn == null ? Collections.emptyMap() : Collections.singletonMap(CHECKPOINT_PARAM, cursor);
+    }
+
+    /**
+     * @return how many rows of the iterate statement have to be skipped, as they have already been committed
+     */
+    public long rowsToSkip() {
+        return cursorColumn == null ? committed : 0;
+    }
+
+    public void validate(List<String> columns) {
+        if (cursorColumn != null && !columns.contains(cursorColumn)) {
+            throw new IllegalArgumentException(String.format(
+                    "The checkpoint cursor column %s is not returned by the iterate statement, available columns are %s",
+                    cursorColumn, columns));
+        }
+    }
+
+    /**
+     * Called by the iterating thread for each batch, in order
+     *
+     * @return the sequence number of the batch
+     */
+    public synchronized long nextBatch() {
+        return nextSequence++;
+    }
+
+    public Object cursorOf(List<Map<String, Object>> batch) {
+        if (cursorColumn == null || batch.isEmpty()) return null;
+        Object value = batch.get(batch.size() - 1).get(cursorColumn);
+        return value instanceof Entity ? ((Entity) value).getId() : value;
+    }
+
+    public synchronized void batchCommitted(long sequence, long rows, Object lastCursor) {
+        committedOutOfOrder.put(sequence, Pair.of(rows, lastCursor));
+        boolean advanced = false;
+        Pair<Long, Object> next;
+        while ((next = committedOutOfOrder.remove(watermark)) != null) {
+            committed += next.first();
+            if (next.other() != null) {
+                cursor = next.other();
+            }
+            watermark++;
+            advanced = true;
+        }
+        if (advanced && System.currentTimeMillis() - lastPersisted >= PERSIST_INTERVAL_MILLIS) {
+            persist(false);
+        }
+    }
+
+    /**
+     * Persists the final progress, the job is marked as done if all the batches have been committed
+     */
+    public synchronized void finish(boolean wasTerminated) {
+        persist(!wasTerminated && watermark == nextSequence);
+    }
+
+    private void persist(boolean done) {
+        lastPersisted = System.currentTimeMillis();
+        withSystemDb(tx -> {
+            Node node = findNode(tx, jobId, database);
+            if (node != null) {
+                node.setProperty(SystemPropertyKeys.committed.name(), committed);
+                if (cursor != null) {
+                    node.setProperty(SystemPropertyKeys.cursor.name(), Util.toJson(cursor));
+                }
+                node.setProperty(SystemPropertyKeys.done.name(), done);
+                node.setProperty(SystemPropertyKeys.lastUpdated.name(), lastPersisted);
+            }
+            return null;
+        });
+    }
+
+    private static Node findNode(Transaction tx, String jobId, String database) {
+        return Iterators.singleOrNull(tx.findNodes(
+                SystemLabels.ApocPeriodicCheckpoint,
+                SystemPropertyKeys.database.name(),
+                database,
+                SystemPropertyKeys.name.name(),
+                jobId));
+    }
+
+    private static <T> T withSystemDb(Function<Transaction, T> action) {
+        try (Transaction tx = apocConfig().getSystemDb().beginTx()) {
+            T result = action.apply(tx);
+            tx.commit();
+            return result;
+        }
+    }
+}
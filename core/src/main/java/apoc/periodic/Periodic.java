@@ -167,7 +167,7 @@ public class Periodic {
                 wasTerminated));
     }
 
-    private static void recordError(Map<String, Long> executionErrors, Exception e) {
+    static void recordError(Map<String, Long> executionErrors, Exception e) {
         String msg = ExceptionUtils.getRootCause(e).getMessage();
         // String msg =
         // ExceptionUtils.getThrowableList(e).stream().map(Throwable::getMessage).collect(Collectors.joining(","))
@@ -308,52 +308,84 @@ public class Periodic {
             @Name("cypherAction") String cypherAction,
             @Name("config") Map<String, Object> config) {
         validateQuery(cypherIterate);
-
-        long batchSize = Util.toLong(config.getOrDefault("batchSize", 10000));
-        if (batchSize < 1) {
-            throw new IllegalArgumentException("batchSize parameter must be > 0");
+        if (config.get("partitionBy") != null && !Util.toBoolean(config.getOrDefault("parallel", false))) {
+            throw new IllegalArgumentException(
+                    "The partitionBy parameter requires parallel:true, as the batches are otherwise executed in order");
         }
-        int concurrency = Util.toInteger(
-                config.getOrDefault("concurrency", Runtime.getRuntime().availableProcessors()));
-        if (concurrency < 1) {
-            throw new IllegalArgumentException("concurrency parameter must be > 0");
+
+        IterateCheckpoint checkpoint = IterateCheckpoint.fromConfig(config, db.databaseName());
+        if (checkpoint != null) {
+            checkpoint.start(cypherIterate, cypherAction, config);
         }
+        return iterate(cypherIterate, cypherAction, config, checkpoint);
+    }
+
+    @Procedure(mode = Mode.WRITE)
+    @Description(
+            "apoc.periodic.resume(jobId) YIELD batches, total - continue an apoc.periodic.iterate started with the `checkpoint: {jobId: ...}` config from its last committed batch")
+    public Stream<BatchAndTotalResult> resume(@Name("jobId") String jobId) {
+        IterateCheckpoint checkpoint = IterateCheckpoint.load(jobId, db.databaseName());
+        validateQuery(checkpoint.getStatement());
+        return iterate(checkpoint.getStatement(), checkpoint.getAction(), checkpoint.getConfig(), checkpoint);
+    }
+
+    private Stream<BatchAndTotalResult> iterate(
+            String cypherIterate, String cypherAction, Map<String, Object> config, IterateCheckpoint checkpoint) {
+
+        AdaptiveBatchController controller = AdaptiveBatchController.fromConfig(config);
         boolean parallel = Util.toBoolean(config.getOrDefault("parallel", false));
-        long retries = Util.toLong(config.getOrDefault(
-                "retries", 0)); // todo sleep/delay or push to end of batch to try again or immediate ?
         int failedParams = Util.toInteger(config.getOrDefault("failedParams", -1));
 
         BatchMode batchMode = BatchMode.fromConfig(config);
         Map<String, Object> params = (Map<String, Object>) config.getOrDefault("params", Collections.emptyMap());
 
-        try (Result result = tx.execute(slottedRuntime(cypherIterate), params)) {
+        Map<String, Object> iterateParams = checkpoint == null ? params : merge(params, checkpoint.params());
+        try (Result result = tx.execute(slottedRuntime(cypherIterate), iterateParams)) {
+            if (checkpoint != null) {
+                checkpoint.validate(result.columns());
+                for (long skip = checkpoint.rowsToSkip(); skip > 0 && result.hasNext(); skip--) {
+                    result.next();
+                }
+            }
             Pair<String, Boolean> prepared =
                     PeriodicUtils.prepareInnerStatement(cypherAction, batchMode, result.columns(), "_batch");
             String innerStatement = applyPlanner(
                     prepared.first(), Planner.valueOf((String) config.getOrDefault("planner", Planner.DEFAULT.name())));
             boolean iterateList = prepared.other();
+            RowPartitioner partitioner = null;
+            List<String> partitionBy = RowPartitioner.keysFromConfig(config.get("partitionBy"));
+            if (!partitionBy.isEmpty()) {
+                int partitions = Util.toInteger(config.getOrDefault("partitions", controller.getMaxConcurrency()));
+                if (partitions < 1) {
+                    throw new IllegalArgumentException("partitions parameter must be > 0");
+                }
+                partitioner = new RowPartitioner(partitionBy, partitions);
+                partitioner.validate(result.columns());
+            }
             String periodicId = UUID.randomUUID().toString();
             if (log.isDebugEnabled()) {
                 log.debug(
                         "Starting periodic iterate from `%s` operation using iteration `%s` in separate thread with id: `%s`",
                         cypherIterate, cypherAction, periodicId);
             }
+            BatchRetryPolicy retryPolicy = BatchRetryPolicy.fromConfig(config, db, periodicId);
             return PeriodicUtils.iterateAndExecuteBatchedInSeparateThread(
                     db,
                     terminationGuard,
                     log,
                     pools,
-                    (int) batchSize,
+                    controller,
+                    partitioner,
                     parallel,
                     iterateList,
-                    retries,
+                    retryPolicy,
+                    checkpoint,
                     result,
                     (tx, p) -> {
                         final Result r = tx.execute(innerStatement, merge(params, p));
                         Iterators.count(r); // XXX: consume all results
                         return r.getQueryStatistics();
                     },
-                    concurrency,
                     failedParams,
                     periodicId);
         }
@@ -393,6 +425,11 @@ public class Periodic {
         protected BatchAndTotalCollector collector;
         protected List<Map<String, Object>> batch;
         protected BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer;
+        // when false, failures are reported by the caller, e.g. after the batch is split to isolate the failing rows
+        protected boolean reportErrors = true;
+        // the statistics of the last execution, added to the collector only once its transaction is committed,
+        // so that the executions rolled back before a retry or a split are not counted
+        protected final List<QueryStatistics> uncommittedStatistics = new ArrayList<>();
 
         ExecuteBatch(
                 TerminationGuard terminationGuard,
@@ -405,6 +442,28 @@ public class Periodic {
             this.consumer = consumer;
         }
 
+        /**
+         * @return the same operation, executed over a subset of the batch
+         */
+        abstract ExecuteBatch withBatch(List<Map<String, Object>> subBatch);
+
+        ExecuteBatch withoutErrorReporting() {
+            this.reportErrors = false;
+            return this;
+        }
+
+        public List<Map<String, Object>> getBatch() {
+            return batch;
+        }
+
+        /**
+         * Called once the transaction of the last execution has been committed
+         */
+        void committed() {
+            uncommittedStatistics.forEach(collector::updateStatistics);
+            uncommittedStatistics.clear();
+        }
+
         public void release() {
             terminationGuard = null;
             collector = null;
@@ -425,9 +484,24 @@ public class Periodic {
 
         @Override
         public final Long apply(Transaction txInThread) {
+            uncommittedStatistics.clear();
             if (Util.transactionIsTerminated(terminationGuard)) return 0L;
             Map<String, Object> params = Util.map("_count", collector.getCount(), "_batch", batch);
-            return executeAndReportErrors(txInThread, consumer, params, batch, batch.size(), null, collector);
+            return executeAndReportErrors(
+                    txInThread,
+                    consumer,
+                    params,
+                    batch,
+                    batch.size(),
+                    null,
+                    collector,
+                    uncommittedStatistics,
+                    reportErrors);
+        }
+
+        @Override
+        ExecuteBatch withBatch(List<Map<String, Object>> subBatch) {
+            return new ListExecuteBatch(terminationGuard, collector, subBatch, consumer).withoutErrorReporting();
         }
     }
 
@@ -443,6 +517,7 @@ public class Periodic {
 
         @Override
         public final Long apply(Transaction txInThread) {
+            uncommittedStatistics.clear();
             if (Util.transactionIsTerminated(terminationGuard)) return 0L;
             AtomicLong localCount = new AtomicLong(collector.getCount());
             return batch.stream()
@@ -451,10 +526,24 @@ public class Periodic {
                             return 0;
                         }
                         Map<String, Object> params = merge(p, Util.map("_count", localCount.get(), "_batch", batch));
-                        return executeAndReportErrors(txInThread, consumer, params, batch, 1, localCount, collector);
+                        return executeAndReportErrors(
+                                txInThread,
+                                consumer,
+                                params,
+                                batch,
+                                1,
+                                localCount,
+                                collector,
+                                uncommittedStatistics,
+                                reportErrors);
                     })
                     .sum();
         }
+
+        @Override
+        ExecuteBatch withBatch(List<Map<String, Object>> subBatch) {
+            return new OneByOneExecuteBatch(terminationGuard, collector, subBatch, consumer).withoutErrorReporting();
+        }
     }
 
     private static long executeAndReportErrors(
@@ -464,15 +553,18 @@ public class Periodic {
             List<Map<String, Object>> batch,
             int returnValue,
             AtomicLong localCount,
-            BatchAndTotalCollector collector) {
+            BatchAndTotalCollector collector,
+            List<QueryStatistics> uncommittedStatistics,
+            boolean reportErrors) {
         try {
             QueryStatistics statistics = consumer.apply(tx, params);
             if (localCount != null) {
                 localCount.getAndIncrement();
             }
-            collector.updateStatistics(statistics);
+            uncommittedStatistics.add(statistics);
             return returnValue;
         } catch (Exception e) {
+            if (!reportErrors) throw e;
             collector.incrementFailedOps(batch.size());
             collector.amendFailedParamsMap(batch);
             recordError(collector.getOperationErrors(), e);
@@ -29,8 +29,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import java.util.function.ToLongFunction;
 import java.util.regex.Pattern;
@@ -100,63 +100,147 @@ public class PeriodicUtils {
             int concurrency,
             int failedParams,
             String periodicId) {
+        return iterateAndExecuteBatchedInSeparateThread(
+                db,
+                terminationGuard,
+                log,
+                pools,
+                AdaptiveBatchController.fixed(batchsize, concurrency),
+                null,
+                parallel,
+                iterateList,
+                BatchRetryPolicy.of(retries),
+                null,
+                iterator,
+                consumer,
+                failedParams,
+                periodicId);
+    }
 
-        ExecutorService pool = parallel ? pools.getDefaultExecutorService() : pools.getSingleExecutorService();
-        List<Future<Long>> futures = new ArrayList<>(concurrency);
-        BatchAndTotalCollector collector = new BatchAndTotalCollector(terminationGuard, failedParams);
-        AtomicInteger activeFutures = new AtomicInteger(0);
+    public static Stream<BatchAndTotalResult> iterateAndExecuteBatchedInSeparateThread(
+            GraphDatabaseService db,
+            TerminationGuard terminationGuard,
+            Log log,
+            Pools pools,
+            AdaptiveBatchController controller,
+            RowPartitioner partitioner,
+            boolean parallel,
+            boolean iterateList,
+            BatchRetryPolicy retryPolicy,
+            IterateCheckpoint checkpoint,
+            Iterator<Map<String, Object>> iterator,
+            BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer,
+            int failedParams,
+            String periodicId) {
 
-        do {
-            if (Util.transactionIsTerminated(terminationGuard)) break;
+        BatchAndTotalCollector collector;
+        // the dead letter sink is flushed and closed even if the iteration fails
+        try (retryPolicy) {
+            ExecutorService pool = parallel ? pools.getDefaultExecutorService() : pools.getSingleExecutorService();
+            // each partition gets its own sequential transaction stream, running on the shared pool
+            ExecutorService[] partitionPools =
+                    partitioner == null ? null : new ExecutorService[partitioner.partitions()];
+            if (partitionPools != null) {
+                for (int i = 0; i < partitionPools.length; i++) {
+                    partitionPools[i] = new SerialExecutorService(pool);
+                }
+            }
+            List<Future<Long>> futures = new ArrayList<>(controller.getConcurrency());
+            collector = new BatchAndTotalCollector(terminationGuard, failedParams);
+            // the single thread executor already serializes the batches of a sequential iterate, but an adaptive
+            // batch size must wait for the feedback of the previous batch before taking the next one
+            boolean gated = parallel || controller.isAdaptive();
+
+            do {
+                if (Util.transactionIsTerminated(terminationGuard)) break;
 
-            if (activeFutures.get() < concurrency || !parallel) {
-                // we have capacity, add a new Future to the list
-                activeFutures.incrementAndGet();
+                // wait for an in-flight batch to complete before submitting a new one
+                if (gated && !controller.acquire(terminationGuard)) break;
 
+                int batchsize = controller.getBatchSize();
                 if (log.isDebugEnabled())
-                    log.debug("Execute, in periodic iteration with id %s, no %d batch size ", periodicId, batchsize);
-                List<Map<String, Object>> batch = Util.take(iterator, batchsize);
+                    log.debug(
+                            "Execute, in periodic iteration with id %s, no %d batch size with concurrency %d",
+                            periodicId, batchsize, controller.getConcurrency());
+                List<Map<String, Object>> batch;
+                ExecutorService batchPool;
+                if (partitioner == null) {
+                    batch = Util.take(iterator, batchsize);
+                    batchPool = pool;
+                } else {
+                    Pair<Integer, List<Map<String, Object>>> partitioned = partitioner.nextBatch(iterator, batchsize);
+                    if (partitioned == null) {
+                        if (gated) controller.release();
+                        break;
+                    }
+                    batch = partitioned.other();
+                    batchPool = partitionPools[partitioned.first()];
+                }
                 final long currentBatchSize = batch.size();
+                final long sequence = checkpoint == null ? -1 : checkpoint.nextBatch();
+                final Object lastCursor = checkpoint == null ? null : checkpoint.cursorOf(batch);
                 Periodic.ExecuteBatch executeBatch = iterateList
                         ? new Periodic.ListExecuteBatch(terminationGuard, collector, batch, consumer)
                         : new Periodic.OneByOneExecuteBatch(terminationGuard, collector, batch, consumer);
 
-                futures.add(Util.inTxFuture(
-                        log,
-                        pool,
-                        db,
-                        executeBatch,
-                        retries,
-                        retryCount -> collector.incrementRetried(),
-                        onComplete -> {
-                            collector.incrementBatches();
-                            executeBatch.release();
-                            activeFutures.decrementAndGet();
-                        }));
+                final AtomicLong batchRetries = new AtomicLong();
+                final AtomicBoolean rowsDropped = new AtomicBoolean();
+                futures.add(batchPool.submit(() -> {
+                    // the time spent in the queue of the executor is not part of the latency of the batch
+                    final long started = System.nanoTime();
+                    try {
+                        long committed = retryPolicy.execute(
+                                log,
+                                db,
+                                executeBatch,
+                                retryCount -> {
+                                    collector.incrementRetried();
+                                    batchRetries.incrementAndGet();
+                                },
+                                collector,
+                                rowsDropped);
+                        // a terminated batch skips its execution, and the failed rows that are not in the dead letter
+                        // sink would be lost on resume, so neither must move the checkpoint
+                        if (checkpoint != null
+                                && !rowsDropped.get()
+                                && !Util.transactionIsTerminated(terminationGuard)) {
+                            checkpoint.batchCommitted(sequence, currentBatchSize, lastCursor);
+                        }
+                        return committed;
+                    } finally {
+                        collector.incrementBatches();
+                        executeBatch.release();
+                        controller.batchCompleted(currentBatchSize, System.nanoTime() - started, batchRetries.get());
+                        if (gated) controller.release();
+                    }
+                }));
                 collector.incrementCount(currentBatchSize);
                 if (log.isDebugEnabled()) {
                     log.debug(
                             "Processed in periodic iteration with id %s, %d iterations of %d total",
                             periodicId, batchsize, collector.getCount());
                 }
-            } else {
-                // we can't block until the counter decrease as we might miss a cancellation, so
-                // let this thread be preempted for a bit before we check for cancellation or
-                // capacity.
-                LockSupport.parkNanos(1000);
-            }
-        } while (iterator.hasNext());
+            } while (iterator.hasNext() || (partitioner != null && partitioner.hasPending()));
 
-        boolean wasTerminated = Util.transactionIsTerminated(terminationGuard);
-        ToLongFunction<Future<Long>> toLongFunction = wasTerminated
-                ? f -> Util.getFutureOrCancel(f, collector.getBatchErrors(), collector.getFailedBatches(), 0L)
-                : f -> Util.getFuture(f, collector.getBatchErrors(), collector.getFailedBatches(), 0L);
-        collector.incrementSuccesses(futures.stream().mapToLong(toLongFunction).sum());
+            boolean wasTerminated = Util.transactionIsTerminated(terminationGuard);
+            ToLongFunction<Future<Long>> toLongFunction = wasTerminated
+                    ? f -> Util.getFutureOrCancel(f, collector.getBatchErrors(), collector.getFailedBatches(), 0L)
+                    : f -> Util.getFuture(f, collector.getBatchErrors(), collector.getFailedBatches(), 0L);
+            collector.incrementSuccesses(futures.stream().mapToLong(toLongFunction).sum());
+            if (checkpoint != null) {
+                checkpoint.finish(wasTerminated);
+            }
+        }
 
         Util.logErrors("Error during iterate.commit:", collector.getBatchErrors(), log);
         Util.logErrors("Error during iterate.execute:", collector.getOperationErrors(), log);
         if (log.isDebugEnabled()) {
             log.debug("Terminated periodic iteration with id %s with %d executions", periodicId, collector.getCount());
+            if (controller.isAdaptive()) {
+                log.debug(
+                        "Periodic iteration with id %s ended with batch size %d and concurrency %d",
+                        periodicId, controller.getBatchSize(), controller.getConcurrency());
+            }
         }
         return Stream.of(collector.getResult());
     }
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.periodic;
+
+import apoc.util.Util;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * How long to wait before retrying a failed batch of `apoc.periodic.iterate`
+ */
+public enum RetryBackoff {
+    FIXED {
+        @Override
+        long delay(long retry, long initialDelay, long maxDelay) {
+            return Math.min(initialDelay, maxDelay);
+        }
+    },
+    EXPONENTIAL {
+        @Override
+        long delay(long retry, long initialDelay, long maxDelay) {
+            // cap the shift to avoid overflows with many retries
+            int shift = (int) Math.min(retry, 30);
+            return initialDelay > (maxDelay >> shift) ? maxDelay : initialDelay << shift;
+        }
+    },
+    // "full jitter", spreads the retries of concurrently failing batches, e.g. after a deadlock between them
+    JITTER {
+        @Override
+        long delay(long retry, long initialDelay, long maxDelay) {
+            long upperBound = EXPONENTIAL.delay(retry, initialDelay, maxDelay);
+            return upperBound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(upperBound + 1);
+        }
+    };
+
+    public static final long DEFAULT_DELAY = 100;
+    public static final long DEFAULT_MAX_DELAY = 10000;
+
+    abstract long delay(long retry, long initialDelay, long maxDelay);
+
+    public LongUnaryOperator toRetryDelay(long initialDelay, long maxDelay) {
+        return retry -> delay(retry, initialDelay, maxDelay);
+    }
+
+    public static LongUnaryOperator fromConfig(Map<String, Object> config) {
+        RetryBackoff backoff = RetryBackoff.valueOf(
+                config.getOrDefault("backoff", FIXED.name()).toString().toUpperCase());
+        long initialDelay = Util.toLong(config.getOrDefault("backoffDelay", DEFAULT_DELAY));
+        long maxDelay = Util.toLong(config.getOrDefault("maxBackoffDelay", DEFAULT_MAX_DELAY));
+        if (initialDelay < 0 || maxDelay < 0) {
+            throw new IllegalArgumentException("backoffDelay and maxBackoffDelay parameters must be >= 0");
+        }
+        return backoff.toRetryDelay(initialDelay, maxDelay);
+    }
+}
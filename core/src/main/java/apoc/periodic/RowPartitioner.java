@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.periodic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.internal.helpers.collection.Pair;
+
+/**
+ * Hashes the rows of an `apoc.periodic.iterate` into a fixed number of partitions,
+ * by the values of the `partitionBy` columns, and groups them in per-partition batches.
+ * Rows with the same key always end up in the same partition, so that, when each partition is executed
+ * by its own transaction stream, they never compete for the same locks.
+ */
+public class RowPartitioner {
+    private final List<String> keys;
+    private final List<List<Map<String, Object>>> buffers;
+
+    public RowPartitioner(List<String> keys, int partitions) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("partitionBy parameter must contain at least one column");
+        }
+        this.keys = keys;
+        this.buffers = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            buffers.add(new ArrayList<>());
+        }
+    }
+
+    public static List<String> keysFromConfig(Object partitionBy) {
+        if (partitionBy == null) return Collections.emptyList();
+        if (partitionBy instanceof Collection) {
+            return ((Collection<?>) partitionBy).stream().map(String::valueOf).collect(Collectors.toList());
+        }
+        return List.of(partitionBy.toString());
+    }
+
+    public void validate(List<String> columns) {
+        List<String> missing = keys.stream().filter(k -> !columns.contains(k)).collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException(String.format(
+                    "The partitionBy columns %s are not returned by the iterate statement, available columns are %s",
+                    missing, columns));
+        }
+    }
+
+    public int partitions() {
+        return buffers.size();
+    }
+
+    public int partitionOf(Map<String, Object> row) {
+        int hash = 1;
+        for (String key : keys) {
+            hash = 31 * hash + hashOf(row.get(key));
+        }
+        return Math.floorMod(hash, buffers.size());
+    }
+
+    private static int hashOf(Object value) {
+        if (value instanceof Entity) {
+            // nodes and relationships are hashed by id, so that the same entity always yields the same partition
+            return Long.hashCode(((Entity) value).getId());
+        }
+        if (value instanceof Collection) {
+            int hash = 1;
+            for (Object item : (Collection<?>) value) {
+                hash = 31 * hash + hashOf(item);
+            }
+            return hash;
+        }
+        return Objects.hashCode(value);
+    }
+
+    /**
+     * Consumes rows from the iterator until one of the partitions reaches the batch size
+     * or, once the iterator is exhausted, returns the remaining rows one partition at a time.
+     *
+     * @return the partition and its batch, or null if there are no more rows
+     */
+    public Pair<Integer, List<Map<String, Object>>> nextBatch(Iterator<Map<String, Object>> iterator, int batchSize) {
+        while (iterator.hasNext()) {
+            Map<String, Object> row = iterator.next();
+            int partition = partitionOf(row);
+            List<Map<String, Object>> buffer = buffers.get(partition);
+            buffer.add(row);
+            if (buffer.size() >= batchSize) {
+                return flush(partition);
+            }
+        }
+        for (int partition = 0; partition < buffers.size(); partition++) {
+            if (!buffers.get(partition).isEmpty()) {
+                return flush(partition);
+            }
+        }
+        return null;
+    }
+
+    public boolean hasPending() {
+        return buffers.stream().anyMatch(buffer -> !buffer.isEmpty());
+    }
+
+    private Pair<Integer, List<Map<String, Object>>> flush(int partition) {
+        List<Map<String, Object>> batch = buffers.get(partition);
+        buffers.set(partition, new ArrayList<>());
+        return Pair.of(partition, batch);
+    }
+}
@@ -27,8 +27,10 @@ import apoc.util.kernel.MultiThreadedGlobalGraphOperations;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 import org.HdrHistogram.AtomicHistogram;
+import org.eclipse.collections.impl.map.mutable.primitive.LongLongHashMap;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.internal.helpers.collection.Pair;
@@ -79,6 +81,10 @@ public class DegreeDistribution {
             this.histogram = new AtomicHistogram(total, 3);
         }
 
+        Direction getDirection() {
+            return direction;
+        }
+
         public void record(long value) {
             histogram.recordValue(value);
         }
@@ -112,10 +118,24 @@ public class DegreeDistribution {
     @Context
     public Pools pools;
 
+    @Context
+    public DegreeHistograms degreeHistograms;
+
     @Procedure
     public Stream<DegreeStats.Result> degrees(@Name(value = "types", defaultValue = "") String types) {
         List<DegreeStats> stats = prepareStats(types);
 
+        // the maintained histograms don't include the changes of the current transaction
+        if (degreeHistograms != null
+                && degreeHistograms.isEnabled()
+                && !tx.dataRead().transactionStateHasChanges()) {
+            Map<DegreeHistograms.Key, LongLongHashMap> histograms = degreeHistograms.snapshot(stats, pools);
+            long nodeCount = tx.dataRead().countsForNode(ANY_LABEL);
+            return stats.stream()
+                    .map(s -> DegreeHistograms.result(
+                            s, histograms.get(new DegreeHistograms.Key(s.typeName, s.direction)), nodeCount));
+        }
+
         MultiThreadedGlobalGraphOperations.forAllNodes(
                 db,
                 pools.getDefaultExecutorService(),
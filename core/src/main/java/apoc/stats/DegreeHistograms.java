@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.stats;
+
+import static apoc.ApocConfig.apocConfig;
+import static org.neo4j.internal.kernel.api.TokenRead.ANY_RELATIONSHIP_TYPE;
+
+import apoc.Pools;
+import apoc.util.kernel.MultiThreadedGlobalGraphOperations;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.collections.api.list.primitive.MutableLongList;
+import org.eclipse.collections.impl.map.mutable.primitive.LongLongHashMap;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListener;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.token.api.NamedToken;
+
+/**
+ * Maintains the degree histograms returned by `apoc.stats.degrees`, for each relationship type and direction,
+ * from the relationships created and deleted by the committed transactions,
+ * so that the procedure doesn't have to scan all the nodes on each call.
+ *
+ * The histograms are built by a full scan on the first call, and again if a transaction couldn't be tracked,
+ * a single scan at a time being shared by the concurrent calls.
+ * Only the non zero degrees are kept, the number of nodes with degree 0 is derived from the node count.
+ * The degrees of each node are read while its transaction commits, so concurrent transactions changing
+ * the relationships of the same dense node, which don't lock it exclusively, can make its degree slightly off.
+ *
+ * Enabled with `apoc.stats.degrees.maintained=true` in apoc.conf, as it adds a transaction event listener.
+ */
+public class DegreeHistograms extends LifecycleAdapter
+        implements TransactionEventListener<Map<DegreeHistograms.Key, LongLongHashMap>> {
+    public static final String APOC_STATS_DEGREES_MAINTAINED = "apoc.stats.degrees.maintained";
+    private static final int BATCHSIZE = 10_000;
+    private static final Direction[] DIRECTIONS = {Direction.OUTGOING, Direction.INCOMING, Direction.BOTH};
+
+    private final GraphDatabaseAPI db;
+    private final DatabaseManagementService databaseManagementService;
+    private final Log log;
+
+    // guarded by `this`, the count of nodes by non zero degree, for each type and direction
+    private final Map<Key, LongLongHashMap> histograms = new HashMap<>();
+    private boolean ready;
+    private long version;
+    // the rebuild in progress, if any
+    private CompletableFuture<Map<Key, LongLongHashMap>> rebuilding;
+
+    private volatile boolean enabled;
+
+    public DegreeHistograms(GraphDatabaseAPI db, DatabaseManagementService databaseManagementService, Log log) {
+        this.db = db;
+        this.databaseManagementService = databaseManagementService;
+        this.log = log;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * A relationship type, or null for all of them, and a direction
+     */
+    static class Key {
+        private final String type;
+        private final Direction direction;
+
+        Key(String type, Direction direction) {
+            this.type = type;
+            this.direction = direction;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(type, key.type) && direction == key.direction;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, direction);
+        }
+    }
+
+    /**
+     * @return the maintained histograms of the given stats, built by a full scan if needed.
+     * If the histograms changed while being built, they are not maintained, but the scan is returned anyway,
+     * as it's what a call without the maintained histograms would have returned.
+     */
+    Map<Key, LongLongHashMap> snapshot(List<DegreeDistribution.DegreeStats> stats, Pools pools) {
+        CompletableFuture<Map<Key, LongLongHashMap>> rebuild;
+        boolean owner = false;
+        synchronized (this) {
+            if (ready) {
+                return select(histograms, stats);
+            }
+            // a single rebuild at a time, the concurrent calls wait for its scan
+            if (rebuilding == null) {
+                rebuilding = new CompletableFuture<>();
+                owner = true;
+            }
+            rebuild = rebuilding;
+        }
+        if (owner) {
+            try {
+                rebuild.complete(rebuild(pools));
+            } catch (Throwable t) {
+                rebuild.completeExceptionally(t);
+            } finally {
+                synchronized (this) {
+                    rebuilding = null;
+                }
+            }
+        }
+        try {
+            return select(rebuild.join(), stats);
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private static Map<Key, LongLongHashMap> select(
+            Map<Key, LongLongHashMap> histograms, List<DegreeDistribution.DegreeStats> stats) {
+        Map<Key, LongLongHashMap> snapshot = new HashMap<>();
+        for (DegreeDistribution.DegreeStats stat : stats) {
+            Key key = new Key(stat.typeName, stat.getDirection());
+            LongLongHashMap histogram = histograms.get(key);
+            snapshot.put(key, histogram == null ? new LongLongHashMap() : new LongLongHashMap(histogram));
+        }
+        return snapshot;
+    }
+
+    private synchronized boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return the histograms of a full scan, which are maintained from now on if no relationship changed meanwhile
+     */
+    private Map<Key, LongLongHashMap> rebuild(Pools pools) {
+        long startVersion;
+        synchronized (this) {
+            startVersion = version;
+        }
+        List<Key> keys = new ArrayList<>();
+        List<Integer> typeIds = new ArrayList<>();
+        try (Transaction tx = db.beginTx()) {
+            TokenRead tokenRead = ((InternalTransaction) tx).kernelTransaction().tokenRead();
+            Iterator<NamedToken> tokens = tokenRead.relationshipTypesGetAllTokens();
+            while (tokens.hasNext()) {
+                NamedToken token = tokens.next();
+                for (Direction direction : DIRECTIONS) {
+                    keys.add(new Key(token.name(), direction));
+                    typeIds.add(token.id());
+                }
+            }
+            tx.commit();
+        }
+        for (Direction direction : DIRECTIONS) {
+            keys.add(new Key(null, direction));
+            typeIds.add(ANY_RELATIONSHIP_TYPE);
+        }
+        List<Map<Long, LongAdder>> counts = new ArrayList<>(keys.size());
+        keys.forEach(key -> counts.add(new ConcurrentHashMap<>()));
+
+        MultiThreadedGlobalGraphOperations.forAllNodes(
+                db, pools.getDefaultExecutorService(), BATCHSIZE, (ktx, nodeCursor) -> {
+                    for (int i = 0; i < keys.size(); i++) {
+                        int degree =
+                                DegreeUtil.degree(nodeCursor, ktx.cursors(), typeIds.get(i), keys.get(i).direction);
+                        if (degree > 0) {
+                            counts.get(i).computeIfAbsent((long) degree, d -> new LongAdder()).increment();
+                        }
+                    }
+                });
+
+        Map<Key, LongLongHashMap> scanned = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            LongLongHashMap histogram = new LongLongHashMap();
+            counts.get(i).forEach((degree, count) -> histogram.put(degree, count.sum()));
+            scanned.put(keys.get(i), histogram);
+        }
+        synchronized (this) {
+            if (version != startVersion) {
+                log.info(
+                        "Degree histograms of database %s changed while being built, they will be built again",
+                        db.databaseName());
+                return scanned;
+            }
+            histograms.clear();
+            scanned.forEach((key, histogram) -> histograms.put(key, new LongLongHashMap(histogram)));
+            ready = true;
+        }
+        return scanned;
+    }
+
+    /**
+     * @return the changes of the histograms, as count deltas by degree, or null if they can't be determined
+     */
+    @Override
+    public Map<Key, LongLongHashMap> beforeCommit(
+            TransactionData txData, Transaction transaction, GraphDatabaseService databaseService) {
+        Map<Key, LongLongHashMap> changes = new HashMap<>();
+        if (!isReady()) {
+            // only tracks that the relationships changed, in case the histograms are being built
+            boolean changed = txData.createdRelationships().iterator().hasNext()
+                    || txData.deletedRelationships().iterator().hasNext();
+            return changed ? null : changes;
+        }
+        try {
+            // the degree deltas of the nodes at the ends of the created and deleted relationships
+            Map<Node, Map<Key, Integer>> deltas = new HashMap<>();
+            for (Relationship rel : txData.createdRelationships()) {
+                addDeltas(deltas, rel, 1);
+            }
+            for (Relationship rel : txData.deletedRelationships()) {
+                addDeltas(deltas, rel, -1);
+            }
+            deltas.forEach((node, nodeDeltas) -> {
+                boolean deleted = txData.isDeleted(node);
+                nodeDeltas.forEach((key, delta) -> {
+                    if (delta == 0) return;
+                    long newDegree = deleted ? 0 : degree(node, key);
+                    long oldDegree = newDegree - delta;
+                    LongLongHashMap histogram = changes.computeIfAbsent(key, k -> new LongLongHashMap());
+                    if (oldDegree > 0) histogram.addToValue(oldDegree, -1);
+                    if (newDegree > 0) histogram.addToValue(newDegree, 1);
+                });
+            });
+        } catch (NotFoundException e) {
+            return null;
+        }
+        return changes;
+    }
+
+    private static void addDeltas(Map<Node, Map<Key, Integer>> deltas, Relationship rel, int delta) {
+        String type = rel.getType().name();
+        Node start = rel.getStartNode();
+        Node end = rel.getEndNode();
+        for (String t : new String[] {type, null}) {
+            addDelta(deltas, start, new Key(t, Direction.OUTGOING), delta);
+            addDelta(deltas, end, new Key(t, Direction.INCOMING), delta);
+            addDelta(deltas, start, new Key(t, Direction.BOTH), delta);
+            // a loop counts once in both directions
+            if (!start.equals(end)) {
+                addDelta(deltas, end, new Key(t, Direction.BOTH), delta);
+            }
+        }
+    }
+
+    private static void addDelta(Map<Node, Map<Key, Integer>> deltas, Node node, Key key, int delta) {
+        deltas.computeIfAbsent(node, n -> new HashMap<>()).merge(key, delta, Integer::sum);
+    }
+
+    private static long degree(Node node, Key key) {
+        return key.type == null
+                ? node.getDegree(key.direction)
+                : node.getDegree(RelationshipType.withName(key.type), key.direction);
+    }
+
+    @Override
+    public void afterCommit(
+            TransactionData txData, Map<Key, LongLongHashMap> changes, GraphDatabaseService databaseService) {
+        if (changes != null && changes.isEmpty()) return;
+        synchronized (this) {
+            version++;
+            if (!ready) return;
+            if (changes == null) {
+                invalidate();
+                return;
+            }
+            for (Map.Entry<Key, LongLongHashMap> entry : changes.entrySet()) {
+                LongLongHashMap histogram = histograms.computeIfAbsent(entry.getKey(), k -> new LongLongHashMap());
+                entry.getValue().forEachKeyValue((degree, delta) -> {
+                    long count = histogram.addToValue(degree, delta);
+                    if (count == 0) {
+                        histogram.remove(degree);
+                    } else if (count < 0) {
+                        // a concurrent change of a dense node was missed
+                        ready = false;
+                    }
+                });
+            }
+            if (!ready) {
+                invalidate();
+            }
+        }
+    }
+
+    @Override
+    public void afterRollback(
+            TransactionData txData, Map<Key, LongLongHashMap> changes, GraphDatabaseService databaseService) {}
+
+    private void invalidate() {
+        ready = false;
+        histograms.clear();
+    }
+
+    /**
+     * Computes the stats like the histograms of a scan, the nodes missing in the histogram have degree 0
+     */
+    static DegreeDistribution.DegreeStats.Result result(
+            DegreeDistribution.DegreeStats stats, LongLongHashMap histogram, long nodeCount) {
+        MutableLongList degrees = histogram.keysView().toSortedList();
+        long nonZero = histogram.sum();
+        long zeros = Math.max(0, nodeCount - nonZero);
+        long totalCount = zeros + nonZero;
+
+        DegreeDistribution.DegreeStats.Result result = new DegreeDistribution.DegreeStats.Result();
+        result.type = stats.typeName;
+        result.direction = stats.getDirection().name();
+        result.total = stats.total;
+        result.min = zeros > 0 || degrees.isEmpty() ? 0 : degrees.getFirst();
+        result.max = degrees.isEmpty() ? 0 : degrees.getLast();
+        long sum = 0;
+        for (int i = 0; i < degrees.size(); i++) {
+            sum += degrees.get(i) * histogram.get(degrees.get(i));
+        }
+        result.mean = totalCount == 0 ? 0 : (double) sum / totalCount;
+        result.p50 = percentile(degrees, histogram, zeros, totalCount, 50);
+        result.p75 = percentile(degrees, histogram, zeros, totalCount, 75);
+        result.p90 = percentile(degrees, histogram, zeros, totalCount, 90);
+        result.p95 = percentile(degrees, histogram, zeros, totalCount, 95);
+        result.p99 = percentile(degrees, histogram, zeros, totalCount, 99);
+        result.p999 = percentile(degrees, histogram, zeros, totalCount, 99.9);
+        return result;
+    }
+
+    // the same rank as HdrHistogram#getValueAtPercentile
+    private static long percentile(
+            MutableLongList degrees, LongLongHashMap histogram, long zeros, long totalCount, double percentile) {
+        if (totalCount == 0) return 0;
+        long countAtPercentile = Math.max(1, (long) (percentile / 100 * totalCount + 0.5));
+        long cumulative = zeros;
+        if (cumulative >= countAtPercentile) return 0;
+        for (int i = 0; i < degrees.size(); i++) {
+            cumulative += histogram.get(degrees.get(i));
+            if (cumulative >= countAtPercentile) {
+                return degrees.get(i);
+            }
+        }
+        return degrees.isEmpty() ? 0 : degrees.getLast();
+    }
+
+    @Override
+    public void start() {
+        enabled = apocConfig().getBoolean(APOC_STATS_DEGREES_MAINTAINED, false);
+        if (enabled) {
+            databaseManagementService.registerTransactionEventListener(db.databaseName(), this);
+            log.info("Maintained degree histograms enabled for database %s", db.databaseName());
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (enabled) {
+            enabled = false;
+            databaseManagementService.unregisterTransactionEventListener(db.databaseName(), this);
+        }
+        synchronized (this) {
+            invalidate();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.trigger;
+
+import static apoc.ApocConfig.apocConfig;
+
+import apoc.util.QueueUtil;
+import apoc.util.Util;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.neo4j.logging.Log;
+
+/**
+ * Coalesces the `afterAsync` trigger executions of many commits into a single batched execution,
+ * enabled via `apoc.trigger.afterAsync.batch.enabled=true`.
+ *
+ * Every commit is queued, and a single consumer thread takes the queued commits either until the batch is full
+ * (`apoc.trigger.afterAsync.batch.size`) or until the oldest one has waited for `apoc.trigger.afterAsync.batch.window` ms.
+ * The batches are executed one after the other, in commit order.
+ * When the queue is full (`apoc.trigger.afterAsync.queue.capacity`), the `apoc.trigger.afterAsync.queue.overflow` policy applies.
+ */
+public class AsyncTriggerQueue {
+    public static final String BATCH_ENABLED = "apoc.trigger.afterAsync.batch.enabled";
+    public static final String BATCH_SIZE = "apoc.trigger.afterAsync.batch.size";
+    public static final String BATCH_WINDOW = "apoc.trigger.afterAsync.batch.window";
+    public static final String QUEUE_CAPACITY = "apoc.trigger.afterAsync.queue.capacity";
+    public static final String QUEUE_OVERFLOW = "apoc.trigger.afterAsync.queue.overflow";
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_BATCH_WINDOW = 100;
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    private static final long STOP_TIMEOUT_MILLIS = 10000;
+
+    public enum OverflowPolicy {
+        // the committing thread waits until there is room in the queue, slowing down the writes
+        BLOCK,
+        // the commit that doesn't fit is not passed to the triggers
+        DROP_NEWEST,
+        // the oldest queued commit is discarded to make room for the new one
+        DROP_OLDEST
+    }
+
+    static class Entry {
+        final TriggerMetadata metadata;
+        final TriggerSelector.Changes changes;
+        final long enqueuedAt = System.currentTimeMillis();
+
+        Entry(TriggerMetadata metadata, TriggerSelector.Changes changes) {
+            this.metadata = metadata;
+            this.changes = changes;
+        }
+    }
+
+    private final BlockingQueue<Entry> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final long windowMillis;
+    private final OverflowPolicy overflow;
+    private final Consumer<List<Entry>> executeBatch;
+    private final Log log;
+    private final Thread consumer;
+    private volatile boolean running = true;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong executedCommits = new AtomicLong();
+    private volatile long lastBatchSize;
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+
+    AsyncTriggerQueue(
+            int capacity,
+            int batchSize,
+            long windowMillis,
+            OverflowPolicy overflow,
+            Consumer<List<Entry>> executeBatch,
+            Log log,
+            String databaseName) {
+        if (capacity <= 0 || batchSize <= 0 || windowMillis < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "%s and %s must be > 0, and %s must be >= 0", QUEUE_CAPACITY, BATCH_SIZE, BATCH_WINDOW));
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.windowMillis = windowMillis;
+        this.overflow = overflow;
+        this.executeBatch = executeBatch;
+        this.log = log;
+        this.consumer = Util.newDaemonThread(this::consume);
+        this.consumer.setName("apoc-trigger-afterAsync-" + databaseName);
+    }
+
+    /**
+     * @return the queue configured in apoc.conf, or null if the batched mode is not enabled
+     */
+    static AsyncTriggerQueue fromConfig(Consumer<List<Entry>> executeBatch, Log log, String databaseName) {
+        if (!apocConfig().getBoolean(BATCH_ENABLED, false)) {
+            return null;
+        }
+        OverflowPolicy overflow = OverflowPolicy.valueOf(apocConfig()
+                .getString(QUEUE_OVERFLOW, OverflowPolicy.BLOCK.name())
+                .toUpperCase());
+        return new AsyncTriggerQueue(
+                apocConfig().getInt(QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY),
+                apocConfig().getInt(BATCH_SIZE, DEFAULT_BATCH_SIZE),
+                apocConfig().getInt(BATCH_WINDOW, DEFAULT_BATCH_WINDOW),
+                overflow,
+                executeBatch,
+                log,
+                databaseName);
+    }
+
+    void start() {
+        consumer.start();
+    }
+
+    void offer(TriggerMetadata metadata, TriggerSelector.Changes changes) {
+        Entry entry = new Entry(metadata, changes);
+        boolean added;
+        try {
+            switch (overflow) {
+                case DROP_NEWEST:
+                    added = queue.offer(entry);
+                    break;
+                case DROP_OLDEST:
+                    while (!(added = queue.offer(entry))) {
+                        if (queue.poll() != null) {
+                            dropped.incrementAndGet();
+                        }
+                    }
+                    break;
+                default:
+                    added = false;
+                    while (running && !(added = queue.offer(entry, QueueUtil.WAIT, QueueUtil.WAIT_UNIT))) {
+                        // wait for the consumer to make room
+                    }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            added = false;
+        }
+        if (added) {
+            enqueued.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void consume() {
+        List<Entry> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(QueueUtil.WAIT, QueueUtil.WAIT_UNIT);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = first.enqueuedAt + windowMillis;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || wait <= 0 || !running) break;
+                    Entry next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                execute(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void execute(List<Entry> batch) {
+        long lag = System.currentTimeMillis() - batch.get(0).enqueuedAt;
+        lastLagMillis = lag;
+        maxLagMillis = Math.max(maxLagMillis, lag);
+        lastBatchSize = batch.size();
+        try {
+            executeBatch.accept(batch);
+            executedCommits.addAndGet(batch.size());
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            log.warn("Error executing the afterAsync triggers for a batch of " + batch.size() + " transactions", e);
+        }
+        batches.incrementAndGet();
+    }
+
+    /**
+     * Stops accepting commits and waits for the queued ones to be executed, for a limited time
+     */
+    void stop() {
+        running = false;
+        try {
+            consumer.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (consumer.isAlive()) {
+            consumer.interrupt();
+        }
+        int discarded = queue.size();
+        queue.clear();
+        if (discarded > 0) {
+            dropped.addAndGet(discarded);
+            log.warn("Discarded " + discarded + " transactions queued for the afterAsync triggers on shutdown");
+        }
+    }
+
+    Map<String, Object> stats() {
+        Entry oldest = queue.peek();
+        return Util.map(
+                "batchEnabled", true,
+                "queueDepth", queue.size(),
+                "queueCapacity", capacity,
+                "overflow", overflow.name(),
+                "batchSize", batchSize,
+                "batchWindow", windowMillis,
+                "enqueued", enqueued.get(),
+                "dropped", dropped.get(),
+                "batches", batches.get(),
+                "failedBatches", failedBatches.get(),
+                "executedTransactions", executedCommits.get(),
+                "lastBatchSize", lastBatchSize,
+                "lastLagMillis", lastLagMillis,
+                "maxLagMillis", maxLagMillis,
+                "currentLagMillis", oldest == null ? 0L : System.currentTimeMillis() - oldest.enqueuedAt);
+    }
+}
@@ -18,6 +18,7 @@
  */
 package apoc.trigger;
 
+import apoc.result.MapResult;
 import apoc.util.Util;
 import java.util.Collections;
 import java.util.Map;
@@ -187,4 +188,12 @@ public class Trigger {
                 true,
                 false));
     }
+
+    @Admin
+    @Procedure(mode = Mode.READ)
+    @Description(
+            "CALL apoc.trigger.queueStats() - returns the depth, the lag and the counters of the queue batching the afterAsync triggers of the current database")
+    public Stream<MapResult> queueStats() {
+        return Stream.of(new MapResult(triggerHandler.asyncQueueStats()));
+    }
 }
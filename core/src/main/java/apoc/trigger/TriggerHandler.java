@@ -26,8 +26,12 @@ import apoc.Pools;
 import apoc.SystemLabels;
 import apoc.SystemPropertyKeys;
 import apoc.util.Util;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
@@ -50,9 +54,9 @@ import org.neo4j.scheduler.Group;
 import org.neo4j.scheduler.JobHandle;
 import org.neo4j.scheduler.JobScheduler;
 
-public class TriggerHandler extends LifecycleAdapter implements TransactionEventListener<Void> {
+public class TriggerHandler extends LifecycleAdapter implements TransactionEventListener<TriggerSelector.Changes> {
 
-    private enum Phase {
+    enum Phase {
         before,
         after,
         rollback,
@@ -64,6 +68,9 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
     public static final String TRIGGER_REFRESH = "apoc.trigger.refresh";
 
     private final ConcurrentHashMap<String, Map<String, Object>> activeTriggers = new ConcurrentHashMap();
+    // the not paused triggers by phase, rebuilt on every cache update so that commits don't need to scan all of them
+    private volatile Map<Phase, List<CompiledTrigger>> triggersByPhase = Collections.emptyMap();
+    private volatile boolean hasFilters;
     private final Log log;
     private final GraphDatabaseService db;
     private final DatabaseManagementService databaseManagementService;
@@ -75,6 +82,9 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
 
     private JobHandle restoreTriggerHandler;
 
+    // not null if the afterAsync triggers are batched
+    private AsyncTriggerQueue asyncQueue;
+
     private final AtomicBoolean registeredWithKernel = new AtomicBoolean(false);
 
     public static final String NOT_ENABLED_ERROR = "Triggers have not been enabled."
@@ -128,9 +138,35 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
             return null;
         });
 
+        indexTriggers();
         reconcileKernelRegistration();
     }
 
+    private void indexTriggers() {
+        Map<Phase, List<CompiledTrigger>> byPhase = new EnumMap<>(Phase.class);
+        boolean filters = false;
+        for (Map.Entry<String, Map<String, Object>> entry : activeTriggers.entrySet()) {
+            Map<String, Object> data = entry.getValue();
+            if ((boolean) data.get("paused")) continue;
+            TriggerSelector selector;
+            try {
+                selector = TriggerSelector.from((Map<String, Object>) data.get("selector"));
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping trigger " + entry.getKey() + " with an invalid selector: " + e.getMessage());
+                continue;
+            }
+            filters |= selector.hasFilters();
+            byPhase.computeIfAbsent(selector.getPhase(), phase -> new ArrayList<>())
+                    .add(new CompiledTrigger(
+                            entry.getKey(),
+                            (String) data.get("statement"),
+                            (Map<String, Object>) data.get("params"),
+                            selector));
+        }
+        triggersByPhase = byPhase;
+        hasFilters = filters;
+    }
+
     /**
      * There is substantial memory overhead to the kernel event system, so if a user has enabled apoc triggers in
      * config, but there are no triggers set up, unregister to let the kernel bypass the event handling system.
@@ -160,6 +196,7 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
     public Map<String, Object> add(
             String name, String statement, Map<String, Object> selector, Map<String, Object> params) {
         checkEnabled();
+        TriggerSelector.from(selector);
         Map<String, Object> previous = activeTriggers.get(name);
 
         withSystemDb(tx -> {
@@ -237,15 +274,20 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
     }
 
     @Override
-    public Void beforeCommit(TransactionData txData, Transaction transaction, GraphDatabaseService databaseService) {
-        if (hasPhase(Phase.before)) {
-            executeTriggers(transaction, txData, Phase.before);
+    public TriggerSelector.Changes beforeCommit(
+            TransactionData txData, Transaction transaction, GraphDatabaseService databaseService) {
+        // the changes are collected only if some trigger filters on them, and reused by the after phases
+        TriggerSelector.Changes changes = hasFilters ? TriggerSelector.Changes.from(txData) : null;
+        List<CompiledTrigger> triggers = triggersFor(Phase.before, changes);
+        if (!triggers.isEmpty()) {
+            executeTriggers(transaction, TriggerMetadata.from(txData, false), triggers, Phase.before);
         }
-        return null;
+        return changes;
     }
 
     @Override
-    public void afterCommit(TransactionData txData, Void state, GraphDatabaseService databaseService) {
+    public void afterCommit(
+            TransactionData txData, TriggerSelector.Changes changes, GraphDatabaseService databaseService) {
         // if `txData.metaData()` is equal to TRIGGER_META,
         // it means that the transaction comes from another TriggerHandler transaction,
         // therefore the execution must be blocked to prevent a deadlock due to cascading transactions
@@ -253,14 +295,15 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
             return;
         }
 
-        if (hasPhase(Phase.after)) {
+        List<CompiledTrigger> triggers = triggersFor(Phase.after, changes);
+        if (!triggers.isEmpty()) {
             try (Transaction tx = db.beginTx()) {
                 setTriggerMetadata(tx);
-                executeTriggers(tx, txData, Phase.after);
+                executeTriggers(tx, TriggerMetadata.from(txData, false), triggers, Phase.after);
                 tx.commit();
             }
         }
-        afterAsync(txData);
+        afterAsync(txData, changes);
     }
 
     private static boolean isTransactionCreatedByTrigger(TransactionData txData) {
@@ -268,72 +311,105 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
         return metaData.equals(TRIGGER_META);
     }
 
-    private void afterAsync(TransactionData txData) {
-        if (hasPhase(Phase.afterAsync)) {
+    private void afterAsync(TransactionData txData, TriggerSelector.Changes changes) {
+        List<CompiledTrigger> triggers = triggersFor(Phase.afterAsync, changes);
+        if (triggers.isEmpty()) {
+            return;
+        }
+        if (asyncQueue != null) {
+            asyncQueue.offer(TriggerMetadata.from(txData, true), changes);
+        } else {
             TriggerMetadata triggerMetadata = TriggerMetadata.from(txData, true);
             Util.inTxFuture(pools.getDefaultExecutorService(), db, (inner) -> {
                 setTriggerMetadata(inner);
-                executeTriggers(inner, triggerMetadata.rebind(inner), Phase.afterAsync);
+                executeTriggers(inner, triggerMetadata.rebind(inner), triggers, Phase.afterAsync);
                 return null;
             });
         }
     }
 
+    private void executeBatch(List<AsyncTriggerQueue.Entry> batch) {
+        // a trigger is executed if it matches any of the transactions in the batch
+        TriggerSelector.Changes changes = TriggerSelector.Changes.union(
+                batch.stream().map(entry -> entry.changes).collect(Collectors.toList()));
+        List<CompiledTrigger> triggers = triggersFor(Phase.afterAsync, changes);
+        if (triggers.isEmpty()) {
+            return;
+        }
+        TriggerMetadata triggerMetadata = TriggerMetadata.merge(
+                batch.stream().map(entry -> entry.metadata).collect(Collectors.toList()));
+        try (Transaction tx = db.beginTx()) {
+            setTriggerMetadata(tx);
+            executeTriggers(tx, triggerMetadata.rebind(tx), triggers, Phase.afterAsync);
+            tx.commit();
+        }
+    }
+
+    public Map<String, Object> asyncQueueStats() {
+        checkEnabled();
+        return asyncQueue == null ? Map.of("batchEnabled", false) : asyncQueue.stats();
+    }
+
     private static void setTriggerMetadata(Transaction tx) {
         tx.execute("CALL tx.setMetaData($data)", Map.of("data", TRIGGER_META));
     }
 
     @Override
-    public void afterRollback(TransactionData txData, Void state, GraphDatabaseService databaseService) {
-        if (hasPhase(Phase.rollback)) {
+    public void afterRollback(
+            TransactionData txData, TriggerSelector.Changes changes, GraphDatabaseService databaseService) {
+        List<CompiledTrigger> triggers = triggersFor(Phase.rollback, changes);
+        if (!triggers.isEmpty()) {
             try (Transaction tx = db.beginTx()) {
-                executeTriggers(tx, txData, Phase.rollback);
+                executeTriggers(tx, TriggerMetadata.from(txData, false), triggers, Phase.rollback);
                 tx.commit();
             }
         }
     }
 
-    private boolean hasPhase(Phase phase) {
-        return activeTriggers.values().stream()
-                .map(data -> (Map<String, Object>) data.get("selector"))
-                .anyMatch(selector -> when(selector, phase));
-    }
-
-    private void executeTriggers(Transaction tx, TransactionData txData, Phase phase) {
-        executeTriggers(tx, TriggerMetadata.from(txData, false), phase);
+    /**
+     * @param changes the changes of the transaction, null if none of the triggers has filters
+     *                or if they could not be collected, in which case the filters are not checked
+     */
+    private List<CompiledTrigger> triggersFor(Phase phase, TriggerSelector.Changes changes) {
+        List<CompiledTrigger> triggers = triggersByPhase.getOrDefault(phase, Collections.emptyList());
+        if (changes == null || triggers.isEmpty()) {
+            return triggers;
+        }
+        return triggers.stream()
+                .filter(trigger -> trigger.selector.matches(changes))
+                .collect(Collectors.toList());
     }
 
-    private void executeTriggers(Transaction tx, TriggerMetadata triggerMetadata, Phase phase) {
+    private void executeTriggers(
+            Transaction tx, TriggerMetadata triggerMetadata, List<CompiledTrigger> triggers, Phase phase) {
+        // the metadata is converted once and shared, each trigger only adds its own params on top of it
+        Map<String, Object> txParams = triggerMetadata.toMap();
         Map<String, String> exceptions = new LinkedHashMap<>();
-        activeTriggers.forEach((name, data) -> {
-            Map<String, Object> params = triggerMetadata.toMap();
-            if (data.get("params") != null) {
-                params.putAll((Map<String, Object>) data.get("params"));
+        for (CompiledTrigger trigger : triggers) {
+            Map<String, Object> params = new HashMap<>(txParams);
+            if (trigger.params != null) {
+                params.putAll(trigger.params);
             }
-            Map<String, Object> selector = (Map<String, Object>) data.get("selector");
-            if ((!(boolean) data.get("paused")) && when(selector, phase)) {
-                try {
-                    params.put("trigger", name);
-                    Result result = tx.execute((String) data.get("statement"), params);
-                    Iterators.count(result);
-                } catch (Exception e) {
-                    log.warn("Error executing trigger " + name + " in phase " + phase, e);
-                    exceptions.put(name, e.getMessage());
-                }
+            params.put("trigger", trigger.name);
+            try {
+                Result result = tx.execute(trigger.statement, params);
+                Iterators.count(result);
+            } catch (Exception e) {
+                log.warn("Error executing trigger " + trigger.name + " in phase " + phase, e);
+                exceptions.put(trigger.name, e.getMessage());
             }
-        });
+        }
         if (!exceptions.isEmpty()) {
             throw new RuntimeException("Error executing triggers " + exceptions.toString());
         }
     }
 
-    private boolean when(Map<String, Object> selector, Phase phase) {
-        if (selector == null) return phase == Phase.before;
-        return Phase.valueOf(selector.getOrDefault("phase", "before").toString()) == phase;
-    }
-
     @Override
     public void start() throws Exception {
+        asyncQueue = AsyncTriggerQueue.fromConfig(this::executeBatch, log, db.databaseName());
+        if (asyncQueue != null) {
+            asyncQueue.start();
+        }
         updateCache();
         long refreshInterval = apocConfig().getInt(TRIGGER_REFRESH, 60000);
         restoreTriggerHandler = jobScheduler.scheduleRecurring(
@@ -356,6 +432,9 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
         if (restoreTriggerHandler != null) {
             restoreTriggerHandler.cancel();
         }
+        if (asyncQueue != null) {
+            asyncQueue.stop();
+        }
     }
 
     private <T> T withSystemDb(Function<Transaction, T> action) {
@@ -382,4 +461,18 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
         }
         node.setProperty(SystemPropertyKeys.lastUpdated.name(), System.currentTimeMillis());
     }
+
+    private static class CompiledTrigger {
+        private final String name;
+        private final String statement;
+        private final Map<String, Object> params;
+        private final TriggerSelector selector;
+
+        CompiledTrigger(String name, String statement, Map<String, Object> params, TriggerSelector selector) {
+            this.name = name;
+            this.statement = statement;
+            this.params = params;
+            this.selector = selector;
+        }
+    }
 }
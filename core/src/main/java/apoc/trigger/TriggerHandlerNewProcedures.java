@@ -56,6 +56,7 @@ public class TriggerHandlerNewProcedures {
             Map<String, Object> params,
             Transaction tx) {
         final TriggerInfo result;
+        TriggerSelector.from(selector);
 
         Node node = Util.mergeNode(
                 tx,
@@ -29,10 +29,13 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.event.LabelEntry;
@@ -171,9 +174,50 @@ public class TriggerMetadata {
                 .collect(Collectors.toMap(PropertyEntry::key, PropertyEntry::previouslyCommittedValue));
     }
 
+    /**
+     * Merges the metadata of many transactions, in commit order, so that the triggers can process them at once.
+     * The `transactionId`, `commitTime` and `metaData` are the ones of the last transaction.
+     */
+    public static TriggerMetadata merge(List<TriggerMetadata> metadata) {
+        if (metadata.size() == 1) return metadata.get(0);
+        TriggerMetadata last = metadata.get(metadata.size() - 1);
+        return new TriggerMetadata(
+                last.transactionId,
+                last.commitTime,
+                concat(metadata, m -> m.createdNodes),
+                concat(metadata, m -> m.createdRelationships),
+                concat(metadata, m -> m.deletedNodes),
+                concat(metadata, m -> m.deletedRelationships),
+                concatByKey(metadata, m -> m.removedLabels),
+                concatByKey(metadata, m -> m.removedNodeProperties),
+                concatByKey(metadata, m -> m.removedRelationshipProperties),
+                concatByKey(metadata, m -> m.assignedLabels),
+                concatByKey(metadata, m -> m.assignedNodeProperties),
+                concatByKey(metadata, m -> m.assignedRelationshipProperties),
+                last.metaData);
+    }
+
+    private static <T> List<T> concat(List<TriggerMetadata> metadata, Function<TriggerMetadata, List<T>> getter) {
+        List<T> result = new ArrayList<>();
+        metadata.forEach(m -> result.addAll(getter.apply(m)));
+        return result;
+    }
+
+    private static <T> Map<String, List<T>> concatByKey(
+            List<TriggerMetadata> metadata, Function<TriggerMetadata, Map<String, List<T>>> getter) {
+        Map<String, List<T>> result = new HashMap<>();
+        metadata.forEach(m -> getter.apply(m)
+                .forEach((key, values) ->
+                        result.computeIfAbsent(key, k -> new ArrayList<>()).addAll(values)));
+        return result;
+    }
+
+    /**
+     * The entities deleted in the meantime, e.g. by a later transaction of the same batch, are left out
+     */
     public TriggerMetadata rebind(Transaction tx) {
-        final List<Node> createdNodes = Util.rebind(this.createdNodes, tx);
-        final List<Relationship> createdRelationships = Util.rebind(this.createdRelationships, tx);
+        final List<Node> createdNodes = rebindExisting(this.createdNodes, tx);
+        final List<Relationship> createdRelationships = rebindExisting(this.createdRelationships, tx);
         //        final List<Node> deletedNodes = Util.rebind(this.deletedNodes, tx);
         //        final List<Relationship> deletedRelationships = Util.rebind(this.deletedRelationships, tx);
         final Map<String, List<Node>> removedLabels = rebindMap(this.removedLabels, tx);
@@ -206,11 +250,27 @@ public class TriggerMetadata {
             Map<String, List<PropertyEntryContainer<T>>> map, Transaction tx) {
         return map.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue().stream()
                 .map(p -> p.rebind(tx))
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList())));
     }
 
     private <T extends Entity> Map<String, List<T>> rebindMap(Map<String, List<T>> map, Transaction tx) {
-        return map.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> Util.rebind(e.getValue(), tx)));
+        return map.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> rebindExisting(e.getValue(), tx)));
+    }
+
+    private static <T extends Entity> List<T> rebindExisting(List<T> entities, Transaction tx) {
+        return entities.stream()
+                .map(e -> rebindOrNull(tx, e))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static <T extends Entity> T rebindOrNull(Transaction tx, T entity) {
+        try {
+            return Util.rebind(tx, entity);
+        } catch (NotFoundException e) {
+            return null;
+        }
     }
 
     private <T extends Entity> Map<String, List<Map<String, Object>>> convertMapOfPropertyEntryContainers(
@@ -277,7 +337,8 @@ public class TriggerMetadata {
         }
 
         PropertyEntryContainer<T> rebind(Transaction tx) {
-            return new PropertyEntryContainer<T>(key, Util.rebind(tx, entity), oldVal, newVal);
+            T rebound = rebindOrNull(tx, entity);
+            return rebound == null ? null : new PropertyEntryContainer<T>(key, rebound, oldVal, newVal);
         }
 
         PropertyEntryContainer<T> copy(T entity) {
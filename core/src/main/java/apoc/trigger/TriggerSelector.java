@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.trigger;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+
+/**
+ * The selector of a trigger, parsed once when the triggers are loaded, i.e. `{phase: 'after', labels: ['Person'], propertyKeys: ['name']}`.
+ *
+ * The optional `labels` and `propertyKeys` filters are checked against the {@link Changes} of a transaction
+ * before the trigger statement is executed, so that the triggers not interested in them are skipped:
+ * <ul>
+ *     <li>`labels` matches if a node with one of the labels is created, deleted or updated,
+ *     or if one of the labels is assigned or removed</li>
+ *     <li>`propertyKeys` matches if one of the property keys is assigned or removed, on either a node or a relationship</li>
+ * </ul>
+ * If both are present, both have to match.
+ */
+class TriggerSelector {
+    public static final String LABELS = "labels";
+    public static final String PROPERTY_KEYS = "propertyKeys";
+
+    private final TriggerHandler.Phase phase;
+    private final Set<String> labels;
+    private final Set<String> propertyKeys;
+
+    private TriggerSelector(TriggerHandler.Phase phase, Set<String> labels, Set<String> propertyKeys) {
+        this.phase = phase;
+        this.labels = labels;
+        this.propertyKeys = propertyKeys;
+    }
+
+    public static TriggerSelector from(Map<String, Object> selector) {
+        if (selector == null) {
+            return new TriggerSelector(TriggerHandler.Phase.before, Collections.emptySet(), Collections.emptySet());
+        }
+        return new TriggerSelector(
+                toPhase(selector.getOrDefault("phase", "before").toString()),
+                toSet(selector.get(LABELS), LABELS),
+                toSet(selector.get(PROPERTY_KEYS), PROPERTY_KEYS));
+    }
+
+    private static TriggerHandler.Phase toPhase(String phase) {
+        try {
+            return TriggerHandler.Phase.valueOf(phase);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("The selector `phase` must be one of "
+                    + Arrays.toString(TriggerHandler.Phase.values()) + ", but was: " + phase);
+        }
+    }
+
+    private static Set<String> toSet(Object value, String key) {
+        if (value == null) return Collections.emptySet();
+        if (value instanceof String) return Set.of((String) value);
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).stream().map(String::valueOf).collect(Collectors.toUnmodifiableSet());
+        }
+        throw new IllegalArgumentException("The selector `" + key + "` must be a string or a list of strings");
+    }
+
+    public TriggerHandler.Phase getPhase() {
+        return phase;
+    }
+
+    public boolean hasFilters() {
+        return !labels.isEmpty() || !propertyKeys.isEmpty();
+    }
+
+    /**
+     * @param changes the changes of the transaction, if null the filters are not checked
+     */
+    public boolean matches(Changes changes) {
+        if (changes == null) return true;
+        if (!labels.isEmpty() && Collections.disjoint(labels, changes.labels)) return false;
+        return propertyKeys.isEmpty() || !Collections.disjoint(propertyKeys, changes.propertyKeys);
+    }
+
+    /**
+     * The labels and the property keys touched by a transaction.
+     * It has to be collected in `beforeCommit`, as the labels of the updated nodes can't be read after the commit.
+     */
+    static class Changes {
+        private final Set<String> labels = new HashSet<>();
+        private final Set<String> propertyKeys = new HashSet<>();
+
+        static Changes from(TransactionData txData) {
+            Changes changes = new Changes();
+            for (LabelEntry entry : txData.assignedLabels()) {
+                changes.labels.add(entry.label().name());
+            }
+            // the labels of the deleted nodes are in here as well
+            for (LabelEntry entry : txData.removedLabels()) {
+                changes.labels.add(entry.label().name());
+            }
+            Set<Long> visitedNodes = new HashSet<>();
+            changes.addNodeProperties(txData, txData.assignedNodeProperties(), visitedNodes);
+            changes.addNodeProperties(txData, txData.removedNodeProperties(), visitedNodes);
+            for (PropertyEntry<Relationship> entry : txData.assignedRelationshipProperties()) {
+                changes.propertyKeys.add(entry.key());
+            }
+            for (PropertyEntry<Relationship> entry : txData.removedRelationshipProperties()) {
+                changes.propertyKeys.add(entry.key());
+            }
+            return changes;
+        }
+
+        /**
+         * @return the changes of all the transactions, or null if the changes of any of them are unknown
+         */
+        static Changes union(List<Changes> all) {
+            Changes union = new Changes();
+            for (Changes changes : all) {
+                if (changes == null) return null;
+                union.labels.addAll(changes.labels);
+                union.propertyKeys.addAll(changes.propertyKeys);
+            }
+            return union;
+        }
+
+        private void addNodeProperties(
+                TransactionData txData, Iterable<PropertyEntry<Node>> entries, Set<Long> visitedNodes) {
+            for (PropertyEntry<Node> entry : entries) {
+                propertyKeys.add(entry.key());
+                Node node = entry.entity();
+                // the labels of created and deleted nodes are already in the label entries
+                if (visitedNodes.add(node.getId()) && !txData.isDeleted(node)) {
+                    for (Label label : node.getLabels()) {
+                        labels.add(label.name());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -18,46 +18,79 @@
  */
 package apoc.util;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.BlockingQueue;
 import java.util.function.Consumer;
 import org.neo4j.procedure.TerminationGuard;
 
 /**
+ * Streams the elements that a producer thread puts into a queue, until the tombstone is found.
+ *
+ * Instead of a blocking take per element, the available elements are drained from the queue in chunks
+ * into a local buffer, so the queue lock and the termination check are paid once per chunk.
+ * With a parallel stream, each split hands off one chunk.
+ *
  * @author mh
  * @since 06.12.17
  */
 public class QueueBasedSpliterator<T> implements Spliterator<T> {
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+
     private final BlockingQueue<T> queue;
-    private T tombstone;
-    private TerminationGuard terminationGuard;
-    private volatile boolean foundTombstone = false;
+    private final T tombstone;
+    private final TerminationGuard terminationGuard;
     private final int timeoutSeconds;
+    private final int chunkSize;
+    private final List<T> chunk;
+    private int position;
+    private boolean foundTombstone = false;
 
     public QueueBasedSpliterator(
             BlockingQueue<T> queue, T tombstone, TerminationGuard terminationGuard, int timeoutSeconds) {
+        this(queue, tombstone, terminationGuard, timeoutSeconds, DEFAULT_CHUNK_SIZE);
+    }
+
+    public QueueBasedSpliterator(
+            BlockingQueue<T> queue, T tombstone, TerminationGuard terminationGuard, int timeoutSeconds, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be > 0");
+        }
         this.queue = queue;
         this.tombstone = tombstone;
         this.terminationGuard = terminationGuard;
         this.timeoutSeconds = timeoutSeconds;
+        this.chunkSize = chunkSize;
+        this.chunk = new ArrayList<>(chunkSize);
     }
 
     @Override
     public boolean tryAdvance(Consumer<? super T> action) {
-        if (foundTombstone) return false;
-        terminationGuard.check();
-        T element = QueueUtil.take(queue, timeoutSeconds, () -> terminationGuard.check());
-        if (element.equals(tombstone)) {
-            foundTombstone = true;
-            return false;
-        } else {
-            action.accept(element);
-            return true;
+        if (!hasNext()) return false;
+        action.accept(next());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (hasNext()) {
+            action.accept(next());
         }
     }
 
+    /**
+     * Hands off the buffered chunk, so that a parallel stream can process it while the next one is drained
+     */
     public Spliterator<T> trySplit() {
-        return null;
+        if (!hasNext()) return null;
+        Object[] split = new Object[chunk.size() - position];
+        int count = 0;
+        while (hasBuffered()) {
+            split[count++] = next();
+        }
+        return Spliterators.spliterator(split, 0, count, NONNULL);
     }
 
     public long estimateSize() {
@@ -67,4 +100,41 @@ public class QueueBasedSpliterator<T> implements Spliterator<T> {
     public int characteristics() {
         return NONNULL;
     }
+
+    private boolean hasNext() {
+        if (foundTombstone) return false;
+        if (position == chunk.size()) {
+            fill();
+        }
+        return hasBuffered();
+    }
+
+    private boolean hasBuffered() {
+        if (position == chunk.size()) return false;
+        if (chunk.get(position).equals(tombstone)) {
+            foundTombstone = true;
+            chunk.clear();
+            position = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private T next() {
+        return chunk.get(position++);
+    }
+
+    private void fill() {
+        chunk.clear();
+        position = 0;
+        terminationGuard.check();
+        // fast path without waiting, the timed take is only needed when the producer is behind
+        T element = queue.poll();
+        if (element == null) {
+            element = QueueUtil.take(queue, timeoutSeconds, terminationGuard::check);
+        }
+        chunk.add(element);
+        // takes the queue lock once for all the elements already available
+        queue.drainTo(chunk, chunkSize - 1);
+    }
 }
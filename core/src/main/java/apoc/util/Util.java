@@ -83,6 +83,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongUnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -263,6 +264,8 @@ public class Util {
         return relTypes;
     }
 
+    public static final LongUnaryOperator DEFAULT_RETRY_DELAY = retry -> 100;
+
     public static <T> T retryInTx(
             Log log,
             GraphDatabaseService db,
@@ -270,18 +273,33 @@ public class Util {
             long retry,
             long maxRetries,
             Consumer<Long> callbackForRetry) {
+        return retryInTx(log, db, function, retry, maxRetries, callbackForRetry, DEFAULT_RETRY_DELAY);
+    }
+
+    /**
+     * @param retryDelay given the number of the current retry, returns how many milliseconds to wait before retrying
+     */
+    public static <T> T retryInTx(
+            Log log,
+            GraphDatabaseService db,
+            Function<Transaction, T> function,
+            long retry,
+            long maxRetries,
+            Consumer<Long> callbackForRetry,
+            LongUnaryOperator retryDelay) {
         try (Transaction tx = db.beginTx()) {
             T result = function.apply(tx);
             tx.commit();
             return result;
         } catch (Exception e) {
             if (retry >= maxRetries) throw e;
+            long delay = retryDelay.applyAsLong(retry);
             if (log != null) {
-                log.warn("Retrying operation %d of %d", retry, maxRetries);
+                log.warn("Retrying operation %d of %d in %d ms", retry, maxRetries, delay);
             }
             callbackForRetry.accept(retry);
-            Util.sleep(100);
-            return retryInTx(log, db, function, retry + 1, maxRetries, callbackForRetry);
+            Util.sleep((int) delay);
+            return retryInTx(log, db, function, retry + 1, maxRetries, callbackForRetry, retryDelay);
         }
     }
 
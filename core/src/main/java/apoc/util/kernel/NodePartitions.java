@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.util.kernel;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * Processes a set of node ids split into partitions of {@link #PARTITION_SIZE} ids.
+ *
+ * The partitions are taken from a shared queue by the workers of the pool, each in its own read transaction
+ * and with its own target, merged into the result when the worker is done.
+ * The calling thread processes partitions as well, within its own transaction,
+ * so it never waits on tasks that haven't started yet.
+ * As the workers can't see the changes of the calling transaction, callers have to stay single threaded if there are any.
+ */
+public class NodePartitions {
+    public static final int PARTITION_SIZE = 4096;
+
+    public interface PartitionTask<T> {
+        void process(KernelTransaction ktx, long[] partition, T target);
+    }
+
+    public static <T> T process(
+            GraphDatabaseAPI db,
+            KernelTransaction ktx,
+            ExecutorService executor,
+            Roaring64NavigableMap nodeIds,
+            Supplier<T> targets,
+            BiConsumer<T, T> merge,
+            PartitionTask<T> task,
+            String errorMessage) {
+        Queue<long[]> partitions = partition(nodeIds);
+        CountDownLatch done = new CountDownLatch(partitions.size());
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        T result = targets.get();
+
+        int workers = Math.min(partitions.size(), Runtime.getRuntime().availableProcessors()) - 1;
+        for (int i = 0; i < workers; i++) {
+            executor.submit(() -> {
+                // the transaction is opened only if there is something left to do, as the task may start late
+                long[] partition = partitions.poll();
+                if (partition == null) return;
+                int taken = 1;
+                T local = targets.get();
+                try (Transaction tx = db.beginTransaction(KernelTransaction.Type.EXPLICIT, ktx.securityContext())) {
+                    KernelTransaction workerKtx = ((InternalTransaction) tx).kernelTransaction();
+                    while (true) {
+                        processPartition(task, workerKtx, partition, local, error);
+                        if ((partition = partitions.poll()) == null) break;
+                        taken++;
+                    }
+                    tx.commit();
+                } catch (Throwable t) {
+                    // i.e. the transaction could not be opened, the partitions taken are failed as well
+                    error.compareAndSet(null, t);
+                } finally {
+                    // the partitions are counted down only once merged and with the transaction closed,
+                    // so the caller never returns the result while a worker is still using it
+                    merge(result, local, merge);
+                    countDown(done, taken);
+                }
+            });
+        }
+
+        T local = targets.get();
+        int taken = 0;
+        long[] partition;
+        while ((partition = partitions.poll()) != null) {
+            processPartition(task, ktx, partition, local, error);
+            taken++;
+        }
+        merge(result, local, merge);
+        countDown(done, taken);
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        if (error.get() != null) {
+            throw new RuntimeException(errorMessage, error.get());
+        }
+        synchronized (result) {
+            return result;
+        }
+    }
+
+    private static <T> void processPartition(
+            PartitionTask<T> task,
+            KernelTransaction ktx,
+            long[] partition,
+            T target,
+            AtomicReference<Throwable> error) {
+        if (error.get() != null) return;
+        try {
+            task.process(ktx, partition, target);
+        } catch (Throwable t) {
+            error.compareAndSet(null, t);
+        }
+    }
+
+    private static <T> void merge(T result, T local, BiConsumer<T, T> merge) {
+        synchronized (result) {
+            merge.accept(result, local);
+        }
+    }
+
+    private static void countDown(CountDownLatch done, int partitions) {
+        for (int i = 0; i < partitions; i++) {
+            done.countDown();
+        }
+    }
+
+    private static Queue<long[]> partition(Roaring64NavigableMap nodeIds) {
+        Queue<long[]> partitions = new ConcurrentLinkedQueue<>();
+        LongIterator iterator = nodeIds.getLongIterator();
+        while (iterator.hasNext()) {
+            long[] partition = new long[PARTITION_SIZE];
+            int size = 0;
+            while (size < PARTITION_SIZE && iterator.hasNext()) {
+                partition[size++] = iterator.next();
+            }
+            partitions.add(size == PARTITION_SIZE ? partition : Arrays.copyOf(partition, size));
+        }
+        return partitions;
+    }
+}
@@ -21,6 +21,7 @@ package apoc.uuid;
 import java.nio.ByteBuffer;
 import java.util.Base64;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class UuidUtil {
 
@@ -69,6 +70,28 @@ public class UuidUtil {
         return uuid.toString();
     }
 
+    /**
+     * A version 4 UUID from {@link ThreadLocalRandom}: unlike {@link UUID#randomUUID()} it doesn't contend on a shared
+     * SecureRandom, but its values are predictable, so it must not be used where the uuid has to be unguessable
+     */
+    public static UUID fastRandomUuid() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (random.nextLong() & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000004000L;
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * A version 7 UUID: the first 48 bits are the unix epoch in milliseconds and the other ones are random,
+     * so the uuids created close in time are close in the uniqueness constraint index as well
+     */
+    public static UUID timeOrderedUuid() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
     public static String generateBase64Uuid(UUID uuid) {
         ByteBuffer bb = ByteBuffer.wrap(new byte[16]);
         bb.putLong(uuid.getMostSignificantBits());
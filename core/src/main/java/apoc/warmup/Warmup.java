@@ -18,11 +18,13 @@
  */
 package apoc.warmup;
 
+import apoc.result.MapResult;
 import apoc.util.Util;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.neo4j.graphdb.Transaction;
@@ -108,23 +110,12 @@ public class Warmup {
                     File file = pagedFile.path().toFile();
                     boolean index = isSchema(file);
                     String fileName = index ? subPath(file, "schema") : file.getName();
-                    long pages = 0;
                     long start = System.currentTimeMillis();
                     try {
-                        if (pagedFile.fileSize() > 0) {
-                            PageCursor cursor = pagedFile.io(
-                                    0L, PagedFile.PF_READ_AHEAD | PagedFile.PF_SHARED_READ_LOCK, ktx.cursorContext());
-                            while (cursor.next()) {
-                                cursor.getByte();
-                                pages++;
-                                if (pages % 1000 == 0 && Util.transactionIsTerminated(guard)) {
-                                    break;
-                                }
-                            }
-                        }
+                        long pages = loadPages(pagedFile, ktx, () -> Util.transactionIsTerminated(guard));
                         return new PageResult(fileName, index, pagedFile.fileSize(), pages, null, start);
                     } catch (IOException e) {
-                        return new PageResult(fileName, index, -1L, pages, e.getMessage(), start);
+                        return new PageResult(fileName, index, -1L, 0, e.getMessage(), start);
                     }
                 }))
                 .collect(Collectors.toMap(r -> r.file, r -> r));
@@ -148,10 +139,63 @@ public class Warmup {
         return Stream.of(result);
     }
 
-    public boolean isSchema(File file) {
+    public static boolean isSchema(File file) {
         return file.getAbsolutePath().contains(File.separator + "schema" + File.separator);
     }
 
+    /**
+     * Faults all the pages of the file into the page cache, reading one byte per page
+     *
+     * @return the number of pages loaded
+     */
+    static long loadPages(PagedFile pagedFile, KernelTransaction ktx, BooleanSupplier terminated) throws IOException {
+        long pages = 0;
+        if (pagedFile.fileSize() <= 0) return pages;
+        try (PageCursor cursor =
+                pagedFile.io(0L, PagedFile.PF_READ_AHEAD | PagedFile.PF_SHARED_READ_LOCK, ktx.cursorContext())) {
+            while (cursor.next()) {
+                cursor.getByte();
+                pages++;
+                if (pages % 1000 == 0 && terminated.getAsBoolean()) {
+                    break;
+                }
+            }
+        }
+        return pages;
+    }
+
+    @Procedure
+    @Description(
+            "apoc.warmup.targets(config) - loads into memory only the nodes of the given `labels`, the relationships of the given `types` and the given named `indexes`")
+    public Stream<WarmupTargets.TargetResult> targets(@Name("config") Map<String, Object> config) {
+        PageCache pageCache = db.getDependencyResolver().resolveDependency(PageCache.class);
+        return WarmupTargets.fromConfig(config)
+                .warmup(
+                        (InternalTransaction) tx,
+                        pageCache,
+                        db.databaseLayout(),
+                        () -> Util.transactionIsTerminated(guard))
+                .stream();
+    }
+
+    @Admin
+    @Procedure
+    @Description(
+            "apoc.warmup.saveProfile(config) - saves the config of `apoc.warmup.targets` as the warmup profile of the current database, run automatically on start if `apoc.warmup.profile.onStart=true`")
+    public Stream<MapResult> saveProfile(@Name("config") Map<String, Object> config) {
+        WarmupTargets targets = WarmupTargets.fromConfig(config);
+        WarmupProfile.save(db.databaseName(), targets);
+        return Stream.of(new MapResult(targets.toConfig()));
+    }
+
+    @Admin
+    @Procedure
+    @Description("apoc.warmup.removeProfile() - removes the warmup profile of the current database, if any")
+    public Stream<MapResult> removeProfile() {
+        WarmupTargets removed = WarmupProfile.remove(db.databaseName());
+        return removed == null ? Stream.empty() : Stream.of(new MapResult(removed.toConfig()));
+    }
+
     public static class WarmupResult {
         public final long pageSize;
         public final long totalTime;
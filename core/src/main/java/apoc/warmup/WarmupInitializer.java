@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.warmup;
+
+import static apoc.ApocConfig.apocConfig;
+
+import apoc.util.Util;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.availability.AvailabilityListener;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.logging.Log;
+
+/**
+ * Runs the {@link WarmupProfile} of the database as soon as it becomes available, if `apoc.warmup.profile.onStart=true`,
+ * so that e.g. a replica promoted after a failover gets its hot set back into the page cache without waiting for the queries.
+ */
+public class WarmupInitializer implements AvailabilityListener {
+    private final GraphDatabaseAPI db;
+    private final Log userLog;
+
+    public WarmupInitializer(GraphDatabaseAPI db, Log userLog) {
+        this.db = db;
+        this.userLog = userLog;
+    }
+
+    @Override
+    public void available() {
+        if (db.databaseName().equals(GraphDatabaseSettings.SYSTEM_DATABASE_NAME)
+                || !apocConfig().getBoolean(WarmupProfile.WARMUP_ON_START, false)) {
+            return;
+        }
+        // the warmup can take a while, so it must not block the database start
+        Util.newDaemonThread(() -> {
+                    try {
+                        WarmupTargets targets = WarmupProfile.load(db.databaseName());
+                        if (targets == null) return;
+                        long start = System.currentTimeMillis();
+                        PageCache pageCache = db.getDependencyResolver().resolveDependency(PageCache.class);
+                        List<WarmupTargets.TargetResult> results;
+                        try (Transaction tx = db.beginTx()) {
+                            results = targets.warmup(
+                                    (InternalTransaction) tx, pageCache, db.databaseLayout(), () -> !db.isAvailable(0));
+                            tx.commit();
+                        }
+                        userLog.info(
+                                "Warmed up the database %s in %d ms: %s",
+                                db.databaseName(),
+                                System.currentTimeMillis() - start,
+                                results.stream()
+                                        .map(r -> String.format(
+                                                "%s %s (%d entities, %d pages%s)",
+                                                r.type,
+                                                r.name,
+                                                r.entities,
+                                                r.pages,
+                                                r.error == null ? "" : ", " + r.error))
+                                        .collect(Collectors.joining(", ")));
+                    } catch (Exception e) {
+                        userLog.warn("Error warming up the database " + db.databaseName(), e);
+                    }
+                })
+                .start();
+    }
+
+    @Override
+    public void unavailable() {}
+}
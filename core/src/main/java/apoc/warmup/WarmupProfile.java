@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.warmup;
+
+import static apoc.ApocConfig.apocConfig;
+
+import apoc.SystemLabels;
+import apoc.SystemPropertyKeys;
+import apoc.util.Util;
+import java.util.Map;
+import java.util.function.Function;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.helpers.collection.Pair;
+
+/**
+ * The warmup profile of a database, i.e. the {@link WarmupTargets} to load into the page cache when it starts.
+ * It is stored in the system database, so that it is available on all the members of a cluster.
+ */
+public class WarmupProfile {
+    public static final String WARMUP_ON_START = "apoc.warmup.profile.onStart";
+
+    public static void save(String database, WarmupTargets targets) {
+        withSystemDb(tx -> {
+            Node node = Util.mergeNode(
+                    tx, SystemLabels.ApocWarmupProfile, null, Pair.of(SystemPropertyKeys.database.name(), database));
+            node.setProperty(SystemPropertyKeys.config.name(), Util.toJson(targets.toConfig()));
+            node.setProperty(SystemPropertyKeys.lastUpdated.name(), System.currentTimeMillis());
+            return null;
+        });
+    }
+
+    /**
+     * @return the profile of the database, or null if there is none
+     */
+    public static WarmupTargets load(String database) {
+        return withSystemDb(tx -> {
+            Node node = tx.findNode(SystemLabels.ApocWarmupProfile, SystemPropertyKeys.database.name(), database);
+            return node == null ? null : toTargets(node);
+        });
+    }
+
+    /**
+     * @return the removed profile, or null if there was none
+     */
+    public static WarmupTargets remove(String database) {
+        return withSystemDb(tx -> {
+            Node node = tx.findNode(SystemLabels.ApocWarmupProfile, SystemPropertyKeys.database.name(), database);
+            if (node == null) return null;
+            WarmupTargets targets = toTargets(node);
+            node.delete();
+            return targets;
+        });
+    }
+
+    private static WarmupTargets toTargets(Node node) {
+        return WarmupTargets.fromConfig(
+                Util.fromJson((String) node.getProperty(SystemPropertyKeys.config.name()), Map.class));
+    }
+
+    private static <T> T withSystemDb(Function<Transaction, T> action) {
+        try (Transaction tx = apocConfig().getSystemDb().beginTx()) {
+            T result = action.apply(tx);
+            tx.commit();
+            return result;
+        }
+    }
+}
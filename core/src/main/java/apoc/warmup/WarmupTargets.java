@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.warmup;
+
+import apoc.util.Util;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.api.index.IndexDirectoryStructure;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.storageengine.api.RelationshipSelection;
+
+/**
+ * A selective warmup, scoped to the nodes of some labels, the relationships of some types and some named indexes,
+ * i.e. `{labels: ['Person'], types: ['KNOWS'], indexes: ['person_name'], properties: true, relationships: false}`.
+ *
+ * The records are loaded via the kernel cursors, so only the pages holding them are faulted into the page cache,
+ * while the named indexes are loaded page by page, as {@link Warmup#run} does for the whole store.
+ */
+public class WarmupTargets {
+    public static final String LABELS = "labels";
+    public static final String TYPES = "types";
+    public static final String INDEXES = "indexes";
+    public static final String PROPERTIES = "properties";
+    public static final String RELATIONSHIPS = "relationships";
+
+    private static final int CHECK_TERMINATED_EVERY = 1000;
+
+    private final List<String> labels;
+    private final List<String> types;
+    private final List<String> indexes;
+    private final boolean properties;
+    private final boolean relationships;
+
+    private WarmupTargets(
+            List<String> labels, List<String> types, List<String> indexes, boolean properties, boolean relationships) {
+        this.labels = labels;
+        this.types = types;
+        this.indexes = indexes;
+        this.properties = properties;
+        this.relationships = relationships;
+    }
+
+    public static WarmupTargets fromConfig(Map<String, Object> config) {
+        if (config == null) config = Collections.emptyMap();
+        WarmupTargets targets = new WarmupTargets(
+                toList(config.get(LABELS), LABELS),
+                toList(config.get(TYPES), TYPES),
+                toList(config.get(INDEXES), INDEXES),
+                Util.toBoolean(config.getOrDefault(PROPERTIES, false)),
+                Util.toBoolean(config.getOrDefault(RELATIONSHIPS, false)));
+        if (targets.labels.isEmpty() && targets.types.isEmpty() && targets.indexes.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "The warmup config must contain at least one of `labels`, `types` or `indexes`");
+        }
+        return targets;
+    }
+
+    private static List<String> toList(Object value, String key) {
+        if (value == null) return Collections.emptyList();
+        if (value instanceof String) return List.of((String) value);
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).stream().map(String::valueOf).collect(Collectors.toList());
+        }
+        throw new IllegalArgumentException("The warmup `" + key + "` must be a string or a list of strings");
+    }
+
+    public Map<String, Object> toConfig() {
+        return Util.map(
+                LABELS, labels, TYPES, types, INDEXES, indexes, PROPERTIES, properties, RELATIONSHIPS, relationships);
+    }
+
+    public static class TargetResult {
+        public final String type;
+        public final String name;
+        public final long entities;
+        public final long pages;
+        public final long time;
+        public final String error;
+
+        public TargetResult(String type, String name, long entities, long pages, String error, long start) {
+            this.type = type;
+            this.name = name;
+            this.entities = entities;
+            this.pages = pages;
+            this.error = error;
+            this.time = System.currentTimeMillis() - start;
+        }
+    }
+
+    public List<TargetResult> warmup(
+            InternalTransaction tx, PageCache pageCache, DatabaseLayout databaseLayout, BooleanSupplier terminated) {
+        KernelTransaction ktx = tx.kernelTransaction();
+        List<TargetResult> results = new ArrayList<>();
+        for (String label : labels) {
+            long start = System.currentTimeMillis();
+            long count;
+            try (ResourceIterator<Node> nodes = tx.findNodes(Label.label(label))) {
+                count = warmupNodes(ktx, nodes, terminated);
+            }
+            results.add(new TargetResult("label", label, count, 0, null, start));
+        }
+        for (String type : types) {
+            long start = System.currentTimeMillis();
+            long count;
+            try (ResourceIterator<Relationship> rels = tx.findRelationships(RelationshipType.withName(type))) {
+                count = warmupRelationships(ktx, rels, terminated);
+            }
+            results.add(new TargetResult("type", type, count, 0, null, start));
+        }
+        for (String index : indexes) {
+            results.add(warmupIndex(ktx, pageCache, databaseLayout, index, terminated));
+        }
+        return results;
+    }
+
+    private long warmupNodes(KernelTransaction ktx, ResourceIterator<Node> nodes, BooleanSupplier terminated) {
+        Read read = ktx.dataRead();
+        long count = 0;
+        try (NodeCursor nodeCursor = ktx.cursors().allocateNodeCursor(ktx.cursorContext());
+                PropertyCursor propertyCursor =
+                        ktx.cursors().allocatePropertyCursor(ktx.cursorContext(), ktx.memoryTracker());
+                RelationshipTraversalCursor relCursor =
+                        ktx.cursors().allocateRelationshipTraversalCursor(ktx.cursorContext())) {
+            while (nodes.hasNext()) {
+                read.singleNode(nodes.next().getId(), nodeCursor);
+                if (!nodeCursor.next()) continue;
+                if (properties) {
+                    nodeCursor.properties(propertyCursor);
+                    loadProperties(propertyCursor);
+                }
+                if (relationships) {
+                    nodeCursor.relationships(relCursor, RelationshipSelection.ALL_RELATIONSHIPS);
+                    while (relCursor.next()) {
+                        if (properties) {
+                            relCursor.properties(propertyCursor);
+                            loadProperties(propertyCursor);
+                        }
+                    }
+                }
+                if (++count % CHECK_TERMINATED_EVERY == 0 && terminated.getAsBoolean()) break;
+            }
+        }
+        return count;
+    }
+
+    private long warmupRelationships(
+            KernelTransaction ktx, ResourceIterator<Relationship> rels, BooleanSupplier terminated) {
+        Read read = ktx.dataRead();
+        long count = 0;
+        try (RelationshipScanCursor relCursor = ktx.cursors().allocateRelationshipScanCursor(ktx.cursorContext());
+                PropertyCursor propertyCursor =
+                        ktx.cursors().allocatePropertyCursor(ktx.cursorContext(), ktx.memoryTracker())) {
+            while (rels.hasNext()) {
+                read.singleRelationship(rels.next().getId(), relCursor);
+                if (!relCursor.next()) continue;
+                if (properties) {
+                    relCursor.properties(propertyCursor);
+                    loadProperties(propertyCursor);
+                }
+                if (++count % CHECK_TERMINATED_EVERY == 0 && terminated.getAsBoolean()) break;
+            }
+        }
+        return count;
+    }
+
+    // reading the values loads the dynamic records of strings and arrays as well
+    private static void loadProperties(PropertyCursor propertyCursor) {
+        while (propertyCursor.next()) {
+            propertyCursor.propertyValue();
+        }
+    }
+
+    private TargetResult warmupIndex(
+            KernelTransaction ktx,
+            PageCache pageCache,
+            DatabaseLayout databaseLayout,
+            String name,
+            BooleanSupplier terminated) {
+        long start = System.currentTimeMillis();
+        IndexDescriptor descriptor = ktx.schemaRead().indexGetForName(name);
+        if (descriptor == IndexDescriptor.NO_INDEX) {
+            return new TargetResult("index", name, 0, 0, "There is no index with name " + name, start);
+        }
+        // the page cache is shared by all the databases, whose index ids overlap
+        Path indexesDirectory = IndexDirectoryStructure.baseSchemaIndexFolder(databaseLayout.databaseDirectory());
+        long pages = 0;
+        try {
+            for (PagedFile pagedFile : pageCache.listExistingMappings()) {
+                if (isIndexFile(indexesDirectory, pagedFile.path(), descriptor.getId())) {
+                    pages += Warmup.loadPages(pagedFile, ktx, terminated);
+                }
+            }
+        } catch (IOException e) {
+            return new TargetResult("index", name, 0, pages, e.getMessage(), start);
+        }
+        return new TargetResult("index", name, 0, pages, null, start);
+    }
+
+    /**
+     * The files of an index are in a directory named after its id, under the one of its provider,
+     * i.e. `<database>/schema/index/range-1.0/3/index-3`
+     */
+    static boolean isIndexFile(Path indexesDirectory, Path file, long indexId) {
+        Path absoluteIndexesDirectory = indexesDirectory.toAbsolutePath().normalize();
+        Path absoluteFile = file.toAbsolutePath().normalize();
+        if (!absoluteFile.startsWith(absoluteIndexesDirectory)) return false;
+        Path relative = absoluteIndexesDirectory.relativize(absoluteFile);
+        return relative.getNameCount() > 2 && relative.getName(1).toString().equals(String.valueOf(indexId));
+    }
+}
@@ -68,6 +68,10 @@ public class TTLConfigTest {
         when(apocConfig.getInt(ApocConfig.APOC_TTL_LIMIT, 1000)).thenReturn(5000);
         when(apocConfig.getInt("apoc.ttl.limit.foo", 5000)).thenReturn(1000);
 
+        when(apocConfig.getInt(ApocConfig.APOC_TTL_CONCURRENCY, TTLConfig.DEFAULT_CONCURRENCY))
+                .thenReturn(2);
+        when(apocConfig.getInt("apoc.ttl.concurrency.foo", 2)).thenReturn(4);
+
         GraphDatabaseAPI db = mock(GraphDatabaseAPI.class);
         when(db.databaseName()).thenReturn("foo");
 
@@ -76,5 +80,6 @@ public class TTLConfigTest {
         assertTrue(values.enabled);
         assertEquals(500, values.schedule);
         assertEquals(1000, values.limit);
+        assertEquals(4, values.concurrency);
     }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.agg;
+
+import static apoc.util.TestUtil.testCall;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import apoc.util.TestUtil;
+import java.util.List;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.neo4j.test.rule.DbmsRule;
+import org.neo4j.test.rule.ImpermanentDbmsRule;
+
+public class SketchesTest {
+
+    @ClassRule
+    public static DbmsRule db = new ImpermanentDbmsRule();
+
+    @BeforeClass
+    public static void setUp() {
+        TestUtil.registerProcedure(db, Sketches.class);
+    }
+
+    @AfterClass
+    public static void teardown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testHllCount() {
+        testCall(db, "UNWIND [] AS value RETURN apoc.agg.hllCount(apoc.agg.hll(value)) AS count", row -> {
+            assertEquals(0L, row.get("count"));
+        });
+        testCall(
+                db,
+                "UNWIND [1, 1.0, 2, 'a', 'a', null, true] AS value RETURN apoc.agg.hllCount(apoc.agg.hll(value)) AS count",
+                row -> assertEquals(4L, row.get("count")));
+        testCall(
+                db,
+                "UNWIND range(1, 100000) AS value RETURN apoc.agg.hllCount(apoc.agg.hll(value % 20000, 14)) AS count",
+                row -> assertApproximately(20000, (long) row.get("count"), 0.03));
+    }
+
+    @Test
+    public void testHllMergeOfStoredSketches() {
+        db.executeTransactionally("UNWIND range(0, 9) AS day CREATE (:Day {day: day})");
+        db.executeTransactionally("MATCH (d:Day) "
+                + "UNWIND range(d.day * 1000, d.day * 1000 + 1999) AS visitor "
+                + "WITH d, apoc.agg.hll(visitor, CASE WHEN d.day % 2 = 0 THEN 12 ELSE 14 END) AS visitors "
+                + "SET d.visitors = visitors");
+
+        // each day overlaps with the next one, and the sketches of the odd days have a higher precision
+        testCall(
+                db,
+                "MATCH (d:Day) RETURN apoc.agg.hllCount(apoc.agg.hllMerge(d.visitors)) AS count",
+                row -> assertApproximately(11000, (long) row.get("count"), 0.05));
+        db.executeTransactionally("MATCH (d:Day) DELETE d");
+    }
+
+    @Test
+    public void testTDigestQuantiles() {
+        testCall(db, "UNWIND [] AS value RETURN apoc.agg.tdigestQuantiles(apoc.agg.tdigest(value)) AS q", row -> {
+            assertEquals(asList(null, null, null, null, null), row.get("q"));
+        });
+        testCall(
+                db,
+                "UNWIND [3, 1, 2] AS value RETURN apoc.agg.tdigestQuantiles(apoc.agg.tdigest(value), [0, 0.5, 1]) AS q",
+                row -> assertEquals(asList(1D, 2D, 3D), row.get("q")));
+        testCall(
+                db,
+                "UNWIND range(1, 100000) AS value "
+                        + "RETURN apoc.agg.tdigestQuantiles(apoc.agg.tdigest(value), [0.01, 0.5, 0.99]) AS q",
+                row -> {
+                    List<Double> quantiles = (List<Double>) row.get("q");
+                    assertApproximately(1000, quantiles.get(0), 0.01);
+                    assertApproximately(50000, quantiles.get(1), 0.01);
+                    assertApproximately(99000, quantiles.get(2), 0.01);
+                });
+    }
+
+    @Test
+    public void testTDigestMerge() {
+        testCall(
+                db,
+                "UNWIND range(0, 9) AS part "
+                        + "CALL { WITH part UNWIND range(part * 1000 + 1, part * 1000 + 1000) AS value RETURN apoc.agg.tdigest(value) AS digest } "
+                        + "RETURN apoc.agg.tdigestQuantiles(apoc.agg.tdigestMerge(digest), [0, 0.5, 0.9, 1]) AS q",
+                row -> {
+                    List<Double> quantiles = (List<Double>) row.get("q");
+                    assertEquals(1D, quantiles.get(0), 0);
+                    assertApproximately(5000, quantiles.get(1), 0.01);
+                    assertApproximately(9000, quantiles.get(2), 0.01);
+                    assertEquals(10000D, quantiles.get(3), 0);
+                });
+        testCall(db, "RETURN apoc.agg.tdigestQuantiles(null) AS q", row -> assertNull(row.get("q")));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testInvalidSketch() {
+        testCall(db, "RETURN apoc.agg.hllCount(apoc.agg.tdigest(1)) AS count", row -> {});
+    }
+
+    private static void assertApproximately(double expected, double actual, double relativeError) {
+        assertTrue(
+                "expected " + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected * relativeError);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.export.arrow;
+
+import static org.junit.Assert.assertEquals;
+
+import apoc.ApocSettings;
+import apoc.load.LoadArrow;
+import apoc.util.TestUtil;
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.test.rule.DbmsRule;
+import org.neo4j.test.rule.ImpermanentDbmsRule;
+
+/**
+ * The export with `columnar: true`, on a new database per test, so that the sampled entities are known
+ */
+public class ArrowColumnarTest {
+
+    private static File directory = new File("target/arrow import");
+
+    static { //noinspection ResultOfMethodCallIgnored
+        directory.mkdirs();
+    }
+
+    @Rule
+    public DbmsRule db = new ImpermanentDbmsRule()
+            .withSetting(ApocSettings.apoc_import_file_enabled, true)
+            .withSetting(
+                    GraphDatabaseSettings.load_csv_file_url_root,
+                    directory.toPath().toAbsolutePath())
+            .withSetting(ApocSettings.apoc_export_file_enabled, true);
+
+    @Before
+    public void setUp() {
+        TestUtil.registerProcedure(db, ExportArrow.class, LoadArrow.class);
+    }
+
+    @After
+    public void teardown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testValuesNotMatchingTheSampleWidenTheColumns() {
+        // given - only the first node is sampled
+        db.executeTransactionally("CREATE (:Mixed {num: 1, list: [1.5], any: 1, flag: true}), "
+                + "(:Mixed {num: 2.5, list: [1, 2], any: 'a', flag: 1, extra: [1, 2]})");
+
+        // when
+        Map<String, Object> progress = db.executeTransactionally(
+                "CALL apoc.export.arrow.all('columnar_widened_test.arrow', {columnar: true, sampleSize: 1}) "
+                        + "YIELD file, nodes RETURN file, nodes",
+                Map.of(),
+                result -> result.next());
+
+        // then - the export has been started over, but the entities are counted once
+        assertEquals(2L, progress.get("nodes"));
+        List<Map<String, Object>> actual = load(
+                (String) progress.get("file"),
+                "RETURN value.num AS num, value.list AS list, value.any AS any, value.flag AS flag, "
+                        + "value.extra AS extra ORDER BY value['<id>']");
+        // integers are widened to floats, anything else to strings
+        assertEquals(
+                List.of(
+                        Map.of("num", 1.0D, "list", List.of(1.5D), "any", "1", "flag", "true"),
+                        Map.of("num", 2.5D, "list", List.of(1.0D, 2.0D), "any", "a", "flag", "1", "extra", "[1,2]")),
+                actual.stream().map(ArrowColumnarTest::withoutNulls).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testDictionaryOverflow() {
+        // given
+        db.executeTransactionally(
+                "UNWIND range(0, 9) AS id CREATE (:Coded {id: id, code: 'c' + id, parity: 'p' + (id % 2)})");
+
+        // when - `code` has more distinct values than a dictionary can hold, `parity` is dictionary encoded
+        String file = db.executeTransactionally(
+                "CALL apoc.export.arrow.all('columnar_dictionary_test.arrow', {columnar: true, dictionarySize: 4}) "
+                        + "YIELD file",
+                Map.of(),
+                result -> result.<String>columnAs("file").next());
+
+        // then
+        List<Map<String, Object>> actual =
+                load(file, "RETURN value.id AS id, value.code AS code, value.parity AS parity ORDER BY id");
+        List<Map<String, Object>> expected = LongStream.range(0, 10)
+                .mapToObj(id -> Map.<String, Object>of("id", id, "code", "c" + id, "parity", "p" + (id % 2)))
+                .collect(Collectors.toList());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testConcurrency() {
+        // given
+        db.executeTransactionally("UNWIND range(0, 999) AS id CREATE (n:Item {id: id}) "
+                + "WITH n, id WHERE id > 0 MATCH (m:Item {id: id - 1}) CREATE (m)-[:NEXT {id: id}]->(n)");
+
+        // when - the batches are filled concurrently, or not, but always written in id order
+        List<Map<String, Object>> sequential = exportAndLoad(1);
+        List<Map<String, Object>> concurrent = exportAndLoad(8);
+
+        // then
+        assertEquals(1999, sequential.size());
+        assertEquals(sequential, concurrent);
+        List<Object> nodeIds = sequential.stream()
+                .filter(row -> row.get("type") == null)
+                .map(row -> row.get("id"))
+                .collect(Collectors.toList());
+        assertEquals(LongStream.range(0, 1000).boxed().collect(Collectors.toList()), nodeIds);
+    }
+
+    private List<Map<String, Object>> exportAndLoad(int concurrency) {
+        String file = db.executeTransactionally(
+                "CALL apoc.export.arrow.all($file, {columnar: true, batchSize: 7, concurrency: $concurrency}) "
+                        + "YIELD file",
+                Map.of("file", "columnar_concurrency_" + concurrency + "_test.arrow", "concurrency", concurrency),
+                result -> result.<String>columnAs("file").next());
+        return load(file, "RETURN value['<id>'] AS id, value['<type>'] AS type, value.id AS property");
+    }
+
+    private List<Map<String, Object>> load(String file, String returnClause) {
+        return db.executeTransactionally(
+                "CALL apoc.load.arrow($file) YIELD value " + returnClause,
+                Map.of("file", file),
+                result -> result.stream().collect(Collectors.toList()));
+    }
+
+    private static Map<String, Object> withoutNulls(Map<String, Object> row) {
+        return row.entrySet().stream()
+                .filter(e -> e.getValue() != null)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+}
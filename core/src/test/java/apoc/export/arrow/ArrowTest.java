@@ -332,6 +332,24 @@ public class ArrowTest {
         });
     }
 
+    @Test
+    public void testFileRoundtripArrowAllColumnar() {
+        // given - when
+        // a batch per id, so that the batches are filled concurrently and have to be written in order
+        String file = db.executeTransactionally(
+                "CALL apoc.export.arrow.all('all_columnar_test.arrow', {columnar: true, batchSize: 1}) YIELD file",
+                Map.of(),
+                this::extractFileName);
+
+        // then
+        final String query = "CALL apoc.load.arrow($file) YIELD value " + "RETURN value";
+        db.executeTransactionally(query, Map.of("file", file), result -> {
+            final List<Map<String, Object>> actual = getActual(result);
+            assertEquals(EXPECTED, actual);
+            return null;
+        });
+    }
+
     @Test
     public void testStreamVolumeArrowAll() {
         // given - when
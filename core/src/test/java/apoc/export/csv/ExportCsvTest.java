@@ -46,6 +46,7 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -722,4 +723,55 @@ public class ExportCsvTest {
             sb.append(r.get("data"));
         };
     }
+
+    @Test
+    public void testExportAllCsvSharded() throws IOException {
+        String fileName = "sharded.csv";
+        long nodes = TestUtil.singleResultFirstColumn(db, "MATCH (n) RETURN count(n)");
+        long rels = TestUtil.singleResultFirstColumn(db, "MATCH ()-[r]->() RETURN count(r)");
+        TestUtil.testCall(
+                db, "CALL apoc.export.csv.all($file, {shards: 3, quotes: 'none'})", map("file", fileName), (r) -> {
+                    assertEquals(fileName, r.get("file"));
+                    assertEquals(nodes, r.get("nodes"));
+                    assertEquals(rels, r.get("relationships"));
+                    assertEquals(true, r.get("done"));
+                });
+
+        Map<String, Object> manifest = Util.fromJson(readFile("sharded.manifest.json"), Map.class);
+        List<Map<String, Object>> shards = (List<Map<String, Object>>) manifest.get("shards");
+        assertEquals(3, shards.size());
+        Set<String> nodeIds = new HashSet<>();
+        long relRows = 0;
+        for (int i = 0; i < shards.size(); i++) {
+            String shardFile = String.format("sharded.part-%05d.csv", i);
+            assertEquals(shardFile, shards.get(i).get("file"));
+            List<String> lines = Files.readAllLines(new File(directory, shardFile).toPath());
+            // every shard has its own header
+            assertTrue(lines.get(0).startsWith("_id,_labels,"));
+            for (String line : lines.subList(1, lines.size())) {
+                if (line.startsWith(",")) {
+                    relRows++;
+                } else {
+                    assertTrue(nodeIds.add(line.substring(0, line.indexOf(','))));
+                }
+            }
+        }
+        assertEquals(nodes, nodeIds.size());
+        assertEquals(rels, relRows);
+    }
+
+    @Test
+    public void testExportQueryCsvShardedNotAllowed() {
+        QueryExecutionException e = Assert.assertThrows(
+                QueryExecutionException.class,
+                () -> TestUtil.testCall(
+                        db,
+                        "CALL apoc.export.csv.query('MATCH (n) RETURN n', 'sharded.csv', {shards: 2})",
+                        (r) -> {}));
+        assertError(
+                e,
+                "You can use the `shards` config only with apoc.export.csv.all",
+                IllegalArgumentException.class,
+                "apoc.export.csv.query");
+    }
 }
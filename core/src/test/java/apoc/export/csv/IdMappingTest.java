@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.export.csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class IdMappingTest {
+
+    @Test
+    public void shouldMapNumericIds() {
+        try (IdMapping idMapping = new IdMapping(-1)) {
+            IdMapping.IdSpace persons = idMapping.idSpace("Person");
+            assertTrue(persons.putIfAbsent("1", 10));
+            assertTrue(persons.putIfAbsent("-2", 20));
+            assertFalse(persons.putIfAbsent("1", 30));
+
+            assertEquals(10, idMapping.get("Person", "1"));
+            assertEquals(20, idMapping.get("Person", "-2"));
+            assertEquals(IdMapping.NOT_FOUND, idMapping.get("Person", "01"));
+            assertEquals(IdMapping.NOT_FOUND, idMapping.get("Person", "3"));
+            assertEquals(IdMapping.NOT_FOUND, idMapping.get("Company", "1"));
+        }
+    }
+
+    @Test
+    public void shouldSwitchToStringIdsKeepingTheNumericOnes() {
+        try (IdMapping idMapping = new IdMapping(-1)) {
+            IdMapping.IdSpace persons = idMapping.idSpace("Person");
+            assertTrue(persons.putIfAbsent("7", 1));
+            assertTrue(persons.putIfAbsent("007", 2));
+            assertTrue(persons.putIfAbsent("p-ü", 3));
+            assertFalse(persons.putIfAbsent("7", 4));
+
+            assertEquals(1, idMapping.get("Person", "7"));
+            assertEquals(2, idMapping.get("Person", "007"));
+            assertEquals(3, idMapping.get("Person", "p-ü"));
+        }
+    }
+
+    @Test
+    public void shouldSpillStringIdsOverTheMemoryBudget() {
+        int count = 200_000;
+        try (IdMapping idMapping = new IdMapping(0)) {
+            IdMapping.IdSpace persons = idMapping.idSpace("Person");
+            for (int i = 0; i < count; i++) {
+                assertTrue(persons.putIfAbsent("person-" + i, i));
+            }
+            for (int i = 0; i < count; i++) {
+                assertEquals(i, idMapping.get("Person", "person-" + i));
+            }
+            assertEquals(IdMapping.NOT_FOUND, idMapping.get("Person", "person-" + count));
+        }
+    }
+
+    @Test
+    public void shouldRecognizeCanonicalLongs() {
+        assertTrue(IdMapping.isCanonicalLong("0"));
+        assertTrue(IdMapping.isCanonicalLong("-15"));
+        assertTrue(IdMapping.isCanonicalLong("123456789012345678"));
+        assertFalse(IdMapping.isCanonicalLong(""));
+        assertFalse(IdMapping.isCanonicalLong("-"));
+        assertFalse(IdMapping.isCanonicalLong("-0"));
+        assertFalse(IdMapping.isCanonicalLong("012"));
+        assertFalse(IdMapping.isCanonicalLong("1e3"));
+        assertFalse(IdMapping.isCanonicalLong("1234567890123456789"));
+    }
+}
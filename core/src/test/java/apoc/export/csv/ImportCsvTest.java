@@ -45,6 +45,7 @@ import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -152,6 +153,10 @@ public class ImportCsvTest {
                             "rel-type",
                             ":START_ID|:END_ID|:TYPE|since:INT\n" + "1|2|FRIENDS_WITH|2016\n" + "2|1||2016\n"),
                     new AbstractMap.SimpleEntry<>("typeless", ":ID|name\n" + "1|John\n" + "2|Jane\n"),
+                    new AbstractMap.SimpleEntry<>(
+                            "string-ids-persons", ":ID|name:STRING\n" + "p-1|John\n" + "007|Jane\n" + "7|Joe\n"),
+                    new AbstractMap.SimpleEntry<>(
+                            "string-ids-knows", ":START_ID|:END_ID\n" + "p-1|007\n" + "007|7\n" + "7|p-1\n"),
                     new AbstractMap.SimpleEntry<>("personsWithoutIdField", "name:STRING\n" + "John\n" + "Jane\n"),
                     new AbstractMap.SimpleEntry<>(
                             "emptyInteger",
@@ -830,4 +835,105 @@ public class ImportCsvTest {
         long id = TestUtil.<Long>singleResultFirstColumn(db, "MATCH (n:Person) RETURN n.id AS id ORDER BY id");
         Assert.assertEquals(1L, id);
     }
+
+    @Test
+    public void testImportWithStringIdsSpilledToDisk() {
+        TestUtil.testCall(
+                db,
+                "CALL apoc.import.csv([{fileName: $nodeFile, labels: ['Person']}], [{fileName: $relFile, type: 'KNOWS'}], $config)",
+                map(
+                        "nodeFile",
+                        "file:/string-ids-persons.csv",
+                        "relFile",
+                        "file:/string-ids-knows.csv",
+                        "config",
+                        map("delimiter", '|', "idMappingMaxMemory", 0)),
+                (r) -> {
+                    assertEquals(3L, r.get("nodes"));
+                    assertEquals(3L, r.get("relationships"));
+                });
+
+        List<String> pairs = TestUtil.firstColumn(
+                db, "MATCH (p1:Person)-[:KNOWS]->(p2:Person) RETURN p1.name + ' ' + p2.name AS pair ORDER BY pair");
+        assertThat(pairs, Matchers.contains("Jane Joe", "Joe John", "John Jane"));
+    }
+
+    @Test
+    public void testImportFilesConcurrently() {
+        TestUtil.testCall(
+                db,
+                "CALL apoc.import.csv(" + "["
+                        + "  {fileName: $personFile, labels: ['Person']},"
+                        + "  {fileName: $companyFile, labels: ['Company']},"
+                        + "  {fileName: $universityFile, labels: ['University']},"
+                        + "  {fileName: $duplicatePersonFile, labels: ['Person']}"
+                        + "],"
+                        + "["
+                        + "  {fileName: $relFile, type: 'AFFILIATED_WITH'},"
+                        + "  {fileName: $relFile, type: 'WORKS_FOR'}"
+                        + "],"
+                        + " $config)",
+                map(
+                        "personFile", "file:/custom-ids-idspaces-persons.csv",
+                        "companyFile", "file:/custom-ids-idspaces-companies.csv",
+                        "universityFile", "file:/custom-ids-idspaces-unis.csv",
+                        "duplicatePersonFile", "file:/custom-ids-idspaces-persons.csv",
+                        "relFile", "file:/custom-ids-idspaces-affiliated-with.csv",
+                        "config", map("concurrency", 4, "ignoreDuplicateNodes", true)),
+                (r) -> {
+                    assertEquals(4L, r.get("nodes"));
+                    assertEquals(4L, r.get("relationships"));
+                });
+
+        List<String> pairs = TestUtil.firstColumn(
+                db,
+                "MATCH (p:Person)-[r]->(org) RETURN p.name + ' ' + type(r) + ' ' + org.name AS pair ORDER BY pair");
+        assertThat(
+                pairs,
+                Matchers.contains(
+                        "Jane AFFILIATED_WITH Neo4j",
+                        "Jane WORKS_FOR Neo4j",
+                        "John AFFILIATED_WITH TU Munich",
+                        "John WORKS_FOR TU Munich"));
+    }
+
+    @Test
+    public void testImportFilesConcurrentlyCountsAllTheEntities() throws IOException {
+        // given - many batches per file, so that the files commit and report at the same time
+        int files = 4;
+        int rowsPerFile = 2000;
+        for (int file = 0; file < files; file++) {
+            StringBuilder persons = new StringBuilder("id:ID,name\n");
+            StringBuilder knows = new StringBuilder(":START_ID,:END_ID,since:int\n");
+            for (int row = 0; row < rowsPerFile; row++) {
+                int id = file * rowsPerFile + row;
+                persons.append(id).append(",Person_").append(id).append('\n');
+                knows.append(id).append(',').append((id + 1) % (files * rowsPerFile)).append(",2000\n");
+            }
+            CsvTestUtil.saveCsvFile("concurrent-persons-" + file, persons.toString());
+            CsvTestUtil.saveCsvFile("concurrent-knows-" + file, knows.toString());
+        }
+        List<Map<String, Object>> nodes = new ArrayList<>();
+        List<Map<String, Object>> relationships = new ArrayList<>();
+        for (int file = 0; file < files; file++) {
+            nodes.add(map("fileName", "file:/concurrent-persons-" + file + ".csv", "labels", List.of("Person")));
+            relationships.add(map("fileName", "file:/concurrent-knows-" + file + ".csv", "type", "KNOWS"));
+        }
+
+        // when
+        TestUtil.testCall(
+                db,
+                "CALL apoc.import.csv($nodes, $relationships, {concurrency: 4, batchSize: 100})",
+                map("nodes", nodes, "relationships", relationships),
+                (r) -> {
+                    // then
+                    assertEquals((long) files * rowsPerFile, r.get("nodes"));
+                    assertEquals((long) files * rowsPerFile, r.get("relationships"));
+                    // `id` and `name` for each node, `since` for each relationship
+                    assertEquals(3L * files * rowsPerFile, r.get("properties"));
+                });
+
+        long knows = TestUtil.<Long>singleResultFirstColumn(db, "MATCH (:Person)-[r:KNOWS]->(:Person) RETURN count(r)");
+        assertEquals((long) files * rowsPerFile, knows);
+    }
 }
@@ -42,6 +42,7 @@ import apoc.util.FileTestUtil;
 import apoc.util.TestUtil;
 import apoc.util.Util;
 import java.io.File;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Map;
 import org.junit.After;
@@ -96,6 +97,30 @@ public class ExportJsonTest {
         assertFileEquals(filename);
     }
 
+    @Test
+    public void testExportAllJsonSharded() throws Exception {
+        String filename = "sharded.json";
+        TestUtil.testCall(db, "CALL apoc.export.json.all($file, {shards: 2})", map("file", filename), (r) -> {
+            assertEquals(filename, r.get("file"));
+            assertEquals(3L, r.get("nodes"));
+            assertEquals(1L, r.get("relationships"));
+        });
+
+        Map<String, Object> manifest = Util.fromJson(
+                BinaryTestUtil.readFileToString(new File(directory, "sharded.manifest.json"), UTF_8, NONE), Map.class);
+        List<Map<String, Object>> shards = (List<Map<String, Object>>) manifest.get("shards");
+        assertEquals(
+                List.of("sharded.part-00000.json", "sharded.part-00001.json"),
+                Util.map(shards.stream(), s -> s.get("file")));
+        // the ids are split in [0, 2) and [2, 3) for the nodes, [0, 1) and [1, 1) for the relationships
+        List<String> first = Files.readAllLines(new File(directory, "sharded.part-00000.json").toPath());
+        List<String> second = Files.readAllLines(new File(directory, "sharded.part-00001.json").toPath());
+        assertEquals(3, first.size());
+        assertEquals(1, second.size());
+        assertTrue(first.get(2).contains("\"type\":\"relationship\""));
+        assertTrue(second.get(0).contains("\"type\":\"node\""));
+    }
+
     @Test
     public void testJsonRoundtrip() {
         db.executeTransactionally("CREATE CONSTRAINT ON (n:User) assert n.neo4jImportId IS UNIQUE;");
@@ -254,6 +254,50 @@ public class XmlTest {
                 });
     }
 
+    @Test
+    public void testStreamingXPathReturnsTheSameRows() {
+        String query = "CALL apoc.load.xml('file:databases.xml', $path, $config) YIELD value RETURN collect(value) AS values";
+        for (String path : List.of("/", "/parent/child", "parent/child", "//grandchild", "/parent/*[@name]")) {
+            Object expected = singleResultFirstColumn(db, query, map("path", path, "config", map()));
+            Object actual = singleResultFirstColumn(db, query, map("path", path, "config", map("streaming", true)));
+            assertEquals(path, expected, actual);
+        }
+    }
+
+    @Test
+    public void testStreamingXPathWithAttributePredicate() {
+        testCall(
+                db,
+                "CALL apoc.load.xml('" + TestUtil.getUrlFileName("xml/books.xml")
+                        + "', '/catalog/book[@id=\"bk102\"]/author', {streaming: true}) yield value as result",
+                (r) -> {
+                    assertEquals("author", ((Map) r.get("result")).get("_type"));
+                    assertEquals("Ralls, Kim", ((Map) r.get("result")).get("_text"));
+                });
+        testCall(
+                db,
+                "CALL apoc.load.xml('" + TestUtil.getUrlFileName("xml/books.xml")
+                        + "', '//author', {streaming: true}) yield value RETURN count(*) AS count",
+                (r) -> assertEquals(13L, r.get("count")));
+    }
+
+    @Test
+    public void testStreamingXPathWithUnsupportedPath() {
+        try {
+            testCall(
+                    db,
+                    "CALL apoc.load.xml('" + TestUtil.getUrlFileName("xml/books.xml")
+                            + "', '/catalog/book[title=\"Maeve Ascendant\"]', {streaming: true})",
+                    (r) -> {});
+        } catch (QueryExecutionException e) {
+            Throwable except = ExceptionUtils.getRootCause(e);
+            assertTrue(except instanceof IllegalArgumentException);
+            assertTrue(except.getMessage().contains("is not supported with streaming: true"));
+            return;
+        }
+        throw new AssertionError("The path should not be supported with streaming: true");
+    }
+
     @Test
     public void testLoadXmlXpathGenreFromBookTitle() {
         testCall(
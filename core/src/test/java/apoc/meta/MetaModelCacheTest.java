@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.meta;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.configuration.GraphDatabaseSettings.procedure_unrestricted;
+
+import apoc.util.TestUtil;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ProvideSystemProperty;
+import org.neo4j.test.rule.DbmsRule;
+import org.neo4j.test.rule.ImpermanentDbmsRule;
+
+public class MetaModelCacheTest {
+
+    // the cache registers its listener on start, so it has to be enabled before the database starts
+    @ClassRule
+    public static final ProvideSystemProperty systemPropertyRule =
+            new ProvideSystemProperty(MetaModelCache.APOC_META_CACHE_ENABLED, "true");
+
+    @Rule
+    public DbmsRule db = new ImpermanentDbmsRule().withSetting(procedure_unrestricted, List.of("apoc.meta.*"));
+
+    @Before
+    public void setUp() {
+        TestUtil.registerProcedure(db, Meta.class);
+        db.executeTransactionally("CREATE (:Person {name: 'a'})-[:KNOWS {since: 2020}]->(:Person {name: 'b'}), "
+                + "(:City {name: 'London'})");
+    }
+
+    @After
+    public void teardown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testCachedMetaDataIsRefreshedByChanges() {
+        Set<String> properties = metaData(true);
+        assertEquals(metaData(false), properties);
+        assertTrue(properties.contains("Person.name:STRING"));
+        assertTrue(properties.contains("KNOWS.since:INTEGER"));
+        assertTrue(properties.contains("City.name:STRING"));
+        assertFalse(properties.contains("Person.age:INTEGER"));
+
+        db.executeTransactionally("MATCH (p:Person {name: 'a'}) SET p.age = 42");
+        db.executeTransactionally("CREATE (:Country {code: 'UK'})");
+        db.executeTransactionally("MATCH (a:Person {name: 'a'}), (c:City) CREATE (a)-[:LIVES_IN {from: 2021}]->(c)");
+
+        properties = metaData(true);
+        assertEquals(metaData(false), properties);
+        assertTrue(properties.contains("Person.age:INTEGER"));
+        assertTrue(properties.contains("Country.code:STRING"));
+        assertTrue(properties.contains("Person.LIVES_IN:RELATIONSHIP"));
+        assertTrue(properties.contains("LIVES_IN.from:INTEGER"));
+
+        db.executeTransactionally("MATCH (c:Country) DETACH DELETE c");
+        db.executeTransactionally("MATCH (p:Person) REMOVE p.age");
+
+        properties = metaData(true);
+        assertEquals(metaData(false), properties);
+        assertFalse(properties.contains("Country.code:STRING"));
+        assertFalse(properties.contains("Person.age:INTEGER"));
+    }
+
+    @Test
+    public void testCachedRowsAreRefreshedByChangesAtTheOtherEnd() {
+        Set<Map<String, Object>> rows = metaDataRows(true);
+        assertEquals(metaDataRows(false), rows);
+
+        // City only has incoming relationships, its degrees and the labels at the other end change
+        db.executeTransactionally("MATCH (a:Person {name: 'a'}), (c:City) CREATE (a)-[:LIVES_IN]->(c)");
+
+        rows = metaDataRows(true);
+        assertEquals(metaDataRows(false), rows);
+        assertTrue(rows.stream()
+                .anyMatch(row -> "City".equals(row.get("label")) && "LIVES_IN".equals(row.get("property"))));
+
+        db.executeTransactionally("MATCH (p:Person {name: 'a'}) SET p:Resident");
+
+        rows = metaDataRows(true);
+        assertEquals(metaDataRows(false), rows);
+        assertTrue(rows.stream()
+                .anyMatch(row -> "City".equals(row.get("label"))
+                        && ((Set<String>) row.get("other")).contains("Resident")));
+
+        db.executeTransactionally("MATCH (:Person)-[r:LIVES_IN]->(:City) DELETE r");
+
+        assertEquals(metaDataRows(false), metaDataRows(true));
+    }
+
+    @Test
+    public void testCacheIsKeyedByTheSamplingConfig() {
+        db.executeTransactionally("MATCH (a:Person {name: 'a'}), (c:City) CREATE (a)-[:LIVES_IN]->(c)");
+
+        for (Map<String, Object> config : List.of(Map.of("sample", -1L), Map.of("sample", -1L, "maxRels", 1L))) {
+            Set<String> cached = metaData(config, true);
+            assertEquals(metaData(config, false), cached);
+            assertEquals(cached, metaData(config, true));
+        }
+        assertEquals(metaData(Map.of("sample", -1L), false), metaData(Map.of("sample", -1L), true));
+    }
+
+    @Test
+    public void testSchemaChangesInvalidateTheCache() {
+        String query =
+                "CALL apoc.meta.schema({sample: -1}) YIELD value RETURN value.City.properties.name.indexed AS indexed";
+        TestUtil.testCall(db, query, row -> assertEquals(false, row.get("indexed")));
+
+        db.executeTransactionally("CREATE INDEX city_name FOR (c:City) ON (c.name)");
+        db.executeTransactionally("CALL db.awaitIndexes()");
+
+        TestUtil.testCall(db, query, row -> assertEquals(true, row.get("indexed")));
+    }
+
+    private Set<String> metaData(boolean useCache) {
+        return metaData(Map.of("sample", -1L), useCache);
+    }
+
+    private Set<String> metaData(Map<String, Object> config, boolean useCache) {
+        Map<String, Object> callConfig = new HashMap<>(config);
+        callConfig.put("useCache", useCache);
+        return db.executeTransactionally(
+                "CALL apoc.meta.data($config) YIELD label, property, type "
+                        + "RETURN label + '.' + property + ':' + type AS entry",
+                Map.of("config", callConfig),
+                result -> result.stream().map(row -> (String) row.get("entry")).collect(Collectors.toSet()));
+    }
+
+    private Set<Map<String, Object>> metaDataRows(boolean useCache) {
+        return db.executeTransactionally(
+                "CALL apoc.meta.data({sample: -1, useCache: $useCache}) "
+                        + "YIELD label, property, type, count, leftCount, rightCount, other "
+                        + "RETURN label, property, type, count, leftCount, rightCount, other",
+                Map.of("useCache", useCache),
+                result -> result.stream()
+                        .map(row -> {
+                            // the order of the labels at the other end doesn't matter
+                            Map<String, Object> entry = new HashMap<>(row);
+                            entry.put("other", new HashSet<>((List<String>) row.get("other")));
+                            return entry;
+                        })
+                        .collect(Collectors.toSet()));
+    }
+}
@@ -1988,6 +1988,30 @@ public class MetaTest {
                 row -> assertEquals(3L, row.get("count")));
     }
 
+    @Test
+    public void testMetaNodesCountInParallel() {
+        // enough nodes to be split across the workers, half of them with both labels and half with a relationship
+        int size = NodesWithRelationshipsCounter.PARALLEL_THRESHOLD + 2000;
+        db.executeTransactionally(
+                "UNWIND range(1, $size) AS i CREATE (n:ParallelCount {id: i}) "
+                        + "FOREACH (_ IN CASE WHEN i % 2 = 0 THEN [1] ELSE [] END | SET n:OtherParallelCount) "
+                        + "FOREACH (_ IN CASE WHEN i % 4 < 2 THEN [1] ELSE [] END | CREATE (n)-[:PARALLEL_REL]->(:Target))",
+                Map.of("size", size));
+
+        TestUtil.testCall(
+                db,
+                "RETURN apoc.meta.nodes.count(['ParallelCount', 'OtherParallelCount'], {rels: ['PARALLEL_REL>']}) AS count",
+                row -> assertEquals((long) size / 2, row.get("count")));
+        TestUtil.testCall(
+                db,
+                "RETURN apoc.meta.nodes.count(['OtherParallelCount'], {rels: ['PARALLEL_REL']}) AS count",
+                row -> assertEquals((long) size / 4, row.get("count")));
+        TestUtil.testCall(
+                db,
+                "RETURN apoc.meta.nodes.count(['ParallelCount'], {rels: ['PARALLEL_REL<']}) AS count",
+                row -> assertEquals(0L, row.get("count")));
+    }
+
     @Test
     public void testRelTypePropertiesMovies() throws Exception {
         final String query = IOUtils.toString(new InputStreamReader(
@@ -23,6 +23,7 @@ import static org.junit.Assert.assertEquals;
 import apoc.util.TestUtil;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import org.junit.After;
 import org.junit.Before;
@@ -211,4 +212,25 @@ public class NeighborsTest {
                         + "RETURN number",
                 (row) -> assertEquals(1L, row.get("number")));
     }
+
+    @Test
+    public void getNeighborsOfSupernodeInParallel() {
+        // the second hop frontier is large enough to be split across the workers
+        int size = NeighborExpander.PARALLEL_THRESHOLD + 2000;
+        db.executeTransactionally("CREATE (s:Super) WITH s UNWIND range(1, $size) AS i "
+                + "CREATE (s)-[:HAS]->(:Leaf)-[:HAS]->(:Leaf)", Map.of("size", size));
+
+        TestUtil.testCall(
+                db,
+                "MATCH (n:Super) CALL apoc.neighbors.tohop.count(n, 'HAS>', 3) YIELD value RETURN value",
+                (row) -> assertEquals(2L * size, row.get("value")));
+        TestUtil.testCall(
+                db,
+                "MATCH (n:Super) CALL apoc.neighbors.byhop.count(n, 'HAS>', 3) YIELD value RETURN value",
+                (row) -> assertEquals(List.of((long) size, (long) size, 0L), row.get("value")));
+        TestUtil.testCall(
+                db,
+                "MATCH (n:Super) CALL apoc.neighbors.athop(n, 'HAS>', 2) YIELD node RETURN count(DISTINCT node) AS count",
+                (row) -> assertEquals((long) size, row.get("count")));
+    }
 }
@@ -25,6 +25,7 @@ import static org.junit.Assert.*;
 import apoc.util.TestUtil;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -152,6 +153,40 @@ public class GroupingTest {
                 });
     }
 
+    @Test
+    public void testGroupNodeStreaming() {
+        createGraph();
+        db.executeTransactionally("MATCH (p:Person {name: 'Alice'}) SET p:Admin");
+        String query = "CALL apoc.nodes.group(['Person', 'Admin', 'Forum'], ['gender'], "
+                + "[{`*`:'count', age:['min', 'max']}, {`*`:'count', since:['min', 'max']}], $config) "
+                + "YIELD node, relationship "
+                + "RETURN labels(node)[0] + ':' + coalesce(node.gender, '') + ':' + node.`count_*` + ':' + "
+                + "coalesce(node.min_age, '') + ':' + coalesce(node.max_age, '') + ' ' + "
+                + "coalesce(type(relationship) + ':' + relationship.`count_*` + ':' + "
+                + "coalesce(relationship.min_since, '') + ':' + coalesce(relationship.max_since, '') + ' ' + "
+                + "labels(endNode(relationship))[0] + ':' + coalesce(endNode(relationship).gender, ''), '') AS row";
+
+        List<String> expected = groupRows(query, Map.of());
+        List<String> streamed = groupRows(query, Map.of("streaming", true));
+        assertEquals(expected, streamed);
+        assertTrue(streamed.contains("Person:female:2:28:32 KNOWS:2:2017:2018 Person:male"));
+        assertTrue(streamed.contains("Admin:female:1:32:32 KNOWS:1:2017:2017 Person:male"));
+
+        TestUtil.testCallCount(
+                db, "CALL apoc.nodes.group(['Person'], ['gender'], null, {streaming: true, orphans: false})", 1);
+        TestUtil.testCallCount(
+                db,
+                "CALL apoc.nodes.group(['Person'], ['gender'], null, {streaming: true, includeRels: 'MEMBER_OF'})",
+                2);
+    }
+
+    private List<String> groupRows(String query, Map<String, Object> config) {
+        return db.executeTransactionally(
+                query,
+                Map.of("config", config),
+                result -> result.stream().map(row -> (String) row.get("row")).sorted().collect(Collectors.toList()));
+    }
+
     @Test
     public void testRemoveOrphans() throws Exception {
         db.executeTransactionally("CREATE (u:User {gender:'male'})");
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.periodic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.neo4j.graphdb.TransactionTerminatedException;
+import org.neo4j.kernel.api.exceptions.Status;
+import org.neo4j.procedure.TerminationGuard;
+
+public class AdaptiveBatchControllerTest {
+    private static final TerminationGuard RUNNING = () -> {};
+    private static final TerminationGuard TERMINATED = () -> {
+        throw new TransactionTerminatedException(Status.Transaction.Terminated);
+    };
+
+    @Test
+    public void fixedControllerNeverChanges() {
+        AdaptiveBatchController controller = AdaptiveBatchController.fixed(500, 4);
+        assertFalse(controller.isAdaptive());
+        for (int i = 0; i < 20; i++) {
+            controller.batchCompleted(500, TimeUnit.SECONDS.toNanos(10), 3);
+        }
+        assertEquals(500, controller.getBatchSize());
+        assertEquals(4, controller.getConcurrency());
+    }
+
+    @Test
+    public void autoConfigStartsWithDefaults() {
+        AdaptiveBatchController controller = AdaptiveBatchController.fromConfig(
+                Map.of("batchSize", "auto", "concurrency", "AUTO", "parallel", true));
+        assertTrue(controller.isAdaptive());
+        assertEquals(AdaptiveBatchController.DEFAULT_AUTO_BATCH_SIZE, controller.getBatchSize());
+        assertEquals(Math.min(2, Runtime.getRuntime().availableProcessors()), controller.getConcurrency());
+    }
+
+    @Test
+    public void sequentialConfigHasASinglePermit() {
+        AdaptiveBatchController controller =
+                AdaptiveBatchController.fromConfig(Map.of("batchSize", "auto", "concurrency", "auto"));
+        assertTrue(controller.isAdaptive());
+        assertEquals(1, controller.getConcurrency());
+        assertEquals(1, controller.getMaxConcurrency());
+        assertTrue(controller.acquire(RUNNING));
+        assertFalse(controller.acquire(TERMINATED));
+        // a single batch keeps the window, and the concurrency, unchanged
+        controller.batchCompleted(1000, TimeUnit.MILLISECONDS.toNanos(10), 0);
+        controller.batchCompleted(1000, TimeUnit.MILLISECONDS.toNanos(10), 0);
+        assertEquals(1, controller.getConcurrency());
+        assertEquals(2000, controller.getBatchSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidConcurrencyFails() {
+        AdaptiveBatchController.fromConfig(Map.of("concurrency", 0));
+    }
+
+    @Test
+    public void retriesShrinkConcurrencyAndBatchSize() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(8, 1000, true, true, 16, 100, 100000, 1000);
+        for (int i = 0; i < 8; i++) {
+            controller.batchCompleted(1000, TimeUnit.MILLISECONDS.toNanos(500), 1);
+        }
+        assertEquals(4, controller.getConcurrency());
+        assertEquals(500, controller.getBatchSize());
+    }
+
+    @Test
+    public void fastBatchesGrowConcurrencyAndBatchSize() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(2, 1000, true, true, 16, 100, 100000, 1000);
+        for (int i = 0; i < 2; i++) {
+            controller.batchCompleted(1000, TimeUnit.MILLISECONDS.toNanos(10), 0);
+        }
+        assertEquals(3, controller.getConcurrency());
+        assertEquals(2000, controller.getBatchSize());
+    }
+
+    @Test
+    public void slowBatchesShrinkBatchSizeUpToTheMinimum() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(2, 400, false, true, 2, 100, 100000, 1000);
+        for (int i = 0; i < 20; i++) {
+            controller.batchCompleted(400, TimeUnit.SECONDS.toNanos(5), 0);
+        }
+        assertEquals(100, controller.getBatchSize());
+        assertEquals(2, controller.getConcurrency());
+    }
+
+    @Test
+    public void acquireStopsWhenTerminated() {
+        AdaptiveBatchController controller = AdaptiveBatchController.fixed(10, 1);
+        assertTrue(controller.acquire(RUNNING));
+        assertFalse(controller.acquire(TERMINATED));
+        controller.release();
+        assertTrue(controller.acquire(TERMINATED));
+    }
+}
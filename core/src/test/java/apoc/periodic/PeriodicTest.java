@@ -475,6 +475,87 @@ public class PeriodicTest {
                 row -> assertEquals(100L, row.get("count")));
     }
 
+    @Test
+    public void testIterateWithAutoConcurrencyAndBatchSize() {
+        db.executeTransactionally("UNWIND range(1,5000) AS x CREATE (:Person{name:'Person_'+x})");
+
+        testResult(
+                db,
+                "CALL apoc.periodic.iterate('match (p:Person) return p', 'SET p.lastname =p.name REMOVE p.name', {batchSize:'auto',concurrency:'auto',parallel:true})",
+                result -> {
+                    Map<String, Object> row = Iterators.single(result);
+                    assertEquals(5000L, row.get("total"));
+                    assertEquals(5000L, row.get("committedOperations"));
+                    assertEquals(0L, row.get("failedBatches"));
+                });
+
+        testCall(
+                db,
+                "MATCH (p:Person) where p.lastname is not null return count(p) as count",
+                row -> assertEquals(5000L, row.get("count")));
+    }
+
+    @Test
+    public void testIterateWithAutoBatchSizeSequential() {
+        db.executeTransactionally("UNWIND range(1,10000) AS x CREATE (:Person{name:'Person_'+x})");
+
+        // the batches are fast compared to the target latency, so the batch size keeps doubling from 1000:
+        // the batches are taken one at a time, after the feedback of the previous one
+        testResult(
+                db,
+                "CALL apoc.periodic.iterate('match (p:Person) return p', 'SET p.lastname =p.name REMOVE p.name', "
+                        + "{batchSize:'auto', parallel:false, targetBatchLatency:60000})",
+                result -> {
+                    Map<String, Object> row = Iterators.single(result);
+                    assertEquals(10000L, row.get("total"));
+                    assertEquals(10000L, row.get("committedOperations"));
+                    assertEquals(5L, row.get("batches"));
+                    assertEquals(0L, row.get("failedBatches"));
+                });
+
+        testCall(
+                db,
+                "MATCH (p:Person) where p.lastname is not null return count(p) as count",
+                row -> assertEquals(10000L, row.get("count")));
+    }
+
+    @Test
+    public void testIterateWithPartitionBy() {
+        db.executeTransactionally("UNWIND range(1,10) AS x CREATE (:Hub{id:x})");
+
+        testResult(
+                db,
+                "CALL apoc.periodic.iterate('UNWIND range(1,2000) AS x MATCH (h:Hub {id: x % 10 + 1}) RETURN h, x', "
+                        + "'MERGE (h)-[:HAS]->(:Leaf {id: x})', {batchSize:50, parallel:true, partitionBy:'h', retries:0})",
+                result -> {
+                    Map<String, Object> row = Iterators.single(result);
+                    assertEquals(2000L, row.get("total"));
+                    assertEquals(2000L, row.get("committedOperations"));
+                    assertEquals(0L, row.get("failedBatches"));
+                    assertEquals(0L, row.get("retries"));
+                });
+
+        testCall(
+                db,
+                "MATCH (:Hub)-[:HAS]->(l:Leaf) RETURN count(l) as count",
+                row -> assertEquals(2000L, row.get("count")));
+    }
+
+    @Test(expected = QueryExecutionException.class)
+    public void testIterateWithUnknownPartitionBy() {
+        testFail("CALL apoc.periodic.iterate('UNWIND range(0, 10) AS x RETURN x', 'RETURN x', "
+                + "{parallel:true, partitionBy:'y'})");
+    }
+
+    @Test
+    public void testIterateWithPartitionByWithoutParallel() {
+        try {
+            testFail("CALL apoc.periodic.iterate('UNWIND range(0, 10) AS x RETURN x', 'RETURN x', {partitionBy:'x'})");
+        } catch (QueryExecutionException e) {
+            assertTrue(e.getMessage().contains("The partitionBy parameter requires parallel:true"));
+        }
+    }
+
     @Test
     public void testIterateWithQueryPlanner() throws Exception {
         db.executeTransactionally("UNWIND range(1,100) AS x CREATE (:Person{name:'Person_'+x})");
@@ -681,6 +762,158 @@ public class PeriodicTest {
                 });
     }
 
+    @Test
+    public void testIterateSplitOnFailureWithDeadLetter() {
+        testResult(
+                db,
+                "CALL apoc.periodic.iterate('UNWIND range(-5, 5) AS x RETURN x', 'CREATE (:Result {value: 1000/x})', "
+                        + "{batchSize:11, splitOnFailure:true, retries:1, backoff:'exponential', backoffDelay:1, deadLetter:{label:'FailedRow'}})",
+                result -> {
+                    Map<String, Object> row = Iterators.single(result);
+                    assertEquals(1L, row.get("batches"));
+                    assertEquals(11L, row.get("total"));
+                    assertEquals(10L, row.get("committedOperations"));
+                    assertEquals(1L, row.get("failedOperations"));
+                    assertEquals(1L, row.get("failedBatches"));
+                    // only the whole batch is retried, not its halves
+                    assertEquals(1L, row.get("retries"));
+                });
+
+        testCall(db, "MATCH (n:Result) RETURN count(n) AS count", row -> assertEquals(10L, row.get("count")));
+        testCall(db, "MATCH (n:FailedRow) RETURN n.row AS row, n.error AS error", row -> {
+            assertEquals("{\"x\":0}", row.get("row"));
+            assertTrue(((String) row.get("error")).contains("by zero"));
+        });
+    }
+
+    @Test
+    public void testIterateSplitOnFailureCountsOnlyTheCommittedUpdates() {
+        for (boolean iterateList : List.of(true, false)) {
+            testResult(
+                    db,
+                    "CALL apoc.periodic.iterate('UNWIND range(-5, 5) AS x RETURN x', "
+                            + "'CREATE (:Counted {iterateList: $iterateList, value: 1000/x})', "
+                            + "{batchSize:11, splitOnFailure:true, retries:2, backoffDelay:1, iterateList: $iterateList, "
+                            + "params: {iterateList: $iterateList}})",
+                    map("iterateList", iterateList),
+                    result -> {
+                        Map<String, Object> row = Iterators.single(result);
+                        assertEquals(10L, row.get("committedOperations"));
+                        assertEquals(2L, row.get("retries"));
+                        // the rolled back executions, i.e. the retries of the whole batch and its failed halves,
+                        // are not counted
+                        Map<String, Object> updates = (Map<String, Object>) row.get("updateStatistics");
+                        assertEquals(10L, updates.get("nodesCreated"));
+                        assertEquals(20L, updates.get("propertiesSet"));
+                        assertEquals(10L, updates.get("labelsAdded"));
+                    });
+            testCall(
+                    db,
+                    "MATCH (n:Counted {iterateList: $iterateList}) RETURN count(n) AS count",
+                    map("iterateList", iterateList),
+                    row -> assertEquals(10L, row.get("count")));
+        }
+    }
+
+    @Test
+    public void testIterateCheckpointAndResume() {
+        db.executeTransactionally("UNWIND range(1,100) AS x CREATE (:Item {id: x, fail: x = 55})");
+        String action = "SET i.processed = true, i.check = 1 / (CASE WHEN i.fail THEN 0 ELSE 1 END)";
+
+        testResult(
+                db,
+                "CALL apoc.periodic.iterate('MATCH (i:Item) RETURN i ORDER BY i.id', $action, {batchSize:10, checkpoint: {jobId: 'items'}})",
+                map("action", action),
+                result -> {
+                    Map<String, Object> row = Iterators.single(result);
+                    assertEquals(100L, row.get("total"));
+                    assertEquals(1L, row.get("failedBatches"));
+                });
+
+        // the batch with id 55 didn't commit, we fix it and resume from it
+        db.executeTransactionally("MATCH (i:Item) SET i.fail = false REMOVE i.processed");
+        testResult(db, "CALL apoc.periodic.resume('items')", result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(50L, row.get("total"));
+            assertEquals(0L, row.get("failedBatches"));
+        });
+        testCall(
+                db,
+                "MATCH (i:Item) WHERE i.processed RETURN count(i) AS count, min(i.id) AS min",
+                row -> {
+                    assertEquals(50L, row.get("count"));
+                    assertEquals(51L, row.get("min"));
+                });
+
+        // the job is now completed
+        try {
+            testCall(db, "CALL apoc.periodic.resume('items')", row -> fail("The job should be completed"));
+        } catch (QueryExecutionException e) {
+            assertTrue(e.getMessage().contains("The periodic iterate job items has already completed"));
+        }
+    }
+
+    @Test
+    public void testIterateCheckpointWithCursor() {
+        db.executeTransactionally("UNWIND range(1,100) AS x CREATE (:Item {id: x})");
+
+        testCall(
+                db,
+                "CALL apoc.periodic.iterate('MATCH (i:Item) WHERE i.id > coalesce($_checkpoint, 0) RETURN i, i.id AS id ORDER BY id', "
+                        + "'SET i.processed = true', {batchSize:10, checkpoint: {jobId: 'cursor', cursor: 'id'}})",
+                row -> assertEquals(100L, row.get("total")));
+        testCall(
+                db,
+                "MATCH (i:Item) WHERE i.processed RETURN count(i) AS count",
+                row -> assertEquals(100L, row.get("count")));
+    }
+
+    @Test
+    public void testIterateCheckpointKeepsTheRowsDroppedBySplitOnFailure() {
+        db.executeTransactionally("UNWIND range(1,30) AS x CREATE (:Item {id: x, fail: x = 15})");
+        String action = "SET i.processed = true, i.check = 1 / (CASE WHEN i.fail THEN 0 ELSE 1 END)";
+
+        testResult(
+                db,
+                "CALL apoc.periodic.iterate('MATCH (i:Item) RETURN i ORDER BY i.id', $action, "
+                        + "{batchSize:10, splitOnFailure:true, checkpoint: {jobId: 'split'}})",
+                map("action", action),
+                result -> {
+                    Map<String, Object> row = Iterators.single(result);
+                    assertEquals(29L, row.get("committedOperations"));
+                    assertEquals(1L, row.get("failedOperations"));
+                });
+
+        // the failed row has no dead letter sink, so the checkpoint stopped before its batch
+        db.executeTransactionally("MATCH (i:Item) SET i.fail = false REMOVE i.processed");
+        testResult(db, "CALL apoc.periodic.resume('split')", result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(20L, row.get("total"));
+            assertEquals(0L, row.get("failedOperations"));
+        });
+        testCall(
+                db,
+                "MATCH (i:Item) WHERE i.processed RETURN count(i) AS count, min(i.id) AS min",
+                row -> {
+                    assertEquals(20L, row.get("count"));
+                    assertEquals(11L, row.get("min"));
+                });
+    }
+
+    @Test
+    public void testIterateCheckpointRejectsEntityParams() {
+        db.executeTransactionally("CREATE (:Item {id: 1})");
+        try {
+            testCall(
+                    db,
+                    "MATCH (i:Item) CALL apoc.periodic.iterate('RETURN $item AS i', 'SET i.processed = true', "
+                            + "{params: {item: i}, checkpoint: {jobId: 'entities'}}) YIELD total RETURN total",
+                    row -> fail("Nodes in the params should be rejected"));
+        } catch (QueryExecutionException e) {
+            assertTrue(e.getMessage().contains("can't contain nodes, relationships or paths"));
+        }
+    }
+
     @Test
     public void testIterateFail() throws Exception {
         db.executeTransactionally("UNWIND range(1,100) AS x CREATE (:Person{name:'Person_'+x})");
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.periodic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.LongUnaryOperator;
+import org.junit.Test;
+
+public class RetryBackoffTest {
+
+    @Test
+    public void defaultIsFixed() {
+        LongUnaryOperator delay = RetryBackoff.fromConfig(Collections.emptyMap());
+        assertEquals(100, delay.applyAsLong(0));
+        assertEquals(100, delay.applyAsLong(10));
+    }
+
+    @Test
+    public void exponentialIsCapped() {
+        LongUnaryOperator delay =
+                RetryBackoff.fromConfig(Map.of("backoff", "exponential", "backoffDelay", 50, "maxBackoffDelay", 1000));
+        assertEquals(50, delay.applyAsLong(0));
+        assertEquals(100, delay.applyAsLong(1));
+        assertEquals(800, delay.applyAsLong(4));
+        assertEquals(1000, delay.applyAsLong(5));
+        assertEquals(1000, delay.applyAsLong(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void jitterIsBoundedByExponential() {
+        LongUnaryOperator delay =
+                RetryBackoff.fromConfig(Map.of("backoff", "JITTER", "backoffDelay", 10, "maxBackoffDelay", 500));
+        for (int retry = 0; retry < 100; retry++) {
+            long value = delay.applyAsLong(retry);
+            assertTrue(value >= 0);
+            assertTrue(value <= Math.min(500, 10L << Math.min(retry, 30)));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.periodic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import org.neo4j.internal.helpers.collection.Pair;
+
+public class RowPartitionerTest {
+
+    @Test
+    public void keysFromConfig() {
+        assertTrue(RowPartitioner.keysFromConfig(null).isEmpty());
+        assertEquals(List.of("a"), RowPartitioner.keysFromConfig("a"));
+        assertEquals(List.of("a", "b"), RowPartitioner.keysFromConfig(List.of("a", "b")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failWithUnknownColumn() {
+        new RowPartitioner(List.of("missing"), 4).validate(List.of("a", "b"));
+    }
+
+    @Test
+    public void sameKeyAlwaysInTheSamePartition() {
+        RowPartitioner partitioner = new RowPartitioner(List.of("key"), 4);
+        List<Map<String, Object>> rows = IntStream.range(0, 1000)
+                .mapToObj(i -> Map.<String, Object>of("key", (long) (i % 10), "value", i))
+                .collect(Collectors.toList());
+
+        Map<Object, Integer> partitionByKey = new HashMap<>();
+        Iterator<Map<String, Object>> iterator = rows.iterator();
+        int total = 0;
+        Pair<Integer, List<Map<String, Object>>> batch;
+        while ((batch = partitioner.nextBatch(iterator, 30)) != null) {
+            assertTrue(batch.other().size() <= 30);
+            for (Map<String, Object> row : batch.other()) {
+                Integer previous = partitionByKey.putIfAbsent(row.get("key"), batch.first());
+                if (previous != null) {
+                    assertEquals(previous, batch.first());
+                }
+            }
+            total += batch.other().size();
+        }
+        assertEquals(1000, total);
+        assertFalse(partitioner.hasPending());
+        assertNull(partitioner.nextBatch(iterator, 30));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.stats;
+
+import static org.junit.Assert.assertEquals;
+
+import apoc.util.TestUtil;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ProvideSystemProperty;
+import org.neo4j.internal.helpers.collection.Iterators;
+import org.neo4j.test.rule.DbmsRule;
+import org.neo4j.test.rule.ImpermanentDbmsRule;
+
+public class DegreeHistogramsTest {
+
+    // the histograms register their listener on start, so they have to be enabled before the database starts
+    @ClassRule
+    public static final ProvideSystemProperty systemPropertyRule =
+            new ProvideSystemProperty(DegreeHistograms.APOC_STATS_DEGREES_MAINTAINED, "true");
+
+    @Rule
+    public DbmsRule db = new ImpermanentDbmsRule();
+
+    @Before
+    public void setUp() {
+        TestUtil.registerProcedure(db, DegreeDistribution.class);
+        db.executeTransactionally(
+                "UNWIND range(1,10) as rels CREATE (f:Foo {rels: rels}) WITH * UNWIND range(1,rels) as r CREATE (f)-[:BAR]->(f)");
+    }
+
+    @After
+    public void teardown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testMaintainedDegreesMatchTheScan() {
+        assertSameAsScan();
+
+        db.executeTransactionally("CREATE (:Foo {rels: 0})");
+        db.executeTransactionally("MATCH (f:Foo {rels: 10}) UNWIND range(1, 5) AS r CREATE (f)-[:BAR]->(f)");
+        db.executeTransactionally("MATCH (f:Foo {rels: 1}) DETACH DELETE f");
+        db.executeTransactionally("MATCH (a:Foo {rels: 2}), (b:Foo) WHERE b.rels > 5 CREATE (a)-[:KNOWS]->(b)");
+        db.executeTransactionally("MATCH (:Foo {rels: 3})-[r:BAR]->() WITH r LIMIT 2 DELETE r");
+        db.executeTransactionally("CREATE (a:Bar)-[:KNOWS]->(b:Bar) WITH a, b MATCH (a)-[r]->(b) DELETE r");
+
+        assertSameAsScan();
+    }
+
+    private void assertSameAsScan() {
+        for (String types : List.of("", "BAR>", "BAR<", "BAR", "KNOWS>", "KNOWS<", "KNOWS", "*")) {
+            Map<String, Object> params = Map.of("types", types);
+            List<Map<String, Object>> maintained =
+                    db.executeTransactionally("CALL apoc.stats.degrees($types)", params, Iterators::asList);
+            // with changes in the transaction the procedure falls back to scanning all the nodes
+            List<Map<String, Object>> scanned = db.executeTransactionally(
+                    "CREATE (t:Temp) DELETE t WITH * CALL apoc.stats.degrees($types) YIELD type, direction, total, "
+                            + "p50, p75, p90, p95, p99, p999, max, min, mean RETURN type, direction, total, "
+                            + "p50, p75, p90, p95, p99, p999, max, min, mean",
+                    params,
+                    Iterators::asList);
+            assertEquals(types, scanned, maintained);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.trigger;
+
+import static apoc.ApocSettings.apoc_trigger_enabled;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.configuration.GraphDatabaseSettings.procedure_unrestricted;
+
+import apoc.util.TestUtil;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ProvideSystemProperty;
+import org.neo4j.test.rule.DbmsRule;
+import org.neo4j.test.rule.ImpermanentDbmsRule;
+
+public class TriggerBatchedAsyncTest {
+
+    // we cannot set the batch config via apocConfig().setProperty in `@Before`, because the handler is already started
+    @ClassRule
+    public static final ProvideSystemProperty systemPropertyRule = new ProvideSystemProperty(
+                    AsyncTriggerQueue.BATCH_ENABLED, "true")
+            .and(AsyncTriggerQueue.BATCH_WINDOW, "1000");
+
+    @Rule
+    public DbmsRule db = new ImpermanentDbmsRule()
+            .withSetting(procedure_unrestricted, List.of("apoc*"))
+            .withSetting(apoc_trigger_enabled, true);
+
+    @Before
+    public void setUp() {
+        TestUtil.registerProcedure(db, Trigger.class);
+    }
+
+    @After
+    public void teardown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testCommitsAreCoalesced() {
+        db.executeTransactionally("CREATE (:Counter {executions: 0, nodes: 0})");
+        db.executeTransactionally("CALL apoc.trigger.add('count-created', 'MATCH (c:Counter) "
+                + "SET c.executions = c.executions + 1, c.nodes = c.nodes + size($createdNodes)', {phase: 'afterAsync'})");
+
+        int commits = 100;
+        for (int i = 0; i < commits; i++) {
+            db.executeTransactionally("CREATE (:Item {id: $id})", Map.of("id", i));
+        }
+
+        org.neo4j.test.assertion.Assert.assertEventually(
+                () -> db.executeTransactionally(
+                        "MATCH (c:Counter) RETURN c.nodes AS nodes", Map.of(), r -> (long) r.next().get("nodes")),
+                (value) -> value == commits,
+                30L,
+                TimeUnit.SECONDS);
+
+        db.executeTransactionally("MATCH (c:Counter) RETURN c.executions AS executions", Map.of(), r -> {
+            long executions = (long) r.next().get("executions");
+            assertTrue("Expected less executions than commits, but got " + executions, executions < commits);
+            return null;
+        });
+
+        TestUtil.testCall(db, "CALL apoc.trigger.queueStats()", row -> {
+            Map<String, Object> stats = (Map<String, Object>) row.get("value");
+            assertEquals(true, stats.get("batchEnabled"));
+            assertEquals(0L, stats.get("dropped"));
+            assertEquals((long) commits, stats.get("enqueued"));
+        });
+    }
+}
@@ -182,6 +182,36 @@ public class TriggerTest {
         });
     }
 
+    @Test
+    public void testSelectorFilters() {
+        db.executeTransactionally("CREATE (:Counter {count:0})");
+        db.executeTransactionally(
+                "CALL apoc.trigger.add('count-person-names','MATCH (c:Counter) SET c.count = c.count + 1',"
+                        + "{phase: 'after', labels: ['Person'], propertyKeys: 'name'})");
+
+        // neither the label nor the property key
+        db.executeTransactionally("CREATE (:Movie {title: 'Matrix'})");
+        // the label, but not the property key
+        db.executeTransactionally("CREATE (:Person {age: 42})");
+        // the property key, but not the label
+        db.executeTransactionally("CREATE (:Movie {name: 'Matrix'})");
+        TestUtil.testCall(db, "MATCH (c:Counter) RETURN c.count as count", (row) -> {
+            assertEquals(0L, row.get("count"));
+        });
+
+        db.executeTransactionally("CREATE (:Person {name: 'Keanu'})");
+        // the labels of the updated nodes are checked as well
+        db.executeTransactionally("MATCH (p:Person {age: 42}) SET p.name = 'Carrie-Anne'");
+        TestUtil.testCall(db, "MATCH (c:Counter) RETURN c.count as count", (row) -> {
+            assertEquals(2L, row.get("count"));
+        });
+    }
+
+    @Test(expected = QueryExecutionException.class)
+    public void testInvalidSelectorPhase() {
+        db.executeTransactionally("CALL apoc.trigger.add('invalid','RETURN 1',{phase: 'never'})");
+    }
+
     @Test
     public void testTxId() throws Exception {
         db.executeTransactionally(
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+import org.junit.Test;
+import org.neo4j.graphdb.TransactionTerminatedException;
+import org.neo4j.kernel.api.exceptions.Status;
+import org.neo4j.procedure.TerminationGuard;
+
+public class QueueBasedSpliteratorTest {
+    private static final Long TOMBSTONE = -1L;
+    private static final TerminationGuard NEVER_TERMINATED = () -> {};
+
+    @Test
+    public void shouldStreamAllElementsInOrder() {
+        BlockingQueue<Long> queue = new ArrayBlockingQueue<>(10);
+        produce(queue, 1000);
+
+        List<Long> result = StreamSupport.stream(
+                        new QueueBasedSpliterator<>(queue, TOMBSTONE, NEVER_TERMINATED, 10, 7), false)
+                .collect(Collectors.toList());
+
+        assertEquals(LongStream.range(0, 1000).boxed().collect(Collectors.toList()), result);
+    }
+
+    @Test
+    public void shouldStopAtTombstone() {
+        BlockingQueue<Long> queue = new ArrayBlockingQueue<>(10);
+        queue.add(1L);
+        queue.add(2L);
+        queue.add(TOMBSTONE);
+        QueueBasedSpliterator<Long> spliterator = new QueueBasedSpliterator<>(queue, TOMBSTONE, NEVER_TERMINATED, 10);
+
+        List<Long> result = new ArrayList<>();
+        while (spliterator.tryAdvance(result::add))
+            ;
+
+        assertEquals(List.of(1L, 2L), result);
+        assertFalse(spliterator.tryAdvance(result::add));
+        assertNull(spliterator.trySplit());
+    }
+
+    @Test
+    public void shouldSplitIntoChunks() {
+        BlockingQueue<Long> queue = new ArrayBlockingQueue<>(10);
+        for (long i = 0; i < 5; i++) {
+            queue.add(i);
+        }
+        queue.add(TOMBSTONE);
+        QueueBasedSpliterator<Long> spliterator =
+                new QueueBasedSpliterator<>(queue, TOMBSTONE, NEVER_TERMINATED, 10, 3);
+
+        Spliterator<Long> first = spliterator.trySplit();
+        assertEquals(3, first.estimateSize());
+        Spliterator<Long> second = spliterator.trySplit();
+        assertEquals(2, second.estimateSize());
+        assertNull(spliterator.trySplit());
+    }
+
+    @Test
+    public void shouldStreamInParallel() {
+        BlockingQueue<Long> queue = new ArrayBlockingQueue<>(100);
+        produce(queue, 10000);
+
+        long sum = StreamSupport.stream(new QueueBasedSpliterator<>(queue, TOMBSTONE, NEVER_TERMINATED, 10), true)
+                .mapToLong(Long::longValue)
+                .sum();
+
+        assertEquals(LongStream.range(0, 10000).sum(), sum);
+    }
+
+    @Test
+    public void shouldCheckTerminationWhileWaiting() {
+        BlockingQueue<Long> queue = new ArrayBlockingQueue<>(10);
+        AtomicBoolean terminated = new AtomicBoolean();
+        TerminationGuard guard = () -> {
+            if (terminated.get()) throw new TransactionTerminatedException(Status.Transaction.Terminated);
+        };
+        queue.add(1L);
+        QueueBasedSpliterator<Long> spliterator = new QueueBasedSpliterator<>(queue, TOMBSTONE, guard, 10);
+        assertTrue(spliterator.tryAdvance(value -> terminated.set(true)));
+        try {
+            spliterator.tryAdvance(value -> {});
+            fail("Should have been terminated");
+        } catch (TransactionTerminatedException e) {
+            // expected
+        }
+    }
+
+    private static void produce(BlockingQueue<Long> queue, int count) {
+        Util.newDaemonThread(() -> {
+                    for (long i = 0; i < count; i++) {
+                        QueueUtil.put(queue, i, 10);
+                    }
+                    QueueUtil.put(queue, TOMBSTONE, 10);
+                })
+                .start();
+    }
+}
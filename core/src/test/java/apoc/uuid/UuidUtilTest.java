@@ -47,6 +47,26 @@ public class UuidUtilTest {
         assertThat(output).isEqualTo("290d6cba-ce94-455e-b59f-029cf1e395c5");
     }
 
+    @Test
+    public void fastRandomUuid() {
+        var uuid = UuidUtil.fastRandomUuid();
+        assertThat(uuid.version()).isEqualTo(4);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(UuidUtil.fastRandomUuid()).isNotEqualTo(uuid);
+    }
+
+    @Test
+    public void timeOrderedUuid() {
+        long before = System.currentTimeMillis();
+        var uuid = UuidUtil.timeOrderedUuid();
+        long after = System.currentTimeMillis();
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        long timestamp = uuid.getMostSignificantBits() >>> 16;
+        assertThat(timestamp).isBetween(before, after);
+        assertThat(UuidUtil.timeOrderedUuid()).isNotEqualTo(uuid);
+    }
+
     @Test
     public void shouldFailIfHexFormatIsWrong() {
         var input = "290d6cba-455e-b59f-029cf1e395c5";
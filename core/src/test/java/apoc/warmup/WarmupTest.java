@@ -19,12 +19,22 @@
 package apoc.warmup;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
 
 import apoc.util.TestUtil;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.internal.helpers.collection.Iterators;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
@@ -91,4 +101,55 @@ public class WarmupTest {
             assertEquals(6L, r.get("indexPages"));
         });
     }
+
+    @Test
+    public void testWarmupTargets() {
+        db.executeTransactionally("CREATE INDEX foo_index FOR (f:Foo) ON (f.foo)");
+        db.executeTransactionally("CALL db.awaitIndexes()");
+        TestUtil.testResult(
+                db,
+                "CALL apoc.warmup.targets({labels: 'Foo', types: ['KNOWS', 'MISSING'], indexes: ['foo_index', 'missing_index'], properties: true})",
+                result -> {
+                    Map<String, Map<String, Object>> rows = Iterators.stream(result)
+                            .collect(Collectors.toMap(r -> r.get("type") + ":" + r.get("name"), r -> r));
+                    assertEquals(2L, rows.get("label:Foo").get("entities"));
+                    assertEquals(2L, rows.get("type:KNOWS").get("entities"));
+                    assertEquals(0L, rows.get("type:MISSING").get("entities"));
+                    assertTrue((long) rows.get("index:foo_index").get("pages") > 0);
+                    assertNull(rows.get("index:foo_index").get("error"));
+                    assertEquals(
+                            "There is no index with name missing_index",
+                            rows.get("index:missing_index").get("error"));
+                });
+    }
+
+    @Test
+    public void testIndexFilesOfTheCurrentDatabaseOnly() {
+        Path indexes = Path.of("data", "databases", "neo4j", "schema", "index");
+        assertTrue(WarmupTargets.isIndexFile(indexes, indexes.resolve("range-1.0/3/index-3"), 3));
+        assertFalse(WarmupTargets.isIndexFile(indexes, indexes.resolve("range-1.0/13/index-13"), 3));
+        assertFalse(WarmupTargets.isIndexFile(indexes, indexes.resolve("range-1.0/3"), 3));
+        // the same index id in another database
+        Path otherDatabase = Path.of("data", "databases", "other", "schema", "index");
+        assertFalse(WarmupTargets.isIndexFile(indexes, otherDatabase.resolve("range-1.0/3/index-3"), 3));
+    }
+
+    @Test(expected = QueryExecutionException.class)
+    public void testWarmupTargetsWithoutTargets() {
+        db.executeTransactionally("CALL apoc.warmup.targets({properties: true})");
+    }
+
+    @Test
+    public void testWarmupProfile() {
+        TestUtil.testCall(db, "CALL apoc.warmup.saveProfile({labels: ['Foo'], indexes: 'foo_index'})", r -> {
+            Map<String, Object> profile = (Map<String, Object>) r.get("value");
+            assertEquals(List.of("Foo"), profile.get("labels"));
+            assertEquals(List.of("foo_index"), profile.get("indexes"));
+        });
+        assertEquals(List.of("Foo"), WarmupProfile.load(DEFAULT_DATABASE_NAME).toConfig().get("labels"));
+
+        TestUtil.testCallCount(db, "CALL apoc.warmup.removeProfile()", 1);
+        assertNull(WarmupProfile.load(DEFAULT_DATABASE_NAME));
+        TestUtil.testCallCount(db, "CALL apoc.warmup.removeProfile()", 0);
+    }
 }
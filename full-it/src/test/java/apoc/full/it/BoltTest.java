@@ -767,4 +767,24 @@ public class BoltTest {
                 "'bolt://neo4j:%s@%s:%s'",
                 TestContainerUtil.password, neo4jContainer.getContainerIpAddress(), neo4jContainer.getMappedPort(7687));
     }
+
+    @Test
+    public void testBoltLoadSharesTheDriver() {
+        TestUtil.testCall(
+                db,
+                "UNWIND range(1, 10) AS id CALL apoc.bolt.load($boltUrl, 'RETURN $id AS id', {id: id}) YIELD row RETURN sum(row.id) AS sum",
+                Map.of("boltUrl", BOLT_URL),
+                r -> assertEquals(55L, r.get("sum")));
+
+        TestUtil.testResult(db, "CALL apoc.bolt.pool.stats()", r -> {
+            assertTrue(r.hasNext());
+            while (r.hasNext()) {
+                Map<String, Object> stats = (Map<String, Object>) r.next().get("value");
+                // all the result streams have been closed, but the drivers are kept for the next calls
+                assertEquals(0L, stats.get("inUse"));
+                Map<String, Object> connections = (Map<String, Object>) stats.get("connections");
+                assertTrue((long) connections.get("created") >= 1L);
+            }
+        });
+    }
 }
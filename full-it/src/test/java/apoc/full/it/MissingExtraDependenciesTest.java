@@ -76,6 +76,7 @@ public class MissingExtraDependenciesTest {
     public void testRedis() {
         assertRedisFails("CALL apoc.redis.getSet('host', 'key', 'value')");
         assertRedisFails("CALL apoc.redis.get('host', 'key')");
+        assertRedisFails("CALL apoc.redis.mget('host', ['key'])");
         assertRedisFails("CALL apoc.redis.append('host', 'key', 1)");
         assertRedisFails("CALL apoc.redis.incrby('host', 'key', 1)");
         assertRedisFails("CALL apoc.redis.hdel('host', 'key', ['1'])");
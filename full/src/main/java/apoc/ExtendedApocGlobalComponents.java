@@ -60,7 +60,8 @@ public class ExtendedApocGlobalComponents implements ApocGlobalComponents {
                                 dependencies.scheduler(),
                                 db,
                                 dependencies.ttlConfig(),
-                                dependencies.log().getUserLog(TTLLifeCycle.class)),
+                                dependencies.log().getUserLog(TTLLifeCycle.class),
+                                dependencies.pools()),
                 "uuid",
                         new UuidHandler(
                                 db,
@@ -77,7 +78,8 @@ public class ExtendedApocGlobalComponents implements ApocGlobalComponents {
 
     @Override
     public Collection<Class> getContextClasses() {
-        return List.of(CypherProceduresHandler.class, UuidHandler.class, LoadDirectoryHandler.class);
+        return List.of(
+                CypherProceduresHandler.class, UuidHandler.class, LoadDirectoryHandler.class, TTLLifeCycle.class);
     }
 
     @Override
@@ -18,6 +18,8 @@
  */
 package apoc;
 
+import apoc.bolt.BoltDriverRegistry;
+import apoc.util.ClientRegistry;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import org.neo4j.kernel.api.procedure.GlobalProcedures;
@@ -91,5 +93,11 @@ public class ExtendedRegisterComponentFactory extends ExtensionFactory<ExtendedR
                     },
                     true));
         }
+
+        @Override
+        public void shutdown() {
+            BoltDriverRegistry.shutdown();
+            ClientRegistry.shutdownAll();
+        }
     }
 }
@@ -19,6 +19,8 @@
 package apoc.bolt;
 
 import apoc.Extended;
+import apoc.Pools;
+import apoc.result.MapResult;
 import apoc.result.RowResult;
 import java.net.URISyntaxException;
 import java.util.HashMap;
@@ -26,6 +28,7 @@ import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Stream;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.procedure.Admin;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Mode;
@@ -42,12 +45,24 @@ public class Bolt {
     @Context
     public GraphDatabaseService db;
 
+    @Context
+    public Pools pools;
+
     private <T> T withConnection(String url, Map<String, Object> config, Function<BoltConnection, T> action)
             throws URISyntaxException {
-        BoltConnection connection = BoltConnection.from(config, url);
+        BoltConnection connection = BoltConnection.from(config, url, BoltDriverRegistry.get(pools));
         return action.apply(connection);
     }
 
+    @Admin
+    @Procedure("apoc.bolt.pool.stats")
+    @Description(
+            "apoc.bolt.pool.stats() - the drivers shared by the apoc.bolt procedures, with the usage of their connection pools")
+    public Stream<MapResult> poolStats() {
+        BoltDriverRegistry registry = BoltDriverRegistry.get(pools);
+        return registry == null ? Stream.empty() : registry.stats().map(MapResult::new);
+    }
+
     @Procedure()
     @Description(
             "apoc.bolt.load(url-or-key, kernelTransaction, params, config) - access to other databases via bolt for read")
@@ -18,6 +18,8 @@
  */
 package apoc.bolt;
 
+import static apoc.ApocConfig.apocConfig;
+
 import apoc.util.Util;
 import java.io.File;
 import java.util.Collections;
@@ -35,6 +37,7 @@ public class BoltConfig {
     private final boolean readOnly;
     private final boolean streamStatements;
     private final Config driverConfig;
+    private final Map<String, Object> driverConfigMap;
     private final Map<String, Object> localParams;
     private final Map<String, Object> remoteParams;
     private final String databaseName;
@@ -47,8 +50,8 @@ public class BoltConfig {
         this.readOnly = (boolean) config.getOrDefault("readOnly", true);
         this.streamStatements = (boolean) config.getOrDefault("streamStatements", false);
         this.databaseName = (String) config.getOrDefault("databaseName", "neo4j");
-        this.driverConfig =
-                toDriverConfig((Map<String, Object>) config.getOrDefault("driverConfig", Collections.emptyMap()));
+        this.driverConfigMap = (Map<String, Object>) config.getOrDefault("driverConfig", Collections.emptyMap());
+        this.driverConfig = toDriverConfig(driverConfigMap);
         this.localParams = (Map<String, Object>) config.getOrDefault("localParams", Collections.emptyMap());
         this.remoteParams = (Map<String, Object>) config.getOrDefault("remoteParams", Collections.emptyMap());
         this.withRelationshipNodeProperties = Util.toBoolean(config.get("withRelationshipNodeProperties"));
@@ -64,10 +67,16 @@ public class BoltConfig {
         Long maxRetryTimeMs = (Long) driverConfMap.get("maxRetryTimeMs");
         Long maxConnectionLifeTime = (Long) driverConfMap.get("maxConnectionLifeTime");
         Long maxConnectionPoolSize = (Long) driverConfMap.get("maxConnectionPoolSize");
+        if (maxConnectionPoolSize == null && apocConfig().containsKey(BoltDriverRegistry.APOC_BOLT_POOL_MAX_SIZE)) {
+            maxConnectionPoolSize =
+                    (long) apocConfig().getInt(BoltDriverRegistry.APOC_BOLT_POOL_MAX_SIZE, 100);
+        }
         Long routingTablePurgeDelay = (Long) driverConfMap.get("routingTablePurgeDelay");
         Long connectionAcquisitionTimeout = (Long) driverConfMap.get("connectionAcquisitionTimeout");
 
         Config.ConfigBuilder config = Config.builder();
+        // exposed by apoc.bolt.pool.stats
+        config.withDriverMetrics();
 
         config.withLogging(new JULogging(Level.parse(logging)));
         if (encryption) config.withEncryption();
@@ -131,6 +140,10 @@ public class BoltConfig {
         return driverConfig;
     }
 
+    public Map<String, Object> getDriverConfigMap() {
+        return driverConfigMap;
+    }
+
     public Map<String, Object> getLocalParams() {
         return localParams;
     }
@@ -36,6 +36,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -61,16 +62,30 @@ import org.neo4j.internal.helpers.collection.Iterators;
 public class BoltConnection {
     private final BoltConfig config;
     private final UriResolver resolver;
+    private final BoltDriverRegistry registry;
 
     public BoltConnection(BoltConfig config, UriResolver resolver) {
+        this(config, resolver, null);
+    }
+
+    public BoltConnection(BoltConfig config, UriResolver resolver, BoltDriverRegistry registry) {
         this.config = config;
         this.resolver = resolver;
+        this.registry = registry;
     }
 
     public static BoltConnection from(Map<String, Object> config, String url) throws URISyntaxException {
+        return from(config, url, null);
+    }
+
+    /**
+     * @param registry the shared drivers, or null to open a new driver for each call
+     */
+    public static BoltConnection from(Map<String, Object> config, String url, BoltDriverRegistry registry)
+            throws URISyntaxException {
         final UriResolver resolver = new UriResolver(url, "bolt");
         resolver.initialize();
-        return new BoltConnection(new BoltConfig(config), resolver);
+        return new BoltConnection(new BoltConfig(config), resolver, registry);
     }
 
     // methods from Bolt.java
@@ -127,14 +142,28 @@ public class BoltConnection {
     }
 
     private <T> Stream<T> withDriver(Function<Driver, Stream<T>> function) {
+        if (registry != null) {
+            BoltDriverRegistry.PooledDriver pooled =
+                    registry.acquire(resolver.getConfiguredUri(), resolver.getToken(), config);
+            return onCloseOrFailure(() -> function.apply(pooled.getDriver()), () -> registry.release(pooled));
+        }
         Driver driver =
                 GraphDatabase.driver(resolver.getConfiguredUri(), resolver.getToken(), config.getDriverConfig());
-        return function.apply(driver).onClose(driver::close);
+        return onCloseOrFailure(() -> function.apply(driver), driver::close);
     }
 
     private <T> Stream<T> withSession(Driver driver, Function<Session, Stream<T>> function) {
         Session session = driver.session(config.getSessionConfig());
-        return function.apply(session).onClose(session::close);
+        return onCloseOrFailure(() -> function.apply(session), session::close);
+    }
+
+    private static <T> Stream<T> onCloseOrFailure(Supplier<Stream<T>> supplier, Runnable close) {
+        try {
+            return supplier.get().onClose(close);
+        } catch (RuntimeException e) {
+            close.run();
+            throw e;
+        }
     }
 
     private <T> Stream<T> withTransaction(Session session, Function<Transaction, Stream<T>> function) {
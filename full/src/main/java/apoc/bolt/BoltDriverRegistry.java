@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.bolt;
+
+import static apoc.ApocConfig.apocConfig;
+
+import apoc.Pools;
+import apoc.util.Util;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.neo4j.driver.AuthToken;
+import org.neo4j.driver.ConnectionPoolMetrics;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Metrics;
+
+/**
+ * Shares the drivers, and so their connection pools, between the calls of the `apoc.bolt.*` procedures
+ * with the same url, credentials and driver config.
+ * A driver is closed once it hasn't been used for `apoc.bolt.pool.idle_timeout` seconds.
+ *
+ * NOTE: this is a GLOBAL component, so only once per DBMS
+ */
+public class BoltDriverRegistry {
+    public static final String APOC_BOLT_POOL_ENABLED = "apoc.bolt.pool.enabled";
+    public static final String APOC_BOLT_POOL_IDLE_TIMEOUT = "apoc.bolt.pool.idle_timeout";
+    public static final String APOC_BOLT_POOL_MAX_SIZE = "apoc.bolt.pool.max_size";
+    private static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 300;
+
+    private static BoltDriverRegistry instance;
+
+    private final Map<DriverKey, PooledDriver> drivers = new ConcurrentHashMap<>();
+    private final long idleTimeoutMillis;
+    private final ScheduledFuture<?> eviction;
+
+    private BoltDriverRegistry(Pools pools, long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        this.eviction = pools.getScheduledExecutorService()
+                .scheduleWithFixedDelay(this::evictIdleDrivers, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the shared registry, or null if the pool is disabled via `apoc.bolt.pool.enabled=false`
+     */
+    public static synchronized BoltDriverRegistry get(Pools pools) {
+        if (!apocConfig().getBoolean(APOC_BOLT_POOL_ENABLED, true) || pools == null) {
+            return null;
+        }
+        if (instance == null) {
+            int idleTimeout = apocConfig().getInt(APOC_BOLT_POOL_IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT_SECONDS);
+            instance = new BoltDriverRegistry(pools, TimeUnit.SECONDS.toMillis(idleTimeout));
+        }
+        return instance;
+    }
+
+    /**
+     * Closes all the drivers, called on DBMS shutdown
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.eviction.cancel(false);
+            instance.drivers.values().forEach(PooledDriver::close);
+            instance.drivers.clear();
+            instance = null;
+        }
+    }
+
+    /**
+     * @return a driver, which must be handed back with {@link #release(PooledDriver)} once the results are consumed
+     */
+    public PooledDriver acquire(URI uri, AuthToken token, BoltConfig config) {
+        DriverKey key = new DriverKey(uri, token, config.getDriverConfigMap());
+        return drivers.compute(key, (k, pooled) -> {
+            if (pooled == null) {
+                pooled = new PooledDriver(uri, GraphDatabase.driver(uri, token, config.getDriverConfig()));
+            }
+            pooled.inUse.incrementAndGet();
+            return pooled;
+        });
+    }
+
+    public void release(PooledDriver pooled) {
+        pooled.lastUsed = System.currentTimeMillis();
+        pooled.inUse.decrementAndGet();
+    }
+
+    public Stream<Map<String, Object>> stats() {
+        return drivers.values().stream().map(PooledDriver::stats);
+    }
+
+    void evictIdleDrivers() {
+        long now = System.currentTimeMillis();
+        drivers.keySet().forEach(key -> drivers.computeIfPresent(key, (k, pooled) -> {
+            // evaluated atomically with acquire, so a driver that is being handed out is not closed
+            if (pooled.inUse.get() == 0 && now - pooled.lastUsed >= idleTimeoutMillis) {
+                pooled.close();
+                return null;
+            }
+            return pooled;
+        }));
+    }
+
+    public static class PooledDriver {
+        private final URI uri;
+        private final Driver driver;
+        private final long created = System.currentTimeMillis();
+        private final AtomicInteger inUse = new AtomicInteger();
+        private volatile long lastUsed = created;
+
+        PooledDriver(URI uri, Driver driver) {
+            this.uri = uri;
+            this.driver = driver;
+        }
+
+        public Driver getDriver() {
+            return driver;
+        }
+
+        void close() {
+            driver.closeAsync();
+        }
+
+        Map<String, Object> stats() {
+            Map<String, Object> stats = Util.map(
+                    "url",
+                    withoutUserInfo(uri),
+                    "user",
+                    uri.getUserInfo() == null ? null : uri.getUserInfo().split(":")[0],
+                    "inUse",
+                    inUse.get(),
+                    "created",
+                    created,
+                    "lastUsed",
+                    lastUsed);
+            if (driver.isMetricsEnabled()) {
+                Metrics metrics = driver.metrics();
+                long connectionsInUse = 0, idle = 0, connectionsCreated = 0, acquired = 0, timedOutToAcquire = 0,
+                        closed = 0;
+                for (ConnectionPoolMetrics pool : metrics.connectionPoolMetrics()) {
+                    connectionsInUse += pool.inUse();
+                    idle += pool.idle();
+                    connectionsCreated += pool.created();
+                    acquired += pool.acquired();
+                    timedOutToAcquire += pool.timedOutToAcquire();
+                    closed += pool.closed();
+                }
+                stats.put(
+                        "connections",
+                        Util.map(
+                                "inUse",
+                                connectionsInUse,
+                                "idle",
+                                idle,
+                                "created",
+                                connectionsCreated,
+                                "acquired",
+                                acquired,
+                                "timedOutToAcquire",
+                                timedOutToAcquire,
+                                "closed",
+                                closed));
+            }
+            return stats;
+        }
+
+        private static String withoutUserInfo(URI uri) {
+            try {
+                return new URI(
+                                uri.getScheme(),
+                                null,
+                                uri.getHost(),
+                                uri.getPort(),
+                                uri.getPath(),
+                                uri.getQuery(),
+                                uri.getFragment())
+                        .toString();
+            } catch (URISyntaxException e) {
+                return uri.getHost();
+            }
+        }
+    }
+
+    private static class DriverKey {
+        private final URI uri;
+        private final AuthToken token;
+        private final Map<String, Object> driverConfig;
+
+        DriverKey(URI uri, AuthToken token, Map<String, Object> driverConfig) {
+            this.uri = uri;
+            this.token = token;
+            this.driverConfig = driverConfig;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            DriverKey that = (DriverKey) o;
+            return uri.equals(that.uri) && token.equals(that.token) && driverConfig.equals(that.driverConfig);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(uri, token, driverConfig);
+        }
+    }
+}
@@ -26,11 +26,13 @@ import static apoc.ApocConfig.APOC_IMPORT_FILE_ALLOW__READ__FROM__FILESYSTEM;
 import static apoc.ApocConfig.APOC_IMPORT_FILE_ENABLED;
 import static apoc.ApocConfig.APOC_IMPORT_FILE_USE_NEO4J_CONFIG;
 import static apoc.ApocConfig.APOC_TRIGGER_ENABLED;
+import static apoc.ApocConfig.APOC_TTL_CONCURRENCY;
 import static apoc.ApocConfig.APOC_TTL_ENABLED;
 import static apoc.ApocConfig.APOC_TTL_LIMIT;
 import static apoc.ApocConfig.APOC_TTL_SCHEDULE;
 import static apoc.ApocConfig.APOC_UUID_ENABLED;
 import static apoc.ApocConfig.APOC_UUID_FORMAT;
+import static apoc.ApocConfig.APOC_UUID_GENERATOR;
 import static apoc.custom.CypherProceduresHandler.CUSTOM_PROCEDURES_REFRESH;
 
 import apoc.ApocConfig;
@@ -74,11 +76,14 @@ public class Config {
             // apoc.uuid.
             APOC_UUID_ENABLED,
             APOC_UUID_FORMAT,
+            APOC_UUID_GENERATOR,
 
             // apoc.ttl.
             APOC_TTL_SCHEDULE,
             APOC_TTL_ENABLED,
             APOC_TTL_LIMIT,
+            // also the `apoc.ttl.concurrency.<database>` keys
+            APOC_TTL_CONCURRENCY,
 
             // apoc.jobs.
             APOC_CONFIG_JOBS_SCHEDULED_NUM_THREADS,
@@ -19,14 +19,18 @@
 package apoc.couchbase;
 
 import apoc.Extended;
+import apoc.Pools;
 import apoc.couchbase.document.CouchbaseByteArrayDocument;
 import apoc.couchbase.document.CouchbaseJsonDocument;
 import apoc.couchbase.document.CouchbaseQueryResult;
 import apoc.result.BooleanResult;
+import apoc.util.ClientRegistry;
 import apoc.util.MissingDependencyException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
+import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
@@ -98,6 +102,9 @@ public class Couchbase {
                     + "\n"
                     + "See the documentation: https://neo4j-contrib.github.io/neo4j-apoc-procedures/#_interacting_with_couchbase";
 
+    @Context
+    public Pools pools;
+
     /**
      * Retrieves a document by its unique ID.
      * <p/>
@@ -118,7 +125,8 @@ public class Couchbase {
             @Name("bucket") String bucket,
             @Name("documentId") String documentId,
             @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
-        try (CouchbaseConnection couchbaseConnection = getCouchbaseConnection(hostOrKey, bucket, config)) {
+        try (ClientRegistry.Lease<CouchbaseConnection> lease = getCouchbaseConnection(hostOrKey, bucket, config)) {
+            CouchbaseConnection couchbaseConnection = lease.get();
             return Stream.ofNullable(couchbaseConnection.get(documentId));
         }
     }
@@ -143,7 +151,8 @@ public class Couchbase {
             @Name("bucket") String bucket,
             @Name("documentId") String documentId,
             @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
-        try (CouchbaseConnection couchbaseConnection = getCouchbaseConnection(hostOrKey, bucket, config)) {
+        try (ClientRegistry.Lease<CouchbaseConnection> lease = getCouchbaseConnection(hostOrKey, bucket, config)) {
+            CouchbaseConnection couchbaseConnection = lease.get();
             return Stream.ofNullable(new BooleanResult(couchbaseConnection.exists(documentId)));
         }
     }
@@ -170,7 +179,8 @@ public class Couchbase {
             @Name("documentId") String documentId,
             @Name("json") String json,
             @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
-        try (CouchbaseConnection couchbaseConnection = getCouchbaseConnection(hostOrKey, bucket, config)) {
+        try (ClientRegistry.Lease<CouchbaseConnection> lease = getCouchbaseConnection(hostOrKey, bucket, config)) {
+            CouchbaseConnection couchbaseConnection = lease.get();
             return Stream.ofNullable(couchbaseConnection.insert(documentId, json));
         }
     }
@@ -197,7 +207,8 @@ public class Couchbase {
             @Name("documentId") String documentId,
             @Name("json") String json,
             @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
-        try (CouchbaseConnection couchbaseConnection = getCouchbaseConnection(hostOrKey, bucket, config)) {
+        try (ClientRegistry.Lease<CouchbaseConnection> lease = getCouchbaseConnection(hostOrKey, bucket, config)) {
+            CouchbaseConnection couchbaseConnection = lease.get();
             return Stream.ofNullable(couchbaseConnection.upsert(documentId, json));
         }
     }
@@ -224,7 +235,8 @@ public class Couchbase {
             @Name("documentId") String documentId,
             @Name("content") byte[] content,
             @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
-        try (CouchbaseConnection couchbaseConnection = getCouchbaseConnection(hostOrKey, bucket, config)) {
+        try (ClientRegistry.Lease<CouchbaseConnection> lease = getCouchbaseConnection(hostOrKey, bucket, config)) {
+            CouchbaseConnection couchbaseConnection = lease.get();
             return Stream.ofNullable(couchbaseConnection.append(documentId, content));
         }
     }
@@ -251,7 +263,8 @@ public class Couchbase {
             @Name("documentId") String documentId,
             @Name("content") byte[] content,
             @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
-        try (CouchbaseConnection couchbaseConnection = getCouchbaseConnection(hostOrKey, bucket, config)) {
+        try (ClientRegistry.Lease<CouchbaseConnection> lease = getCouchbaseConnection(hostOrKey, bucket, config)) {
+            CouchbaseConnection couchbaseConnection = lease.get();
             return Stream.ofNullable(couchbaseConnection.prepend(documentId, content));
         }
     }
@@ -276,7 +289,8 @@ public class Couchbase {
             @Name("bucket") String bucket,
             @Name("documentId") String documentId,
             @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
-        try (CouchbaseConnection couchbaseConnection = getCouchbaseConnection(hostOrKey, bucket, config)) {
+        try (ClientRegistry.Lease<CouchbaseConnection> lease = getCouchbaseConnection(hostOrKey, bucket, config)) {
+            CouchbaseConnection couchbaseConnection = lease.get();
             return Stream.ofNullable(couchbaseConnection.remove(documentId));
         }
     }
@@ -304,7 +318,8 @@ public class Couchbase {
             @Name("documentId") String documentId,
             @Name("json") String json,
             @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
-        try (CouchbaseConnection couchbaseConnection = getCouchbaseConnection(hostOrKey, bucket, config)) {
+        try (ClientRegistry.Lease<CouchbaseConnection> lease = getCouchbaseConnection(hostOrKey, bucket, config)) {
+            CouchbaseConnection couchbaseConnection = lease.get();
             return Stream.ofNullable(couchbaseConnection.replace(documentId, json));
         }
     }
@@ -329,7 +344,8 @@ public class Couchbase {
             @Name("bucket") String bucket,
             @Name("statement") String statement,
             @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
-        try (CouchbaseConnection couchbaseConnection = getCouchbaseConnection(hostOrKey, bucket, config)) {
+        try (ClientRegistry.Lease<CouchbaseConnection> lease = getCouchbaseConnection(hostOrKey, bucket, config)) {
+            CouchbaseConnection couchbaseConnection = lease.get();
             return Stream.ofNullable(couchbaseConnection.executeStatement(statement));
         }
     }
@@ -357,7 +373,8 @@ public class Couchbase {
             @Name("statement") String statement,
             @Name("params") List<Object> params,
             @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
-        try (CouchbaseConnection couchbaseConnection = getCouchbaseConnection(hostOrKey, bucket, config)) {
+        try (ClientRegistry.Lease<CouchbaseConnection> lease = getCouchbaseConnection(hostOrKey, bucket, config)) {
+            CouchbaseConnection couchbaseConnection = lease.get();
             CouchbaseQueryResult result = couchbaseConnection.executeParameterizedStatement(statement, params);
             return Stream.ofNullable(result);
         }
@@ -388,17 +405,24 @@ public class Couchbase {
             @Name("paramNames") List<String> paramNames,
             @Name("paramValues") List<Object> paramValues,
             @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
-        try (CouchbaseConnection couchbaseConnection = getCouchbaseConnection(hostOrKey, bucket, config)) {
+        try (ClientRegistry.Lease<CouchbaseConnection> lease = getCouchbaseConnection(hostOrKey, bucket, config)) {
+            CouchbaseConnection couchbaseConnection = lease.get();
             final CouchbaseQueryResult result =
                     couchbaseConnection.executeParameterizedStatement(statement, paramNames, paramValues);
             return Stream.ofNullable(result);
         }
     }
 
-    private CouchbaseConnection getCouchbaseConnection(String hostOrKey, String bucket, Map<String, Object> configMap) {
+    private ClientRegistry.Lease<CouchbaseConnection> getCouchbaseConnection(
+            String hostOrKey, String bucket, Map<String, Object> configMap) {
         try {
             CouchbaseConfig config = new CouchbaseConfig(configMap);
-            return CouchbaseManager.getConnection(hostOrKey, bucket, config);
+            ClientRegistry<List<Object>, CouchbaseConnection> registry =
+                    ClientRegistry.get("couchbase", pools, CouchbaseConnection::isConnected);
+            return ClientRegistry.acquire(
+                    registry,
+                    Arrays.asList(hostOrKey, bucket, configMap),
+                    () -> CouchbaseManager.getConnection(hostOrKey, bucket, config));
         } catch (NoClassDefFoundError e) {
             throw new MissingDependencyException(COUCHBASE_MISSING_DEPS_ERROR);
         }
@@ -30,6 +30,7 @@ import apoc.couchbase.document.CouchbaseByteArrayDocument;
 import apoc.couchbase.document.CouchbaseJsonDocument;
 import apoc.couchbase.document.CouchbaseQueryResult;
 import apoc.couchbase.document.CouchbaseUtils;
+import com.couchbase.client.core.diagnostics.ClusterState;
 import com.couchbase.client.core.env.PasswordAuthenticator;
 import com.couchbase.client.core.env.SeedNode;
 import com.couchbase.client.core.error.DocumentNotFoundException;
@@ -148,6 +149,13 @@ public class CouchbaseConnection implements AutoCloseable {
         }
     }
 
+    /**
+     * @return false if the cluster can't be reached anymore, used to health check a shared connection
+     */
+    public boolean isConnected() {
+        return this.cluster.diagnostics().state() != ClusterState.OFFLINE;
+    }
+
     public Collection getCollection() {
         return collection;
     }
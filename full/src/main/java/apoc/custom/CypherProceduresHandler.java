@@ -55,6 +55,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -68,7 +70,6 @@ import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.QueryExecutionException;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
-import org.neo4j.internal.helpers.collection.Iterators;
 import org.neo4j.internal.helpers.collection.Pair;
 import org.neo4j.internal.kernel.api.exceptions.ProcedureException;
 import org.neo4j.internal.kernel.api.procs.DefaultParameterValue;
@@ -121,6 +122,9 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
     private final Set<ProcedureSignature> registeredProcedureSignatures = Collections.synchronizedSet(new HashSet<>());
     private final Set<UserFunctionSignature> registeredUserFunctionSignatures =
             Collections.synchronizedSet(new HashSet<>());
+    // the versions of the registered custom procedures/functions, see version(Node)
+    private final Map<QualifiedName, String> procedureVersions = new ConcurrentHashMap<>();
+    private final Map<QualifiedName, String> functionVersions = new ConcurrentHashMap<>();
     private static Group REFRESH_GROUP = Group.STORAGE_MAINTENANCE;
     private JobHandle restoreProceduresHandle;
 
@@ -215,7 +219,8 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
                         false,
                         false,
                         false),
-                statement);
+                statement,
+                version(node));
     }
 
     private UserFunctionDescriptor userFunctionDescriptor(Node node) {
@@ -242,29 +247,108 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
                         false),
                 statement,
                 forceSingle,
-                mapResult);
+                mapResult,
+                version(node));
     }
 
+    /**
+     * The version of a custom procedure/function is the `lastUpdated` stamp of its system node.
+     * Nodes stored by previous versions don't have it, so their content is used instead.
+     */
+    private static String version(Node node) {
+        Object lastUpdated = node.getProperty(SystemPropertyKeys.lastUpdated.name(), null);
+        if (lastUpdated != null) {
+            return lastUpdated.toString();
+        }
+        return new TreeMap<>(node.getAllProperties())
+                .entrySet().stream()
+                .map(e -> e.getKey() + "="
+                        + (e.getValue() instanceof String[]
+                                ? Arrays.toString((String[]) e.getValue())
+                                : e.getValue()))
+                .collect(Collectors.joining(","));
+    }
+
+    private static QualifiedName nodeName(Node node) {
+        String name = (String) node.getProperty(SystemPropertyKeys.name.name());
+        String[] prefix = (String[]) node.getProperty(SystemPropertyKeys.prefix.name(), new String[] {PREFIX});
+        return new QualifiedName(prefix, name);
+    }
+
+    /**
+     * Registers only the custom procedures/functions added or changed since the last restore,
+     * and de-registers the removed ones.
+     * The query caches are cleared only if an already registered procedure/function has been changed or removed,
+     * since a new one can't be referenced by any cached plan.
+     */
     public synchronized void restoreProceduresAndFunctions() {
         lastUpdate = System.currentTimeMillis();
-        Set<ProcedureSignature> currentProceduresToRemove = new HashSet<>(registeredProcedureSignatures);
-        Set<UserFunctionSignature> currentUserFunctionsToRemove = new HashSet<>(registeredUserFunctionSignatures);
+        Set<QualifiedName> proceduresToRemove = new HashSet<>(procedureVersions.keySet());
+        Set<QualifiedName> functionsToRemove = new HashSet<>(functionVersions.keySet());
+
+        List<ProcedureOrFunctionDescriptor> changed = withSystemDb(tx -> {
+            List<ProcedureOrFunctionDescriptor> descriptors = new ArrayList<>();
+            tx.findNodes(SystemLabels.ApocCypherProcedures, SystemPropertyKeys.database.name(), api.databaseName())
+                    .forEachRemaining(node -> {
+                        QualifiedName name = nodeName(node);
+                        String version = version(node);
+                        if (node.hasLabel(SystemLabels.Procedure)) {
+                            proceduresToRemove.remove(name);
+                            if (!version.equals(procedureVersions.get(name))) {
+                                descriptors.add(procedureDescriptor(node));
+                            }
+                        } else if (node.hasLabel(SystemLabels.Function)) {
+                            functionsToRemove.remove(name);
+                            if (!version.equals(functionVersions.get(name))) {
+                                descriptors.add(userFunctionDescriptor(node));
+                            }
+                        } else {
+                            throw new IllegalStateException("don't know what to do with systemdb node " + node);
+                        }
+                    });
+            return descriptors;
+        });
 
-        readSignatures().forEach(descriptor -> {
+        boolean invalidateQueryCaches = !proceduresToRemove.isEmpty() || !functionsToRemove.isEmpty();
+        for (ProcedureOrFunctionDescriptor descriptor : changed) {
+            invalidateQueryCaches |= descriptor.isRegistered();
             descriptor.register();
-            if (descriptor instanceof ProcedureDescriptor) {
-                ProcedureSignature signature = ((ProcedureDescriptor) descriptor).getSignature();
-                currentProceduresToRemove.remove(signature);
-            } else {
-                UserFunctionSignature signature = ((UserFunctionDescriptor) descriptor).getSignature();
-                currentUserFunctionsToRemove.remove(signature);
-            }
-        });
+        }
 
         // de-register removed procs/functions
-        currentProceduresToRemove.forEach(signature -> registerProcedure(signature, null));
-        currentUserFunctionsToRemove.forEach(this::registerFunction);
+        proceduresToRemove.forEach(this::deregisterProcedure);
+        functionsToRemove.forEach(this::deregisterFunction);
 
+        if (invalidateQueryCaches) {
+            clearQueryCaches();
+        }
+    }
+
+    private void deregisterProcedure(QualifiedName name) {
+        procedureVersions.remove(name);
+        new ArrayList<>(registeredProcedureSignatures)
+                .stream()
+                .filter(signature -> signature.name().equals(name))
+                .forEach(signature -> registerProcedure(signature, null));
+    }
+
+    private void deregisterFunction(QualifiedName name) {
+        functionVersions.remove(name);
+        new ArrayList<>(registeredUserFunctionSignatures)
+                .stream()
+                .filter(signature -> signature.name().equals(name))
+                .forEach(this::registerFunction);
+    }
+
+    private boolean isProcedureRegistered(QualifiedName name) {
+        return globalProceduresRegistry.getAllProcedures().stream().anyMatch(i -> i.name().equals(name));
+    }
+
+    private boolean isFunctionRegistered(QualifiedName name) {
+        return globalProceduresRegistry.getAllNonAggregatingFunctions().anyMatch(i -> i.name().equals(name));
+    }
+
+    private void clearQueryCaches() {
         api.executeTransactionally("call db.clearQueryCaches()");
     }
 
@@ -278,7 +362,7 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
 
     public synchronized void storeFunction(
             UserFunctionSignature signature, String statement, boolean forceSingle, boolean mapResult) {
-        withSystemDb(tx -> {
+        boolean replaced = withSystemDb(tx -> {
             Node node = Util.mergeNode(
                     tx,
                     SystemLabels.ApocCypherProcedures,
@@ -295,17 +379,23 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
                     SystemPropertyKeys.output.name(), signature.outputType().toString());
             node.setProperty(SystemPropertyKeys.forceSingle.name(), forceSingle);
             node.setProperty(SystemPropertyKeys.mapResult.name(), mapResult);
+            long version = setLastUpdate(tx);
+            node.setProperty(SystemPropertyKeys.lastUpdated.name(), version);
 
-            setLastUpdate(tx);
+            boolean exists = isFunctionRegistered(signature.name());
             if (!registerFunction(signature, statement, forceSingle, mapResult)) {
                 throw new IllegalStateException("Error registering function " + signature + ", see log.");
             }
-            return null;
+            functionVersions.put(signature.name(), String.valueOf(version));
+            return exists;
         });
+        if (replaced) {
+            clearQueryCaches();
+        }
     }
 
     public synchronized void storeProcedure(ProcedureSignature signature, String statement) {
-        withSystemDb(tx -> {
+        boolean replaced = withSystemDb(tx -> {
             Node node = Util.mergeNode(
                     tx,
                     SystemLabels.ApocCypherProcedures,
@@ -320,12 +410,19 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
             node.setProperty(SystemPropertyKeys.inputs.name(), serializeSignatures(signature.inputSignature()));
             node.setProperty(SystemPropertyKeys.outputs.name(), serializeSignatures(signature.outputSignature()));
             node.setProperty(SystemPropertyKeys.mode.name(), signature.mode().name());
-            setLastUpdate(tx);
+            long version = setLastUpdate(tx);
+            node.setProperty(SystemPropertyKeys.lastUpdated.name(), version);
+
+            boolean exists = isProcedureRegistered(signature.name());
             if (!registerProcedure(signature, statement)) {
                 throw new IllegalStateException("Error registering procedure " + signature.name() + ", see log.");
             }
-            return null;
+            procedureVersions.put(signature.name(), String.valueOf(version));
+            return exists;
         });
+        if (replaced) {
+            clearQueryCaches();
+        }
     }
 
     private String serializeSignatures(List<FieldSignature> signatures) {
@@ -362,14 +459,20 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
                 .collect(Collectors.toList());
     }
 
-    private void setLastUpdate(Transaction tx) {
+    /**
+     * @return the new lastUpdated, always greater than the previous one so that it can be used as a version
+     */
+    private long setLastUpdate(Transaction tx) {
         Node node = tx.findNode(
                 SystemLabels.ApocCypherProceduresMeta, SystemPropertyKeys.database.name(), api.databaseName());
         if (node == null) {
             node = tx.createNode(SystemLabels.ApocCypherProceduresMeta);
             node.setProperty(SystemPropertyKeys.database.name(), api.databaseName());
         }
-        node.setProperty(SystemPropertyKeys.lastUpdated.name(), System.currentTimeMillis());
+        long previous = (long) node.getProperty(SystemPropertyKeys.lastUpdated.name(), 0L);
+        long lastUpdated = Math.max(System.currentTimeMillis(), previous + 1);
+        node.setProperty(SystemPropertyKeys.lastUpdated.name(), lastUpdated);
+        return lastUpdated;
     }
 
     private long getLastUpdate() {
@@ -423,14 +526,14 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
     public boolean registerProcedure(ProcedureSignature signature, String statement) {
         QualifiedName name = signature.name();
         try {
-            boolean exists = globalProceduresRegistry.getAllProcedures().stream()
-                    .anyMatch(i -> i.name().equals(name));
-            if (exists) {
+            if (isProcedureRegistered(name)) {
                 // we remove possible homonyms signatures overridden/overloaded
                 registeredProcedureSignatures.removeIf(i -> i.name().equals(name));
             }
 
             final boolean isStatementNull = statement == null;
+            final String[] inputNames = inputNames(signature.inputSignature());
+            final OutputMapper outputMapper = new OutputMapper(signature.outputSignature());
             globalProceduresRegistry.register(
                     new CallableProcedure.BasicProcedure(signature) {
                         @Override
@@ -446,23 +549,11 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
                                         name);
                                 throw new QueryExecutionException(error, null, "Neo.ClientError.Statement.SyntaxError");
                             } else {
-                                Map<String, Object> params =
-                                        params(input, signature.inputSignature(), ctx.valueMapper());
+                                Map<String, Object> params = params(input, inputNames, ctx.valueMapper());
                                 Transaction tx = transactionComponentFunction.apply(ctx);
                                 Result result = tx.execute(statement, params);
                                 resourceTracker.registerCloseableResource(result);
-
-                                List<FieldSignature> outputs = signature.outputSignature();
-                                String[] names = outputs == null
-                                        ? null
-                                        : outputs.stream()
-                                                .map(FieldSignature::name)
-                                                .toArray(String[]::new);
-                                boolean defaultOutputs = outputs == null || outputs.equals(DEFAULT_MAP_OUTPUT);
-
-                                Stream<AnyValue[]> stream =
-                                        result.stream().map(row -> toResult(row, names, defaultOutputs));
-                                return Iterators.asRawIterator(stream);
+                                return outputMapper.map(result);
                             }
                         }
                     },
@@ -491,15 +582,13 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
             UserFunctionSignature signature, String statement, boolean forceSingle, boolean mapResult) {
         try {
             QualifiedName name = signature.name();
-            boolean exists = globalProceduresRegistry
-                    .getAllNonAggregatingFunctions()
-                    .anyMatch(i -> i.name().equals(name));
-            if (exists) {
+            if (isFunctionRegistered(name)) {
                 // we remove possible homonyms signatures overridden/overloaded
                 registeredUserFunctionSignatures.removeIf(i -> i.name().equals(name));
             }
 
             final boolean isStatementNull = statement == null;
+            final String[] inputNames = inputNames(signature.inputSignature());
             globalProceduresRegistry.register(
                     new CallableUserFunction.BasicUserFunction(signature) {
                         @Override
@@ -509,8 +598,7 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
                                 final String error = String.format("Unknown function '%s'", name);
                                 throw new QueryExecutionException(error, null, "Neo.ClientError.Statement.SyntaxError");
                             } else {
-                                Map<String, Object> params =
-                                        params(input, signature.inputSignature(), ctx.valueMapper());
+                                Map<String, Object> params = params(input, inputNames, ctx.valueMapper());
                                 AnyType outType = signature.outputType();
 
                                 Transaction tx = transactionComponentFunction.apply(ctx);
@@ -715,65 +803,124 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
         }
     }
 
-    private AnyValue[] toResult(Map<String, Object> row, String[] names, boolean defaultOutputs) {
-        if (defaultOutputs) {
-            return new AnyValue[] {convertToValueRecursive(row)};
-        } else {
+    /**
+     * Maps the rows of a custom procedure statement to the procedure output.
+     * The output columns and their converters are resolved once, when the procedure is registered.
+     */
+    private static class OutputMapper {
+        // null for the default `row :: MAP` output
+        private final String[] names;
+        private final Function<Object, AnyValue>[] converters;
+
+        OutputMapper(List<FieldSignature> outputs) {
+            if (outputs == null || outputs.equals(DEFAULT_MAP_OUTPUT)) {
+                this.names = null;
+                this.converters = null;
+            } else {
+                this.names = new String[outputs.size()];
+                this.converters = new Function[outputs.size()];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = outputs.get(i).name();
+                    converters[i] = converter(outputs.get(i).neo4jType());
+                }
+            }
+        }
+
+        RawIterator<AnyValue[], ProcedureException> map(Result result) {
+            return new RawIterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return result.hasNext();
+                }
+
+                @Override
+                public AnyValue[] next() {
+                    return toResult(result.next());
+                }
+            };
+        }
+
+        private AnyValue[] toResult(Map<String, Object> row) {
+            if (names == null) {
+                return new AnyValue[] {toAnyValue(row)};
+            }
             AnyValue[] result = new AnyValue[names.length];
             for (int i = 0; i < names.length; i++) {
-                result[i] = convertToValueRecursive(row.get(names[i]));
+                result[i] = converters[i].apply(row.get(names[i]));
             }
             return result;
         }
     }
 
-    private AnyValue convertToValueRecursive(Object... toConverts) {
-        switch (toConverts.length) {
-            case 0:
-                return Values.NO_VALUE;
-            case 1:
-                Object toConvert = toConverts[0];
-                if (toConvert instanceof List) {
-                    List list = (List) toConvert;
-                    AnyValue[] objects = ((Stream<AnyValue>) list.stream().map(x -> convertToValueRecursive(x)))
-                            .toArray(AnyValue[]::new);
-                    return VirtualValues.list(objects);
-                } else if (toConvert instanceof Map) {
-                    Map<String, Object> map = (Map) toConvert;
-                    MapValueBuilder builder = new MapValueBuilder();
-                    map.entrySet().stream().forEach(e -> {
-                        builder.add(e.getKey(), convertToValueRecursive(e.getValue()));
-                    });
-                    return builder.build();
-                } else if (toConvert instanceof Entity || toConvert instanceof Path) {
-                    return ValueUtils.asAnyValue(toConvert);
-                } else {
-                    return Values.of(toConvert);
-                }
-            default:
-                AnyValue[] values = Arrays.stream(toConverts)
-                        .map(c -> convertToValueRecursive(c))
-                        .toArray(AnyValue[]::new);
-                return VirtualValues.list(values);
+    private static Function<Object, AnyValue> converter(AnyType type) {
+        if (type.equals(NTInteger)
+                || type.equals(NTFloat)
+                || type.equals(NTNumber)
+                || type.equals(NTString)
+                || type.equals(NTBoolean)) {
+            // the statement is not bound to return the declared type, so we fall back to the generic conversion
+            return value -> value instanceof Number || value instanceof String || value instanceof Boolean
+                    ? Values.of(value)
+                    : toAnyValue(value);
         }
+        if (type.equals(NTNode) || type.equals(NTRelationship) || type.equals(NTPath)) {
+            return value -> value instanceof Entity || value instanceof Path
+                    ? ValueUtils.asAnyValue(value)
+                    : toAnyValue(value);
+        }
+        return CypherProceduresHandler::toAnyValue;
+    }
+
+    private static AnyValue toAnyValue(Object toConvert) {
+        if (toConvert instanceof List) {
+            List<?> list = (List<?>) toConvert;
+            AnyValue[] values = new AnyValue[list.size()];
+            int i = 0;
+            for (Object item : list) {
+                values[i++] = toAnyValue(item);
+            }
+            return VirtualValues.list(values);
+        } else if (toConvert instanceof Map) {
+            Map<String, Object> map = (Map) toConvert;
+            MapValueBuilder builder = new MapValueBuilder();
+            map.forEach((key, value) -> builder.add(key, toAnyValue(value)));
+            return builder.build();
+        } else if (toConvert instanceof Entity || toConvert instanceof Path) {
+            return ValueUtils.asAnyValue(toConvert);
+        } else {
+            return Values.of(toConvert);
+        }
+    }
+
+    private static String[] inputNames(List<FieldSignature> fieldSignatures) {
+        if (fieldSignatures == null || fieldSignatures.isEmpty() || fieldSignatures.equals(DEFAULT_INPUTS)) {
+            return null;
+        }
+        return fieldSignatures.stream().map(FieldSignature::name).toArray(String[]::new);
     }
 
     public Map<String, Object> params(AnyValue[] input, List<FieldSignature> fieldSignatures, ValueMapper valueMapper) {
+        return params(input, inputNames(fieldSignatures), valueMapper);
+    }
+
+    /**
+     * @param names the pre-resolved input names, null for the default `params :: MAP` input
+     */
+    private Map<String, Object> params(AnyValue[] input, String[] names, ValueMapper valueMapper) {
         if (input == null || input.length == 0) return Collections.emptyMap();
 
-        if (fieldSignatures == null || fieldSignatures.isEmpty() || fieldSignatures.equals(DEFAULT_INPUTS))
-            return (Map<String, Object>) input[0].map(valueMapper);
+        if (names == null) return (Map<String, Object>) input[0].map(valueMapper);
         Map<String, Object> params = new HashMap<>(input.length);
         for (int i = 0; i < input.length; i++) {
-            params.put(fieldSignatures.get(i).name(), input[i].map(valueMapper));
+            params.put(names[i], input[i].map(valueMapper));
         }
         return params;
     }
 
     public void removeProcedure(String name) {
-        withSystemDb(tx -> {
+        boolean removed = withSystemDb(tx -> {
             QualifiedName qName = qualifiedName(name);
-            tx
+            List<Node> nodes = tx
                     .findNodes(
                             SystemLabels.ApocCypherProcedures,
                             SystemPropertyKeys.database.name(),
@@ -784,21 +931,26 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
                             qName.namespace())
                     .stream()
                     .filter(n -> n.hasLabel(SystemLabels.Procedure))
-                    .forEach(node -> {
-                        ProcedureDescriptor descriptor = procedureDescriptor(node);
-                        registerProcedure(descriptor.getSignature(), null);
-                        registeredProcedureSignatures.remove(descriptor.getSignature());
-                        node.delete();
-                        setLastUpdate(tx);
-                    });
-            return null;
+                    .collect(Collectors.toList());
+            nodes.forEach(node -> {
+                ProcedureDescriptor descriptor = procedureDescriptor(node);
+                registerProcedure(descriptor.getSignature(), null);
+                registeredProcedureSignatures.remove(descriptor.getSignature());
+                procedureVersions.remove(descriptor.getName());
+                node.delete();
+                setLastUpdate(tx);
+            });
+            return !nodes.isEmpty();
         });
+        if (removed) {
+            clearQueryCaches();
+        }
     }
 
     public void removeFunction(String name) {
-        withSystemDb(tx -> {
+        boolean removed = withSystemDb(tx -> {
             QualifiedName qName = qualifiedName(name);
-            tx
+            List<Node> nodes = tx
                     .findNodes(
                             SystemLabels.ApocCypherProcedures,
                             SystemPropertyKeys.database.name(),
@@ -809,36 +961,54 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
                             qName.namespace())
                     .stream()
                     .filter(n -> n.hasLabel(SystemLabels.Function))
-                    .forEach(node -> {
-                        UserFunctionDescriptor descriptor = userFunctionDescriptor(node);
-                        registerFunction(descriptor.getSignature());
-                        registeredUserFunctionSignatures.remove(descriptor.getSignature());
-                        node.delete();
-                        setLastUpdate(tx);
-                    });
-            return null;
+                    .collect(Collectors.toList());
+            nodes.forEach(node -> {
+                UserFunctionDescriptor descriptor = userFunctionDescriptor(node);
+                registerFunction(descriptor.getSignature());
+                registeredUserFunctionSignatures.remove(descriptor.getSignature());
+                functionVersions.remove(descriptor.getName());
+                node.delete();
+                setLastUpdate(tx);
+            });
+            return !nodes.isEmpty();
         });
+        if (removed) {
+            clearQueryCaches();
+        }
     }
 
     public abstract class ProcedureOrFunctionDescriptor {
         private final String statement;
+        private final String version;
 
-        protected ProcedureOrFunctionDescriptor(String statement) {
+        protected ProcedureOrFunctionDescriptor(String statement, String version) {
             this.statement = statement;
+            this.version = version;
         }
 
         public String getStatement() {
             return statement;
         }
 
+        public String getVersion() {
+            return version;
+        }
+
+        public abstract QualifiedName getName();
+
+        /**
+         * @return true if a procedure/function with the same name is already registered
+         */
+        public abstract boolean isRegistered();
+
         public abstract void register();
     }
 
     public class ProcedureDescriptor extends ProcedureOrFunctionDescriptor {
         private final ProcedureSignature signature;
 
-        public ProcedureDescriptor(ProcedureSignature signature, String statement) {
-            super(statement);
+        public ProcedureDescriptor(ProcedureSignature signature, String statement, String version) {
+            super(statement, version);
             this.signature = signature;
         }
 
@@ -846,9 +1016,21 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
             return signature;
         }
 
+        @Override
+        public QualifiedName getName() {
+            return signature.name();
+        }
+
+        @Override
+        public boolean isRegistered() {
+            return isProcedureRegistered(getName());
+        }
+
         @Override
         public void register() {
-            registerProcedure(getSignature(), getStatement());
+            if (registerProcedure(getSignature(), getStatement())) {
+                procedureVersions.put(getName(), getVersion());
+            }
         }
     }
 
@@ -858,8 +1040,12 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
         private final boolean mapResult;
 
         public UserFunctionDescriptor(
-                UserFunctionSignature signature, String statement, boolean forceSingle, boolean mapResult) {
-            super(statement);
+                UserFunctionSignature signature,
+                String statement,
+                boolean forceSingle,
+                boolean mapResult,
+                String version) {
+            super(statement, version);
             this.signature = signature;
             this.forceSingle = forceSingle;
             this.mapResult = mapResult;
@@ -873,9 +1059,21 @@ public class CypherProceduresHandler extends LifecycleAdapter implements Availab
             return forceSingle;
         }
 
+        @Override
+        public QualifiedName getName() {
+            return signature.name();
+        }
+
+        @Override
+        public boolean isRegistered() {
+            return isFunctionRegistered(getName());
+        }
+
         @Override
         public void register() {
-            registerFunction(getSignature(), getStatement(), isForceSingle(), mapResult);
+            if (registerFunction(getSignature(), getStatement(), isForceSingle(), mapResult)) {
+                functionVersions.put(getName(), getVersion());
+            }
         }
     }
 }
@@ -23,6 +23,7 @@ import static apoc.mongodb.MongoDBUtils.getDocuments;
 import static apoc.mongodb.MongoDBUtils.getMongoConfig;
 
 import apoc.Extended;
+import apoc.Pools;
 import apoc.result.LongResult;
 import apoc.result.MapResult;
 import apoc.util.JsonUtil;
@@ -44,6 +45,9 @@ public class Mongo {
     @Context
     public Log log;
 
+    @Context
+    public Pools pools;
+
     @Procedure("apoc.mongo.aggregate")
     @Description(
             "apoc.mongo.aggregate(uri, pipeline, $config) yield value - perform an aggregate operation on mongodb collection")
@@ -176,6 +180,6 @@ public class Mongo {
     }
 
     private MongoDbCollInterface getColl(@Name("url") String url, MongoDbConfig conf) {
-        return MongoDbCollInterface.Factory.create(url, conf);
+        return MongoDbCollInterface.Factory.create(url, conf, pools);
     }
 }
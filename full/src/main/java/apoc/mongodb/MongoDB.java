@@ -21,6 +21,7 @@ package apoc.mongodb;
 import static apoc.mongodb.MongoDBUtils.getMongoConfig;
 
 import apoc.Extended;
+import apoc.Pools;
 import apoc.result.LongResult;
 import apoc.result.MapResult;
 import apoc.util.UrlResolver;
@@ -68,6 +69,9 @@ public class MongoDB {
     @Context
     public Log log;
 
+    @Context
+    public Pools pools;
+
     @Deprecated
     @Procedure(deprecatedBy = "apoc.mongo.find")
     @Description(
@@ -132,7 +136,7 @@ public class MongoDB {
             boolean objectIdAsMap) {
         String url = getMongoDBUrl(hostOrKey);
         return MongoDbCollInterface.Factory.create(
-                url, db, collection, compatibleValues, extractReferences, objectIdAsMap);
+                url, db, collection, compatibleValues, extractReferences, objectIdAsMap, pools);
     }
 
     @Deprecated
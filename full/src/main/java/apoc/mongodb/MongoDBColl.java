@@ -20,6 +20,7 @@ package apoc.mongodb;
 
 import static java.lang.String.format;
 
+import apoc.util.ClientRegistry;
 import apoc.util.Util;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -62,7 +63,7 @@ class MongoDBColl implements MongoDbCollInterface {
     private static final ObjectMapper jsonMapper = new ObjectMapper().enable(DeserializationFeature.USE_LONG_FOR_INTS);
     public static final String ID = "_id";
     private final MongoCollection<Document> collection;
-    private final MongoClient mongoClient;
+    private final ClientRegistry.Lease<MongoClient> mongoClient;
     private boolean compatibleValues = false;
     private boolean doorStop = false;
     private final MongoDatabase database;
@@ -72,9 +73,9 @@ class MongoDBColl implements MongoDbCollInterface {
     // visible for testing
     public static final String ERROR_MESSAGE = "The connection string must have %s name";
 
-    private MongoDBColl(String url, String db, String coll) {
-        mongoClient = MongoClients.create(url);
-        database = mongoClient.getDatabase(db);
+    private MongoDBColl(String url, String db, String coll, ClientRegistry<String, MongoClient> registry) {
+        mongoClient = ClientRegistry.acquire(registry, url, () -> MongoClients.create(url));
+        database = mongoClient.get().getDatabase(db);
         collection = database.getCollection(coll);
     }
 
@@ -84,6 +85,7 @@ class MongoDBColl implements MongoDbCollInterface {
      * @param db
      * @param coll
      * @param compatibleValues if true we convert the document to JSON and than back to a Map
+     * @param registry the registry of the shared clients, or null to create a client only for this instance
      */
     public MongoDBColl(
             String url,
@@ -91,8 +93,9 @@ class MongoDBColl implements MongoDbCollInterface {
             String coll,
             boolean compatibleValues,
             boolean extractReferences,
-            boolean objectIdAsMap) {
-        this(url, db, coll);
+            boolean objectIdAsMap,
+            ClientRegistry<String, MongoClient> registry) {
+        this(url, db, coll, registry);
         getConfigs(compatibleValues, extractReferences, objectIdAsMap);
     }
 
@@ -100,9 +103,10 @@ class MongoDBColl implements MongoDbCollInterface {
      *
      * @param uri the string Uri to convert in connectionString
      * @param conf the configuration
+     * @param registry the registry of the shared clients, or null to create a client only for this instance
      * @see MongoDbConfig
      */
-    public MongoDBColl(String uri, MongoDbConfig conf) {
+    public MongoDBColl(String uri, MongoDbConfig conf, ClientRegistry<String, MongoClient> registry) {
 
         ConnectionString connectionString = new ConnectionString(uri);
 
@@ -122,16 +126,19 @@ class MongoDBColl implements MongoDbCollInterface {
             collectionName = collectionFromUri;
         }
 
-        mongoClient = MongoClients.create(connectionString);
-        database = mongoClient.getDatabase(connectionString.getDatabase());
-
-        try {
-            // check if correctly authenticated
-            database.runCommand(new Document("listCollections", 1));
-        } catch (Exception e) {
-            mongoClient.close();
-            throw new RuntimeException(e);
-        }
+        // the authentication is checked only when the client is created, a shared one has already been checked
+        mongoClient = ClientRegistry.acquire(registry, uri, () -> {
+            MongoClient client = MongoClients.create(connectionString);
+            try {
+                // check if correctly authenticated
+                client.getDatabase(connectionString.getDatabase()).runCommand(new Document("listCollections", 1));
+            } catch (Exception e) {
+                client.close();
+                throw new RuntimeException(e);
+            }
+            return client;
+        });
+        database = mongoClient.get().getDatabase(connectionString.getDatabase());
         this.collection = database.getCollection(collectionName);
 
         // with new procedure we return always Neo4j values
@@ -147,6 +154,7 @@ class MongoDBColl implements MongoDbCollInterface {
     @Override
     public void close() {
         if (doorStop) return;
+        // hands the client back to the registry, or closes it if it's not shared
         mongoClient.close();
     }
 
@@ -312,15 +320,15 @@ class MongoDBColl implements MongoDbCollInterface {
                 .map(doc -> this.documentToPackableMap(doc))
                 .onClose(() -> {
                     Util.close(result.iterator());
-                    Util.close(mongoClient);
+                    mongoClient.close();
                 });
     }
 
     @Override
     public void insert(List<Map<String, Object>> docs) {
-        for (Map<String, Object> doc : docs) {
-            collection.insertOne(new Document(doc));
-        }
+        if (docs.isEmpty()) return;
+        // a single bulk write instead of a round trip per document
+        insertDocs(docs.stream().map(Document::new).collect(Collectors.toList()));
     }
 
     @Override
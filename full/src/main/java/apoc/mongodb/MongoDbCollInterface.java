@@ -1,6 +1,9 @@
 package apoc.mongodb;
 
+import apoc.Pools;
+import apoc.util.ClientRegistry;
 import apoc.util.Util;
+import com.mongodb.client.MongoClient;
 import java.io.Closeable;
 import java.util.List;
 import java.util.Map;
@@ -47,19 +50,45 @@ public interface MongoDbCollInterface extends Closeable {
                 boolean compatibleValues,
                 boolean extractReferences,
                 boolean objectIdAsMap) {
+            return create(url, db, coll, compatibleValues, extractReferences, objectIdAsMap, null);
+        }
+
+        /**
+         * @param pools used to share the clients between the calls with the same url, if null a new client is created
+         */
+        public static MongoDbCollInterface create(
+                String url,
+                String db,
+                String coll,
+                boolean compatibleValues,
+                boolean extractReferences,
+                boolean objectIdAsMap,
+                Pools pools) {
             try {
-                return new MongoDBColl(url, db, coll, compatibleValues, extractReferences, objectIdAsMap);
+                return new MongoDBColl(
+                        url, db, coll, compatibleValues, extractReferences, objectIdAsMap, registry(pools));
             } catch (Exception e) {
                 throw new RuntimeException("Could not create MongoDBColl instance", e);
             }
         }
 
         public static MongoDbCollInterface create(String url, MongoDbConfig conf) {
+            return create(url, conf, null);
+        }
+
+        public static MongoDbCollInterface create(String url, MongoDbConfig conf, Pools pools) {
             try {
-                return new MongoDBColl(url, conf);
+                return new MongoDBColl(url, conf, registry(pools));
             } catch (Exception e) {
                 throw new RuntimeException("Could not create MongoDBColl instance", e);
             }
         }
+
+        private static ClientRegistry<String, MongoClient> registry(Pools pools) {
+            return ClientRegistry.get("mongo", pools, client -> {
+                client.getDatabase("admin").runCommand(new Document("ping", 1));
+                return true;
+            });
+        }
     }
 }
@@ -62,6 +62,14 @@ public class ByteArrayRedisConnection extends RedisConnection<byte[]> {
         return this.commands.incrby(key, amount);
     }
 
+    @Override
+    public List<Object> mget(List<Object> keys) {
+        // a single round trip for all the keys
+        return this.commands.mget(toBytesArray(keys)).stream()
+                .<Object>map(keyValue -> keyValue.getValueOrElse(null))
+                .collect(Collectors.toList());
+    }
+
     @Override
     public long hdel(byte[] key, List<Object> fields) {
         return this.commands.hdel(key, toBytesArray(fields));
@@ -197,6 +205,11 @@ public class ByteArrayRedisConnection extends RedisConnection<byte[]> {
         return this.commands.info();
     }
 
+    @Override
+    public String ping() {
+        return this.commands.ping();
+    }
+
     @Override
     public String configSet(String parameter, String value) {
         return this.commands.configSet(parameter, value);
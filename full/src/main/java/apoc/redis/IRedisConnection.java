@@ -32,6 +32,8 @@ public interface IRedisConnection<T> extends AutoCloseable {
 
     long incrby(T key, long amount);
 
+    List<Object> mget(List<Object> keys);
+
     // -- Hashes
     long hdel(T key, List<Object> fields);
 
@@ -89,6 +91,8 @@ public interface IRedisConnection<T> extends AutoCloseable {
     // -- Server
     String info();
 
+    String ping();
+
     String configSet(String parameter, String value);
 
     Map<String, Object> configGet(String parameter);
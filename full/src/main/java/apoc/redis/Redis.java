@@ -19,16 +19,20 @@
 package apoc.redis;
 
 import apoc.Extended;
+import apoc.Pools;
 import apoc.result.BooleanResult;
 import apoc.result.ListResult;
 import apoc.result.LongResult;
 import apoc.result.MapResult;
 import apoc.result.ObjectResult;
+import apoc.util.ClientRegistry;
 import io.lettuce.core.ScriptOutputType;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Stream;
+import org.neo4j.internal.helpers.collection.Pair;
+import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
@@ -36,6 +40,9 @@ import org.neo4j.procedure.Procedure;
 @Extended
 public class Redis {
 
+    @Context
+    public Pools pools;
+
     // -- String
     @Procedure
     @Description(
@@ -57,6 +64,15 @@ public class Redis {
         return withConnection(uri, config, connection -> Stream.of(new ObjectResult(connection.get(key))));
     }
 
+    @Procedure
+    @Description("apoc.redis.mget(uri, keys, {config}) | Execute the 'MGET keys' command")
+    public Stream<ListResult> mget(
+            @Name("uri") String uri,
+            @Name("keys") List<Object> keys,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        return withConnection(uri, config, connection -> Stream.of(new ListResult(connection.mget(keys))));
+    }
+
     @Procedure
     @Description("apoc.redis.append(uri, key, value, {config}) | Execute the 'APPEND key value' command")
     public Stream<LongResult> append(
@@ -375,8 +391,12 @@ public class Redis {
     }
 
     private <T> T withConnection(String uri, Map<String, Object> config, Function<RedisConnection, T> action) {
-        try (RedisConnection connection = new RedisConfig(config).getCodec().getRedisConnection(uri, config)) {
-            return action.apply(connection);
+        ClientRegistry<Pair<String, Map<String, Object>>, RedisConnection> registry =
+                ClientRegistry.get("redis", pools, connection -> "PONG".equals(connection.ping()));
+        Pair<String, Map<String, Object>> key = Pair.of(uri, config == null ? Map.of() : config);
+        try (ClientRegistry.Lease<RedisConnection> lease = ClientRegistry.acquire(
+                registry, key, () -> new RedisConfig(config).getCodec().getRedisConnection(uri, config))) {
+            return action.apply(lease.get());
         }
     }
 }
@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class StringRedisConnection extends RedisConnection<String> {
 
@@ -60,6 +61,14 @@ public class StringRedisConnection extends RedisConnection<String> {
         return this.commands.incrby(key, amount);
     }
 
+    @Override
+    public List<Object> mget(List<Object> keys) {
+        // a single round trip for all the keys
+        return this.commands.mget(toStringArray(keys)).stream()
+                .<Object>map(keyValue -> keyValue.getValueOrElse(null))
+                .collect(Collectors.toList());
+    }
+
     // -- Hashes
     @Override
     public long hdel(String key, List<Object> fields) {
@@ -194,6 +203,11 @@ public class StringRedisConnection extends RedisConnection<String> {
         return this.commands.info();
     }
 
+    @Override
+    public String ping() {
+        return this.commands.ping();
+    }
+
     @Override
     public String configSet(String parameter, String value) {
         return this.commands.configSet(parameter, value);
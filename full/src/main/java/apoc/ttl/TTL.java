@@ -24,6 +24,7 @@ import apoc.Extended;
 import apoc.TTLConfig;
 import apoc.util.MapUtil;
 import java.util.Map;
+import java.util.stream.Stream;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
@@ -54,12 +55,23 @@ public class TTL {
     @Context
     public GraphDatabaseAPI db;
 
+    @Context
+    public TTLLifeCycle ttlLifeCycle;
+
     @UserFunction
     public Map<String, Object> config() {
         TTLConfig.Values values = ttlConfig.configFor(db);
         return MapUtil.map(
                 "enabled", values.enabled,
                 "schedule", values.schedule,
-                "limit", values.limit);
+                "limit", values.limit,
+                "concurrency", values.concurrency);
+    }
+
+    @Procedure
+    @Description(
+            "CALL apoc.ttl.stats() - returns the nodes deleted by the last TTL expiry run, its deletion rate, and the backlog and lag of the expired nodes still to be deleted")
+    public Stream<TTLLifeCycle.ExpiryStats> stats() {
+        return Stream.of(ttlLifeCycle.getStats());
     }
 }
@@ -18,10 +18,16 @@
  */
 package apoc.ttl;
 
+import apoc.Pools;
 import apoc.TTLConfig;
 import apoc.util.Util;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import org.neo4j.graphdb.QueryStatistics;
 import org.neo4j.internal.helpers.collection.Iterators;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
@@ -31,24 +37,46 @@ import org.neo4j.scheduler.JobHandle;
 import org.neo4j.scheduler.JobScheduler;
 
 /**
+ * Deletes the expired `:TTL` nodes in the background.
+ *
+ * Each run walks the `:TTL(ttl)` index in order, so that the longest expired nodes are deleted first,
+ * and hands batches of `limit` nodes to at most `concurrency` parallel workers.
+ * The relationships of the expired nodes are deleted in transactions of at most `limit` relationships,
+ * so that dense nodes don't end up in a single huge transaction.
+ * The batches failed because of the workers deleting the same relationships, e.g. with a deadlock, are retried
+ * by the same run, as long as it makes progress.
+ *
  * @author mh
  * @since 15.02.17
  */
 public class TTLLifeCycle extends LifecycleAdapter {
 
     private static final Group TTL_GROUP = Group.INDEX_UPDATING;
+
+    private static final String QUERY_EXPIRED =
+            "MATCH (t:TTL) WHERE t.ttl < $now RETURN id(t) AS id ORDER BY t.ttl LIMIT $limit";
+    private static final String MATCH_EXPIRED_IDS = "MATCH (t:TTL) WHERE id(t) IN $ids AND t.ttl < $now ";
+    private static final String QUERY_RELS =
+            MATCH_EXPIRED_IDS + "MATCH (t)-[r]-() WITH DISTINCT r LIMIT $limit DELETE r";
+    private static final String QUERY_NODES = MATCH_EXPIRED_IDS + "DETACH DELETE t";
+    private static final String QUERY_BACKLOG =
+            "MATCH (t:TTL) WHERE t.ttl < $now RETURN count(t) AS backlog, min(t.ttl) AS oldest";
+
     private final JobScheduler scheduler;
     private final GraphDatabaseAPI db;
+    private final Pools pools;
     private JobHandle ttlIndexJobHandle;
     private JobHandle ttlJobHandle;
     private final TTLConfig ttlConfig;
     private final Log log;
+    private volatile ExpiryStats stats = new ExpiryStats(0, 0, 0, 0, 0, 0, 0);
 
-    public TTLLifeCycle(JobScheduler scheduler, GraphDatabaseAPI db, TTLConfig ttlConfig, Log log) {
+    public TTLLifeCycle(JobScheduler scheduler, GraphDatabaseAPI db, TTLConfig ttlConfig, Log log, Pools pools) {
         this.scheduler = scheduler;
         this.db = db;
         this.ttlConfig = ttlConfig;
         this.log = log;
+        this.pools = pools;
     }
 
     @Override
@@ -59,45 +87,112 @@ public class TTLLifeCycle extends LifecycleAdapter {
             ttlIndexJobHandle =
                     scheduler.schedule(TTL_GROUP, this::createTTLIndex, (int) (ttlScheduleDb * 0.8), TimeUnit.SECONDS);
             long limitDb = configValues.limit;
+            int concurrencyDb = configValues.concurrency;
             ttlJobHandle = scheduler.scheduleRecurring(
-                    TTL_GROUP, () -> expireNodes(limitDb), ttlScheduleDb, ttlScheduleDb, TimeUnit.SECONDS);
+                    TTL_GROUP,
+                    () -> expireNodes(limitDb, concurrencyDb),
+                    ttlScheduleDb,
+                    ttlScheduleDb,
+                    TimeUnit.SECONDS);
         }
     }
 
     public void expireNodes(long limit) {
+        expireNodes(limit, TTLConfig.DEFAULT_CONCURRENCY);
+    }
+
+    public void expireNodes(long limit, int concurrency) {
         try {
             if (!Util.isWriteableInstance(db)) return;
 
-            final String matchTTL = "MATCH (t:TTL) WHERE t.ttl < timestamp() ";
-            final String queryRels = matchTTL + "WITH t MATCH (t)-[r]-() WITH r LIMIT $limit DELETE r RETURN r";
-            final String queryNodes = matchTTL + "WITH t LIMIT $limit DETACH DELETE t RETURN t";
+            long start = System.currentTimeMillis();
+            long nodesDeleted = 0;
+            long relationshipsDeleted = 0;
+            long roundSize = limit * concurrency;
+            while (true) {
+                List<Long> expired = db.executeTransactionally(
+                        QUERY_EXPIRED,
+                        Map.of("now", start, "limit", roundSize),
+                        result -> Iterators.asList(result.<Long>columnAs("id")));
+                if (expired.isEmpty()) break;
 
-            long relationshipsDeleted = deleteEntities(limit, queryRels);
-            long nodesDeleted = deleteEntities(limit, queryNodes);
+                List<Future<long[]>> futures = new ArrayList<>();
+                for (int from = 0; from < expired.size(); from += limit) {
+                    List<Long> ids = expired.subList(from, (int) Math.min(from + limit, expired.size()));
+                    futures.add(pools.getDefaultExecutorService().submit(() -> deleteExpired(ids, start, limit)));
+                }
+                long roundNodesDeleted = 0;
+                boolean failed = false;
+                for (Future<long[]> future : futures) {
+                    try {
+                        long[] deleted = future.get();
+                        relationshipsDeleted += deleted[0];
+                        roundNodesDeleted += deleted[1];
+                    } catch (ExecutionException e) {
+                        // e.g. a deadlock between two workers deleting a relationship between their nodes,
+                        // the nodes are still expired and are picked up again by the next round
+                        log.warn("TTL: Error deleting a batch of expired nodes", e.getCause());
+                        failed = true;
+                    }
+                }
+                nodesDeleted += roundNodesDeleted;
+                if (roundNodesDeleted == 0 || (expired.size() < roundSize && !failed)) break;
+            }
 
+            long end = System.currentTimeMillis();
+            stats = computeStats(start, end, nodesDeleted, relationshipsDeleted);
             if (nodesDeleted > 0) {
-                log.info("TTL: Expired %d nodes %d relationships", nodesDeleted, relationshipsDeleted);
+                log.info(
+                        "TTL: Expired %d nodes %d relationships in %d ms, backlog %d nodes, lag %d ms",
+                        nodesDeleted, relationshipsDeleted, end - start, stats.backlog, stats.lag);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             log.error("TTL: Error deleting expired nodes", e);
         }
     }
 
-    private long deleteEntities(long limit, String query) {
-        return deleteEntities(limit, query, 0);
+    /**
+     * Deletes the relationships of the expired nodes in batches of at most `limit`, until there are none left,
+     * then the nodes themselves
+     *
+     * @return the number of deleted relationships and nodes
+     */
+    private long[] deleteExpired(List<Long> ids, long now, long limit) {
+        Map<String, Object> params = Map.of("ids", ids, "now", now, "limit", limit);
+        long relationshipsDeleted = 0;
+        long deleted;
+        while ((deleted = execute(QUERY_RELS, params).getRelationshipsDeleted()) > 0) {
+            relationshipsDeleted += deleted;
+        }
+        QueryStatistics nodes = execute(QUERY_NODES, params);
+        return new long[] {relationshipsDeleted + nodes.getRelationshipsDeleted(), nodes.getNodesDeleted()};
     }
 
     /**
-     * Delete entities in batches, until the result is 0
+     * The statistics count only what has actually been deleted, so a relationship between the nodes of two workers
+     * is counted once, even if both of them matched it
      */
-    private long deleteEntities(long limit, String query, long deleted) {
-        long currDeleted = db.executeTransactionally(query, Map.of("limit", limit), Iterators::count);
+    private QueryStatistics execute(String query, Map<String, Object> params) {
+        return db.executeTransactionally(query, params, result -> {
+            Iterators.count(result);
+            return result.getQueryStatistics();
+        });
+    }
 
-        if (currDeleted > 0) {
-            deleted += currDeleted;
-            return deleteEntities(limit, query, deleted);
-        }
-        return deleted;
+    private ExpiryStats computeStats(long start, long end, long nodesDeleted, long relationshipsDeleted) {
+        Map<String, Object> backlog = db.executeTransactionally(
+                QUERY_BACKLOG, Map.of("now", end), result -> Iterators.single(result));
+        Object oldest = backlog.get("oldest");
+        long lag = oldest instanceof Number ? end - ((Number) oldest).longValue() : 0;
+        double deletionRate = end > start ? nodesDeleted * 1000.0 / (end - start) : 0;
+        return new ExpiryStats(
+                start, end - start, nodesDeleted, relationshipsDeleted, deletionRate, (long) backlog.get("backlog"), lag);
+    }
+
+    public ExpiryStats getStats() {
+        return stats;
     }
 
     public void createTTLIndex() {
@@ -113,4 +208,34 @@ public class TTLLifeCycle extends LifecycleAdapter {
         if (ttlIndexJobHandle != null) ttlIndexJobHandle.cancel();
         if (ttlJobHandle != null) ttlJobHandle.cancel();
     }
+
+    public static class ExpiryStats {
+        public final long lastRun;
+        public final long duration;
+        public final long nodesDeleted;
+        public final long relationshipsDeleted;
+        // nodes per second
+        public final double deletionRate;
+        // expired nodes still to be deleted at the end of the last run
+        public final long backlog;
+        // how long ago, in milliseconds, the oldest node of the backlog expired
+        public final long lag;
+
+        public ExpiryStats(
+                long lastRun,
+                long duration,
+                long nodesDeleted,
+                long relationshipsDeleted,
+                double deletionRate,
+                long backlog,
+                long lag) {
+            this.lastRun = lastRun;
+            this.duration = duration;
+            this.nodesDeleted = nodesDeleted;
+            this.relationshipsDeleted = relationshipsDeleted;
+            this.deletionRate = deletionRate;
+            this.backlog = backlog;
+            this.lag = lag;
+        }
+    }
 }
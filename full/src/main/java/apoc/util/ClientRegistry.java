@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.util;
+
+import static apoc.ApocConfig.apocConfig;
+
+import apoc.Pools;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Shares the clients of an external database between the procedure calls with the same key,
+ * e.g. the uri and the config of `apoc.redis.*`, `apoc.mongo.*` and `apoc.couchbase.*`.
+ * The shared clients must be thread-safe.
+ *
+ * A client is closed once it hasn't been used for `apoc.&lt;name&gt;.pool.idle_timeout` seconds,
+ * and it is health checked before being handed out again after having been idle.
+ * When there are already `apoc.&lt;name&gt;.pool.max_size` clients, the least recently used idle one is closed,
+ * or, if all of them are in use, the call gets a client of its own which is closed on release.
+ * As there is one client per key, `max_size` bounds the number of distinct keys: the connections opened by each client,
+ * e.g. the connection pool of a MongoDB client, are left to the client itself.
+ *
+ * NOTE: the registries are GLOBAL components, so only once per DBMS
+ */
+public class ClientRegistry<K, C extends AutoCloseable> {
+    private static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 300;
+    private static final int DEFAULT_MAX_SIZE = 100;
+    private static final long HEALTH_CHECK_AFTER_MILLIS = 30_000;
+
+    private static final Map<String, ClientRegistry<?, ?>> registries = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final Map<K, PooledClient<C>> clients = new ConcurrentHashMap<>();
+    private final Predicate<C> healthCheck;
+    private final long idleTimeoutMillis;
+    private final int maxSize;
+    private final ScheduledFuture<?> eviction;
+
+    // visible for testing
+    ClientRegistry(
+            String name,
+            ScheduledExecutorService scheduler,
+            Predicate<C> healthCheck,
+            long idleTimeoutMillis,
+            int maxSize) {
+        this.name = name;
+        this.healthCheck = healthCheck;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxSize = maxSize;
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        this.eviction =
+                scheduler.scheduleWithFixedDelay(this::evictIdleClients, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param name the name of the registry, used in the `apoc.&lt;name&gt;.pool.*` config keys
+     * @param healthCheck returns false if a client which has been idle can't be used anymore
+     * @return the shared registry, or null if the pool is disabled via `apoc.&lt;name&gt;.pool.enabled=false`
+     */
+    public static <K, C extends AutoCloseable> ClientRegistry<K, C> get(
+            String name, Pools pools, Predicate<C> healthCheck) {
+        if (pools == null || !apocConfig().getBoolean(configKey(name, "enabled"), true)) {
+            return null;
+        }
+        return (ClientRegistry<K, C>) registries.computeIfAbsent(name, n -> {
+            int idleTimeout = apocConfig().getInt(configKey(n, "idle_timeout"), DEFAULT_IDLE_TIMEOUT_SECONDS);
+            int maxSize = apocConfig().getInt(configKey(n, "max_size"), DEFAULT_MAX_SIZE);
+            return new ClientRegistry<>(
+                    n,
+                    pools.getScheduledExecutorService(),
+                    healthCheck,
+                    TimeUnit.SECONDS.toMillis(idleTimeout),
+                    maxSize);
+        });
+    }
+
+    /**
+     * @return a lease of a client which isn't shared with the other calls, if the registry is null
+     */
+    public static <K, C extends AutoCloseable> Lease<C> acquire(
+            ClientRegistry<K, C> registry, K key, Supplier<C> factory) {
+        return registry == null ? Lease.unpooled(factory.get()) : registry.acquire(key, factory);
+    }
+
+    public static String configKey(String name, String setting) {
+        return "apoc." + name + ".pool." + setting;
+    }
+
+    /**
+     * Closes the clients of all the registries, called on DBMS shutdown
+     */
+    public static void shutdownAll() {
+        registries.values().forEach(ClientRegistry::shutdown);
+        registries.clear();
+    }
+
+    void shutdown() {
+        eviction.cancel(false);
+        clients.values().forEach(PooledClient::close);
+        clients.clear();
+    }
+
+    /**
+     * @return a lease of the client for the key, which must be closed once the client is not used anymore
+     */
+    public Lease<C> acquire(K key, Supplier<C> factory) {
+        while (true) {
+            PooledClient<C> pooled = clients.get(key);
+            if (pooled == null) {
+                if (clients.size() >= maxSize && !evictLeastRecentlyUsed()) {
+                    return Lease.unpooled(factory.get());
+                }
+                // connecting is done outside the map, so that it doesn't block the calls for the other keys
+                PooledClient<C> created = new PooledClient<>(factory.get());
+                created.inUse.incrementAndGet();
+                if (clients.putIfAbsent(key, created) == null) {
+                    return lease(created);
+                }
+                // another call installed a client for the same key in the meantime
+                created.close();
+                continue;
+            }
+            AtomicBoolean healthCheckDue = new AtomicBoolean();
+            PooledClient<C> acquired = clients.computeIfPresent(key, (k, existing) -> {
+                // evaluated atomically with the eviction, so a client that is being handed out is not closed
+                if (existing == pooled) {
+                    boolean idle = existing.inUse.getAndIncrement() == 0;
+                    long idleMillis = System.currentTimeMillis() - existing.lastUsed;
+                    healthCheckDue.set(idle && idleMillis >= HEALTH_CHECK_AFTER_MILLIS);
+                }
+                return existing;
+            });
+            if (acquired != pooled) {
+                // evicted or replaced in the meantime
+                continue;
+            }
+            if (healthCheckDue.get() && !isHealthy(pooled)) {
+                // the calls which got the client in the meantime keep it, it's closed once all of them release it
+                clients.remove(key, pooled);
+                pooled.retired = true;
+                release(pooled);
+                continue;
+            }
+            return lease(pooled);
+        }
+    }
+
+    private Lease<C> lease(PooledClient<C> pooled) {
+        return new Lease<>(pooled.client, () -> release(pooled));
+    }
+
+    private void release(PooledClient<C> pooled) {
+        pooled.lastUsed = System.currentTimeMillis();
+        if (pooled.inUse.decrementAndGet() == 0 && pooled.retired) {
+            pooled.close();
+        }
+    }
+
+    private boolean isHealthy(PooledClient<C> pooled) {
+        try {
+            return healthCheck.test(pooled.client);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private boolean evictLeastRecentlyUsed() {
+        return clients.entrySet().stream()
+                .filter(e -> e.getValue().inUse.get() == 0)
+                .min(Comparator.comparingLong(e -> e.getValue().lastUsed))
+                .map(e -> evictIf(e.getKey(), pooled -> pooled.inUse.get() == 0))
+                .orElse(false);
+    }
+
+    void evictIdleClients() {
+        long now = System.currentTimeMillis();
+        clients.keySet()
+                .forEach(key ->
+                        evictIf(key, pooled -> pooled.inUse.get() == 0 && now - pooled.lastUsed >= idleTimeoutMillis));
+    }
+
+    private boolean evictIf(K key, Predicate<PooledClient<C>> condition) {
+        AtomicBoolean evicted = new AtomicBoolean();
+        clients.computeIfPresent(key, (k, pooled) -> {
+            // evaluated atomically with acquire, so a client that is being handed out is not closed
+            if (condition.test(pooled)) {
+                pooled.close();
+                evicted.set(true);
+                return null;
+            }
+            return pooled;
+        });
+        return evicted.get();
+    }
+
+    public int size() {
+        return clients.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private static class PooledClient<C extends AutoCloseable> {
+        private final C client;
+        private final AtomicInteger inUse = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long lastUsed = System.currentTimeMillis();
+        // removed from the registry, as it failed the health check
+        private volatile boolean retired;
+
+        PooledClient(C client) {
+            this.client = client;
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                Util.close(client);
+            }
+        }
+    }
+
+    /**
+     * A client handed out by the registry, closing the lease hands it back, and it can be closed more than once
+     */
+    public static class Lease<C extends AutoCloseable> implements AutoCloseable {
+        private final C client;
+        private final Runnable release;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Lease(C client, Runnable release) {
+            this.client = client;
+            this.release = release;
+        }
+
+        static <C extends AutoCloseable> Lease<C> unpooled(C client) {
+            return new Lease<>(client, () -> Util.close(client));
+        }
+
+        public C get() {
+            return client;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release.run();
+            }
+        }
+    }
+}
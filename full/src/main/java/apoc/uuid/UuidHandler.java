@@ -19,6 +19,7 @@
 package apoc.uuid;
 
 import static apoc.ApocConfig.APOC_UUID_FORMAT;
+import static apoc.ApocConfig.APOC_UUID_GENERATOR;
 import static apoc.util.SystemDbUtil.getLastUpdate;
 import static apoc.uuid.Uuid.setExistingNodes;
 import static apoc.uuid.UuidConfig.*;
@@ -28,6 +29,8 @@ import apoc.Pools;
 import apoc.SystemLabels;
 import apoc.SystemPropertyKeys;
 import apoc.util.Util;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -37,7 +40,8 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
-import org.apache.commons.collections4.IterableUtils;
+import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
 import org.neo4j.dbms.api.DatabaseManagementService;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
@@ -50,6 +54,11 @@ import org.neo4j.graphdb.event.TransactionEventListener;
 import org.neo4j.graphdb.schema.ConstraintDefinition;
 import org.neo4j.graphdb.schema.Schema;
 import org.neo4j.internal.helpers.collection.Pair;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.TokenSet;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 import org.neo4j.logging.Log;
@@ -68,6 +77,7 @@ public class UuidHandler extends LifecycleAdapter implements TransactionEventLis
     private final AtomicReference<Map<String, UuidConfig>> labelAndPropertyNamesSnapshot =
             new AtomicReference<>(Map.of());
     private final ApocConfig.UuidFormatType uuidFormat;
+    private final ApocConfig.UuidGeneratorType uuidGenerator;
     private final JobScheduler jobScheduler;
     private final Pools pools;
 
@@ -92,6 +102,8 @@ public class UuidHandler extends LifecycleAdapter implements TransactionEventLis
         this.apocConfig = apocConfig;
         this.uuidFormat = apocConfig.getEnumProperty(
                 APOC_UUID_FORMAT, ApocConfig.UuidFormatType.class, ApocConfig.UuidFormatType.hex);
+        this.uuidGenerator = apocConfig.getEnumProperty(
+                APOC_UUID_GENERATOR, ApocConfig.UuidGeneratorType.class, ApocConfig.UuidGeneratorType.random);
         this.jobScheduler = jobScheduler;
         this.pools = pools;
     }
@@ -134,77 +146,114 @@ public class UuidHandler extends LifecycleAdapter implements TransactionEventLis
         }
     }
 
-    private void checkAndRestoreUuidProperty(
-            Iterable<PropertyEntry<Node>> nodeProperties, String label, String uuidProperty, TransactionData txData) {
-        checkAndRestoreUuidProperty(nodeProperties, label, uuidProperty, txData, null);
-    }
+    @Override
+    public Void beforeCommit(TransactionData txData, Transaction transaction, GraphDatabaseService databaseService) {
+        Map<String, UuidConfig> configs = labelAndPropertyNamesSnapshot.get();
+        if (configs.isEmpty()) {
+            return null;
+        }
 
-    private void checkAndRestoreUuidProperty(
-            Iterable<PropertyEntry<Node>> nodeProperties,
-            String label,
-            String uuidProperty,
-            TransactionData txData,
-            Predicate<PropertyEntry<Node>> predicate) {
-        if (nodeProperties.iterator().hasNext()) {
-            nodeProperties.forEach(nodePropertyEntry -> {
-                Node entity = nodePropertyEntry.entity();
-                if (txData.isDeleted(entity)) {
-                    return;
+        KernelTransaction ktx = ((InternalTransaction) transaction).kernelTransaction();
+        TokenRead tokenRead = ktx.tokenRead();
+        // the configured labels by label id, the ones with addToSetLabels apply to the existing nodes as well
+        IntObjectHashMap<String> createdNodesLabels = new IntObjectHashMap<>();
+        IntObjectHashMap<String> setLabels = new IntObjectHashMap<>();
+        configs.forEach((label, config) -> {
+            int labelId = tokenRead.nodeLabel(label);
+            if (labelId != TokenRead.NO_TOKEN) {
+                (config.isAddToSetLabels() ? setLabels : createdNodesLabels).put(labelId, label);
+            }
+        });
+
+        if (!createdNodesLabels.isEmpty() || !setLabels.isEmpty()) {
+            // a single pass over the created nodes and, if needed, the nodes with new labels
+            LongHashSet visited = new LongHashSet();
+            try (NodeCursor nodeCursor = ktx.cursors().allocateNodeCursor(ktx.cursorContext())) {
+                for (Node node : txData.createdNodes()) {
+                    visited.add(node.getId());
+                    assignUuids(ktx, nodeCursor, node, configs, createdNodesLabels, setLabels);
                 }
-                if (predicate == null) {
-                    if (nodePropertyEntry.entity().hasLabel(Label.label(label))
-                            && nodePropertyEntry.key().equals(uuidProperty)) {
-                        nodePropertyEntry
-                                .entity()
-                                .setProperty(uuidProperty, nodePropertyEntry.previouslyCommittedValue());
-                    }
-                } else {
-                    if (nodePropertyEntry.entity().hasLabel(Label.label(label))
-                            && nodePropertyEntry.key().equals(uuidProperty)
-                            && predicate.test(nodePropertyEntry)) {
-                        nodePropertyEntry
-                                .entity()
-                                .setProperty(uuidProperty, nodePropertyEntry.previouslyCommittedValue());
+                if (!setLabels.isEmpty()) {
+                    for (LabelEntry labelEntry : txData.assignedLabels()) {
+                        Node node = labelEntry.node();
+                        if (visited.add(node.getId())) {
+                            assignUuids(ktx, nodeCursor, node, configs, null, setLabels);
+                        }
                     }
                 }
-            });
+            }
         }
-    }
 
-    @Override
-    public Void beforeCommit(TransactionData txData, Transaction transaction, GraphDatabaseService databaseService) {
+        // restore the uuids that have been removed or set to empty, grouping the labels by uuid property
+        Map<String, List<String>> labelsByProperty = new HashMap<>();
+        configs.forEach((label, config) -> labelsByProperty
+                .computeIfAbsent(config.getUuidProperty(), key -> new ArrayList<>())
+                .add(label));
+        restoreUuidProperties(
+                txData.assignedNodeProperties(),
+                labelsByProperty,
+                txData,
+                (nodePropertyEntry) ->
+                        nodePropertyEntry.value() == null || nodePropertyEntry.value().equals(""));
+        restoreUuidProperties(txData.removedNodeProperties(), labelsByProperty, txData, (nodePropertyEntry) -> true);
+        return null;
+    }
 
-        // assignedLabels handles both created nodes and set labels of existing nodes
-        Iterable<PropertyEntry<Node>> assignedNodeProperties = txData.assignedNodeProperties();
-        Iterable<PropertyEntry<Node>> removedNodeProperties = txData.removedNodeProperties();
-
-        labelAndPropertyNamesSnapshot.get().forEach((label, config) -> {
-            final String propertyName = config.getUuidProperty();
-            List<Node> nodes = config.isAddToSetLabels()
-                    ? StreamSupport.stream(txData.assignedLabels().spliterator(), false)
-                            .map(LabelEntry::node)
-                            .collect(Collectors.toList())
-                    : IterableUtils.toList(txData.createdNodes());
+    private void assignUuids(
+            KernelTransaction ktx,
+            NodeCursor nodeCursor,
+            Node node,
+            Map<String, UuidConfig> configs,
+            IntObjectHashMap<String> createdNodesLabels,
+            IntObjectHashMap<String> setLabels) {
+        ktx.dataRead().singleNode(node.getId(), nodeCursor);
+        if (!nodeCursor.next()) {
+            // deleted in the same transaction
+            return;
+        }
+        TokenSet labels = nodeCursor.labels();
+        for (int i = 0; i < labels.numberOfTokens(); i++) {
+            int labelId = labels.token(i);
+            String label = setLabels.get(labelId);
+            if (label == null && createdNodesLabels != null) {
+                label = createdNodesLabels.get(labelId);
+            }
+            if (label == null) {
+                continue;
+            }
+            String propertyName = configs.get(label).getUuidProperty();
             try {
-                nodes.forEach(node -> {
-                    if (node.hasLabel(Label.label(label)) && !node.hasProperty(propertyName)) {
-                        String uuid = generateUuidValue();
-                        node.setProperty(propertyName, uuid);
-                    }
-                });
-                checkAndRestoreUuidProperty(
-                        assignedNodeProperties,
-                        label,
-                        propertyName,
-                        txData,
-                        (nodePropertyEntry) -> nodePropertyEntry.value() == null
-                                || nodePropertyEntry.value().equals(""));
-                checkAndRestoreUuidProperty(removedNodeProperties, label, propertyName, txData);
+                if (!node.hasProperty(propertyName)) {
+                    node.setProperty(propertyName, generateUuidValue());
+                }
             } catch (Exception e) {
                 log.warn("Error executing uuid " + label + " in phase before", e);
             }
-        });
-        return null;
+        }
+    }
+
+    private void restoreUuidProperties(
+            Iterable<PropertyEntry<Node>> nodeProperties,
+            Map<String, List<String>> labelsByProperty,
+            TransactionData txData,
+            Predicate<PropertyEntry<Node>> predicate) {
+        for (PropertyEntry<Node> nodePropertyEntry : nodeProperties) {
+            List<String> labels = labelsByProperty.get(nodePropertyEntry.key());
+            Node entity = nodePropertyEntry.entity();
+            if (labels == null || txData.isDeleted(entity) || !predicate.test(nodePropertyEntry)) {
+                continue;
+            }
+            for (String label : labels) {
+                try {
+                    if (entity.hasLabel(Label.label(label))) {
+                        entity.setProperty(nodePropertyEntry.key(), nodePropertyEntry.previouslyCommittedValue());
+                        break;
+                    }
+                } catch (Exception e) {
+                    log.warn("Error executing uuid " + label + " in phase before", e);
+                }
+            }
+        }
     }
 
     @Override
@@ -218,7 +267,18 @@ public class UuidHandler extends LifecycleAdapter implements TransactionEventLis
     }
 
     private String generateUuidValue() {
-        UUID uuid = UUID.randomUUID();
+        UUID uuid;
+        switch (uuidGenerator) {
+            case fast:
+                uuid = UuidUtil.fastRandomUuid();
+                break;
+            case timeOrdered:
+                uuid = UuidUtil.timeOrderedUuid();
+                break;
+            case random:
+            default:
+                uuid = UUID.randomUUID();
+        }
         switch (uuidFormat) {
             case base64:
                 return UuidUtil.generateBase64Uuid(uuid);
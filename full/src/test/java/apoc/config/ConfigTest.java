@@ -24,6 +24,7 @@ import static apoc.ApocConfig.APOC_IMPORT_FILE_ALLOW__READ__FROM__FILESYSTEM;
 import static apoc.ApocConfig.APOC_IMPORT_FILE_ENABLED;
 import static apoc.ApocConfig.APOC_IMPORT_FILE_USE_NEO4J_CONFIG;
 import static apoc.ApocConfig.APOC_TRIGGER_ENABLED;
+import static apoc.ApocConfig.APOC_TTL_CONCURRENCY;
 import static apoc.ApocConfig.APOC_TTL_ENABLED;
 import static apoc.ApocConfig.APOC_TTL_LIMIT;
 import static apoc.ApocConfig.APOC_TTL_SCHEDULE;
@@ -52,7 +53,7 @@ public class ConfigTest {
     // the following configs are always set by default:
     // apoc.export.file.enabled, apoc.import.file.enabled, apoc.import.file.use_neo4j_config, apoc.trigger.enabled and
     // apoc.import.file.allow_read_from_filesystem
-    // apoc.ttl.enabled, apoc.ttl.limit, apoc.ttl.schedule
+    // apoc.ttl.enabled, apoc.ttl.limit, apoc.ttl.schedule, apoc.ttl.concurrency
     private static final Map<String, String> EXPECTED_APOC_CONFS = Map.ofEntries(
             entry(APOC_EXPORT_FILE_ENABLED, "false"),
             entry(APOC_IMPORT_FILE_ALLOW__READ__FROM__FILESYSTEM, "true"),
@@ -64,6 +65,7 @@ public class ConfigTest {
             entry(APOC_TTL_ENABLED, "false"),
             entry(APOC_UUID_ENABLED, "false"),
             entry(APOC_TTL_LIMIT, "1000"),
+            entry(APOC_TTL_CONCURRENCY, "1"),
             entry(APOC_TTL_SCHEDULE, "PT1M"));
 
     @Rule
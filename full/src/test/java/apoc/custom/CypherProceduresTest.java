@@ -791,6 +791,41 @@ public class CypherProceduresTest {
         TestUtil.count(db, "call custom.answer()");
     }
 
+    @Test
+    public void shouldRestoreOnlyTheChangedProcedures() {
+        db.executeTransactionally(
+                "call apoc.custom.declareProcedure('answerOne() :: (answer :: INTEGER)', 'RETURN 1 as answer')");
+        db.executeTransactionally(
+                "call apoc.custom.declareProcedure('answerTwo() :: (answer :: INTEGER)', 'RETURN 2 as answer')");
+        TestUtil.testCall(db, "call custom.answerOne()", (row) -> assertEquals(1L, row.get("answer")));
+        TestUtil.testCall(db, "call custom.answerTwo()", (row) -> assertEquals(2L, row.get("answer")));
+
+        // change the statements in systemdb, only answerOne gets a new version
+        GraphDatabaseService systemDb = db.getManagementService().database("system");
+        try (Transaction tx = systemDb.beginTx()) {
+            Node one = tx.findNode(SystemLabels.ApocCypherProcedures, SystemPropertyKeys.name.name(), "answerOne");
+            one.setProperty(SystemPropertyKeys.statement.name(), "RETURN 11 as answer");
+            one.setProperty(
+                    SystemPropertyKeys.lastUpdated.name(),
+                    (long) one.getProperty(SystemPropertyKeys.lastUpdated.name()) + 1);
+            Node two = tx.findNode(SystemLabels.ApocCypherProcedures, SystemPropertyKeys.name.name(), "answerTwo");
+            two.setProperty(SystemPropertyKeys.statement.name(), "RETURN 22 as answer");
+            tx.commit();
+        }
+
+        // refresh procedures
+        RegisterComponentFactory.RegisterComponentLifecycle registerComponentLifecycle =
+                db.getDependencyResolver().resolveDependency(RegisterComponentFactory.RegisterComponentLifecycle.class);
+        CypherProceduresHandler cypherProceduresHandler = (CypherProceduresHandler) registerComponentLifecycle
+                .getResolvers()
+                .get(CypherProceduresHandler.class)
+                .get(db.databaseName());
+        cypherProceduresHandler.restoreProceduresAndFunctions();
+
+        TestUtil.testCall(db, "call custom.answerOne()", (row) -> assertEquals(11L, row.get("answer")));
+        TestUtil.testCall(db, "call custom.answerTwo()", (row) -> assertEquals(2L, row.get("answer")));
+    }
+
     @Test
     public void shouldRemovalOfFunctionNodeDeactivate() {
         thrown.expect(QueryExecutionException.class);
@@ -25,6 +25,7 @@ import static apoc.util.TestUtil.testResult;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import apoc.graph.Graphs;
 import apoc.util.TestUtil;
@@ -37,9 +38,12 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Base64;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import org.apache.commons.lang3.time.DateUtils;
 import org.bson.BsonDouble;
 import org.bson.BsonInt32;
@@ -580,6 +584,56 @@ public class MongoTest extends MongoTestBase {
         });
     }
 
+    @Test
+    public void testInsertManyDocuments() {
+        // the documents are written with a single bulk insert
+        List<Map<String, Object>> documents = LongStream.range(0, 100)
+                .mapToObj(i -> map("multiInsert", true, "position", i))
+                .collect(Collectors.toList());
+        testResult(
+                db,
+                "CALL apoc.mongo.insert($uri, $documents)",
+                map("uri", PERSON_URI, "documents", documents),
+                (r) -> assertFalse("should be empty", r.hasNext()));
+        testResult(
+                db,
+                "CALL apoc.mongo.insert($uri, [])",
+                map("uri", PERSON_URI),
+                (r) -> assertFalse("should be empty", r.hasNext()));
+
+        testCall(
+                db,
+                "CALL apoc.mongo.find($uri, {multiInsert: true}) YIELD value "
+                        + "WITH value.position AS position ORDER BY position RETURN collect(position) AS positions",
+                map("uri", PERSON_URI),
+                r -> assertEquals(
+                        LongStream.range(0, 100).boxed().collect(Collectors.toList()), r.get("positions")));
+
+        // as with one insert per document, the documents before a failing one are inserted, the following ones aren't
+        try {
+            testResult(
+                    db,
+                    "CALL apoc.mongo.insert($uri, [{_id: 'multi-1', multiInsert: true}, {_id: 'multi-1'}, "
+                            + "{_id: 'multi-2', multiInsert: true}])",
+                    map("uri", PERSON_URI),
+                    (r) -> assertFalse("should be empty", r.hasNext()));
+            fail("The insert should fail with a duplicate key");
+        } catch (QueryExecutionException e) {
+            assertTrue(e.getMessage().contains("E11000 duplicate key error collection"));
+        }
+        testCall(
+                db,
+                "CALL apoc.mongo.count($uri, {multiInsert: true})",
+                map("uri", PERSON_URI),
+                r -> assertEquals(101L, r.get("value")));
+
+        testCall(
+                db,
+                "CALL apoc.mongo.delete($uri, {multiInsert: true})",
+                map("uri", PERSON_URI),
+                r -> assertEquals(101L, r.get("value")));
+    }
+
     @Test
     public void testInsertWithRegex() {
         testResult(
@@ -134,6 +134,31 @@ public class RedisTest {
                 r -> assertEquals(3L, r.get("value")));
     }
 
+    @Test
+    public void testMget() {
+        Map<String, Object> config = map("codec", codec);
+        for (String key : List.of("first", "third")) {
+            TestUtil.testCall(
+                    db,
+                    "CALL apoc.redis.getSet($uri, $key, $value, $config)",
+                    map("uri", URI, "key", getByCodec(key), "value", getByCodec(key + "Value"), "config", config),
+                    r -> assertNull(r.get("value")));
+        }
+
+        // the values are in the order of the keys, with a null for each missing key
+        TestUtil.testCall(
+                db,
+                "CALL apoc.redis.mget($uri, $keys, $config)",
+                map("uri", URI, "keys", getListByCodec(List.of("first", "missing", "third")), "config", config),
+                r -> {
+                    List<Object> values = (List<Object>) r.get("value");
+                    assertEquals(3, values.size());
+                    assertEquals("firstValue", fromCodec(values.get(0)));
+                    assertNull(values.get(1));
+                    assertEquals("thirdValue", fromCodec(values.get(2)));
+                });
+    }
+
     @Test
     public void testListsCommands() {
         Map<String, Object> config = map("codec", this.codec);
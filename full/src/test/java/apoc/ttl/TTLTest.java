@@ -18,18 +18,21 @@
  */
 package apoc.ttl;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import apoc.ApocSettings;
 import apoc.periodic.Periodic;
 import apoc.util.TestUtil;
 import java.time.Duration;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import org.junit.AfterClass;
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.config.Setting;
 import org.neo4j.internal.helpers.collection.Iterators;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
@@ -60,6 +63,66 @@ public class TTLTest {
                 () -> isNodeCountConsistent(0, 0), (value) -> value, 30L, TimeUnit.SECONDS);
     }
 
+    @Test
+    public void testExpireDenseNodeAndStats() throws Exception {
+        restartAndRegister(db);
+        db.executeTransactionally("CREATE (n:Foo:TTL {ttl: timestamp() + 100}) WITH n "
+                + "UNWIND range(1, 2500) AS range CREATE (n)-[:REL_TEST]->(:Baz {id: range})");
+        assertTrue(isNodeCountConsistent(1, 0));
+        org.neo4j.test.assertion.Assert.assertEventually(
+                () -> isNodeCountConsistent(0, 0), (value) -> value, 30L, TimeUnit.SECONDS);
+        TestUtil.testCall(db, "MATCH ()-[r:REL_TEST]->() RETURN count(r) AS count", (row) -> {
+            assertEquals(0L, row.get("count"));
+        });
+
+        org.neo4j.test.assertion.Assert.assertEventually(
+                () -> db.executeTransactionally(
+                        "CALL apoc.ttl.stats() YIELD lastRun, backlog, lag "
+                                + "RETURN lastRun > 0 AND backlog = 0 AND lag = 0 AS value",
+                        Map.of(),
+                        result -> (boolean) result.next().get("value")),
+                (value) -> value,
+                30L,
+                TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testExpireConcurrentlyNodesSharingRelationships() throws Exception {
+        // batches of 10 nodes deleted by 4 workers, the relationships link the nodes of different batches
+        db.restartDatabase(Map.<Setting<?>, Object>of(
+                ApocSettings.apoc_ttl_concurrency, 4, ApocSettings.apoc_ttl_limit, 10L));
+        try {
+            TestUtil.registerProcedure(db, TTL.class, Periodic.class);
+            db.executeTransactionally(
+                    "UNWIND range(0, 199) AS id CREATE (n:Foo:TTL {id: id, ttl: timestamp() + 100}) "
+                            + "WITH collect(n) AS nodes UNWIND nodes AS n "
+                            + "WITH n, nodes[(n.id + 1) % 200] AS next, nodes[(n.id + 37) % 200] AS far "
+                            + "CREATE (n)-[:REL_TEST]->(next), (n)-[:REL_TEST]->(far), (n)-[:REL_TEST]->(:Baz)");
+            assertTrue(isNodeCountConsistent(200, 0));
+
+            org.neo4j.test.assertion.Assert.assertEventually(
+                    () -> isNodeCountConsistent(0, 0), (value) -> value, 30L, TimeUnit.SECONDS);
+            // the nodes expire together, so a single run deletes all of them, and each relationship once,
+            // until the next run overwrites its stats
+            org.neo4j.test.assertion.Assert.assertEventually(
+                    () -> db.executeTransactionally(
+                            "CALL apoc.ttl.stats() YIELD nodesDeleted, relationshipsDeleted, backlog "
+                                    + "RETURN nodesDeleted = 200 AND relationshipsDeleted = 600 "
+                                    + "AND backlog = 0 AS value",
+                            Map.of(),
+                            result -> (boolean) result.next().get("value")),
+                    (value) -> value,
+                    30L,
+                    TimeUnit.SECONDS);
+            TestUtil.testCall(db, "MATCH ()-[r:REL_TEST]->() RETURN count(r) AS count", (row) -> {
+                assertEquals(0L, row.get("count"));
+            });
+        } finally {
+            db.restartDatabase(Map.<Setting<?>, Object>of(
+                    ApocSettings.apoc_ttl_concurrency, 1, ApocSettings.apoc_ttl_limit, 1000L));
+        }
+    }
+
     // test extracted from apoc.date
     @Test
     public void testExpire() throws Exception {
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+public class ClientRegistryTest {
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private ClientRegistry<String, TestClient> registry;
+
+    @AfterClass
+    public static void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @After
+    public void shutdown() {
+        if (registry != null) {
+            registry.shutdown();
+        }
+    }
+
+    @Test
+    public void testClientIsSharedByKey() {
+        registry = new ClientRegistry<>("test", scheduler, client -> true, 60_000, 10);
+        TestClient first;
+        try (ClientRegistry.Lease<TestClient> lease = registry.acquire("a", TestClient::new)) {
+            first = lease.get();
+        }
+        assertFalse(first.closed);
+        try (ClientRegistry.Lease<TestClient> lease = registry.acquire("a", TestClient::new)) {
+            assertSame(first, lease.get());
+        }
+        try (ClientRegistry.Lease<TestClient> lease = registry.acquire("b", TestClient::new)) {
+            assertNotSame(first, lease.get());
+        }
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void testIdleClientsAreEvicted() throws InterruptedException {
+        registry = new ClientRegistry<>("test", scheduler, client -> true, 10, 10);
+        ClientRegistry.Lease<TestClient> inUse = registry.acquire("a", TestClient::new);
+        TestClient idle;
+        try (ClientRegistry.Lease<TestClient> lease = registry.acquire("b", TestClient::new)) {
+            idle = lease.get();
+        }
+        Thread.sleep(20);
+        registry.evictIdleClients();
+
+        assertTrue(idle.closed);
+        assertFalse(inUse.get().closed);
+        assertEquals(1, registry.size());
+        inUse.close();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedClientIsEvictedWhenFull() throws InterruptedException {
+        registry = new ClientRegistry<>("test", scheduler, client -> true, 60_000, 2);
+        ClientRegistry.Lease<TestClient> oldest = registry.acquire("a", TestClient::new);
+        oldest.close();
+        Thread.sleep(5);
+        registry.acquire("b", TestClient::new).close();
+
+        try (ClientRegistry.Lease<TestClient> lease = registry.acquire("c", TestClient::new)) {
+            assertFalse(lease.get().closed);
+        }
+        assertTrue(oldest.get().closed);
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void testUnsharedClientWhenAllAreInUse() {
+        registry = new ClientRegistry<>("test", scheduler, client -> true, 60_000, 1);
+        try (ClientRegistry.Lease<TestClient> inUse = registry.acquire("a", TestClient::new)) {
+            ClientRegistry.Lease<TestClient> unshared = registry.acquire("b", TestClient::new);
+            assertEquals(1, registry.size());
+            unshared.close();
+            // closing the lease twice doesn't release it twice
+            unshared.close();
+            assertTrue(unshared.get().closed);
+            assertFalse(inUse.get().closed);
+        }
+    }
+
+    private static class TestClient implements AutoCloseable {
+        private volatile boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}